@@ -0,0 +1,26 @@
+package de.sfuhrm.logwebconfig;
+
+/** The run settings shared by the benchmarks.
+ * */
+final class BenchmarkDefaults {
+
+    /** Number of warmup iterations. */
+    static final int WARMUP_ITERATIONS = 3;
+
+    /** Number of measurement iterations. */
+    static final int MEASUREMENT_ITERATIONS = 5;
+
+    /** Seconds per iteration of the network benchmarks. */
+    static final int NETWORK_SECONDS = 2;
+
+    /** Number of client threads of the network benchmarks. */
+    static final int NETWORK_THREADS = 4;
+
+    /** Number of logging threads of the logging benchmarks. */
+    static final int LOGGING_THREADS = 4;
+
+    /** No instance allowed. */
+    private BenchmarkDefaults() {
+
+    }
+}
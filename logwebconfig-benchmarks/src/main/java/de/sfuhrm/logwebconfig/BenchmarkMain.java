@@ -0,0 +1,44 @@
+package de.sfuhrm.logwebconfig;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Runs the benchmarks.
+ * Accepts the JMH command line options. Unless given otherwise,
+ * the results are written as JSON to {@code jmh-result.json}
+ * to compare releases.
+ * */
+public final class BenchmarkMain {
+
+    /** The default file to write the results to. */
+    private static final String RESULT_FILE = "jmh-result.json";
+
+    /** No instance allowed. */
+    private BenchmarkMain() {
+
+    }
+
+    /** Main method of the benchmarks.
+     * @param args the JMH command line options.
+     * @throws CommandLineOptionException if the options are illegal.
+     * @throws RunnerException if running the benchmarks fails.
+     * */
+    public static void main(final String[] args)
+            throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result(RESULT_FILE);
+        }
+        new Runner(options.build()).run();
+    }
+}
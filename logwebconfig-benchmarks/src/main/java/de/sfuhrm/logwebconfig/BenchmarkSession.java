@@ -0,0 +1,115 @@
+package de.sfuhrm.logwebconfig;
+
+import fi.iki.elonen.NanoHTTPD;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** A fixed request that can be served again and again without
+ * a network connection.
+ * */
+final class BenchmarkSession implements NanoHTTPD.IHTTPSession {
+
+    /** The method of the request. */
+    private final NanoHTTPD.Method method;
+
+    /** The URI of the request. */
+    private final String uri;
+
+    /** The headers of the request. */
+    private final Map<String, String> headers = new HashMap<>();
+
+    /** The body of the request. */
+    private final byte[] body;
+
+    /** Constructs a new session.
+     * @param inMethod the method of the request.
+     * @param inUri the URI of the request.
+     * @param inBody the body of the request.
+     * */
+    BenchmarkSession(final NanoHTTPD.Method inMethod,
+                     final String inUri,
+                     final String inBody) {
+        this.method = inMethod;
+        this.uri = inUri;
+        this.body = inBody.getBytes(StandardCharsets.UTF_8);
+        headers.put("content-length", Integer.toString(body.length));
+        headers.put("remote-addr", "127.0.0.1");
+    }
+
+    /** Adds a request header.
+     * @param name the lower case name of the header.
+     * @param value the value of the header.
+     * @return this session.
+     * */
+    BenchmarkSession withHeader(final String name, final String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    @Override
+    public void execute() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public NanoHTTPD.CookieHandler getCookies() {
+        return null;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public NanoHTTPD.Method getMethod() {
+        return method;
+    }
+
+    @Override
+    @Deprecated
+    public Map<String, String> getParms() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, List<String>> getParameters() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public String getQueryParameterString() {
+        return null;
+    }
+
+    @Override
+    public String getUri() {
+        return uri;
+    }
+
+    @Override
+    public void parseBody(final Map<String, String> files) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getRemoteIpAddress() {
+        return headers.get("remote-addr");
+    }
+
+    @Override
+    public String getRemoteHostName() {
+        return "localhost";
+    }
+}
@@ -0,0 +1,83 @@
+package de.sfuhrm.logwebconfig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks reading and changing levels through the bridges
+ * in logger hierarchies of different sizes.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = BenchmarkDefaults.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = BenchmarkDefaults.MEASUREMENT_ITERATIONS,
+        time = 1)
+@Fork(1)
+public class BridgeBenchmark {
+
+    /** The logging framework to benchmark. */
+    @Param({"log4j1", "log4j2"})
+    private String framework;
+
+    /** The number of loggers in the hierarchy. */
+    @Param({"1000", "10000", "100000"})
+    private int loggerCount;
+
+    /** The loggers of the hierarchy, kept so they are not collected. */
+    private List<Object> loggers;
+
+    /** The resource of a logger in the middle of the hierarchy. */
+    private LogFrameworkBridge.LoggerResource resource;
+
+    /** Toggles between two levels on every change. */
+    private boolean toggle;
+
+    /** Creates the logger hierarchy.
+     * @throws IOException if the server can not be created.
+     * @throws ServerException if the framework is unknown.
+     * */
+    @Setup
+    public void setup() throws IOException, ServerException {
+        LogFrameworkBridge bridge = new Server(null, 0, false)
+                .getLogFrameworkBridge(framework);
+        loggers = LoggerHierarchy.create(bridge, loggerCount);
+        resource = bridge.findLoggerResource(
+                LoggerHierarchy.name(loggerCount / 2)).get();
+        resource.setLevel("INFO");
+    }
+
+    /** Reads the level of a logger.
+     * @return the level.
+     * */
+    @Benchmark
+    public String getLevel() {
+        return resource.getLevel();
+    }
+
+    /** Changes the level of a logger.
+     * @return the resource.
+     * */
+    @Benchmark
+    public LogFrameworkBridge.LoggerResource setLevel() {
+        toggle = !toggle;
+        if (toggle) {
+            resource.setLevel("DEBUG");
+        } else {
+            resource.setLevel("INFO");
+        }
+        return resource;
+    }
+}
@@ -0,0 +1,74 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks logging an enabled log4j2 event with and without
+ * event counting. The logger has no appenders, so the benchmark
+ * shows the cost of the counting filter.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = BenchmarkDefaults.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = BenchmarkDefaults.MEASUREMENT_ITERATIONS,
+        time = 1)
+@Threads(BenchmarkDefaults.LOGGING_THREADS)
+@Fork(1)
+public class EventCountingBenchmark {
+
+    /** The name of the logger. */
+    private static final String LOGGER = "de.sfuhrm.counting.Benchmark";
+
+    /** Whether the events are counted. */
+    @Param({"false", "true"})
+    private boolean counting;
+
+    /** The bridge counting the events. */
+    private Log4J2Bridge bridge;
+
+    /** The logger to log with. */
+    private Logger logger;
+
+    /** Enables the logger and starts the counting. */
+    @Setup
+    public void setup() {
+        Configurator.setLevel(LOGGER, Level.INFO);
+        logger = LogManager.getLogger(LOGGER);
+        ((org.apache.logging.log4j.core.Logger) logger).get()
+                .setAdditive(false);
+        bridge = new Log4J2Bridge();
+        if (counting) {
+            bridge.startEventCounting(new EventCounters());
+        }
+    }
+
+    /** Stops the counting. */
+    @TearDown
+    public void tearDown() {
+        bridge.stopEventCounting();
+    }
+
+    /** Logs an enabled event. */
+    @Benchmark
+    public void log() {
+        logger.info("event");
+    }
+}
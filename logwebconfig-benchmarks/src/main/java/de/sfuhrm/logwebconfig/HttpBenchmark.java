@@ -0,0 +1,132 @@
+package de.sfuhrm.logwebconfig;
+
+import fi.iki.elonen.NanoHTTPD;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks the throughput of HTTP requests over the loopback
+ * interface.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = BenchmarkDefaults.WARMUP_ITERATIONS,
+        time = BenchmarkDefaults.NETWORK_SECONDS)
+@Measurement(iterations = BenchmarkDefaults.MEASUREMENT_ITERATIONS,
+        time = BenchmarkDefaults.NETWORK_SECONDS)
+@Threads(BenchmarkDefaults.NETWORK_THREADS)
+@Fork(1)
+public class HttpBenchmark {
+
+    /** The loopback address. */
+    private static final String LOOPBACK = "127.0.0.1";
+
+    /** The size of the buffer to drain responses with. */
+    private static final int BUFFER_SIZE = 256;
+
+    /** The execution mode of the server. The pool modes get one
+     * thread per client thread, because each keep-alive connection
+     * occupies a thread. */
+    @Param({"THREAD", "POOL"})
+    private String executionMode;
+
+    /** The running server. */
+    private Server server;
+
+    /** The URL of the root logger level. */
+    private URL url;
+
+    /** The ETag of the root logger level. */
+    private String etag;
+
+    /** Starts the server on a free port.
+     * @throws IOException if the server can not be started.
+     * */
+    @Setup
+    public void setup() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.bind(new InetSocketAddress(LOOPBACK, 0));
+            port = socket.getLocalPort();
+        }
+        server = new Server(LOOPBACK, port, false);
+        server.setAsyncRunner(ExecutionMode.valueOf(
+                executionMode.toUpperCase(Locale.ROOT))
+                .newAsyncRunner(BenchmarkDefaults.NETWORK_THREADS,
+                        BenchmarkDefaults.NETWORK_THREADS));
+        server.start(NanoHTTPD.SOCKET_READ_TIMEOUT, true);
+        url = new URL("http", LOOPBACK, port, "/log4j2//level");
+        HttpURLConnection connection =
+                (HttpURLConnection) url.openConnection();
+        etag = connection.getHeaderField("ETag");
+        drain(connection);
+    }
+
+    /** Stops the server. */
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    /** Gets the root logger level with a keep-alive connection.
+     * @return the status code.
+     * @throws IOException if the request fails.
+     * */
+    @Benchmark
+    public int getLevel() throws IOException {
+        HttpURLConnection connection =
+                (HttpURLConnection) url.openConnection();
+        return drain(connection);
+    }
+
+    /** Gets the unchanged root logger level with the ETag of the last
+     * response, as a polling dashboard does.
+     * @return the status code.
+     * @throws IOException if the request fails.
+     * */
+    @Benchmark
+    public int getLevelNotModified() throws IOException {
+        HttpURLConnection connection =
+                (HttpURLConnection) url.openConnection();
+        connection.setRequestProperty("If-None-Match", etag);
+        return drain(connection);
+    }
+
+    /** Reads the response of a request.
+     * @param connection the connection of the request.
+     * @return the status code.
+     * @throws IOException if the request fails.
+     * */
+    private static int drain(final HttpURLConnection connection)
+            throws IOException {
+        int status = connection.getResponseCode();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = connection.getInputStream()) {
+            while (inputStream.read(buffer) != -1) {
+                // drain so the connection can be reused
+                continue;
+            }
+        }
+        return status;
+    }
+}
@@ -0,0 +1,109 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks a single log4j2 level change in contexts of different
+ * sizes. The incremental update of the bridge is compared to the
+ * update of all loggers that {@code Configurator} does. Both work on
+ * the context of the bridge.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = BenchmarkDefaults.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = BenchmarkDefaults.MEASUREMENT_ITERATIONS,
+        time = 1)
+@Fork(1)
+public class Log4j2UpdateBenchmark {
+
+    /** The number of loggers in the context. */
+    @Param({"1000", "10000", "100000"})
+    private int loggerCount;
+
+    /** The bridge to change the levels with. */
+    private Log4J2Bridge bridge;
+
+    /** The context of the bridge. */
+    private LoggerContext context;
+
+    /** The loggers of the context, kept so they are not collected. */
+    private List<Object> loggers;
+
+    /** The name of a logger without descendants. */
+    private String leaf;
+
+    /** The name of a package with one hundred loggers. */
+    private String subtree;
+
+    /** Toggles between two levels on every change. */
+    private boolean toggle;
+
+    /** Creates the loggers and the logger configurations. */
+    @Setup
+    public void setup() {
+        bridge = new Log4J2Bridge();
+        context = bridge.getLoggerContext();
+        loggers = LoggerHierarchy.create(bridge, loggerCount);
+        leaf = LoggerHierarchy.name(loggerCount / 2);
+        subtree = LoggerHierarchy.packageName(0);
+        bridge.setLevel(leaf, Level.INFO);
+        bridge.setLevel(subtree, Level.INFO);
+    }
+
+    /** Get the level for the next change.
+     * @return the level toggling between two values.
+     * */
+    private Level nextLevel() {
+        toggle = !toggle;
+        if (toggle) {
+            return Level.DEBUG;
+        }
+        return Level.INFO;
+    }
+
+    /** Changes the level of one logger incrementally.
+     * @return the bridge.
+     * */
+    @Benchmark
+    public Log4J2Bridge setLeafLevel() {
+        bridge.setLevel(leaf, nextLevel());
+        return bridge;
+    }
+
+    /** Changes the level of a package incrementally.
+     * @return the bridge.
+     * */
+    @Benchmark
+    public Log4J2Bridge setSubtreeLevel() {
+        bridge.setLevel(subtree, nextLevel());
+        return bridge;
+    }
+
+    /** Changes the level of one logger updating all loggers, like
+     * {@code Configurator.setLevel} does for an existing logger
+     * configuration.
+     * @return the name of the logger.
+     * */
+    @Benchmark
+    public String setLeafLevelWithUpdateLoggers() {
+        context.getConfiguration().getLoggerConfig(leaf)
+                .setLevel(nextLevel());
+        context.updateLoggers();
+        return leaf;
+    }
+}
@@ -0,0 +1,62 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.logging.log4j.core.LoggerContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Creates logger hierarchies for the benchmarks.
+ * */
+final class LoggerHierarchy {
+
+    /** Number of loggers per package. */
+    private static final int PACKAGE_SIZE = 100;
+
+    /** No instance allowed. */
+    private LoggerHierarchy() {
+
+    }
+
+    /** Gets the name of a logger in the hierarchy.
+     * @param index the index of the logger.
+     * @return the name of the logger.
+     * */
+    static String name(final int index) {
+        return packageName(index / PACKAGE_SIZE) + ".Logger" + index;
+    }
+
+    /** Gets the name of a package in the hierarchy.
+     * @param index the index of the package.
+     * @return the name of the package.
+     * */
+    static String packageName(final int index) {
+        return "de.sfuhrm.bench.p" + index;
+    }
+
+    /** Creates the loggers of a hierarchy in the logging framework
+     * of a bridge. The log4j2 loggers are created in the context of
+     * the bridge, which need not be the context
+     * {@code LogManager.getLogger} picks in a shaded jar.
+     * @param bridge the bridge under test.
+     * @param count the number of loggers to create.
+     * @return the loggers. The caller has to keep them, because log4j2
+     * only holds its loggers weakly and could collect them during the
+     * run.
+     * */
+    static List<Object> create(final LogFrameworkBridge bridge,
+                               final int count) {
+        List<Object> loggers = new ArrayList<>(count);
+        if (bridge instanceof Log4J2Bridge) {
+            LoggerContext context =
+                    ((Log4J2Bridge) bridge).getLoggerContext();
+            for (int i = 0; i < count; i++) {
+                loggers.add(context.getLogger(name(i)));
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                loggers.add(org.apache.log4j.LogManager.getLogger(name(i)));
+            }
+        }
+        return loggers;
+    }
+}
@@ -0,0 +1,115 @@
+package de.sfuhrm.logwebconfig;
+
+import fi.iki.elonen.NanoHTTPD;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks {@link Server#serve(NanoHTTPD.IHTTPSession)} without
+ * the network stack.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = BenchmarkDefaults.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = BenchmarkDefaults.MEASUREMENT_ITERATIONS,
+        time = 1)
+@Fork(1)
+public class ServerBenchmark {
+
+    /** The logger to query and modify. */
+    private static final String LOGGER = "de.sfuhrm.bench.Logger";
+
+    /** The server under test, not listening. */
+    private Server server;
+
+    /** The server under test with authentication. */
+    private Server authServer;
+
+    /** GET request for a logger level. */
+    private BenchmarkSession getLevel;
+
+    /** PUT request for a logger level. */
+    private BenchmarkSession putLevel;
+
+    /** GET request for an unknown URI. */
+    private BenchmarkSession badUri;
+
+    /** GET request with correct authentication. */
+    private BenchmarkSession authenticated;
+
+    /** Sets up the servers and requests.
+     * @throws IOException if the server can not be created.
+     * */
+    @Setup
+    public void setup() throws IOException {
+        server = new Server(null, 0, false);
+        authServer = new Server(null, 0, false);
+        authServer.setAuthentication("user", "password");
+
+        String uri = "/log4j2/" + LOGGER + "/level";
+        getLevel = new BenchmarkSession(NanoHTTPD.Method.GET, uri, "");
+        putLevel = new BenchmarkSession(NanoHTTPD.Method.PUT, uri, "INFO");
+        badUri = new BenchmarkSession(NanoHTTPD.Method.GET,
+                "/unknown/resource/here/too", "");
+        authenticated = new BenchmarkSession(NanoHTTPD.Method.GET, uri, "")
+                .withHeader("authorization", "Basic "
+                        + Base64.getEncoder().encodeToString(
+                                "user:password".getBytes(
+                                        StandardCharsets.ISO_8859_1)));
+    }
+
+    /** Serves a GET request of a logger level.
+     * @return the response.
+     * */
+    @Benchmark
+    public NanoHTTPD.Response serveGetLevel() {
+        return server.serve(getLevel);
+    }
+
+    /** Serves a PUT request of a logger level.
+     * @return the response.
+     * */
+    @Benchmark
+    public NanoHTTPD.Response servePutLevel() {
+        return server.serve(putLevel);
+    }
+
+    /** Serves a request that no route matches.
+     * @return the response.
+     * */
+    @Benchmark
+    public NanoHTTPD.Response serveBadUri() {
+        return server.serve(badUri);
+    }
+
+    /** Serves a GET request of a logger level with authentication.
+     * @return the response.
+     * */
+    @Benchmark
+    public NanoHTTPD.Response serveGetLevelAuthenticated() {
+        return authServer.serve(authenticated);
+    }
+
+    /** Checks the authentication of a request.
+     * @return the server for the black hole.
+     * @throws ServerException if authentication fails.
+     * */
+    @Benchmark
+    public Server checkAuthentication() throws ServerException {
+        authServer.checkAuthentication(authenticated);
+        return authServer;
+    }
+}
@@ -0,0 +1,78 @@
+package de.sfuhrm.logwebconfig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks the time the calling thread spends in
+ * {@link LogWebConfig#start()} compared to
+ * {@link LogWebConfig#startAsync()}.
+ * Every measurement is the first start in a fresh JVM, like the start
+ * of an application.
+ * */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(StartupBenchmark.FORKS)
+public class StartupBenchmark {
+
+    /** Number of JVMs to start, one measurement each. */
+    static final int FORKS = 10;
+
+    /** The pending asynchronous start, or {@code null}. */
+    private CompletableFuture<Boolean> pending;
+
+    /** Listens on any free port. */
+    @Setup(Level.Trial)
+    public void setup() {
+        System.setProperty("LOGWEBCONFIG_PORT", "0");
+    }
+
+    /** Waits for the start to finish and stops the server.
+     * @throws ExecutionException if the asynchronous start failed.
+     * @throws InterruptedException if interrupted while waiting.
+     * */
+    @TearDown(Level.Iteration)
+    public void tearDown() throws ExecutionException, InterruptedException {
+        if (pending != null) {
+            if (!pending.get()) {
+                throw new IllegalStateException("Server did not start");
+            }
+            pending = null;
+        }
+        LogWebConfig.stop();
+    }
+
+    /** Starts the server on the calling thread.
+     * @return whether the server runs.
+     * */
+    @Benchmark
+    public boolean startBlocking() {
+        LogWebConfig.start();
+        return LogWebConfig.isRunning();
+    }
+
+    /** Starts the server in the background.
+     * @return the future of the start.
+     * */
+    @Benchmark
+    public CompletableFuture<Boolean> startAsync() {
+        pending = LogWebConfig.startAsync();
+        return pending;
+    }
+}
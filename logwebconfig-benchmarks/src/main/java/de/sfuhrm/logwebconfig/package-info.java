@@ -0,0 +1,6 @@
+/**
+ * JMH benchmarks for the request path and the log framework bridges.
+ * The benchmarks live in the package of the server to access the
+ * package private classes.
+ */
+package de.sfuhrm.logwebconfig;
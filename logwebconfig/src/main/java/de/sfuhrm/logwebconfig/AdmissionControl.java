@@ -0,0 +1,219 @@
+package de.sfuhrm.logwebconfig;
+
+import fi.iki.elonen.NanoHTTPD;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Limits the requests the server processes.
+ * There is a global limit for the number of concurrent requests and
+ * a rate limit per client address.
+ * The rate limit is a {@link TokenBucket} per client.
+ * Rejected requests get a {@code 429 Too Many Requests} response.
+ * Requests waiting for a level change, long polls and event streams,
+ * hold a connection thread for a long time. They have their own limit
+ * and do not count against the concurrent requests while they wait,
+ * so the change they wait for can still be made.
+ * */
+final class AdmissionControl {
+
+    /** Number of clients after which idle clients are forgotten. */
+    private static final int MAX_CLIENTS = 1024;
+
+    /** The default maximum number of requests waiting for a change. */
+    static final int DEFAULT_MAX_WAITING = 64;
+
+    /** The HTTP header telling the client when to retry. */
+    private static final String RETRY_AFTER = "Retry-After";
+
+    /** Maximum number of concurrent requests, 0 for unlimited. */
+    private final int maxConcurrent;
+
+    /** The sustained number of requests per second and client,
+     * 0 for unlimited. */
+    private final int rate;
+
+    /** The number of requests a client can issue at once. */
+    private final int burst;
+
+    /** Maximum number of requests waiting for a change. */
+    private final int maxWaiting;
+
+    /** The number of requests being processed. */
+    private final AtomicInteger concurrent = new AtomicInteger();
+
+    /** The number of requests waiting for a change. */
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /** The token buckets by client. */
+    private final ConcurrentMap<String, TokenBucket> buckets =
+            new ConcurrentHashMap<>();
+
+    /** Constructs a new admission control with at most
+     * {@value #DEFAULT_MAX_WAITING} requests waiting for a change.
+     * @param inMaxConcurrent maximum number of concurrent requests,
+     *                        or 0 for unlimited.
+     * @param requestsPerSecond the sustained number of requests per
+     *                          second and client, or 0 for unlimited.
+     * @param inBurst the number of requests a client can issue at once
+     *              after being idle.
+     * */
+    AdmissionControl(final int inMaxConcurrent,
+                     final int requestsPerSecond,
+                     final int inBurst) {
+        this(inMaxConcurrent, requestsPerSecond, inBurst,
+                DEFAULT_MAX_WAITING);
+    }
+
+    /** Constructs a new admission control.
+     * @param inMaxConcurrent maximum number of concurrent requests,
+     *                        or 0 for unlimited.
+     * @param requestsPerSecond the sustained number of requests per
+     *                          second and client, or 0 for unlimited.
+     * @param inBurst the number of requests a client can issue at once
+     *              after being idle.
+     * @param inMaxWaiting maximum number of requests waiting for a
+     *                     change, 0 for none.
+     * */
+    AdmissionControl(final int inMaxConcurrent,
+                     final int requestsPerSecond,
+                     final int inBurst,
+                     final int inMaxWaiting) {
+        if (inMaxConcurrent < 0 || requestsPerSecond < 0 || inBurst < 1
+                || inMaxWaiting < 0) {
+            throw new IllegalArgumentException("Illegal limits");
+        }
+        this.maxConcurrent = inMaxConcurrent;
+        this.rate = requestsPerSecond;
+        this.burst = inBurst;
+        this.maxWaiting = inMaxWaiting;
+    }
+
+    /** Admits a request. Every successful call needs to be followed
+     * by a call to {@link #release()}.
+     * @param client the address of the client.
+     * @throws ServerException if the request is rejected.
+     * */
+    void acquire(final String client) throws ServerException {
+        if (rate != 0) {
+            String key = client;
+            if (key == null) {
+                key = "";
+            }
+            long wait = reserve(key, System.nanoTime());
+            if (wait > 0) {
+                throw tooManyRequests(wait);
+            }
+        }
+        if (maxConcurrent != 0) {
+            int current;
+            do {
+                current = concurrent.get();
+                if (current >= maxConcurrent) {
+                    throw tooManyRequests(1);
+                }
+            } while (!concurrent.compareAndSet(current, current + 1));
+        }
+    }
+
+    /** Releases a request admitted with {@link #acquire(String)}. */
+    void release() {
+        if (maxConcurrent != 0) {
+            concurrent.decrementAndGet();
+        }
+    }
+
+    /** Lets an admitted request wait for a change, for example a long
+     * poll. The request no longer counts against the concurrent
+     * requests until {@link #endWaiting()}.
+     * @return {@code false} if too many requests wait already, then
+     * nothing changed.
+     * */
+    boolean startWaiting() {
+        if (!startStreaming()) {
+            return false;
+        }
+        release();
+        return true;
+    }
+
+    /** Ends waiting started with {@link #startWaiting()}. The request
+     * counts against the concurrent requests again, even if the limit
+     * is reached, because it only answers.
+     * */
+    void endWaiting() {
+        if (maxConcurrent != 0) {
+            concurrent.incrementAndGet();
+        }
+        endStreaming();
+    }
+
+    /** Takes the place of a request that streams the changes after it
+     * was answered, for example an event stream. Answered requests do
+     * not count against the concurrent requests.
+     * @return {@code false} if too many requests wait already.
+     * */
+    boolean startStreaming() {
+        int current;
+        do {
+            current = waiting.get();
+            if (current >= maxWaiting) {
+                return false;
+            }
+        } while (!waiting.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /** Gives back the place taken with {@link #startStreaming()}. */
+    void endStreaming() {
+        waiting.decrementAndGet();
+    }
+
+    /** Get the number of requests waiting for a change.
+     * @return the long polls and event streams.
+     * */
+    int getWaiting() {
+        return waiting.get();
+    }
+
+    /** Reserves the next request of a client.
+     * @param client the address of the client.
+     * @param now the current time in nanoseconds.
+     * @return 0 if the request is admitted, or the nanoseconds until
+     * the next request of the client would be admitted.
+     * */
+    long reserve(final String client, final long now) {
+        TokenBucket bucket = buckets.get(client);
+        if (bucket == null) {
+            if (buckets.size() >= MAX_CLIENTS) {
+                forgetIdleClients(now);
+            }
+            bucket = buckets.computeIfAbsent(client,
+                    k -> new TokenBucket(rate, burst, now));
+        }
+        return bucket.reserve(now);
+    }
+
+    /** Removes the clients that have a full bucket.
+     * @param now the current time in nanoseconds.
+     * */
+    private void forgetIdleClients(final long now) {
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    /** Creates the exception for rejected requests.
+     * @param waitNanos the nanoseconds the client should wait.
+     * @return the exception with the {@code Retry-After} header.
+     * */
+    private static ServerException tooManyRequests(final long waitNanos) {
+        long seconds = Math.max(1,
+                (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+                        / TimeUnit.SECONDS.toNanos(1));
+        return new ServerException(
+                NanoHTTPD.Response.Status.TOO_MANY_REQUESTS,
+                "Too many requests",
+                r -> r.addHeader(RETRY_AFTER, Long.toString(seconds)));
+    }
+}
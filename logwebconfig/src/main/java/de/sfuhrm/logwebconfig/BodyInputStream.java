@@ -0,0 +1,76 @@
+package de.sfuhrm.logwebconfig;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** An input stream that reads the body of a request with a known
+ * length. It ends after the body, so the next request on the same
+ * connection is not read, and it fails if the connection ends before
+ * the body does.
+ * */
+final class BodyInputStream extends FilterInputStream {
+
+    /** The number of bytes of the body not read yet. */
+    private long remaining;
+
+    /** Constructs a new stream.
+     * @param in the stream of the connection.
+     * @param length the length of the body in bytes.
+     * */
+    BodyInputStream(final InputStream in, final long length) {
+        super(in);
+        this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining == 0) {
+            return -1;
+        }
+        int result = super.read();
+        if (result == -1) {
+            throw new EOFException("Short read");
+        }
+        remaining--;
+        return result;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len)
+            throws IOException {
+        if (remaining == 0) {
+            return -1;
+        }
+        int result = super.read(b, off, (int) Math.min(len, remaining));
+        if (result == -1) {
+            throw new EOFException("Short read");
+        }
+        remaining -= result;
+        return result;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        long result = super.skip(Math.min(n, remaining));
+        remaining -= result;
+        return result;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(super.available(), remaining);
+    }
+
+    /** The connection stays open for the next request.
+     * */
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
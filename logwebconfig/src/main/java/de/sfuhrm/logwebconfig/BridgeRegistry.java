@@ -0,0 +1,100 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/** The {@link LogFrameworkBridgeProvider providers} of the logging
+ * framework bridges by framework name.
+ * The providers are found with {@link ServiceLoader} once per class
+ * loader. Only the small provider classes are loaded for that; whether
+ * a framework is available is checked on its first use and remembered.
+ * */
+final class BridgeRegistry {
+
+    /** Holds the registry of the class loader of this class, found on
+     * first use. */
+    private static final class Holder {
+        /** The registry of the providers on the class path. */
+        private static final BridgeRegistry INSTANCE = new BridgeRegistry(
+                ServiceLoader.load(LogFrameworkBridgeProvider.class,
+                        BridgeRegistry.class.getClassLoader()));
+    }
+
+    /** The providers by framework name. */
+    private final Map<String, LogFrameworkBridgeProvider> providers;
+
+    /** Whether a framework is available, by framework name. Only
+     * contains the frameworks checked so far. */
+    private final ConcurrentMap<String, Boolean> available =
+            new ConcurrentHashMap<>();
+
+    /** Constructs a registry. If two providers have the same name,
+     * the first one wins.
+     * @param inProviders the providers.
+     * */
+    BridgeRegistry(final Iterable<LogFrameworkBridgeProvider> inProviders) {
+        Map<String, LogFrameworkBridgeProvider> map = new LinkedHashMap<>();
+        for (LogFrameworkBridgeProvider provider : inProviders) {
+            map.putIfAbsent(provider.getName(), provider);
+        }
+        this.providers = Collections.unmodifiableMap(map);
+    }
+
+    /** Get the registry of the providers on the class path.
+     * @return the registry, the same for every call.
+     * */
+    static BridgeRegistry getDefault() {
+        return Holder.INSTANCE;
+    }
+
+    /** Get the names of the frameworks with a provider, available or
+     * not.
+     * @return the framework names in the order of discovery.
+     * */
+    Set<String> getNames() {
+        return providers.keySet();
+    }
+
+    /** Finds the provider of a framework.
+     * @param name the name of the logging framework.
+     * @return the provider, or {@code null} if there is none.
+     * */
+    LogFrameworkBridgeProvider find(final String name) {
+        return providers.get(name);
+    }
+
+    /** Checks whether a framework is available. The provider is only
+     * asked the first time.
+     * @param name the name of the logging framework.
+     * @return {@code true} if the framework has a provider and is
+     * available.
+     * */
+    boolean isAvailable(final String name) {
+        LogFrameworkBridgeProvider provider = providers.get(name);
+        if (provider == null) {
+            return false;
+        }
+        return available.computeIfAbsent(name, n -> provider.isAvailable());
+    }
+
+    /** Checks whether a class is on the class path without
+     * initializing it.
+     * @param className the fully qualified class name.
+     * @param classLoader the class loader to look in.
+     * @return {@code true} if the class can be loaded.
+     * */
+    static boolean isPresent(final String className,
+                             final ClassLoader classLoader) {
+        try {
+            Class.forName(className, false, classLoader);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Rules that let the events of a logger subtree pass at a finer level
+ * while a key of the MDC or {@code ThreadContext} of the logging thread
+ * has a value, for example DEBUG for the requests of one tenant.
+ * The rules of a framework are handed to its bridge as a whole with
+ * {@link LogFrameworkBridge#setContextRules(Collection)} on every
+ * change. Rules with a time to live are removed by one
+ * {@link TimerWheel} for all rules.
+ * */
+final class ContextLevels {
+
+    /** A rule for the events of a logger subtree in a context. */
+    static final class Rule {
+        /** The name of the logging framework. */
+        private final String framework;
+
+        /** The logger at the top of the subtree, the empty String for
+         * the root logger. */
+        private final String logger;
+
+        /** The key of the context. */
+        private final String key;
+
+        /** The value the key must have. */
+        private final String value;
+
+        /** The finest level to pass. */
+        private final String level;
+
+        /** The expiry time in {@link System#nanoTime()} units, only
+         * valid if {@link #timeout} is set. */
+        private final long expiry;
+
+        /** The timer handle of the expiry, or {@code null} if the rule
+         * does not expire. */
+        private TimerWheel.Timeout timeout;
+
+        /** Constructs a rule.
+         * @param inFramework the name of the logging framework.
+         * @param inLogger the logger at the top of the subtree.
+         * @param inKey the key of the context.
+         * @param inValue the value the key must have.
+         * @param inLevel the finest level to pass.
+         * @param inExpiry the expiry time in nanoseconds.
+         * */
+        Rule(final String inFramework,
+             final String inLogger,
+             final String inKey,
+             final String inValue,
+             final String inLevel,
+             final long inExpiry) {
+            this.framework = inFramework;
+            this.logger = inLogger;
+            this.key = inKey;
+            this.value = inValue;
+            this.level = inLevel;
+            this.expiry = inExpiry;
+        }
+
+        /** Get the logger at the top of the subtree.
+         * @return the logger name, the empty String for the root logger.
+         * */
+        String getLogger() {
+            return logger;
+        }
+
+        /** Get the key of the context.
+         * @return the MDC or {@code ThreadContext} key.
+         * */
+        String getKey() {
+            return key;
+        }
+
+        /** Get the value the key must have.
+         * @return the value of the key.
+         * */
+        String getValue() {
+            return value;
+        }
+
+        /** Get the finest level to pass.
+         * @return the level name.
+         * */
+        String getLevel() {
+            return level;
+        }
+
+        /** Get the time until the rule expires.
+         * @return the remaining milliseconds, at least 0, or -1 if the
+         * rule does not expire.
+         * */
+        long getRemainingMillis() {
+            if (timeout == null) {
+                return -1;
+            }
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(
+                    expiry - System.nanoTime()));
+        }
+
+        /** Get the key of the rule in the rules of its framework.
+         * @return the key of the logger, context key and value.
+         * */
+        private String id() {
+            return ContextLevels.id(logger, key, value);
+        }
+    }
+
+    /** The timer running the expiries. */
+    private final TimerWheel timerWheel;
+
+    /** The rules by framework name and {@link Rule#id()}.
+     * Guarded by {@code this}. */
+    private final Map<String, Map<String, Rule>> rules = new HashMap<>();
+
+    /** The bridges the rules were handed to, by framework name.
+     * Guarded by {@code this}. */
+    private final Map<String, LogFrameworkBridge> bridges = new HashMap<>();
+
+    /** Constructs the rules.
+     * @param inTimerWheel the timer running the expiries.
+     * */
+    ContextLevels(final TimerWheel inTimerWheel) {
+        this.timerWheel = inTimerWheel;
+    }
+
+    /** Builds the key of a rule.
+     * @param logger the logger at the top of the subtree.
+     * @param key the key of the context.
+     * @param value the value the key must have.
+     * @return the key in the rules of a framework.
+     * */
+    private static String id(final String logger,
+                             final String key,
+                             final String value) {
+        return logger + '\0' + key + '\0' + value;
+    }
+
+    /** Adds a rule or replaces the rule with the same logger, key and
+     * value. The rule is only kept if the bridge accepted it.
+     * @param framework the name of the logging framework.
+     * @param bridge the bridge of the logging framework.
+     * @param logger the logger at the top of the subtree, the empty
+     *               String for the root logger.
+     * @param key the key of the context.
+     * @param value the value the key must have.
+     * @param level the finest level to pass.
+     * @param ttlMillis the milliseconds until the rule is removed,
+     *                  or 0 to keep it.
+     * @return the new rule.
+     * @throws IllegalArgumentException if the level is not acceptable
+     * or the framework has no context levels.
+     * */
+    synchronized Rule put(final String framework,
+                          final LogFrameworkBridge bridge,
+                          final String logger,
+                          final String key,
+                          final String value,
+                          final String level,
+                          final long ttlMillis) {
+        Rule rule = new Rule(framework, logger, key, value, level,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+        Map<String, Rule> next = new LinkedHashMap<>(
+                rules.getOrDefault(framework, Collections.emptyMap()));
+        Rule previous = next.put(rule.id(), rule);
+        bridge.setContextRules(next.values());
+        if (previous != null && previous.timeout != null) {
+            previous.timeout.cancel();
+        }
+        if (ttlMillis > 0) {
+            rule.timeout = timerWheel.schedule(() -> expire(rule),
+                    ttlMillis, TimeUnit.MILLISECONDS);
+        }
+        rules.put(framework, next);
+        bridges.put(framework, bridge);
+        return rule;
+    }
+
+    /** Removes a rule.
+     * @param framework the name of the logging framework.
+     * @param logger the logger at the top of the subtree.
+     * @param key the key of the context.
+     * @param value the value the key must have.
+     * @return {@code true} if there was such a rule.
+     * */
+    synchronized boolean remove(final String framework,
+                                final String logger,
+                                final String key,
+                                final String value) {
+        Map<String, Rule> current = rules.get(framework);
+        if (current == null) {
+            return false;
+        }
+        Rule rule = current.get(id(logger, key, value));
+        if (rule == null) {
+            return false;
+        }
+        if (rule.timeout != null) {
+            rule.timeout.cancel();
+        }
+        removeRule(rule);
+        return true;
+    }
+
+    /** Lists the rules of a framework.
+     * @param framework the name of the logging framework.
+     * @return the rules sorted by logger, key and value.
+     * */
+    synchronized List<Rule> list(final String framework) {
+        List<Rule> result = new ArrayList<>(
+                rules.getOrDefault(framework, Collections.emptyMap())
+                        .values());
+        result.sort(Comparator.comparing(Rule::getLogger)
+                .thenComparing(Rule::getKey)
+                .thenComparing(Rule::getValue));
+        return result;
+    }
+
+    /** Removes all rules from the bridges.
+     * The timer is not stopped, it belongs to the caller.
+     * */
+    synchronized void stop() {
+        for (Map.Entry<String, Map<String, Rule>> entry : rules.entrySet()) {
+            for (Rule rule : entry.getValue().values()) {
+                if (rule.timeout != null) {
+                    rule.timeout.cancel();
+                }
+            }
+            apply(entry.getKey(), Collections.emptyList());
+        }
+        rules.clear();
+        bridges.clear();
+    }
+
+    /** Called by the timer when a rule expires.
+     * @param rule the expired rule.
+     * */
+    private synchronized void expire(final Rule rule) {
+        Map<String, Rule> current = rules.get(rule.framework);
+        if (current != null && current.get(rule.id()) == rule) {
+            removeRule(rule);
+        }
+    }
+
+    /** Removes a rule and hands the remaining rules to the bridge.
+     * @param rule the rule to remove.
+     * */
+    private void removeRule(final Rule rule) {
+        Map<String, Rule> next = new LinkedHashMap<>(
+                rules.get(rule.framework));
+        next.remove(rule.id());
+        rules.put(rule.framework, next);
+        apply(rule.framework, next.values());
+    }
+
+    /** Hands the rules of a framework to its bridge.
+     * Failures are reported, the rules were accepted before.
+     * @param framework the name of the logging framework.
+     * @param frameworkRules the rules of the framework.
+     * */
+    private void apply(final String framework,
+                       final Collection<Rule> frameworkRules) {
+        try {
+            bridges.get(framework).setContextRules(frameworkRules);
+        } catch (RuntimeException e) {
+            System.err.println("logwebconfig: Could not change context "
+                    + "levels of " + framework + ": " + e);
+        }
+    }
+}
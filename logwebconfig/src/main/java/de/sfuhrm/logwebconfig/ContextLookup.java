@@ -0,0 +1,124 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/** The {@link ContextLevels.Rule rules} of a framework prepared for the
+ * lookup on every event.
+ * The rules are grouped by context key and hashed by value, so an
+ * event costs one context read and one hash lookup per distinct key,
+ * no matter how many values have rules.
+ * Levels are converted to a verbosity by the bridge: the bigger the
+ * number, the finer the level. Instances are immutable and replaced
+ * as a whole when the rules change.
+ * */
+final class ContextLookup {
+
+    /** The verbosity returned if no rule matches. */
+    static final int NONE = Integer.MIN_VALUE;
+
+    /** A logger subtree with its finest level. */
+    private static final class Target {
+        /** The logger at the top of the subtree, the empty String for
+         * the root logger. */
+        private final String logger;
+
+        /** The verbosity of the finest level to pass. */
+        private final int verbosity;
+
+        /** Constructs a target.
+         * @param inLogger the logger at the top of the subtree.
+         * @param inVerbosity the verbosity of the finest level.
+         * */
+        private Target(final String inLogger, final int inVerbosity) {
+            this.logger = inLogger;
+            this.verbosity = inVerbosity;
+        }
+
+        /** Checks whether a logger is in the subtree.
+         * @param name the name of the logger.
+         * @return {@code true} if the logger is the top of the subtree
+         * or one of its descendants.
+         * */
+        private boolean covers(final String name) {
+            return logger.isEmpty()
+                    || name.equals(logger)
+                    || (name.startsWith(logger)
+                        && name.length() > logger.length()
+                        && name.charAt(logger.length()) == '.');
+        }
+    }
+
+    /** The context keys with rules. */
+    private final String[] keys;
+
+    /** The targets by value, one map per entry of {@link #keys}. */
+    private final List<Map<String, Target[]>> targets;
+
+    /** Prepares the rules.
+     * @param rules the rules of a framework.
+     * @param verbosity converts a level name to its verbosity.
+     * @throws IllegalArgumentException if a level is not acceptable.
+     * */
+    ContextLookup(final Collection<ContextLevels.Rule> rules,
+                  final ToIntFunction<String> verbosity) {
+        Map<String, Map<String, List<Target>>> grouped =
+                new LinkedHashMap<>();
+        for (ContextLevels.Rule rule : rules) {
+            grouped.computeIfAbsent(rule.getKey(), k -> new HashMap<>())
+                    .computeIfAbsent(rule.getValue(), v -> new ArrayList<>())
+                    .add(new Target(rule.getLogger(),
+                            verbosity.applyAsInt(rule.getLevel())));
+        }
+        keys = grouped.keySet().toArray(new String[0]);
+        targets = new ArrayList<>(keys.length);
+        for (Map<String, List<Target>> byValue : grouped.values()) {
+            Map<String, Target[]> map = new HashMap<>();
+            for (Map.Entry<String, List<Target>> entry : byValue.entrySet()) {
+                map.put(entry.getKey(),
+                        entry.getValue().toArray(new Target[0]));
+            }
+            targets.add(map);
+        }
+    }
+
+    /** Checks whether there are no rules.
+     * @return {@code true} if no event can match.
+     * */
+    boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    /** Finds the finest level the rules let pass for an event.
+     * @param logger the name of the logger of the event.
+     * @param context reads a value of the context of the event, the
+     *                result may be {@code null}.
+     * @return the biggest verbosity of the matching rules, or
+     * {@link #NONE} if no rule matches.
+     * */
+    int find(final String logger, final Function<String, String> context) {
+        int result = NONE;
+        for (int i = 0; i < keys.length; i++) {
+            String value = context.apply(keys[i]);
+            if (value == null) {
+                continue;
+            }
+            Target[] matching = targets.get(i).get(value);
+            if (matching == null) {
+                continue;
+            }
+            for (Target target : matching) {
+                if (target.verbosity > result && target.covers(logger)) {
+                    result = target.verbosity;
+                }
+            }
+        }
+        return result;
+    }
+}
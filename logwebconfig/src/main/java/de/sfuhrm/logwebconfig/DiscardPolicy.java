@@ -0,0 +1,82 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Drops the less severe events of an asynchronous appender while its
+ * queue is nearly full, like the {@code discardingThreshold} of
+ * logback, but with a level that can change at run time.
+ * The policy is checked by a filter of the appender before the event is
+ * queued. Levels are converted to a verbosity by the bridge: the bigger
+ * the number, the finer the level.
+ * */
+final class DiscardPolicy {
+
+    /** A queue is nearly full if less than this part of it is free,
+     * so 5 means less than a fifth. */
+    static final int FREE_DIVISOR = 5;
+
+    /** The threshold if nothing is discarded. */
+    private static final int NONE = Integer.MAX_VALUE;
+
+    /** The verbosity of the finest level that is still queued. */
+    private volatile int threshold = NONE;
+
+    /** The name of the discard level, or {@code null}. */
+    private volatile String level;
+
+    /** The number of dropped events. */
+    private final LongAdder discarded = new LongAdder();
+
+    /** Changes the discard level.
+     * @param inLevel the name of the level, or {@code null} to discard
+     *                nothing.
+     * @param verbosity the verbosity of the level.
+     * */
+    synchronized void setLevel(final String inLevel, final int verbosity) {
+        this.level = inLevel;
+        if (inLevel == null) {
+            threshold = NONE;
+        } else {
+            threshold = verbosity;
+        }
+    }
+
+    /** Get the discard level.
+     * @return the name of the level, or {@code null} if nothing is
+     * discarded.
+     * */
+    String getLevel() {
+        return level;
+    }
+
+    /** Get the number of dropped events.
+     * @return the dropped events since the policy was created.
+     * */
+    long getDiscarded() {
+        return discarded.sum();
+    }
+
+    /** Checks whether an event may be dropped if the queue is nearly
+     * full. This is the cheap check, so it comes first.
+     * @param verbosity the verbosity of the level of the event.
+     * @return {@code true} if the event is finer than the discard
+     * level.
+     * */
+    boolean isDiscardable(final int verbosity) {
+        return verbosity > threshold;
+    }
+
+    /** Checks whether a queue is nearly full and counts the dropped
+     * event if so.
+     * @param remaining the remaining capacity of the queue.
+     * @param capacity the capacity of the queue.
+     * @return {@code true} if the event is to be dropped.
+     * */
+    boolean discard(final int remaining, final int capacity) {
+        if ((long) remaining * FREE_DIVISOR >= capacity) {
+            return false;
+        }
+        discarded.increment();
+        return true;
+    }
+}
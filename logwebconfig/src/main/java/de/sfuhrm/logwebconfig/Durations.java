@@ -0,0 +1,64 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.concurrent.TimeUnit;
+
+/** Parses durations given in request parameters.
+ * A duration is a number followed by one of the units
+ * {@code ms}, {@code s}, {@code m}, {@code h} or {@code d},
+ * for example {@code 15m}. A number without unit is in seconds.
+ * */
+final class Durations {
+
+    /** No instance allowed. */
+    private Durations() {
+    }
+
+    /** Parses a duration.
+     * @param duration the duration to parse, for example {@code 30s}.
+     * @return the duration in milliseconds.
+     * @throws IllegalArgumentException if the duration is malformed
+     * or negative.
+     * */
+    static long parseMillis(final String duration) {
+        String trimmed = duration.trim();
+        int unitIndex = 0;
+        while (unitIndex < trimmed.length()
+                && Character.isDigit(trimmed.charAt(unitIndex))) {
+            unitIndex++;
+        }
+        if (unitIndex == 0) {
+            throw new IllegalArgumentException("Duration illegal: "
+                    + duration);
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(trimmed.substring(0, unitIndex));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Duration illegal: "
+                    + duration);
+        }
+        TimeUnit unit;
+        switch (trimmed.substring(unitIndex)) {
+            case "ms":
+                unit = TimeUnit.MILLISECONDS;
+                break;
+            case "":
+            case "s":
+                unit = TimeUnit.SECONDS;
+                break;
+            case "m":
+                unit = TimeUnit.MINUTES;
+                break;
+            case "h":
+                unit = TimeUnit.HOURS;
+                break;
+            case "d":
+                unit = TimeUnit.DAYS;
+                break;
+            default:
+                throw new IllegalArgumentException("Duration illegal: "
+                        + duration);
+        }
+        return unit.toMillis(amount);
+    }
+}
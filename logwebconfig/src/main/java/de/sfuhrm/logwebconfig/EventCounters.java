@@ -0,0 +1,234 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Counts the log events per logger and level in a sliding window
+ * of one minute.
+ * The logging threads only increment a {@link LongAdder}, which
+ * spreads concurrent increments over several cells instead of
+ * contending on one. The timer moves the counts of the current
+ * interval into a ring of intervals, so the window slides in steps of
+ * {@link #INTERVAL_SECONDS} seconds.
+ * The counting hooks of the logging frameworks live in the bridges.
+ * */
+final class EventCounters {
+
+    /** The names of the levels counted, from severe to fine.
+     * Levels in between are counted with the next finer level. */
+    static final String[] LEVELS =
+            {"FATAL", "ERROR", "WARN", "INFO", "DEBUG", "TRACE"};
+
+    /** The length of an interval of the window in seconds. */
+    static final int INTERVAL_SECONDS = 10;
+
+    /** The number of intervals of the window. */
+    static final int INTERVALS = 6;
+
+    /** The length of the window in seconds. */
+    static final int WINDOW_SECONDS = INTERVAL_SECONDS * INTERVALS;
+
+    /** The counter of one logger and level. */
+    private static final class Counter {
+        /** The events of the current interval. */
+        private final LongAdder current = new LongAdder();
+
+        /** The events of the past intervals, only used by
+         * {@link EventCounters#rotate()}. */
+        private final long[] intervals = new long[INTERVALS];
+
+        /** The sum of {@link #intervals}. */
+        private volatile long window;
+
+        /** The events of the last complete interval. */
+        private volatile long last;
+    }
+
+    /** The count of a logger and level in the window. */
+    static final class Rate {
+        /** The name of the logger, the empty String for the root
+         * logger. */
+        private final String logger;
+
+        /** The name of the level. */
+        private final String level;
+
+        /** The number of events in the window. */
+        private final long count;
+
+        /** Constructs a rate.
+         * @param inLogger the name of the logger.
+         * @param inLevel the name of the level.
+         * @param inCount the number of events in the window.
+         * */
+        private Rate(final String inLogger,
+                     final String inLevel,
+                     final long inCount) {
+            this.logger = inLogger;
+            this.level = inLevel;
+            this.count = inCount;
+        }
+
+        /** Get the name of the logger.
+         * @return the logger name, the empty String for the root logger.
+         * */
+        String getLogger() {
+            return logger;
+        }
+
+        /** Get the name of the level.
+         * @return the level name.
+         * */
+        String getLevel() {
+            return level;
+        }
+
+        /** Get the number of events in the window.
+         * @return the number of events of the last minute.
+         * */
+        long getCount() {
+            return count;
+        }
+
+        /** Get the average number of events per second in the window.
+         * @return the events per second.
+         * */
+        double getEventsPerSecond() {
+            return (double) count / WINDOW_SECONDS;
+        }
+    }
+
+    /** The counters by logger name, one per entry of {@link #LEVELS}. */
+    private final ConcurrentMap<String, Counter[]> counters =
+            new ConcurrentHashMap<>();
+
+    /** The index of the interval {@link #rotate()} fills next.
+     * Guarded by {@code this}. */
+    private int position;
+
+    /** The timer rotating the intervals, or {@code null} if not
+     * started. */
+    private TimerWheel timerWheel;
+
+    /** Called after each rotation by the timer. */
+    private Runnable rotationListener;
+
+    /** Counts an event.
+     * @param logger the name of the logger, the empty String for the
+     *               root logger.
+     * @param level the index of the level in {@link #LEVELS}.
+     * */
+    void increment(final String logger, final int level) {
+        Counter[] levels = counters.get(logger);
+        if (levels == null) {
+            levels = counters.computeIfAbsent(logger,
+                    k -> newCounters());
+        }
+        levels[level].current.increment();
+    }
+
+    /** Creates the counters for a new logger.
+     * @return one counter per level.
+     * */
+    private static Counter[] newCounters() {
+        Counter[] result = new Counter[LEVELS.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new Counter();
+        }
+        return result;
+    }
+
+    /** Ends the current interval. The oldest interval leaves the
+     * window. Events counted while rotating may be counted in the
+     * next interval.
+     * */
+    synchronized void rotate() {
+        for (Counter[] levels : counters.values()) {
+            for (Counter counter : levels) {
+                long count = counter.current.sumThenReset();
+                long window = counter.window
+                        - counter.intervals[position] + count;
+                counter.intervals[position] = count;
+                counter.window = window;
+                counter.last = count;
+            }
+        }
+        position = (position + 1) % INTERVALS;
+    }
+
+    /** Rotates the intervals every {@link #INTERVAL_SECONDS} seconds.
+     * @param inTimerWheel the timer to rotate with. The rotation ends
+     *                     when the timer is stopped.
+     * @param inRotationListener called in the timer thread after each
+     *                           rotation.
+     * */
+    synchronized void start(final TimerWheel inTimerWheel,
+                            final Runnable inRotationListener) {
+        this.timerWheel = inTimerWheel;
+        this.rotationListener = inRotationListener;
+        scheduleRotation();
+    }
+
+    /** Schedules the next rotation. */
+    private void scheduleRotation() {
+        try {
+            timerWheel.schedule(() -> {
+                        rotate();
+                        scheduleRotation();
+                        rotationListener.run();
+                    },
+                    INTERVAL_SECONDS,
+                    TimeUnit.SECONDS);
+        } catch (IllegalStateException e) {
+            // the timer was stopped with the server
+        }
+    }
+
+    /** Get the counts of the last complete interval.
+     * @return the counts by logger name, one per entry of
+     * {@link #LEVELS}, only for the loggers with events.
+     * */
+    Map<String, long[]> lastInterval() {
+        Map<String, long[]> result = new HashMap<>();
+        for (Map.Entry<String, Counter[]> entry : counters.entrySet()) {
+            Counter[] levels = entry.getValue();
+            long[] counts = new long[levels.length];
+            long total = 0;
+            for (int i = 0; i < levels.length; i++) {
+                counts[i] = levels[i].last;
+                total += counts[i];
+            }
+            if (total != 0) {
+                result.put(entry.getKey(), counts);
+            }
+        }
+        return result;
+    }
+
+    /** Lists the loggers and levels that had events in the window.
+     * @return the rates, highest first.
+     * */
+    List<Rate> list() {
+        List<Rate> result = new ArrayList<>();
+        for (Map.Entry<String, Counter[]> entry : counters.entrySet()) {
+            Counter[] levels = entry.getValue();
+            for (int i = 0; i < levels.length; i++) {
+                long count = levels[i].window;
+                if (count != 0) {
+                    result.add(new Rate(entry.getKey(), LEVELS[i], count));
+                }
+            }
+        }
+        result.sort(Comparator.comparingLong(Rate::getCount).reversed()
+                .thenComparing(Rate::getLogger)
+                .thenComparing(Rate::getLevel));
+        return result;
+    }
+}
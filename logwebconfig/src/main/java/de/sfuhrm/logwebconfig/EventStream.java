@@ -0,0 +1,171 @@
+package de.sfuhrm.logwebconfig;
+
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** An input stream of the level changes of {@link LevelEvents} in the
+ * Server-Sent Events format.
+ * Reading blocks until there is at least one change, but returns what
+ * is there without waiting for more, so every change is sent at once.
+ * A comment is sent if there was no change for a while, so closed
+ * connections are noticed. A subscriber that fell behind gets a
+ * {@code lagged} event and the stream ends.
+ * Closing the stream runs a callback once, so the place of the
+ * subscriber can be given back.
+ * */
+final class EventStream extends InputStream {
+
+    /** Mask to convert a byte to an unsigned value. */
+    private static final int BYTE_MASK = 0xff;
+
+    /** The message sent if there was no change for a while. */
+    private static final String HEARTBEAT = ": keep-alive\n\n";
+
+    /** The events to stream. */
+    private final LevelEvents events;
+
+    /** The milliseconds without change before a heartbeat is sent. */
+    private final long heartbeatMillis;
+
+    /** The id of the next change to send. */
+    private long cursor;
+
+    /** Whether the stream ended. */
+    private boolean ended;
+
+    /** Runs once when the stream is closed. */
+    private final AtomicReference<Runnable> onClose;
+
+    /** The encoded current message. */
+    private byte[] buffer = new byte[0];
+
+    /** The read position in {@link #buffer}. */
+    private int position;
+
+    /** Constructs a new stream.
+     * @param inEvents the events to stream.
+     * @param firstId the id of the first change to send.
+     * @param inHeartbeatMillis the milliseconds without change before
+     *                          a heartbeat is sent.
+     * */
+    EventStream(final LevelEvents inEvents,
+                final long firstId,
+                final long inHeartbeatMillis) {
+        this(inEvents, firstId, inHeartbeatMillis, () -> { });
+    }
+
+    /** Constructs a new stream.
+     * @param inEvents the events to stream.
+     * @param firstId the id of the first change to send.
+     * @param inHeartbeatMillis the milliseconds without change before
+     *                          a heartbeat is sent.
+     * @param inOnClose runs once when the stream is closed.
+     * */
+    EventStream(final LevelEvents inEvents,
+                final long firstId,
+                final long inHeartbeatMillis,
+                final Runnable inOnClose) {
+        this.events = Objects.requireNonNull(inEvents);
+        this.cursor = firstId;
+        this.heartbeatMillis = inHeartbeatMillis;
+        this.onClose = new AtomicReference<>(
+                Objects.requireNonNull(inOnClose));
+    }
+
+    /** Formats a change as a message.
+     * @param event the change.
+     * @return the message including the empty line ending it.
+     * */
+    static String format(final LevelEvents.Event event) {
+        return "id: " + event.getId() + "\n"
+                + "event: level\n"
+                + "data: " + event.getFramework()
+                + '\t' + event.getLogger()
+                + '\t' + event.getOldLevel()
+                + '\t' + event.getNewLevel()
+                + '\t' + Instant.ofEpochMilli(event.getTime())
+                + "\n\n";
+    }
+
+    /** Makes sure the buffer has unread bytes.
+     * @param wait whether to wait for the next change.
+     * @return {@code false} if there are no bytes without waiting, or
+     * if the stream ended.
+     * @throws InterruptedIOException if interrupted while waiting.
+     * */
+    private boolean fill(final boolean wait) throws InterruptedIOException {
+        while (position == buffer.length) {
+            if (ended) {
+                return false;
+            }
+            LevelEvents.Event event;
+            try {
+                long timeout = 0;
+                if (wait) {
+                    timeout = heartbeatMillis;
+                }
+                event = events.take(cursor, timeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(e.getMessage());
+            }
+            String message;
+            if (event != null) {
+                cursor++;
+                message = format(event);
+            } else if (events.isClosed()) {
+                ended = true;
+                return false;
+            } else if (events.isLost(cursor)) {
+                ended = true;
+                message = "event: lagged\ndata: " + cursor + "\n\n";
+            } else if (wait) {
+                message = HEARTBEAT;
+            } else {
+                return false;
+            }
+            buffer = message.getBytes(StandardCharsets.UTF_8);
+            position = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws InterruptedIOException {
+        if (!fill(true)) {
+            return -1;
+        }
+        return buffer[position++] & BYTE_MASK;
+    }
+
+    @Override
+    public int read(final byte[] target, final int offset, final int length)
+            throws InterruptedIOException {
+        if (length == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < length && fill(count == 0)) {
+            int chunk = Math.min(length - count, buffer.length - position);
+            System.arraycopy(buffer, position, target, offset + count, chunk);
+            position += chunk;
+            count += chunk;
+        }
+        if (count == 0) {
+            return -1;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        Runnable callback = onClose.getAndSet(null);
+        if (callback != null) {
+            callback.run();
+        }
+    }
+}
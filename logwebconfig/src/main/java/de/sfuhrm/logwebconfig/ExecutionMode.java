@@ -0,0 +1,151 @@
+package de.sfuhrm.logwebconfig;
+
+import fi.iki.elonen.NanoHTTPD;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** The strategy for running the client connections of the server.
+ * Each connection occupies one thread for as long as the client
+ * keeps the connection alive.
+ * */
+public enum ExecutionMode {
+    /** One new platform thread per connection without an upper bound.
+     * This is the default. */
+    THREAD {
+        @Override
+        NanoHTTPD.AsyncRunner newAsyncRunner(final int poolSize,
+                                             final int queueSize) {
+            return new NanoHTTPD.DefaultAsyncRunner();
+        }
+
+        @Override
+        int getThreadLimit(final int poolSize) {
+            return 0;
+        }
+    },
+
+    /** A bounded pool of platform threads with a bounded queue.
+     * Connections that find the pool busy and the queue full
+     * are closed. */
+    POOL {
+        @Override
+        NanoHTTPD.AsyncRunner newAsyncRunner(final int poolSize,
+                                             final int queueSize) {
+            return newPoolRunner(poolSize, queueSize);
+        }
+
+        @Override
+        int getThreadLimit(final int poolSize) {
+            return poolSize;
+        }
+    },
+
+    /** One platform thread with a bounded queue for a minimal
+     * footprint. */
+    SINGLE {
+        @Override
+        NanoHTTPD.AsyncRunner newAsyncRunner(final int poolSize,
+                                             final int queueSize) {
+            return newPoolRunner(1, queueSize);
+        }
+
+        @Override
+        int getThreadLimit(final int poolSize) {
+            return 1;
+        }
+    },
+
+    /** One new virtual thread per connection. Needs Java 21 or later,
+     * on older Java versions {@link #POOL} is used instead. */
+    VIRTUAL {
+        @Override
+        NanoHTTPD.AsyncRunner newAsyncRunner(final int poolSize,
+                                             final int queueSize) {
+            if (!VirtualThreads.isSupported()) {
+                return POOL.newAsyncRunner(poolSize, queueSize);
+            }
+            return new ExecutorAsyncRunner(
+                    VirtualThreads.newExecutor(THREAD_NAME_PREFIX));
+        }
+
+        @Override
+        int getThreadLimit(final int poolSize) {
+            if (!VirtualThreads.isSupported()) {
+                return POOL.getThreadLimit(poolSize);
+            }
+            return 0;
+        }
+    };
+
+    /** The name prefix of the threads created. */
+    private static final String THREAD_NAME_PREFIX = "LogWebConfig Worker #";
+
+    /** Creates the runner for the connections of a server.
+     * @param poolSize the maximum number of threads for modes with
+     *                 a bounded number of threads.
+     * @param queueSize the maximum number of waiting connections for
+     *                  modes with a bounded number of threads.
+     * @return a new runner.
+     * */
+    abstract NanoHTTPD.AsyncRunner newAsyncRunner(int poolSize,
+                                                  int queueSize);
+
+    /** Get the maximum number of connections run at once.
+     * @param poolSize the maximum number of threads for modes with
+     *                 a bounded number of threads.
+     * @return the number of threads, or 0 if not bounded.
+     * */
+    abstract int getThreadLimit(int poolSize);
+
+    /** Limits the requests waiting for a change to what the runner
+     * can hold. Every waiting request holds a thread, so a bounded
+     * runner keeps one thread free for the change they wait for.
+     * @param poolSize the maximum number of threads for modes with
+     *                 a bounded number of threads.
+     * @param maxWaiting the configured maximum number of waiting
+     *                   requests.
+     * @return the maximum number of waiting requests.
+     * */
+    int limitWaiting(final int poolSize, final int maxWaiting) {
+        int threads = getThreadLimit(poolSize);
+        if (threads == 0) {
+            return maxWaiting;
+        }
+        return Math.max(0, Math.min(maxWaiting, threads - 1));
+    }
+
+    /** Creates a runner with a bounded thread pool.
+     * @param poolSize the maximum number of threads.
+     * @param queueSize the maximum number of waiting connections.
+     * @return a new runner.
+     * */
+    private static NanoHTTPD.AsyncRunner newPoolRunner(final int poolSize,
+                                                       final int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                NanoHTTPD.SOCKET_READ_TIMEOUT,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                newThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return new ExecutorAsyncRunner(executor);
+    }
+
+    /** Creates a factory for named daemon threads.
+     * @return a new thread factory.
+     * */
+    private static ThreadFactory newThreadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable,
+                    THREAD_NAME_PREFIX + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
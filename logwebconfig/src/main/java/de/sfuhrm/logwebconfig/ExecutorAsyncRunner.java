@@ -0,0 +1,65 @@
+package de.sfuhrm.logwebconfig;
+
+import fi.iki.elonen.NanoHTTPD;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/** Runs the client connections of the server in an
+ * {@link ExecutorService}.
+ * Connections that the executor rejects are closed immediately.
+ * */
+final class ExecutorAsyncRunner implements NanoHTTPD.AsyncRunner {
+
+    /** The executor to run the connections in. */
+    private final ExecutorService executorService;
+
+    /** The connections that are queued or running. */
+    private final Set<NanoHTTPD.ClientHandler> running =
+            ConcurrentHashMap.newKeySet();
+
+    /** Constructs a new runner.
+     * @param inExecutorService the executor to run the connections in.
+     *                          The executor is shut down when all
+     *                          connections get closed.
+     * */
+    ExecutorAsyncRunner(final ExecutorService inExecutorService) {
+        this.executorService = Objects.requireNonNull(inExecutorService);
+    }
+
+    @Override
+    public void closeAll() {
+        executorService.shutdownNow();
+        for (NanoHTTPD.ClientHandler clientHandler
+                : new ArrayList<>(running)) {
+            clientHandler.close();
+        }
+    }
+
+    @Override
+    public void closed(final NanoHTTPD.ClientHandler clientHandler) {
+        running.remove(clientHandler);
+    }
+
+    @Override
+    public void exec(final NanoHTTPD.ClientHandler clientHandler) {
+        running.add(clientHandler);
+        try {
+            executorService.execute(clientHandler);
+        } catch (RejectedExecutionException e) {
+            running.remove(clientHandler);
+            clientHandler.close();
+        }
+    }
+
+    /** Get the number of connections that are queued or running.
+     * @return the number of connections.
+     * */
+    int getRunningCount() {
+        return running.size();
+    }
+}
@@ -0,0 +1,245 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/** A circuit breaker for loggers that log more events per second
+ * than a limit.
+ * After each interval of the {@link EventCounters}, the level of every
+ * logger over the limit is raised so that the events of the remaining
+ * levels are under the limit. The bridge converts the counted level to
+ * a level of the framework. The raised level is a
+ * {@link LevelOverrides level override}, so the previous level is
+ * restored after the cool-down and a manual level change ends it.
+ * The trips are recorded.
+ * */
+final class FloodProtection {
+
+    /** The number of trips recorded. */
+    static final int MAX_TRIPS = 1000;
+
+    /** The level to raise to if the most severe level is over the
+     * limit. */
+    private static final String OFF = "OFF";
+
+    /** A trip of the breaker. */
+    static final class Trip {
+        /** The name of the logging framework. */
+        private final String framework;
+
+        /** The name of the logger. */
+        private final String logger;
+
+        /** The time of the trip in milliseconds since the epoch. */
+        private final long time;
+
+        /** The events per second that tripped the breaker. */
+        private final double eventsPerSecond;
+
+        /** The level before the trip. */
+        private final String previousLevel;
+
+        /** The level set by the trip. */
+        private final String level;
+
+        /** The override of the trip. */
+        private final LevelOverrides.Entry override;
+
+        /** Constructs a trip.
+         * @param inFramework the name of the logging framework.
+         * @param inLogger the name of the logger.
+         * @param inTime the time in milliseconds since the epoch.
+         * @param inEventsPerSecond the events per second.
+         * @param inPreviousLevel the level before the trip.
+         * @param inLevel the level set by the trip.
+         * @param inOverride the override of the trip.
+         * */
+        private Trip(final String inFramework,
+                     final String inLogger,
+                     final long inTime,
+                     final double inEventsPerSecond,
+                     final String inPreviousLevel,
+                     final String inLevel,
+                     final LevelOverrides.Entry inOverride) {
+            this.framework = inFramework;
+            this.logger = inLogger;
+            this.time = inTime;
+            this.eventsPerSecond = inEventsPerSecond;
+            this.previousLevel = inPreviousLevel;
+            this.level = inLevel;
+            this.override = inOverride;
+        }
+
+        /** Get the time of the trip.
+         * @return the milliseconds since the epoch.
+         * */
+        long getTime() {
+            return time;
+        }
+
+        /** Get the rate that tripped the breaker.
+         * @return the events per second of the logger.
+         * */
+        double getEventsPerSecond() {
+            return eventsPerSecond;
+        }
+
+        /** Get the level before the trip.
+         * @return the level name.
+         * */
+        String getPreviousLevel() {
+            return previousLevel;
+        }
+
+        /** Get the level set by the trip.
+         * @return the level name.
+         * */
+        String getLevel() {
+            return level;
+        }
+    }
+
+    /** The maximum number of events per second of a logger. */
+    private final int eventsPerSecond;
+
+    /** The time until the previous level is restored. */
+    private final long coolDownMillis;
+
+    /** The overrides to raise the levels with. */
+    private final LevelOverrides levelOverrides;
+
+    /** The recorded trips, the latest last. Guarded by {@code this}. */
+    private final Deque<Trip> trips = new ArrayDeque<>();
+
+    /** Constructs a new flood protection.
+     * @param inEventsPerSecond the maximum number of events per second
+     *                          of a logger.
+     * @param inCoolDownMillis the milliseconds until the previous level
+     *                         is restored.
+     * @param inLevelOverrides the overrides to raise the levels with.
+     * */
+    FloodProtection(final int inEventsPerSecond,
+                    final long inCoolDownMillis,
+                    final LevelOverrides inLevelOverrides) {
+        if (inEventsPerSecond < 1 || inCoolDownMillis < 0) {
+            throw new IllegalArgumentException("Illegal limits");
+        }
+        this.eventsPerSecond = inEventsPerSecond;
+        this.coolDownMillis = inCoolDownMillis;
+        this.levelOverrides = inLevelOverrides;
+    }
+
+    /** Trips the breaker of the loggers over the limit in the last
+     * interval.
+     * @param framework the name of the logging framework.
+     * @param bridge the bridge of the logging framework.
+     * @param counters the event counters of the logging framework.
+     * */
+    void check(final String framework,
+               final LogFrameworkBridge bridge,
+               final EventCounters counters) {
+        long limit = (long) eventsPerSecond * EventCounters.INTERVAL_SECONDS;
+        for (Map.Entry<String, long[]> entry
+                : counters.lastInterval().entrySet()) {
+            long[] counts = entry.getValue();
+            long total = 0;
+            int index = 0;
+            while (index < counts.length) {
+                total += counts[index];
+                if (total > limit) {
+                    break;
+                }
+                index++;
+            }
+            if (index < counts.length) {
+                for (int i = index + 1; i < counts.length; i++) {
+                    total += counts[i];
+                }
+                String level = OFF;
+                if (index > 0) {
+                    level = bridge.toFrameworkLevel(
+                            EventCounters.LEVELS[index - 1]);
+                }
+                LevelOverrides.Entry open =
+                        getOpenOverride(framework, entry.getKey());
+                if (open != null && open.getLevel().equals(level)) {
+                    // events from before the trip
+                    continue;
+                }
+                trip(framework, bridge.createLoggerResource(entry.getKey()),
+                        level, (double) total
+                                / EventCounters.INTERVAL_SECONDS);
+            }
+        }
+    }
+
+    /** Raises the level of a logger and records the trip.
+     * Failures are reported and do not stop the other trips.
+     * @param framework the name of the logging framework.
+     * @param resource the logger to raise the level of.
+     * @param level the level to set.
+     * @param rate the events per second of the logger.
+     * */
+    private void trip(final String framework,
+                      final LogFrameworkBridge.LoggerResource resource,
+                      final String level,
+                      final double rate) {
+        try {
+            String previousLevel = resource.getEffectiveLevel();
+            LevelOverrides.Entry override = levelOverrides.override(
+                    framework, resource, level, coolDownMillis);
+            Trip trip = new Trip(framework, resource.getName(),
+                    System.currentTimeMillis(), rate, previousLevel,
+                    level, override);
+            synchronized (this) {
+                trips.addLast(trip);
+                if (trips.size() > MAX_TRIPS) {
+                    trips.removeFirst();
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("logwebconfig: Could not raise level of "
+                    + resource.getName() + ": " + e);
+        }
+    }
+
+    /** Lists the recorded trips of a logger.
+     * @param framework the name of the logging framework.
+     * @param logger the name of the logger.
+     * @return the trips, the latest last.
+     * */
+    synchronized List<Trip> trips(final String framework,
+                                  final String logger) {
+        List<Trip> result = new ArrayList<>();
+        for (Trip trip : trips) {
+            if (trip.framework.equals(framework)
+                    && trip.logger.equals(logger)) {
+                result.add(trip);
+            }
+        }
+        return result;
+    }
+
+    /** Get the pending override of the last trip of a logger.
+     * @param framework the name of the logging framework.
+     * @param logger the name of the logger.
+     * @return the override, or {@code null} if the breaker is closed
+     * because the level was restored or changed since the last trip.
+     * */
+    LevelOverrides.Entry getOpenOverride(final String framework,
+                                         final String logger) {
+        List<Trip> loggerTrips = trips(framework, logger);
+        if (loggerTrips.isEmpty()) {
+            return null;
+        }
+        LevelOverrides.Entry override =
+                loggerTrips.get(loggerTrips.size() - 1).override;
+        if (levelOverrides.find(framework, logger) != override) {
+            return null;
+        }
+        return override;
+    }
+}
@@ -0,0 +1,47 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.concurrent.TimeUnit;
+
+/** A counter of the level changes, so clients can find out cheaply
+ * whether anything changed since they last looked.
+ * Reading the counter does not lock. Waiting for a change blocks on the
+ * monitor of the generation, which is only notified on changes.
+ * */
+final class Generation {
+
+    /** The current generation. Only written with the monitor held. */
+    private volatile long current;
+
+    /** Get the current generation.
+     * @return the number of changes so far.
+     * */
+    long get() {
+        return current;
+    }
+
+    /** Starts a new generation and wakes up the waiting threads. */
+    synchronized void increment() {
+        current++;
+        notifyAll();
+    }
+
+    /** Waits until the generation is no longer the given one.
+     * @param seen the generation the caller knows.
+     * @param timeoutMillis the maximum milliseconds to wait.
+     * @return the current generation, which equals {@code seen} if
+     * the time ran out.
+     * @throws InterruptedException if interrupted while waiting.
+     * */
+    synchronized long await(final long seen, final long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long remaining = timeoutMillis;
+        while (current == seen && remaining > 0) {
+            wait(remaining);
+            remaining = TimeUnit.NANOSECONDS.toMillis(
+                    deadline - System.nanoTime());
+        }
+        return current;
+    }
+}
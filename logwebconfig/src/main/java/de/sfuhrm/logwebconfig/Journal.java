@@ -0,0 +1,435 @@
+package de.sfuhrm.logwebconfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/** An append-only file of the permanent level changes, so they survive
+ * a restart.
+ * Each change is one line of the framework, the logger, the level
+ * and an optional {@code recursive} flag, separated by tabs. Tabs,
+ * line ends and backslashes in the fields are escaped with a
+ * backslash, so a logger name can not add a record of its own.
+ * On {@link #open() opening}, the file is read and compacted to the
+ * latest change per logger, so the replay does not grow with the
+ * history of the journal.
+ * Appending only queues the change. A daemon thread writes all queued
+ * changes at once, so the requests do not wait for the file.
+ * */
+final class Journal {
+
+    /** The separator of the fields of a line. */
+    private static final char SEPARATOR = '\t';
+
+    /** The end of a line. */
+    private static final char NEWLINE = '\n';
+
+    /** The number of bytes read from the journal file at once. */
+    private static final int READ_BLOCK_SIZE = 64 * 1024;
+
+    /** The escape character of the fields. */
+    private static final char ESCAPE = '\\';
+
+    /** The flag of recursive changes. */
+    private static final String RECURSIVE = "recursive";
+
+    /** The number of fields of a line without the recursive flag. */
+    private static final int FIELDS = 3;
+
+    /** A permanent level change. */
+    static final class Record {
+        /** The name of the logging framework. */
+        private final String framework;
+
+        /** The name of the logger. */
+        private final String logger;
+
+        /** The level as requested, for example {@code DEBUG@200/s}. */
+        private final String level;
+
+        /** Whether the descendants of the logger were changed, too. */
+        private final boolean recursive;
+
+        /** Constructs a record.
+         * @param inFramework the name of the logging framework.
+         * @param inLogger the name of the logger.
+         * @param inLevel the level as requested.
+         * @param inRecursive whether the descendants were changed, too.
+         * */
+        Record(final String inFramework,
+               final String inLogger,
+               final String inLevel,
+               final boolean inRecursive) {
+            this.framework = Objects.requireNonNull(inFramework);
+            this.logger = Objects.requireNonNull(inLogger);
+            this.level = Objects.requireNonNull(inLevel);
+            this.recursive = inRecursive;
+        }
+
+        /** Get the name of the logging framework.
+         * @return the framework name.
+         * */
+        String getFramework() {
+            return framework;
+        }
+
+        /** Get the name of the logger.
+         * @return the logger name, the empty String for the root logger.
+         * */
+        String getLogger() {
+            return logger;
+        }
+
+        /** Get the level as requested.
+         * @return the level, for example {@code DEBUG} or
+         * {@code DEBUG@200/s}.
+         * */
+        String getLevel() {
+            return level;
+        }
+
+        /** Whether the descendants of the logger were changed, too.
+         * @return {@code true} for a recursive change.
+         * */
+        boolean isRecursive() {
+            return recursive;
+        }
+
+        /** Get the key of the logger of the change.
+         * @return the key of the framework and logger.
+         * */
+        private String key() {
+            return framework + '/' + logger;
+        }
+
+        /** Appends the line of the record.
+         * @param target the builder to append to.
+         * */
+        private void appendTo(final StringBuilder target) {
+            escape(framework, target);
+            target.append(SEPARATOR);
+            escape(logger, target);
+            target.append(SEPARATOR);
+            escape(level, target);
+            if (recursive) {
+                target.append(SEPARATOR).append(RECURSIVE);
+            }
+            target.append(NEWLINE);
+        }
+
+        /** Parses the line of a record.
+         * @param line the line without the line end.
+         * @return the record, or {@code null} if the line is malformed.
+         * */
+        private static Record parse(final String line) {
+            String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = unescape(fields[i]);
+                if (fields[i] == null) {
+                    return null;
+                }
+            }
+            if (fields.length == FIELDS) {
+                return new Record(fields[0], fields[1], fields[2], false);
+            }
+            if (fields.length == FIELDS + 1
+                    && RECURSIVE.equals(fields[FIELDS])) {
+                return new Record(fields[0], fields[1], fields[2], true);
+            }
+            return null;
+        }
+    }
+
+    /** Appends a field with its tabs, line ends and backslashes
+     * escaped.
+     * @param field the field to append.
+     * @param target the builder to append to.
+     * */
+    private static void escape(final String field,
+                               final StringBuilder target) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case SEPARATOR:
+                    target.append(ESCAPE).append('t');
+                    break;
+                case NEWLINE:
+                    target.append(ESCAPE).append('n');
+                    break;
+                case '\r':
+                    target.append(ESCAPE).append('r');
+                    break;
+                case ESCAPE:
+                    target.append(ESCAPE).append(ESCAPE);
+                    break;
+                default:
+                    target.append(c);
+            }
+        }
+    }
+
+    /** Reverts the escaping of a field.
+     * @param field the escaped field.
+     * @return the field, or {@code null} if an escape is malformed.
+     * */
+    private static String unescape(final String field) {
+        if (field.indexOf(ESCAPE) < 0) {
+            return field;
+        }
+        StringBuilder result = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c != ESCAPE) {
+                result.append(c);
+                continue;
+            }
+            i++;
+            if (i == field.length()) {
+                return null;
+            }
+            switch (field.charAt(i)) {
+                case 't':
+                    result.append(SEPARATOR);
+                    break;
+                case 'n':
+                    result.append(NEWLINE);
+                    break;
+                case 'r':
+                    result.append('\r');
+                    break;
+                case ESCAPE:
+                    result.append(ESCAPE);
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return result.toString();
+    }
+
+    /** The journal file. */
+    private final Path path;
+
+    /** The changes not written yet. */
+    private final Queue<Record> pending = new ConcurrentLinkedQueue<>();
+
+    /** The channel to append to, or {@code null} if not open. */
+    private FileChannel channel;
+
+    /** The writer thread, or {@code null} if not open. */
+    private Thread thread;
+
+    /** Whether the journal was closed. */
+    private volatile boolean closed;
+
+    /** Constructs a journal. The file is not touched before
+     * {@link #open()}.
+     * @param inPath the journal file.
+     * */
+    Journal(final Path inPath) {
+        this.path = Objects.requireNonNull(inPath);
+    }
+
+    /** Reads and compacts the journal and opens it for appending.
+     * The file is created if it does not exist and replaced by its
+     * compacted version otherwise.
+     * @return the latest change of each logger, in the order of the
+     * changes, which is the order of the lines of the compacted file.
+     * @throws IOException if the file could not be read or written.
+     * @throws IllegalStateException if the journal was already opened.
+     * */
+    synchronized List<Record> open() throws IOException {
+        if (channel != null || closed) {
+            throw new IllegalStateException("Journal already opened");
+        }
+        List<Record> records = compact(read(path));
+        StringBuilder builder = new StringBuilder();
+        for (Record record : records) {
+            record.appendTo(builder);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, builder.toString().getBytes(StandardCharsets.UTF_8));
+        replace(temp, path);
+        channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        thread = new Thread(this::run, "LogWebConfig Journal");
+        thread.setDaemon(true);
+        thread.start();
+        return records;
+    }
+
+    /** Moves a file over another one, atomically if the file system
+     * can.
+     * @param source the file to move.
+     * @param target the file to replace.
+     * @throws IOException if the file could not be moved.
+     * */
+    private static void replace(final Path source, final Path target)
+            throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Reads the records of a journal file.
+     * An incomplete or malformed line, for example from a crash while
+     * writing, is skipped. The file is read in blocks and the lines are
+     * decoded from the block, only a line crossing two blocks is
+     * copied. The file is closed when the method returns, so it can be
+     * replaced at once.
+     * @param file the journal file.
+     * @return the records in the order of the file, empty if the file
+     * does not exist.
+     * @throws IOException if the file could not be read.
+     * */
+    static List<Record> read(final Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return Collections.emptyList();
+        }
+        List<Record> result = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] block = new byte[READ_BLOCK_SIZE];
+            ByteArrayOutputStream carry = new ByteArrayOutputStream();
+            int length;
+            while ((length = in.read(block)) != -1) {
+                int start = 0;
+                for (int i = 0; i < length; i++) {
+                    if (block[i] != NEWLINE) {
+                        continue;
+                    }
+                    String line;
+                    if (carry.size() == 0) {
+                        line = new String(block, start, i - start,
+                                StandardCharsets.UTF_8);
+                    } else {
+                        carry.write(block, start, i - start);
+                        line = new String(carry.toByteArray(),
+                                StandardCharsets.UTF_8);
+                        carry.reset();
+                    }
+                    Record record = Record.parse(line);
+                    if (record != null) {
+                        result.add(record);
+                    }
+                    start = i + 1;
+                }
+                carry.write(block, start, length - start);
+            }
+        }
+        return result;
+    }
+
+    /** Compacts records to the latest change of each logger.
+     * @param records the records in the order of the changes.
+     * @return the latest record of each logger, ordered by the time of
+     * the latest change, so a recursive change still overrides the
+     * earlier changes of the descendants.
+     * */
+    static List<Record> compact(final List<Record> records) {
+        Map<String, Record> latest = new LinkedHashMap<>();
+        for (Record record : records) {
+            latest.remove(record.key());
+            latest.put(record.key(), record);
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    /** Queues a change for writing. Returns without waiting for the
+     * file.
+     * @param record the change to append.
+     * @throws IllegalStateException if the journal is not open.
+     * */
+    void append(final Record record) {
+        Thread writer;
+        synchronized (this) {
+            if (channel == null || closed) {
+                throw new IllegalStateException("Journal not open");
+            }
+            writer = thread;
+        }
+        pending.add(record);
+        LockSupport.unpark(writer);
+    }
+
+    /** Writes the queued changes and closes the journal. */
+    void close() {
+        Thread toJoin;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toJoin = thread;
+        }
+        if (toJoin == null) {
+            return;
+        }
+        LockSupport.unpark(toJoin);
+        try {
+            toJoin.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("logwebconfig: Could not close journal "
+                    + path + ": " + e);
+        }
+    }
+
+    /** The loop of the writer thread. */
+    private void run() {
+        while (!closed) {
+            writePending();
+            if (pending.isEmpty() && !closed) {
+                LockSupport.park(this);
+            }
+        }
+        writePending();
+    }
+
+    /** Writes all queued changes with one write.
+     * Failures are reported and the changes are dropped.
+     * */
+    private void writePending() {
+        StringBuilder builder = new StringBuilder();
+        Record record;
+        while ((record = pending.poll()) != null) {
+            record.appendTo(builder);
+        }
+        if (builder.length() == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(
+                builder.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            System.err.println("logwebconfig: Could not write journal "
+                    + path + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/** Configuration class for java.util.logging.
+ * The log manager only keeps weak references to its loggers, so a
+ * logger nobody refers to forgets its level. The bridge keeps the
+ * loggers it changed the level of.
+ * Sampled levels are not supported, because java.util.logging
+ * filters only see the events of their own logger or handler.
+ * */
+class JulBridge extends LogFrameworkBridge {
+
+    /** The loggers the level was changed of, by logger name. */
+    private final ConcurrentMap<String, Logger> changed =
+            new ConcurrentHashMap<>();
+
+    /** The counting of the events, or {@code null} if the events are
+     * not counted. */
+    private JulEventCounting eventCounting;
+
+    /**
+     * Converts a level to a java.util.logging level object.
+     * @param levelString the level String to recognize.
+     * @return the resulting level object.
+     * @throws IllegalArgumentException if the level was not recognized.
+     */
+    private static Level parseLevel(final String levelString) {
+        try {
+            return Level.parse(levelString.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Level not recognized: "
+                    + levelString);
+        }
+    }
+
+    /** Converts a level to its name.
+     * @param level the level to convert, may be {@code null}.
+     * @return the name of the level, or {@code null} if the level was
+     * {@code null}.
+     * */
+    private static String toName(final Level level) {
+        if (level == null) {
+            return null;
+        }
+        return level.getName();
+    }
+
+    /** Converts a logger name of the bridge to a java.util.logging
+     * logger name.
+     * @param name the logger name, the empty String for the root
+     *             logger.
+     * @return the java.util.logging logger name.
+     * */
+    private static String toJulName(final String name) {
+        if (name == null || "/".equals(name)) {
+            return "";
+        }
+        return name;
+    }
+
+    /** Dynamic method for {@link LogManager#getLogManager()}
+     * to support mocking.
+     * @return the log manager.
+     * */
+    LogManager getLogManager() {
+        return LogManager.getLogManager();
+    }
+
+    /** Dynamic method for {@link Logger#getLogger(String)}
+     * to support mocking.
+     * @param name the name of the logger to get.
+     * @return the requested logger.
+     * */
+    Logger getLogger(final String name) {
+        return Logger.getLogger(name);
+    }
+
+    @Override
+    public Optional<LogFrameworkBridge.LoggerResource> findLoggerResource(
+            final String loggerName) {
+        Logger logger = getLogManager().getLogger(toJulName(loggerName));
+        if (logger == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new LoggerResource(logger));
+    }
+
+    @Override
+    public LogFrameworkBridge.LoggerResource createLoggerResource(
+            final String loggerName) {
+        return new LoggerResource(toJulName(loggerName));
+    }
+
+    @Override
+    public void setLevels(final Map<String, String> levels) {
+        Map<String, Level> parsed = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : levels.entrySet()) {
+            parsed.put(toJulName(entry.getKey()),
+                    parseLevel(entry.getValue()));
+        }
+        for (Map.Entry<String, Level> entry : parsed.entrySet()) {
+            setLevel(getLogger(entry.getKey()), entry.getValue());
+        }
+    }
+
+    @Override
+    public void checkLevel(final String level) {
+        parseLevel(level);
+    }
+
+    /** Sets the level of a logger and keeps the logger.
+     * @param logger the logger.
+     * @param level the level to set.
+     * */
+    private void setLevel(final Logger logger, final Level level) {
+        changed.put(logger.getName(), logger);
+        logger.setLevel(level);
+    }
+
+    /** Counts the events reaching the handlers of the root logger.
+     * {@inheritDoc}
+     * */
+    @Override
+    public synchronized void startEventCounting(
+            final EventCounters counters) {
+        stopEventCounting();
+        eventCounting = new JulEventCounting(counters);
+        getLogger("").addHandler(eventCounting);
+    }
+
+    @Override
+    public synchronized void stopEventCounting() {
+        if (eventCounting != null) {
+            getLogger("").removeHandler(eventCounting);
+            eventCounting = null;
+        }
+    }
+
+    /** Java.util.logging has no {@code FATAL}, so nothing passes above
+     * {@code ERROR}. The other levels are the most verbose levels of
+     * {@link JulEventCounting#levelIndex(Level)} counted with them.
+     * {@inheritDoc}
+     * */
+    @Override
+    public String toFrameworkLevel(final String level) {
+        switch (level) {
+            case "FATAL":
+                return Level.OFF.getName();
+            case "ERROR":
+                return Level.SEVERE.getName();
+            case "WARN":
+                return Level.WARNING.getName();
+            case "DEBUG":
+                return Level.FINE.getName();
+            case "TRACE":
+                return Level.FINEST.getName();
+            default:
+                return level;
+        }
+    }
+
+    /** Lists the loggers of the log manager, the root logger first.
+     * The names are copied by the log manager, the loggers are looked
+     * up while the stream is consumed.
+     * {@inheritDoc}
+     * */
+    @Override
+    public Stream<LogFrameworkBridge.LoggerResource> streamLoggerResources() {
+        LogManager manager = getLogManager();
+        return Stream.concat(
+                Stream.of(""),
+                Collections.list(manager.getLoggerNames()).stream()
+                        .filter(name -> !name.isEmpty()))
+                .map(manager::getLogger)
+                .filter(Objects::nonNull)
+                .map(LoggerResource::new);
+    }
+
+    /** Resource representing a logger, including the root logger.
+     * */
+    private class LoggerResource implements LogFrameworkBridge.LoggerResource {
+        /** The name of the logger to configure. */
+        private final String logger;
+
+        /** The logger, or {@code null} if not looked up yet. */
+        private Logger instance;
+
+        /** Constructor for the resource.
+         * @param inLogger the name of the logger to configure.
+         *  */
+        LoggerResource(final String inLogger) {
+            this.logger = inLogger;
+        }
+
+        /** Constructor for the resource.
+         * @param inInstance the logger to configure.
+         *  */
+        LoggerResource(final Logger inInstance) {
+            this.logger = inInstance.getName();
+            this.instance = inInstance;
+        }
+
+        /** Get the logger, looking it up on first use.
+         * @return the logger to configure.
+         * */
+        private Logger instance() {
+            if (instance == null) {
+                instance = getLogger(logger);
+            }
+            return instance;
+        }
+
+        @Override
+        public String getLevel() {
+            return getEffectiveLevel();
+        }
+
+        @Override
+        public void setLevel(final String newLevel) {
+            JulBridge.this.setLevel(instance(), parseLevel(newLevel));
+        }
+
+        @Override
+        public void clearLevel() {
+            if (logger.isEmpty()) {
+                throw new IllegalArgumentException(
+                        "The root logger can not inherit a level");
+            }
+            JulBridge.this.setLevel(instance(), null);
+        }
+
+        @Override
+        public void setSampledLevel(final String newLevel,
+                                    final int eventsPerSecond) {
+            throw new IllegalArgumentException(
+                    "Sampling is not supported by java.util.logging");
+        }
+
+        @Override
+        public int getSampleRate() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return logger;
+        }
+
+        @Override
+        public String getConfiguredLevel() {
+            return toName(instance().getLevel());
+        }
+
+        @Override
+        public String getEffectiveLevel() {
+            for (Logger current = instance();
+                 current != null;
+                 current = current.getParent()) {
+                if (current.getLevel() != null) {
+                    return toName(current.getLevel());
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package de.sfuhrm.logwebconfig;
+
+/** Provides the bridge to java.util.logging.
+ * */
+public final class JulBridgeProvider implements LogFrameworkBridgeProvider {
+
+    @Override
+    public String getName() {
+        return "jul";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return BridgeRegistry.isPresent("java.util.logging.LogManager",
+                getClass().getClassLoader());
+    }
+
+    @Override
+    public LogFrameworkBridge newBridge() {
+        return new JulBridge();
+    }
+}
@@ -0,0 +1,63 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/** Counts the java.util.logging events of all loggers in
+ * {@link EventCounters}.
+ * The counting is a handler of the root logger, so it counts the
+ * events that pass the level of their logger and reach the root
+ * logger. Events of loggers that do not use the parent handlers are
+ * not counted.
+ * */
+final class JulEventCounting extends Handler {
+
+    /** The levels of {@link EventCounters#LEVELS} after {@code FATAL},
+     * which java.util.logging does not have. */
+    private static final Level[] LEVELS = {Level.SEVERE, Level.WARNING,
+            Level.INFO, Level.FINE, Level.FINEST};
+
+    /** The counters to count in. */
+    private final EventCounters counters;
+
+    /** Constructs a new counting.
+     * @param inCounters the counters to count in.
+     * */
+    JulEventCounting(final EventCounters inCounters) {
+        this.counters = inCounters;
+        setLevel(Level.ALL);
+    }
+
+    /** Converts a level to an index of {@link EventCounters#LEVELS}.
+     * @param level the level of an event.
+     * @return the index of the level or of the next finer level.
+     * */
+    static int levelIndex(final Level level) {
+        int index = 0;
+        while (index < LEVELS.length - 1
+                && level.intValue() < LEVELS[index].intValue()) {
+            index++;
+        }
+        return index + 1;
+    }
+
+    @Override
+    public void publish(final LogRecord logRecord) {
+        String name = logRecord.getLoggerName();
+        if (name == null) {
+            name = "";
+        }
+        counters.increment(name, levelIndex(logRecord.getLevel()));
+    }
+
+    @Override
+    public void flush() {
+        // nothing buffered
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
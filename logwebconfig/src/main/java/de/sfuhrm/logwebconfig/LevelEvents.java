@@ -0,0 +1,215 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/** The recent level changes for the subscribers of the event stream.
+ * The changes are kept in a ring buffer of fixed capacity, so memory
+ * does not grow with the number of changes or subscribers. Publishing
+ * never waits for the subscribers: each subscriber only remembers the
+ * id of the next change it wants, and a subscriber that falls behind
+ * by more than the capacity loses the overwritten changes.
+ * */
+final class LevelEvents {
+
+    /** The default number of changes kept. */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    /** The separator of the level and the rate of a sampled level. */
+    private static final char SAMPLING_SEPARATOR = '@';
+
+    /** The unit suffix of the rate of a sampled level. */
+    private static final String PER_SECOND = "/s";
+
+    /** A level change. */
+    static final class Event {
+        /** The id of the change, counting from 0. */
+        private final long id;
+
+        /** The name of the logging framework. */
+        private final String framework;
+
+        /** The name of the logger. */
+        private final String logger;
+
+        /** The level before the change. */
+        private final String oldLevel;
+
+        /** The level after the change. */
+        private final String newLevel;
+
+        /** The time of the change in milliseconds since the epoch. */
+        private final long time;
+
+        /** Constructs an event.
+         * @param inId the id of the change.
+         * @param inFramework the name of the logging framework.
+         * @param inLogger the name of the logger.
+         * @param inOldLevel the level before the change.
+         * @param inNewLevel the level after the change.
+         * @param inTime the time in milliseconds since the epoch.
+         * */
+        private Event(final long inId,
+                      final String inFramework,
+                      final String inLogger,
+                      final String inOldLevel,
+                      final String inNewLevel,
+                      final long inTime) {
+            this.id = inId;
+            this.framework = inFramework;
+            this.logger = inLogger;
+            this.oldLevel = inOldLevel;
+            this.newLevel = inNewLevel;
+            this.time = inTime;
+        }
+
+        /** Get the id of the change.
+         * @return the id, counting from 0.
+         * */
+        long getId() {
+            return id;
+        }
+
+        /** Get the name of the logging framework.
+         * @return the framework name.
+         * */
+        String getFramework() {
+            return framework;
+        }
+
+        /** Get the name of the logger.
+         * @return the logger name, the empty String for the root logger.
+         * */
+        String getLogger() {
+            return logger;
+        }
+
+        /** Get the level before the change.
+         * @return the level name.
+         * */
+        String getOldLevel() {
+            return oldLevel;
+        }
+
+        /** Get the level after the change.
+         * @return the level name.
+         * */
+        String getNewLevel() {
+            return newLevel;
+        }
+
+        /** Get the time of the change.
+         * @return the milliseconds since the epoch.
+         * */
+        long getTime() {
+            return time;
+        }
+    }
+
+    /** The ring of the recent changes. Guarded by {@code this}. */
+    private final Event[] ring;
+
+    /** The id of the next change. Guarded by {@code this}. */
+    private long next;
+
+    /** Whether the subscribers are to end. Guarded by {@code this}. */
+    private boolean closed;
+
+    /** Constructs the events.
+     * @param capacity the number of changes kept.
+     * */
+    LevelEvents(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Illegal capacity");
+        }
+        this.ring = new Event[capacity];
+    }
+
+    /** Get the level of a logger as reported in the events and
+     * responses.
+     * @param resource the logger.
+     * @return the effective level, followed by the sampling rate if
+     * sampled, for example {@code DEBUG@200/s}.
+     * */
+    static String levelOf(final LogFrameworkBridge.LoggerResource resource) {
+        String level = resource.getLevel();
+        int sampleRate = resource.getSampleRate();
+        if (sampleRate != 0) {
+            level = level + SAMPLING_SEPARATOR + sampleRate + PER_SECOND;
+        }
+        return level;
+    }
+
+    /** Publishes a level change and wakes up the waiting subscribers.
+     * Nothing is published if the level did not change.
+     * @param framework the name of the logging framework.
+     * @param logger the name of the logger.
+     * @param oldLevel the level before the change.
+     * @param newLevel the level after the change.
+     * */
+    synchronized void publish(final String framework,
+                              final String logger,
+                              final String oldLevel,
+                              final String newLevel) {
+        if (Objects.equals(oldLevel, newLevel)) {
+            return;
+        }
+        ring[(int) (next % ring.length)] = new Event(next, framework,
+                logger, oldLevel, newLevel, System.currentTimeMillis());
+        next++;
+        notifyAll();
+    }
+
+    /** Get the id the next change will have.
+     * @return the id of the next change.
+     * */
+    synchronized long nextId() {
+        return next;
+    }
+
+    /** Takes a change, waiting for it if it was not published yet.
+     * @param id the id of the change.
+     * @param timeoutMillis the maximum milliseconds to wait, or
+     *                      {@code 0} for not waiting.
+     * @return the change, or {@code null} if it was not published in
+     * time, if it was {@link #isLost(long) lost} or if the events were
+     * {@link #close() closed}.
+     * @throws InterruptedException if interrupted while waiting.
+     * */
+    synchronized Event take(final long id, final long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long remaining = timeoutMillis;
+        while (id >= next && !closed && remaining > 0) {
+            wait(remaining);
+            remaining = TimeUnit.NANOSECONDS.toMillis(
+                    deadline - System.nanoTime());
+        }
+        if (id >= next || closed || isLost(id)) {
+            return null;
+        }
+        return ring[(int) (id % ring.length)];
+    }
+
+    /** Checks whether a change was overwritten by newer changes.
+     * @param id the id of the change.
+     * @return {@code true} if the change is no longer kept.
+     * */
+    synchronized boolean isLost(final long id) {
+        return id < next - ring.length;
+    }
+
+    /** Checks whether the events were closed.
+     * @return {@code true} if the subscribers are to end.
+     * */
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /** Ends all subscribers. */
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+}
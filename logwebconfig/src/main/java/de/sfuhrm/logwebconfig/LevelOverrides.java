@@ -0,0 +1,327 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/** Level changes that are reverted automatically after a time to live.
+ * The level of the logger before the first override is remembered and
+ * restored on expiry. The expiries are run by one {@link TimerWheel}
+ * for all overrides, so the number of threads does not grow with the
+ * number of overrides.
+ * Changing the level of a logger without a time to live makes the
+ * change permanent and drops the pending override of the logger.
+ * All level changes of the server pass the overrides, so they
+ * start a new {@link Generation} and are published as
+ * {@link LevelEvents}.
+ * */
+final class LevelOverrides {
+
+    /** A pending override. */
+    static final class Entry {
+        /** The name of the logging framework. */
+        private final String framework;
+
+        /** The logger that was overridden. */
+        private final LogFrameworkBridge.LoggerResource resource;
+
+        /** The level set by the override. */
+        private final String level;
+
+        /** The level to restore on expiry, or {@code null} if the
+         * logger inherits its level again. */
+        private final String previousLevel;
+
+        /** The expiry time in {@link System#nanoTime()} units. */
+        private final long expiry;
+
+        /** The timer handle of the expiry. */
+        private TimerWheel.Timeout timeout;
+
+        /** Constructs an entry.
+         * @param inFramework the name of the logging framework.
+         * @param inResource the logger that was overridden.
+         * @param inLevel the level set by the override.
+         * @param inPreviousLevel the level to restore on expiry, or
+         *                        {@code null} to inherit it.
+         * @param inExpiry the expiry time in nanoseconds.
+         * */
+        private Entry(final String inFramework,
+                      final LogFrameworkBridge.LoggerResource inResource,
+                      final String inLevel,
+                      final String inPreviousLevel,
+                      final long inExpiry) {
+            this.framework = inFramework;
+            this.resource = inResource;
+            this.level = inLevel;
+            this.previousLevel = inPreviousLevel;
+            this.expiry = inExpiry;
+        }
+
+        /** Get the name of the overridden logger.
+         * @return the logger name, the empty String for the root logger.
+         * */
+        String getLogger() {
+            return resource.getName();
+        }
+
+        /** Get the level set by the override.
+         * @return the level name.
+         * */
+        String getLevel() {
+            return level;
+        }
+
+        /** Get the level restored on expiry.
+         * @return the level name, or {@code null} if the logger
+         * inherits its level again.
+         * */
+        String getPreviousLevel() {
+            return previousLevel;
+        }
+
+        /** Get the time until the override expires.
+         * @return the remaining milliseconds, at least 0.
+         * */
+        long getRemainingMillis() {
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(
+                    expiry - System.nanoTime()));
+        }
+
+        /** Sets the previous level of the logger again, or lets it
+         * inherit its level if it had none of its own.
+         * */
+        private void restoreLevel() {
+            if (previousLevel == null) {
+                resource.clearLevel();
+            } else {
+                resource.setLevel(previousLevel);
+            }
+        }
+
+        /** Get the key of the entry.
+         * @return the key of the framework and logger.
+         * */
+        private String key() {
+            return LevelOverrides.key(framework, getLogger());
+        }
+    }
+
+    /** The timer running the expiries. */
+    private final TimerWheel timerWheel;
+
+    /** The generation incremented on every level change. */
+    private final Generation generation;
+
+    /** The events to publish the level changes to. */
+    private final LevelEvents events;
+
+    /** The pending overrides by framework and logger name.
+     * Guarded by {@code this}. */
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /** Constructs the overrides.
+     * @param inTimerWheel the timer running the expiries.
+     * */
+    LevelOverrides(final TimerWheel inTimerWheel) {
+        this(inTimerWheel, new Generation(),
+                new LevelEvents(LevelEvents.DEFAULT_CAPACITY));
+    }
+
+    /** Constructs the overrides.
+     * @param inTimerWheel the timer running the expiries.
+     * @param inGeneration the generation to increment on every level
+     *                     change.
+     * @param inEvents the events to publish the level changes to.
+     * */
+    LevelOverrides(final TimerWheel inTimerWheel,
+                   final Generation inGeneration,
+                   final LevelEvents inEvents) {
+        this.timerWheel = inTimerWheel;
+        this.generation = inGeneration;
+        this.events = inEvents;
+    }
+
+    /** Builds the key of a logger.
+     * @param framework the name of the logging framework.
+     * @param logger the name of the logger.
+     * @return the key in the map of entries.
+     * */
+    private static String key(final String framework, final String logger) {
+        return framework + '/' + logger;
+    }
+
+    /** Sets the level of a logger for a time.
+     * If the logger already has a pending override, it is replaced
+     * but the level from before the first override is kept for
+     * restoring. If the logger inherits its level, it inherits again
+     * on restoring, so later changes of its parents reach it.
+     * @param framework the name of the logging framework.
+     * @param resource the logger to set the level of.
+     * @param level the level to set.
+     * @param ttlMillis the milliseconds until the previous level
+     *                  is restored.
+     * @return the pending override.
+     * @throws IllegalArgumentException if the level is not acceptable.
+     * */
+    synchronized Entry override(final String framework,
+                               final LogFrameworkBridge.LoggerResource
+                                       resource,
+                               final String level,
+                               final long ttlMillis) {
+        String key = key(framework, resource.getName());
+        Entry existing = entries.get(key);
+        String previousLevel;
+        if (existing != null) {
+            previousLevel = existing.previousLevel;
+        } else {
+            previousLevel = resource.getConfiguredLevel();
+        }
+        String oldLevel = LevelEvents.levelOf(resource);
+        resource.setLevel(level);
+        changed(framework, resource, oldLevel);
+        if (existing != null) {
+            existing.timeout.cancel();
+        }
+        Entry entry = new Entry(framework, resource, level, previousLevel,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+        entry.timeout = timerWheel.schedule(() -> expire(entry),
+                ttlMillis, TimeUnit.MILLISECONDS);
+        entries.put(key, entry);
+        return entry;
+    }
+
+    /** Finds the pending override of a logger.
+     * @param framework the name of the logging framework.
+     * @param logger the name of the logger.
+     * @return the override, or {@code null} if there is none.
+     * */
+    synchronized Entry find(final String framework, final String logger) {
+        return entries.get(key(framework, logger));
+    }
+
+    /** Changes levels permanently. The pending overrides of the
+     * affected loggers are dropped without restoring their levels.
+     * @param framework the name of the logging framework.
+     * @param named the loggers to publish the changes of, the loggers
+     *              the change names and, for a change of a subtree,
+     *              its descendants. Loggers whose level did not change
+     *              are not published.
+     * @param affected matches the names of the loggers the change
+     *                 affects.
+     * @param change the change to apply.
+     * */
+    synchronized void apply(final String framework,
+                            final Collection<LogFrameworkBridge
+                                    .LoggerResource> named,
+                            final Predicate<String> affected,
+                            final Runnable change) {
+        List<String> oldLevels = new ArrayList<>(named.size());
+        for (LogFrameworkBridge.LoggerResource resource : named) {
+            oldLevels.add(LevelEvents.levelOf(resource));
+        }
+        change.run();
+        generation.increment();
+        Iterator<String> oldLevel = oldLevels.iterator();
+        for (LogFrameworkBridge.LoggerResource resource : named) {
+            events.publish(framework, resource.getName(), oldLevel.next(),
+                    LevelEvents.levelOf(resource));
+        }
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.framework.equals(framework)
+                    && affected.test(entry.getLogger())) {
+                entry.timeout.cancel();
+                iterator.remove();
+            }
+        }
+    }
+
+    /** Ends a pending override now and restores the previous level.
+     * @param framework the name of the logging framework.
+     * @param logger the name of the logger.
+     * @return {@code true} if there was a pending override.
+     * */
+    synchronized boolean revert(final String framework,
+                                final String logger) {
+        Entry entry = entries.remove(key(framework, logger));
+        if (entry == null) {
+            return false;
+        }
+        entry.timeout.cancel();
+        String oldLevel = LevelEvents.levelOf(entry.resource);
+        entry.restoreLevel();
+        changed(framework, entry.resource, oldLevel);
+        return true;
+    }
+
+    /** Lists the pending overrides of a framework.
+     * @param framework the name of the logging framework.
+     * @return the overrides ordered by their expiry.
+     * */
+    synchronized List<Entry> list(final String framework) {
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.framework.equals(framework)) {
+                result.add(entry);
+            }
+        }
+        result.sort(Comparator.comparingLong(entry -> entry.expiry));
+        return result;
+    }
+
+    /** Restores the previous levels of all pending overrides.
+     * The timer is not stopped, it belongs to the caller.
+     * */
+    synchronized void stop() {
+        for (Entry entry : entries.values()) {
+            entry.timeout.cancel();
+            restore(entry);
+        }
+        entries.clear();
+    }
+
+    /** Called by the timer when an override expires.
+     * @param entry the expired override.
+     * */
+    private synchronized void expire(final Entry entry) {
+        if (entries.remove(entry.key(), entry)) {
+            restore(entry);
+        }
+    }
+
+    /** Restores the previous level of an override.
+     * Failures are reported and do not stop restoring the others.
+     * @param entry the override to restore.
+     * */
+    private void restore(final Entry entry) {
+        try {
+            String oldLevel = LevelEvents.levelOf(entry.resource);
+            entry.restoreLevel();
+            changed(entry.framework, entry.resource, oldLevel);
+        } catch (RuntimeException e) {
+            System.err.println("logwebconfig: Could not restore level of "
+                    + entry.getLogger() + ": " + e);
+        }
+    }
+
+    /** Starts a new generation and publishes the change of a logger.
+     * @param framework the name of the logging framework.
+     * @param resource the changed logger.
+     * @param oldLevel the level before the change.
+     * */
+    private void changed(final String framework,
+                         final LogFrameworkBridge.LoggerResource resource,
+                         final String oldLevel) {
+        generation.increment();
+        events.publish(framework, resource.getName(), oldLevel,
+                LevelEvents.levelOf(resource));
+    }
+}
@@ -0,0 +1,116 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/** The levels configured for exactly the loggers of a logging
+ * framework, saved and restored in the {@code name=LEVEL} line format
+ * of the {@code levels} resource.
+ * Only the loggers with a level of their own are part of a snapshot,
+ * so its size grows with the configured loggers, not with all
+ * loggers. Sampling rates are not saved.
+ * */
+final class LevelSnapshot {
+
+    /** No instances. */
+    private LevelSnapshot() {
+        // only static methods
+    }
+
+    /** Streams the snapshot lines of a framework, the root logger
+     * first. The loggers are read while the stream is consumed.
+     * @param bridge the bridge of the logging framework.
+     * @return the {@code name=LEVEL} lines without line separators.
+     * */
+    static Stream<String> lines(final LogFrameworkBridge bridge) {
+        return Stream.concat(
+                Stream.of(bridge.createLoggerResource("")),
+                bridge.streamConfiguredLoggerResources()
+                        .filter(resource -> !resource.getName().isEmpty()))
+                .filter(resource -> resource.getConfiguredLevel() != null)
+                .map(resource -> resource.getName() + '='
+                        + resource.getConfiguredLevel());
+    }
+
+    /** Reads the current levels of a framework.
+     * @param bridge the bridge of the logging framework.
+     * @return the configured levels by logger name.
+     * */
+    static Map<String, String> read(final LogFrameworkBridge bridge) {
+        Map<String, String> result = new HashMap<>();
+        lines(bridge).forEach(line -> {
+            int equalsIndex = line.lastIndexOf('=');
+            result.put(line.substring(0, equalsIndex),
+                    line.substring(equalsIndex + 1));
+        });
+        return result;
+    }
+
+    /** Calculates the level changes that restore a snapshot.
+     * The loggers of the snapshot get their level back. The loggers
+     * that got a level of their own after the snapshot get the level
+     * they would inherit in the snapshot: log4j2 can not drop a logger
+     * configuration safely, so these keep a level of their own, but
+     * behave like in the snapshot.
+     * Loggers that already have the right level are left out, so
+     * restoring an unchanged state changes nothing.
+     * @param snapshot the saved levels by logger name.
+     * @param current the current levels by logger name, see
+     *                {@link #read(LogFrameworkBridge)}.
+     * @return the levels to set by logger name, in the order of the
+     * snapshot.
+     * */
+    static Map<String, String> changes(final Map<String, String> snapshot,
+                                       final Map<String, String> current) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : snapshot.entrySet()) {
+            if (!entry.getValue().equalsIgnoreCase(
+                    current.get(entry.getKey()))) {
+                result.put(entry.getKey(),
+                        entry.getValue().toUpperCase(Locale.ROOT));
+            }
+        }
+        String root = current.get("");
+        for (Map.Entry<String, String> entry : current.entrySet()) {
+            if (snapshot.containsKey(entry.getKey())) {
+                continue;
+            }
+            String inherited = inherited(entry.getKey(), snapshot, root);
+            if (inherited != null
+                    && !inherited.equalsIgnoreCase(entry.getValue())) {
+                result.put(entry.getKey(),
+                        inherited.toUpperCase(Locale.ROOT));
+            }
+        }
+        return result;
+    }
+
+    /** Finds the level a logger inherits in a snapshot.
+     * @param logger the name of the logger.
+     * @param snapshot the saved levels by logger name.
+     * @param root the current level of the root logger, used if the
+     *             snapshot has no ancestor of the logger.
+     * @return the level of the nearest ancestor in the snapshot.
+     * */
+    static String inherited(final String logger,
+                            final Map<String, String> snapshot,
+                            final String root) {
+        String name = logger;
+        while (!name.isEmpty()) {
+            int dotIndex = name.lastIndexOf('.');
+            if (dotIndex == -1) {
+                name = "";
+            } else {
+                name = name.substring(0, dotIndex);
+            }
+            String level = snapshot.get(name);
+            if (level != null) {
+                return level;
+            }
+        }
+        return root;
+    }
+}
@@ -0,0 +1,78 @@
+package de.sfuhrm.logwebconfig;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+
+/** An input stream that encodes lines in UTF-8 while it is read.
+ * Only the current line is held in memory, so the lines can come
+ * lazily from a large source.
+ * */
+final class LinesInputStream extends InputStream {
+
+    /** The line separator appended to every line. */
+    private static final byte NEWLINE = '\n';
+
+    /** Mask to convert a byte to an unsigned value. */
+    private static final int BYTE_MASK = 0xff;
+
+    /** The lines to encode. */
+    private final Iterator<String> lines;
+
+    /** The encoded current line including the line separator. */
+    private byte[] buffer = new byte[0];
+
+    /** The read position in {@link #buffer}. */
+    private int position;
+
+    /** Constructs a new stream.
+     * @param inLines the lines to encode, without line separators.
+     * */
+    LinesInputStream(final Iterator<String> inLines) {
+        this.lines = Objects.requireNonNull(inLines);
+    }
+
+    /** Makes sure the buffer has unread bytes.
+     * @return {@code false} if there are no more lines.
+     * */
+    private boolean fill() {
+        while (position == buffer.length) {
+            if (!lines.hasNext()) {
+                return false;
+            }
+            byte[] line = lines.next().getBytes(StandardCharsets.UTF_8);
+            buffer = new byte[line.length + 1];
+            System.arraycopy(line, 0, buffer, 0, line.length);
+            buffer[line.length] = NEWLINE;
+            position = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position++] & BYTE_MASK;
+    }
+
+    @Override
+    public int read(final byte[] target, final int offset, final int length) {
+        if (length == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < length && fill()) {
+            int chunk = Math.min(length - count, buffer.length - position);
+            System.arraycopy(buffer, position, target, offset + count, chunk);
+            position += chunk;
+            count += chunk;
+        }
+        if (count == 0) {
+            return -1;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,131 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.Category;
+import org.apache.log4j.FileAppender;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Enumeration;
+import java.util.Optional;
+
+/** The buffering of a log4j1 {@link FileAppender}.
+ * Log4j1 reads the immediate flush on every event, so it changes at
+ * once. The buffer belongs to the writer of the file, so a new buffer
+ * size opens the file again. That happens while holding the lock of
+ * the appender, which every event takes as well, so no event is lost
+ * or written twice. The file is opened again only if the appender
+ * appends to it, otherwise it would be truncated. Log4j1 writes the
+ * header of the layout again and turns off the immediate flush when it
+ * opens a buffered file.
+ * */
+final class Log4J1AppenderResource
+        implements LogFrameworkBridge.AppenderResource {
+
+    /** The appender. */
+    private final FileAppender appender;
+
+    /** Constructs the resource.
+     * @param inAppender the appender.
+     * */
+    Log4J1AppenderResource(final FileAppender inAppender) {
+        this.appender = inAppender;
+    }
+
+    /** Finds a file appender attached to a logger.
+     * @param root the root logger.
+     * @param loggers the other loggers.
+     * @param name the name of the appender.
+     * @return the appender, or {@link Optional#empty()} if no logger
+     * has a file appender with the name.
+     * */
+    static Optional<LogFrameworkBridge.AppenderResource> find(
+            final Category root,
+            final Enumeration<?> loggers,
+            final String name) {
+        Appender appender = root.getAppender(name);
+        while (appender == null && loggers.hasMoreElements()) {
+            appender = ((Category) loggers.nextElement()).getAppender(name);
+        }
+        if (appender instanceof FileAppender) {
+            return Optional.of(
+                    new Log4J1AppenderResource((FileAppender) appender));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public String getName() {
+        return appender.getName();
+    }
+
+    @Override
+    public String getType() {
+        return appender.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getBufferSize() {
+        synchronized (appender) {
+            if (!appender.getBufferedIO()) {
+                return 0;
+            }
+            return appender.getBufferSize();
+        }
+    }
+
+    @Override
+    public boolean isImmediateFlush() {
+        return appender.getImmediateFlush();
+    }
+
+    @Override
+    public boolean isMemoryMapped() {
+        return false;
+    }
+
+    @Override
+    public void configure(final Integer bufferSize,
+                          final Boolean immediateFlush,
+                          final Boolean memoryMapped) {
+        if (Boolean.TRUE.equals(memoryMapped)) {
+            throw new UnsupportedOperationException(
+                    "log4j1 can not memory map files");
+        }
+        if (bufferSize != null && bufferSize < 0) {
+            throw new IllegalArgumentException(
+                    "Buffer size illegal: " + bufferSize);
+        }
+        synchronized (appender) {
+            if (bufferSize != null && bufferSize != getBufferSize()) {
+                reopen(bufferSize);
+            }
+            if (immediateFlush != null) {
+                appender.setImmediateFlush(immediateFlush);
+            }
+        }
+    }
+
+    /** Opens the file again with a new buffer size. The caller holds
+     * the lock of the appender.
+     * @param bufferSize the new buffer size, 0 for unbuffered writes.
+     * @throws IllegalArgumentException if the file would be truncated.
+     * @throws UncheckedIOException if the file could not be opened.
+     * */
+    private void reopen(final int bufferSize) {
+        if (!appender.getAppend() || appender.getFile() == null) {
+            throw new IllegalArgumentException("log4j1 would truncate the"
+                    + " file of " + getName() + " when opening it again");
+        }
+        boolean bufferedIO = bufferSize > 0;
+        int size = appender.getBufferSize();
+        if (bufferedIO) {
+            size = bufferSize;
+        }
+        try {
+            appender.setFile(appender.getFile(), true, bufferedIO, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.log4j.AsyncAppender;
+import org.apache.log4j.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/** The buffer of a log4j1 {@link AsyncAppender}.
+ * Log4j1 does not tell how full the buffer is or how many events it
+ * dropped, so only the blocking can change. A non-blocking log4j1
+ * appender drops the events that do not fit and logs a summary.
+ * */
+final class Log4J1AsyncQueue implements LogFrameworkBridge.AsyncQueue {
+
+    /** The appender. */
+    private final AsyncAppender appender;
+
+    /** Constructs the queue.
+     * @param inAppender the appender.
+     * */
+    Log4J1AsyncQueue(final AsyncAppender inAppender) {
+        this.appender = inAppender;
+    }
+
+    /** Lists the async appenders attached to loggers.
+     * @param root the root logger.
+     * @param loggers the other loggers.
+     * @return the queues, each appender once.
+     * */
+    static List<LogFrameworkBridge.AsyncQueue> list(
+            final Category root,
+            final Enumeration<?> loggers) {
+        List<LogFrameworkBridge.AsyncQueue> result = new ArrayList<>();
+        Set<AsyncAppender> seen =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        add(result, seen, root);
+        while (loggers.hasMoreElements()) {
+            add(result, seen, (Category) loggers.nextElement());
+        }
+        return result;
+    }
+
+    /** Adds the async appenders of a logger.
+     * @param queues the list to add to.
+     * @param seen the appenders added before.
+     * @param logger the logger.
+     * */
+    private static void add(final List<LogFrameworkBridge.AsyncQueue> queues,
+                            final Set<AsyncAppender> seen,
+                            final Category logger) {
+        Enumeration<?> appenders = logger.getAllAppenders();
+        while (appenders.hasMoreElements()) {
+            Object appender = appenders.nextElement();
+            if (appender instanceof AsyncAppender
+                    && seen.add((AsyncAppender) appender)) {
+                queues.add(new Log4J1AsyncQueue((AsyncAppender) appender));
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return appender.getName();
+    }
+
+    @Override
+    public int getCapacity() {
+        return appender.getBufferSize();
+    }
+
+    @Override
+    public int getRemainingCapacity() {
+        return -1;
+    }
+
+    @Override
+    public long getDiscarded() {
+        return -1;
+    }
+
+    @Override
+    public boolean isBlocking() {
+        return appender.getBlocking();
+    }
+
+    @Override
+    public String getDiscardLevel() {
+        return null;
+    }
+
+    @Override
+    public void setPolicy(final Boolean blocking,
+                          final String discardLevel) {
+        if (discardLevel != null) {
+            throw new UnsupportedOperationException("log4j1 does not tell"
+                    + " how full the buffer of " + getName() + " is");
+        }
+        if (blocking != null) {
+            appender.setBlocking(blocking);
+        }
+    }
+}
@@ -1,14 +1,42 @@
 package de.sfuhrm.logwebconfig;
 
+import org.apache.log4j.Category;
 import org.apache.log4j.Level;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /** Configuration class for log4j1.
  * */
 class Log4J1Bridge extends LogFrameworkBridge {
+
+    /** The samplers of the sampled loggers by logger name.
+     * The root logger has the empty name. */
+    private final ConcurrentMap<String, Log4J1Sampler> samplers =
+            new ConcurrentHashMap<>();
+
+    /** The counting of the events, or {@code null} if the events are
+     * not counted. */
+    private Log4J1EventCounting eventCounting;
+
+    /** The filter of the context levels, or {@code null} if there are
+     * no context levels. */
+    private Log4J1ContextFilter contextFilter;
+
     /**
      * Converts a level to a Log4j level object.
      * @param levelString the level String to recognize.
@@ -24,6 +52,18 @@ class Log4J1Bridge extends LogFrameworkBridge {
         return level;
     }
 
+    /** Converts a level to its name.
+     * @param level the level to convert, may be {@code null}.
+     * @return the name of the level, or {@code null} if the level was
+     * {@code null}.
+     * */
+    private static String toName(final Level level) {
+        if (level == null) {
+            return null;
+        }
+        return level.toString();
+    }
+
     @Override
     public Optional<LogFrameworkBridge.LoggerResource> findLoggerResource(
             final String loggerName) {
@@ -31,7 +71,195 @@ class Log4J1Bridge extends LogFrameworkBridge {
                 || loggerName.isEmpty() || "/".equals(loggerName)) {
             return Optional.of(new RootLoggerResource());
         }
-        return Optional.of(new LoggerResource(loggerName));
+        Logger logger = exists(loggerName);
+        if (logger == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new LoggerResource(logger));
+    }
+
+    @Override
+    public LogFrameworkBridge.LoggerResource createLoggerResource(
+            final String loggerName) {
+        if (loggerName == null
+                || loggerName.isEmpty() || "/".equals(loggerName)) {
+            return new RootLoggerResource();
+        }
+        return new LoggerResource(loggerName);
+    }
+
+    /** Dynamic method for {@link LogManager#exists(String)}
+     * to support mocking.
+     * @param logger the name of the logger to look up.
+     * @return the logger, or {@code null} if it does not exist.
+     * */
+    Logger exists(final String logger) {
+        return LogManager.exists(logger);
+    }
+
+    @Override
+    public void setLevels(final Map<String, String> levels) {
+        Map<String, Level> parsed = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : levels.entrySet()) {
+            parsed.put(entry.getKey(), parseLevel(entry.getValue()));
+        }
+        for (Map.Entry<String, Level> entry : parsed.entrySet()) {
+            String name = entry.getKey();
+            if (name.isEmpty() || "/".equals(name)) {
+                stopSampling("");
+                getRootLogger().setLevel(entry.getValue());
+            } else {
+                stopSampling(name);
+                getLogger(name).setLevel(entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void checkLevel(final String level) {
+        parseLevel(level);
+    }
+
+    /** Counts the events of the appenders of the loggers that exist
+     * now. Appenders added later are not counted.
+     * {@inheritDoc}
+     * */
+    @Override
+    public synchronized void startEventCounting(
+            final EventCounters counters) {
+        stopEventCounting();
+        eventCounting = new Log4J1EventCounting(counters);
+        eventCounting.start(getRootLogger(), getCurrentLoggers());
+    }
+
+    @Override
+    public synchronized void stopEventCounting() {
+        if (eventCounting != null) {
+            eventCounting.stop();
+            eventCounting = null;
+        }
+    }
+
+    /** The rules lower the levels of the loggers in their subtrees,
+     * and an appender filter denies the events that match no rule, see
+     * {@link Log4J1ContextFilter}. The filter of the previous rules is
+     * removed before the new one is installed.
+     * {@inheritDoc}
+     * */
+    @Override
+    public synchronized void setContextRules(
+            final Collection<ContextLevels.Rule> rules) {
+        ContextLookup lookup = new ContextLookup(rules,
+                name -> Log4J1ContextFilter.verbosity(parseLevel(name)));
+        Map<String, Level> subtrees = new HashMap<>();
+        for (ContextLevels.Rule rule : rules) {
+            Level level = parseLevel(rule.getLevel());
+            Level other = subtrees.get(rule.getLogger());
+            if (other == null || level.toInt() < other.toInt()) {
+                subtrees.put(rule.getLogger(), level);
+            }
+        }
+        if (contextFilter != null) {
+            contextFilter.uninstall();
+            contextFilter = null;
+        }
+        if (lookup.isEmpty()) {
+            return;
+        }
+        for (String logger : subtrees.keySet()) {
+            if (!logger.isEmpty()) {
+                getLogger(logger);
+            }
+        }
+        contextFilter = new Log4J1ContextFilter(lookup, subtrees);
+        contextFilter.install(getRootLogger(), getCurrentLoggers());
+    }
+
+    /** Sets the level of a logger and samples its events.
+     * @param name the name of the logger, the empty String for the
+     *             root logger.
+     * @param logger the logger.
+     * @param level the level to set.
+     * @param eventsPerSecond the number of events per second to pass.
+     * */
+    private void startSampling(final String name,
+                               final Category logger,
+                               final Level level,
+                               final int eventsPerSecond) {
+        Log4J1Sampler sampler =
+                new Log4J1Sampler(name, level, eventsPerSecond);
+        logger.setLevel(level);
+        sampler.install(logger);
+        Log4J1Sampler previous = samplers.put(name, sampler);
+        if (previous != null) {
+            previous.uninstall();
+        }
+    }
+
+    /** Ends the sampling of a logger.
+     * @param name the name of the logger, the empty String for the
+     *             root logger.
+     * */
+    private void stopSampling(final String name) {
+        Log4J1Sampler sampler = samplers.remove(name);
+        if (sampler != null) {
+            sampler.uninstall();
+        }
+    }
+
+    /** Get the sampling rate of a logger.
+     * @param name the name of the logger, the empty String for the
+     *             root logger.
+     * @return the events per second, or 0 if not sampled.
+     * */
+    private int getSampleRate(final String name) {
+        Log4J1Sampler sampler = samplers.get(name);
+        if (sampler == null) {
+            return 0;
+        }
+        return sampler.getEventsPerSecond();
+    }
+
+    @Override
+    public Stream<LogFrameworkBridge.LoggerResource> streamLoggerResources() {
+        Enumeration<?> loggers = getCurrentLoggers();
+        Iterator<LogFrameworkBridge.LoggerResource> iterator =
+                new Iterator<LogFrameworkBridge.LoggerResource>() {
+            @Override
+            public boolean hasNext() {
+                return loggers.hasMoreElements();
+            }
+
+            @Override
+            public LogFrameworkBridge.LoggerResource next() {
+                return new LoggerResource((Logger) loggers.nextElement());
+            }
+        };
+        return Stream.concat(
+                Stream.of(new RootLoggerResource()),
+                StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                        iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                        false));
+    }
+
+    @Override
+    public List<AsyncQueue> listAsyncQueues() {
+        return Log4J1AsyncQueue.list(getRootLogger(), getCurrentLoggers());
+    }
+
+    @Override
+    public Optional<AppenderResource> findAppenderResource(
+            final String appenderName) {
+        return Log4J1AppenderResource.find(getRootLogger(),
+                getCurrentLoggers(), appenderName);
+    }
+
+    /** Dynamic method for {@link LogManager#getCurrentLoggers()}
+     * to support mocking.
+     * @return the loggers of the repository without the root logger.
+     * */
+    Enumeration<?> getCurrentLoggers() {
+        return LogManager.getCurrentLoggers();
     }
 
     /** Dynamic method for {@link LogManager#getRootLogger()}
@@ -53,7 +281,42 @@ class Log4J1Bridge extends LogFrameworkBridge {
 
         @Override
         public void setLevel(final String newLevel) {
-            getRootLogger().setLevel(parseLevel(newLevel));
+            Level level = parseLevel(newLevel);
+            stopSampling("");
+            getRootLogger().setLevel(level);
+        }
+
+        @Override
+        public void clearLevel() {
+            throw new IllegalArgumentException(
+                    "The root logger can not inherit a level");
+        }
+
+        @Override
+        public void setSampledLevel(final String newLevel,
+                                    final int eventsPerSecond) {
+            startSampling("", getRootLogger(), parseLevel(newLevel),
+                    eventsPerSecond);
+        }
+
+        @Override
+        public int getSampleRate() {
+            return Log4J1Bridge.this.getSampleRate("");
+        }
+
+        @Override
+        public String getName() {
+            return "";
+        }
+
+        @Override
+        public String getConfiguredLevel() {
+            return toName(getRootLogger().getLevel());
+        }
+
+        @Override
+        public String getEffectiveLevel() {
+            return toName(getRootLogger().getEffectiveLevel());
         }
     }
 
@@ -71,7 +334,10 @@ class Log4J1Bridge extends LogFrameworkBridge {
      * */
     private class LoggerResource implements LogFrameworkBridge.LoggerResource {
         /** The name of the logger to configure. */
-        private String logger;
+        private final String logger;
+
+        /** The logger, or {@code null} if not looked up yet. */
+        private Logger instance;
 
         /** Constructor for the resource.
          * @param inLogger the name of the logger to configure.
@@ -80,14 +346,71 @@ class Log4J1Bridge extends LogFrameworkBridge {
             this.logger = inLogger;
         }
 
+        /** Constructor for the resource.
+         * @param inInstance the logger to configure.
+         *  */
+        LoggerResource(final Logger inInstance) {
+            this.logger = inInstance.getName();
+            this.instance = inInstance;
+        }
+
+        /** Get the logger, looking it up on first use.
+         * @return the logger to configure.
+         * */
+        private Logger instance() {
+            if (instance == null) {
+                instance = getLogger(logger);
+            }
+            return instance;
+        }
+
         @Override
         public String getLevel() {
-            return getLogger(logger).getLevel().toString();
+            Level level = instance().getLevel();
+            if (level == null) {
+                level = instance().getEffectiveLevel();
+            }
+            return level.toString();
         }
 
         @Override
         public void setLevel(final String newLevel) {
-            getLogger(logger).setLevel(parseLevel(newLevel));
+            Level level = parseLevel(newLevel);
+            stopSampling(logger);
+            instance().setLevel(level);
+        }
+
+        @Override
+        public void clearLevel() {
+            stopSampling(logger);
+            instance().setLevel(null);
+        }
+
+        @Override
+        public void setSampledLevel(final String newLevel,
+                                    final int eventsPerSecond) {
+            startSampling(logger, instance(), parseLevel(newLevel),
+                    eventsPerSecond);
+        }
+
+        @Override
+        public int getSampleRate() {
+            return Log4J1Bridge.this.getSampleRate(logger);
+        }
+
+        @Override
+        public String getName() {
+            return logger;
+        }
+
+        @Override
+        public String getConfiguredLevel() {
+            return toName(instance().getLevel());
+        }
+
+        @Override
+        public String getEffectiveLevel() {
+            return toName(instance().getEffectiveLevel());
         }
     }
 }
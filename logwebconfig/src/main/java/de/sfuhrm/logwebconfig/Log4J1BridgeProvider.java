@@ -0,0 +1,22 @@
+package de.sfuhrm.logwebconfig;
+
+/** Provides the bridge to log4j1.
+ * */
+public final class Log4J1BridgeProvider implements LogFrameworkBridgeProvider {
+
+    @Override
+    public String getName() {
+        return "log4j1";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return BridgeRegistry.isPresent("org.apache.log4j.LogManager",
+                getClass().getClassLoader());
+    }
+
+    @Override
+    public LogFrameworkBridge newBridge() {
+        return new Log4J1Bridge();
+    }
+}
@@ -0,0 +1,247 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.Category;
+import org.apache.log4j.Level;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Lets log4j1 events below the level of their logger pass if a
+ * {@link ContextLookup context rule} matches the MDC of the event.
+ * Log4j1 checks the level of a logger before any filter and has
+ * filters only on appenders. So while the rules are installed, the
+ * loggers of their subtrees get the finest level of the rules, and a
+ * filter on the appenders these loggers reach answers
+ * {@link Filter#ACCEPT} for the matching events and {@link Filter#DENY}
+ * for the events that only pass because of the lowered level.
+ * The filter compares with the level a logger had before, unless the
+ * level was changed since. Like with {@link Log4J1Sampler}, every
+ * appender gets a filter of its own.
+ * */
+final class Log4J1ContextFilter {
+
+    /** A logger with a lowered level. */
+    private static final class Lowered {
+        /** The configured level before, may be {@code null}. */
+        private final Level original;
+
+        /** The lowered level. */
+        private final Level level;
+
+        /** Constructs a lowered level.
+         * @param inOriginal the configured level before.
+         * @param inLevel the lowered level.
+         * */
+        private Lowered(final Level inOriginal, final Level inLevel) {
+            this.original = inOriginal;
+            this.level = inLevel;
+        }
+    }
+
+    /** The rules. */
+    private final ContextLookup lookup;
+
+    /** The finest level of the rules by the logger at the top of their
+     * subtree, the empty String for the root logger. */
+    private final Map<String, Level> subtrees;
+
+    /** The lowered loggers. Only written before the filters are
+     * added. */
+    private final Map<Category, Lowered> lowered = new IdentityHashMap<>();
+
+    /** The filters added by appender. */
+    private final Map<Appender, Filter> filters = new IdentityHashMap<>();
+
+    /** Constructs a new filter.
+     * @param inLookup the rules.
+     * @param inSubtrees the finest level of the rules by the logger at
+     *                   the top of their subtree.
+     * */
+    Log4J1ContextFilter(final ContextLookup inLookup,
+                        final Map<String, Level> inSubtrees) {
+        this.lookup = inLookup;
+        this.subtrees = inSubtrees;
+    }
+
+    /** Verbosity of a level for a {@link ContextLookup}.
+     * @param level the level.
+     * @return the verbosity, the bigger the finer.
+     * */
+    static int verbosity(final Level level) {
+        return -Math.max(level.toInt(), Integer.MIN_VALUE + 1);
+    }
+
+    /** Adds the filters to the appenders the loggers in the subtrees
+     * reach and lowers their levels. The filters are added first, so
+     * no event passes only because of a lowered level. The loggers at
+     * the top of the subtrees must exist.
+     * @param root the root logger.
+     * @param loggers the other loggers.
+     * */
+    synchronized void install(final Category root,
+                              final Enumeration<?> loggers) {
+        List<Category> covered = new ArrayList<>();
+        if (lower(root, "")) {
+            covered.add(root);
+        }
+        while (loggers.hasMoreElements()) {
+            Category logger = (Category) loggers.nextElement();
+            if (lower(logger, logger.getName())) {
+                covered.add(logger);
+            }
+        }
+        for (Category logger : covered) {
+            addFilters(logger);
+        }
+        for (Map.Entry<Category, Lowered> entry : lowered.entrySet()) {
+            entry.getKey().setLevel(entry.getValue().level);
+        }
+    }
+
+    /** Restores the lowered levels that were not changed since and
+     * removes the filters.
+     * */
+    synchronized void uninstall() {
+        for (Map.Entry<Category, Lowered> entry : lowered.entrySet()) {
+            Category logger = entry.getKey();
+            if (logger.getLevel() == entry.getValue().level) {
+                logger.setLevel(entry.getValue().original);
+            }
+        }
+        for (Map.Entry<Appender, Filter> entry : filters.entrySet()) {
+            Log4J1Sampler.removeFilter(entry.getKey(), entry.getValue());
+        }
+        filters.clear();
+    }
+
+    /** Records the lowered level of a logger if it is in a subtree
+     * and its level is coarser than the rules. Only the loggers at the
+     * top of a subtree and the ones with a level of their own are
+     * lowered, the others inherit.
+     * @param logger the logger.
+     * @param name the name of the logger, the empty String for the
+     *             root logger.
+     * @return {@code true} if the logger is in a subtree, so its
+     * appenders need a filter.
+     * */
+    private boolean lower(final Category logger, final String name) {
+        Level finest = null;
+        for (Map.Entry<String, Level> entry : subtrees.entrySet()) {
+            if (covers(entry.getKey(), name)
+                    && (finest == null
+                        || entry.getValue().toInt() < finest.toInt())) {
+                finest = entry.getValue();
+            }
+        }
+        if (finest == null) {
+            return false;
+        }
+        Level current = logger.getLevel();
+        if (current == null && !subtrees.containsKey(name)) {
+            return true;
+        }
+        if (current == null) {
+            current = logger.getEffectiveLevel();
+        }
+        if (finest.toInt() < current.toInt()) {
+            lowered.put(logger, new Lowered(logger.getLevel(), finest));
+        }
+        return true;
+    }
+
+    /** Adds the filters to the appenders of a logger and of its
+     * ancestors up to the first one that is not additive.
+     * @param logger the logger.
+     * */
+    private void addFilters(final Category logger) {
+        for (Category category = logger;
+             category != null;
+             category = category.getParent()) {
+            Enumeration<?> appenders = category.getAllAppenders();
+            while (appenders.hasMoreElements()) {
+                Appender appender = (Appender) appenders.nextElement();
+                if (!filters.containsKey(appender)) {
+                    Filter filter = new Filter() {
+                        @Override
+                        public int decide(final LoggingEvent event) {
+                            return Log4J1ContextFilter.this.decide(event);
+                        }
+                    };
+                    synchronized (appender) {
+                        appender.addFilter(filter);
+                    }
+                    filters.put(appender, filter);
+                }
+            }
+            if (!category.getAdditivity()) {
+                break;
+            }
+        }
+    }
+
+    /** Decides whether an event passes.
+     * @param event the event to decide on.
+     * @return {@link Filter#NEUTRAL} if the event passes the level its
+     * logger had before, {@link Filter#ACCEPT} if a rule matches and
+     * {@link Filter#DENY} otherwise.
+     * */
+    private int decide(final LoggingEvent event) {
+        Level level = event.getLevel();
+        if (level.isGreaterOrEqual(levelBefore(event.getLogger()))) {
+            return Filter.NEUTRAL;
+        }
+        int found = lookup.find(event.getLoggerName(), key -> {
+            Object value = event.getMDC(key);
+            if (value == null) {
+                return null;
+            }
+            return value.toString();
+        });
+        if (found >= verbosity(level)) {
+            return Filter.ACCEPT;
+        }
+        return Filter.DENY;
+    }
+
+    /** Get the effective level a logger would have without the
+     * lowered levels.
+     * @param logger the logger of an event.
+     * @return the level.
+     * */
+    private Level levelBefore(final Category logger) {
+        for (Category category = logger;
+             category != null;
+             category = category.getParent()) {
+            Level level = category.getLevel();
+            Lowered entry = lowered.get(category);
+            if (entry != null && level == entry.level) {
+                level = entry.original;
+            }
+            if (level != null) {
+                return level;
+            }
+        }
+        return Level.ALL;
+    }
+
+    /** Checks whether a logger is in a subtree.
+     * @param top the logger at the top of the subtree, the empty String
+     *            for the root logger.
+     * @param name the name of the logger.
+     * @return {@code true} if the logger is the top of the subtree or
+     * one of its descendants.
+     * */
+    private static boolean covers(final String top, final String name) {
+        return top.isEmpty()
+                || name.equals(top)
+                || (name.startsWith(top)
+                    && name.length() > top.length()
+                    && name.charAt(top.length()) == '.');
+    }
+}
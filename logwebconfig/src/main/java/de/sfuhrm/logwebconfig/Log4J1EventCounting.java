@@ -0,0 +1,118 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.Category;
+import org.apache.log4j.Level;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/** Counts the log4j1 events of all loggers in {@link EventCounters}.
+ * Log4j1 has no filters on loggers, so a counting filter is added to
+ * every appender of the loggers existing when the counting starts.
+ * An event reaching several appenders is counted once.
+ * Events that reach no appender, or that are denied by a filter before
+ * the counting filter, are not counted.
+ * */
+final class Log4J1EventCounting {
+
+    /** The levels of {@link EventCounters#LEVELS}. */
+    private static final Level[] LEVELS = {Level.FATAL, Level.ERROR,
+            Level.WARN, Level.INFO, Level.DEBUG, Level.TRACE};
+
+    /** The counters to count in. */
+    private final EventCounters counters;
+
+    /** The last event counted by each thread, because each appender
+     * sees the same event. */
+    private final ThreadLocal<LoggingEvent[]> lastEvent =
+            ThreadLocal.withInitial(() -> new LoggingEvent[1]);
+
+    /** The filters added by appender. */
+    private final Map<Appender, Filter> filters = new IdentityHashMap<>();
+
+    /** The root logger, counted with the empty name. */
+    private volatile Category rootLogger;
+
+    /** Constructs a new counting.
+     * @param inCounters the counters to count in.
+     * */
+    Log4J1EventCounting(final EventCounters inCounters) {
+        this.counters = inCounters;
+    }
+
+    /** Converts a level to an index of {@link EventCounters#LEVELS}.
+     * @param level the level of an event.
+     * @return the index of the level or of the next finer level.
+     * */
+    static int levelIndex(final Level level) {
+        int index = 0;
+        while (index < LEVELS.length - 1
+                && level.toInt() < LEVELS[index].toInt()) {
+            index++;
+        }
+        return index;
+    }
+
+    /** Adds the filters to the appenders of the loggers.
+     * @param root the root logger.
+     * @param loggers the other loggers.
+     * */
+    synchronized void start(final Category root,
+                            final Enumeration<?> loggers) {
+        rootLogger = root;
+        addFilters(root);
+        while (loggers.hasMoreElements()) {
+            addFilters((Category) loggers.nextElement());
+        }
+    }
+
+    /** Removes the filters from the appenders. */
+    synchronized void stop() {
+        for (Map.Entry<Appender, Filter> entry : filters.entrySet()) {
+            Log4J1Sampler.removeFilter(entry.getKey(), entry.getValue());
+        }
+        filters.clear();
+    }
+
+    /** Adds the filters to the appenders of a logger.
+     * @param logger the logger.
+     * */
+    private void addFilters(final Category logger) {
+        Enumeration<?> appenders = logger.getAllAppenders();
+        while (appenders.hasMoreElements()) {
+            Appender appender = (Appender) appenders.nextElement();
+            if (!filters.containsKey(appender)) {
+                Filter filter = new Filter() {
+                    @Override
+                    public int decide(final LoggingEvent event) {
+                        count(event);
+                        return Filter.NEUTRAL;
+                    }
+                };
+                synchronized (appender) {
+                    appender.addFilter(filter);
+                }
+                filters.put(appender, filter);
+            }
+        }
+    }
+
+    /** Counts an event unless it was just counted by this thread.
+     * @param event the event to count.
+     * */
+    private void count(final LoggingEvent event) {
+        LoggingEvent[] last = lastEvent.get();
+        if (last[0] != event) {
+            last[0] = event;
+            String name = event.getLoggerName();
+            if (event.getLogger() == rootLogger) {
+                name = "";
+            }
+            counters.increment(name, levelIndex(event.getLevel()));
+        }
+    }
+}
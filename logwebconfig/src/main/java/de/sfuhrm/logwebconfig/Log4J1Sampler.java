@@ -0,0 +1,174 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.Category;
+import org.apache.log4j.Level;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Lets only a limited number of log4j1 events per second of a logger
+ * pass at the sampled level and finer levels. More severe events
+ * always pass.
+ * Log4j1 has no filters on loggers, so a filter is added to every
+ * appender the events of the logger reach. All filters share one
+ * {@link TokenBucket} and an event reaching several appenders takes
+ * only one token.
+ * */
+final class Log4J1Sampler {
+
+    /** The decision for the last event seen by a thread. */
+    private static final class LastDecision {
+        /** The last event. */
+        private LoggingEvent event;
+
+        /** The decision for the last event. */
+        private int decision;
+    }
+
+    /** The name of the sampled logger, the empty String for the root
+     * logger. */
+    private final String loggerName;
+
+    /** The level from which on events are sampled. */
+    private final Level level;
+
+    /** The number of events per second to pass. */
+    private final int eventsPerSecond;
+
+    /** The tokens for the events to pass. */
+    private final TokenBucket bucket;
+
+    /** The decision for the last event of each thread, because
+     * each appender asks for the same event. */
+    private final ThreadLocal<LastDecision> lastDecision =
+            ThreadLocal.withInitial(LastDecision::new);
+
+    /** The filters added by appender. */
+    private final Map<Appender, Filter> filters = new IdentityHashMap<>();
+
+    /** Constructs a new sampler.
+     * @param inLoggerName the name of the sampled logger, the empty
+     *                     String for the root logger.
+     * @param inLevel the level from which on events are sampled.
+     * @param inEventsPerSecond the number of events per second to pass.
+     * */
+    Log4J1Sampler(final String inLoggerName,
+                  final Level inLevel,
+                  final int inEventsPerSecond) {
+        this.loggerName = inLoggerName;
+        this.level = inLevel;
+        this.eventsPerSecond = inEventsPerSecond;
+        this.bucket = new TokenBucket(inEventsPerSecond, inEventsPerSecond,
+                System.nanoTime());
+    }
+
+    /** Get the number of events per second to pass.
+     * @return the events per second.
+     * */
+    int getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    /** Adds the filters to the appenders of a logger and of its
+     * ancestors up to the first one that is not additive.
+     * @param logger the sampled logger.
+     * */
+    synchronized void install(final Category logger) {
+        for (Category category = logger;
+             category != null;
+             category = category.getParent()) {
+            Enumeration<?> appenders = category.getAllAppenders();
+            while (appenders.hasMoreElements()) {
+                Appender appender = (Appender) appenders.nextElement();
+                if (!filters.containsKey(appender)) {
+                    Filter filter = new Filter() {
+                        @Override
+                        public int decide(final LoggingEvent event) {
+                            return Log4J1Sampler.this.decide(event);
+                        }
+                    };
+                    synchronized (appender) {
+                        appender.addFilter(filter);
+                    }
+                    filters.put(appender, filter);
+                }
+            }
+            if (!category.getAdditivity()) {
+                break;
+            }
+        }
+    }
+
+    /** Removes the filters from the appenders. */
+    synchronized void uninstall() {
+        for (Map.Entry<Appender, Filter> entry : filters.entrySet()) {
+            removeFilter(entry.getKey(), entry.getValue());
+        }
+        filters.clear();
+    }
+
+    /** Removes a filter from the filter chain of an appender.
+     * Log4j1 can only clear all filters, so the other filters
+     * are added again.
+     * @param appender the appender to remove the filter from.
+     * @param filter the filter to remove.
+     * */
+    static void removeFilter(final Appender appender,
+                                     final Filter filter) {
+        synchronized (appender) {
+            List<Filter> others = new ArrayList<>();
+            for (Filter current = appender.getFilter();
+                 current != null;
+                 current = current.getNext()) {
+                if (current != filter) {
+                    others.add(current);
+                }
+            }
+            appender.clearFilters();
+            for (Filter other : others) {
+                other.setNext(null);
+                appender.addFilter(other);
+            }
+        }
+    }
+
+    /** Decides whether an event passes.
+     * @param event the event to decide on.
+     * @return {@link Filter#DENY} if the event is dropped,
+     * {@link Filter#NEUTRAL} otherwise.
+     * */
+    private int decide(final LoggingEvent event) {
+        if (!level.isGreaterOrEqual(event.getLevel())
+                || !isSampledLogger(event.getLoggerName())) {
+            return Filter.NEUTRAL;
+        }
+        LastDecision last = lastDecision.get();
+        if (last.event != event) {
+            last.event = event;
+            if (bucket.tryAcquire()) {
+                last.decision = Filter.NEUTRAL;
+            } else {
+                last.decision = Filter.DENY;
+            }
+        }
+        return last.decision;
+    }
+
+    /** Checks whether a logger is the sampled logger or one of its
+     * descendants.
+     * @param name the name of the logger.
+     * @return {@code true} if events of the logger are sampled.
+     * */
+    private boolean isSampledLogger(final String name) {
+        return loggerName.isEmpty()
+                || name.equals(loggerName)
+                || (name.startsWith(loggerName)
+                    && name.charAt(loggerName.length()) == '.');
+    }
+}
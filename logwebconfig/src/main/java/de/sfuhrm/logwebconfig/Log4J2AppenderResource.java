@@ -0,0 +1,111 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractOutputStreamAppender;
+import org.apache.logging.log4j.core.appender.FileManager;
+import org.apache.logging.log4j.core.appender.MemoryMappedFileManager;
+import org.apache.logging.log4j.core.appender.OutputStreamManager;
+import org.apache.logging.log4j.core.appender.RandomAccessFileManager;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/** The buffering of a log4j2 file appender, like a
+ * {@code RandomAccessFile} or {@code MemoryMappedFile} appender.
+ * Log4j2 keeps the immediate flush in a final field of the appender
+ * and the buffer in its manager, which is shared by all appenders of
+ * the file, so a rebuilt appender would get the old buffer. A logger
+ * configuration can not hold two appenders of the same name, so the
+ * old appender would have to be removed before the new one is added,
+ * and the events in between would miss both. So the buffering can only
+ * be read. It changes with a reconfiguration.
+ * */
+final class Log4J2AppenderResource
+        implements LogFrameworkBridge.AppenderResource {
+
+    /** The appender. */
+    private final AbstractOutputStreamAppender<?> appender;
+
+    /** Constructs the resource.
+     * @param inAppender the appender.
+     * */
+    Log4J2AppenderResource(final AbstractOutputStreamAppender<?> inAppender) {
+        this.appender = inAppender;
+    }
+
+    /** Finds a file appender of the configuration of a context.
+     * @param context the logger context.
+     * @param name the name of the appender.
+     * @return the appender, or {@link Optional#empty()} if there is
+     * no appender with the name writing to an output stream.
+     * */
+    static Optional<LogFrameworkBridge.AppenderResource> find(
+            final LoggerContext context,
+            final String name) {
+        Appender appender = context.getConfiguration().getAppender(name);
+        if (appender instanceof AbstractOutputStreamAppender) {
+            return Optional.of(new Log4J2AppenderResource(
+                    (AbstractOutputStreamAppender<?>) appender));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public String getName() {
+        return appender.getName();
+    }
+
+    @Override
+    public String getType() {
+        return appender.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getBufferSize() {
+        OutputStreamManager manager = appender.getManager();
+        if (manager instanceof RandomAccessFileManager) {
+            return ((RandomAccessFileManager) manager).getBufferSize();
+        }
+        if (manager instanceof MemoryMappedFileManager) {
+            return ((MemoryMappedFileManager) manager).getRegionLength();
+        }
+        if (manager instanceof FileManager) {
+            return ((FileManager) manager).getBufferSize();
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean isImmediateFlush() {
+        return appender.getImmediateFlush();
+    }
+
+    @Override
+    public boolean isMemoryMapped() {
+        return appender.getManager() instanceof MemoryMappedFileManager;
+    }
+
+    @Override
+    public void configure(final Integer bufferSize,
+                          final Boolean immediateFlush,
+                          final Boolean memoryMapped) {
+        if (!keeps(bufferSize, getBufferSize())
+                || !keeps(immediateFlush, isImmediateFlush())
+                || !keeps(memoryMapped, isMemoryMapped())) {
+            throw new UnsupportedOperationException("log4j2 fixes the"
+                    + " buffering of " + getName() + " when the appender is"
+                    + " built, change it in the configuration");
+        }
+    }
+
+    /** Checks whether a new value keeps the current one.
+     * @param value the new value, or {@code null} to keep it.
+     * @param current the current value.
+     * @return {@code true} if the value is {@code null} or the current
+     * value.
+     * */
+    private static boolean keeps(final Object value, final Object current) {
+        return value == null || Objects.equals(value, current);
+    }
+}
@@ -0,0 +1,272 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AsyncAppender;
+import org.apache.logging.log4j.util.PropertiesUtil;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/** The queues of the log4j2 {@link AsyncAppender async appenders} and
+ * the ring buffers of the async loggers.
+ * The ring buffers need the LMAX disruptor, which is not a dependency
+ * of this library, so they are read from the JMX beans log4j2
+ * registers for them. Their policy is fixed when log4j2 starts.
+ * */
+final class Log4J2AsyncQueues {
+
+    /** The JMX domain of log4j2. */
+    static final String DOMAIN = "org.apache.logging.log4j2";
+
+    /** The name of the ring buffer of the async logger context. */
+    static final String ASYNC_LOGGERS = "AsyncLoggerRingBuffer";
+
+    /** The name of the ring buffer shared by the async logger
+     * configurations. */
+    static final String ASYNC_LOGGER_CONFIGS = "AsyncLoggerConfigRingBuffer";
+
+    /** No instances. */
+    private Log4J2AsyncQueues() {
+        // only static methods
+    }
+
+    /** Lists the queues of a logger context.
+     * @param context the logger context.
+     * @param server the JMX server with the ring buffer beans.
+     * @return the async appenders first, then the ring buffers.
+     * */
+    static List<LogFrameworkBridge.AsyncQueue> list(
+            final LoggerContext context,
+            final MBeanServer server) {
+        List<LogFrameworkBridge.AsyncQueue> result = new ArrayList<>();
+        for (Appender appender
+                : context.getConfiguration().getAppenders().values()) {
+            if (appender instanceof AsyncAppender) {
+                result.add(new AppenderQueue((AsyncAppender) appender));
+            }
+        }
+        addRingBuffers(result, context.getName(), server);
+        return result;
+    }
+
+    /** Lists the queues of a logger context with the platform JMX
+     * server.
+     * @param context the logger context.
+     * @return the async appenders first, then the ring buffers.
+     * */
+    static List<LogFrameworkBridge.AsyncQueue> list(
+            final LoggerContext context) {
+        return list(context, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /** Adds the ring buffers of a logger context. All async logger
+     * configurations share one ring buffer, so it is added once.
+     * @param queues the list to add to.
+     * @param contextName the name of the logger context.
+     * @param server the JMX server with the ring buffer beans.
+     * */
+    private static void addRingBuffers(
+            final List<LogFrameworkBridge.AsyncQueue> queues,
+            final String contextName,
+            final MBeanServer server) {
+        Set<ObjectName> names;
+        try {
+            names = server.queryNames(new ObjectName(DOMAIN + ":*"), null);
+        } catch (JMException e) {
+            return;
+        }
+        boolean configs = false;
+        for (ObjectName name : names) {
+            if (!contextName.equals(unquote(name.getKeyProperty("type")))) {
+                continue;
+            }
+            if (ASYNC_LOGGERS.equals(name.getKeyProperty("component"))) {
+                queues.add(new RingBufferQueue(ASYNC_LOGGERS, name, server));
+            } else if (!configs
+                    && "RingBuffer".equals(name.getKeyProperty("subtype"))) {
+                queues.add(new RingBufferQueue(ASYNC_LOGGER_CONFIGS, name,
+                        server));
+                configs = true;
+            }
+        }
+    }
+
+    /** Removes the JMX quotes of a key property.
+     * @param value the value of the key property, may be {@code null}.
+     * @return the value without quotes.
+     * */
+    private static String unquote(final String value) {
+        if (value != null && value.startsWith("\"")) {
+            return ObjectName.unquote(value);
+        }
+        return value;
+    }
+
+    /** The queue of an async appender. */
+    private static final class AppenderQueue
+            implements LogFrameworkBridge.AsyncQueue {
+        /** The appender. */
+        private final AsyncAppender appender;
+
+        /** Constructs the queue.
+         * @param inAppender the appender.
+         * */
+        private AppenderQueue(final AsyncAppender inAppender) {
+            this.appender = inAppender;
+        }
+
+        @Override
+        public String getName() {
+            return appender.getName();
+        }
+
+        @Override
+        public int getCapacity() {
+            return appender.getQueueCapacity();
+        }
+
+        @Override
+        public int getRemainingCapacity() {
+            return appender.getQueueRemainingCapacity();
+        }
+
+        @Override
+        public long getDiscarded() {
+            Log4J2DiscardFilter filter = Log4J2DiscardFilter.find(appender);
+            if (filter == null) {
+                return 0;
+            }
+            return filter.getPolicy().getDiscarded();
+        }
+
+        @Override
+        public boolean isBlocking() {
+            return appender.isBlocking();
+        }
+
+        @Override
+        public String getDiscardLevel() {
+            Log4J2DiscardFilter filter = Log4J2DiscardFilter.find(appender);
+            if (filter == null) {
+                return null;
+            }
+            return filter.getPolicy().getLevel();
+        }
+
+        /** The blocking of a log4j2 async appender is a final field
+         * set when it is built, only the discard level can change.
+         * {@inheritDoc}
+         * */
+        @Override
+        public void setPolicy(final Boolean blocking,
+                              final String discardLevel) {
+            if (blocking != null && blocking != appender.isBlocking()) {
+                throw new UnsupportedOperationException("The blocking of "
+                        + getName() + " can not change at run time");
+            }
+            if (discardLevel == null) {
+                return;
+            }
+            DiscardPolicy policy =
+                    Log4J2DiscardFilter.findOrAdd(appender).getPolicy();
+            if ("-".equals(discardLevel)) {
+                policy.setLevel(null, 0);
+            } else {
+                org.apache.logging.log4j.Level level =
+                        Log4J2Bridge.parseLevel(discardLevel);
+                policy.setLevel(level.name(), level.intLevel());
+            }
+        }
+    }
+
+    /** The ring buffer of async loggers, read from its JMX bean. */
+    private static final class RingBufferQueue
+            implements LogFrameworkBridge.AsyncQueue {
+        /** The name of the queue. */
+        private final String name;
+
+        /** The name of the JMX bean. */
+        private final ObjectName objectName;
+
+        /** The JMX server with the bean. */
+        private final MBeanServer server;
+
+        /** Constructs the queue.
+         * @param inName the name of the queue.
+         * @param inObjectName the name of the JMX bean.
+         * @param inServer the JMX server with the bean.
+         * */
+        private RingBufferQueue(final String inName,
+                                final ObjectName inObjectName,
+                                final MBeanServer inServer) {
+            this.name = inName;
+            this.objectName = inObjectName;
+            this.server = inServer;
+        }
+
+        /** Reads a number attribute of the bean.
+         * @param attribute the name of the attribute.
+         * @return the value, or -1 if it could not be read.
+         * */
+        private int read(final String attribute) {
+            try {
+                Object value = server.getAttribute(objectName, attribute);
+                if (value instanceof Number) {
+                    return (int) Math.min(Integer.MAX_VALUE,
+                            ((Number) value).longValue());
+                }
+            } catch (JMException e) {
+                // the bean was unregistered
+            }
+            return -1;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getCapacity() {
+            return read("BufferSize");
+        }
+
+        @Override
+        public int getRemainingCapacity() {
+            return read("RemainingCapacity");
+        }
+
+        @Override
+        public long getDiscarded() {
+            return -1;
+        }
+
+        /** Async loggers block unless log4j2 was started with the
+         * {@code Discard} queue full policy.
+         * {@inheritDoc}
+         * */
+        @Override
+        public boolean isBlocking() {
+            return !"Discard".equalsIgnoreCase(PropertiesUtil.getProperties()
+                    .getStringProperty("log4j2.AsyncQueueFullPolicy"));
+        }
+
+        @Override
+        public String getDiscardLevel() {
+            return null;
+        }
+
+        @Override
+        public void setPolicy(final Boolean blocking,
+                              final String discardLevel) {
+            throw new UnsupportedOperationException("The policy of "
+                    + name + " is fixed when log4j2 starts");
+        }
+    }
+}
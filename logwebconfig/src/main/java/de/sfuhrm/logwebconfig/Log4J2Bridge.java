@@ -3,20 +3,45 @@ package de.sfuhrm.logwebconfig;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.LoggerConfig;
 
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /** Configuration class for log4j2.
+ * Level changes do not use {@code Configurator}, because it
+ * re-evaluates every logger of the context on every change.
+ * The bridge changes the logger configurations and refreshes only the
+ * loggers in the subtrees of the changed configurations. Finding them
+ * still reads every logger of the context once.
  * */
 class Log4J2Bridge extends LogFrameworkBridge {
+
+    /** The counting of the events, or {@code null} if the events are
+     * not counted. */
+    private Log4J2EventCounting eventCounting;
+
+    /** The filter of the context levels, or {@code null} if there are
+     * no context levels. */
+    private Log4J2ContextFilter contextFilter;
+
     /**
      * Converts a level to a Log4j2 level object.
      * @param levelString the level String to recognize.
      * @return the resulting level object.
      * @throws IllegalArgumentException if the level was not recognized.
      */
-    private static Level parseLevel(final String levelString) {
+    static Level parseLevel(final String levelString) {
         Level level = Level.getLevel(levelString.toUpperCase());
         if (level == null) {
             throw new IllegalArgumentException("Level not recognized: "
@@ -25,6 +50,22 @@ class Log4J2Bridge extends LogFrameworkBridge {
         return level;
     }
 
+    /** Converts a level to its name.
+     * @param level the level to convert, may be {@code null}.
+     * @return the name of the level, or {@code null} if the level was
+     * {@code null}.
+     * */
+    private static String toName(final Level level) {
+        if (level == null) {
+            return null;
+        }
+        return level.toString();
+    }
+
+    /** Finds a logger that exists in the context or has a logger
+     * configuration of its own.
+     * {@inheritDoc}
+     * */
     @Override
     public Optional<LogFrameworkBridge.LoggerResource> findLoggerResource(
             final String loggerName) {
@@ -33,7 +74,296 @@ class Log4J2Bridge extends LogFrameworkBridge {
                 || "/".equals(loggerName)) {
             return Optional.of(new RootLoggerResource());
         }
-        return Optional.of(new LoggerResource(loggerName));
+        LoggerContext context = getLoggerContext();
+        if (context.hasLogger(loggerName)) {
+            return Optional.of(
+                    new LoggerResource(context.getLogger(loggerName)));
+        }
+        if (context.getConfiguration().getLoggers()
+                .containsKey(loggerName)) {
+            return Optional.of(new LoggerResource(loggerName));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public LogFrameworkBridge.LoggerResource createLoggerResource(
+            final String loggerName) {
+        if (loggerName == null
+                || loggerName.isEmpty()
+                || "/".equals(loggerName)) {
+            return new RootLoggerResource();
+        }
+        return new LoggerResource(loggerName);
+    }
+
+    @Override
+    public void setLevels(final Map<String, String> levels) {
+        Map<String, Level> parsed = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : levels.entrySet()) {
+            String name = entry.getKey();
+            if ("/".equals(name)) {
+                name = "";
+            }
+            parsed.put(name, parseLevel(entry.getValue()));
+        }
+        setLevelMap(parsed);
+    }
+
+    @Override
+    public void checkLevel(final String level) {
+        parseLevel(level);
+    }
+
+    /** Dynamic method for changing the levels of many loggers
+     * to support mocking.
+     * The logger configurations are changed and the loggers in their
+     * subtrees are refreshed, all other loggers are left alone.
+     * Only if a logger configuration had to be created, all loggers
+     * are updated once like {@code Configurator.setLevel(Map)} does,
+     * because log4j2 can only link all loggers to a new logger
+     * configuration at once.
+     * @param levels maps the logger names to the levels to set.
+     *               The empty String is the root logger.
+     * */
+    void setLevelMap(final Map<String, Level> levels) {
+        LoggerContext context = getLoggerContext();
+        Configuration configuration = context.getConfiguration();
+        boolean created = false;
+        for (Map.Entry<String, Level> entry : levels.entrySet()) {
+            String name = entry.getKey();
+            LoggerConfig loggerConfig = configuration.getLoggerConfig(name);
+            if (name.equals(loggerConfig.getName())) {
+                Log4J2SamplingFilter.remove(loggerConfig);
+                loggerConfig.setLevel(entry.getValue());
+            } else {
+                LoggerConfig newConfig =
+                        new LoggerConfig(name, entry.getValue(), true);
+                configuration.addLogger(name, newConfig);
+                addToEventCounting(newConfig);
+                created = true;
+            }
+        }
+        if (created) {
+            context.updateLoggers();
+        } else {
+            refreshLoggers(context, levels.keySet());
+        }
+    }
+
+    @Override
+    public synchronized void startEventCounting(
+            final EventCounters counters) {
+        stopEventCounting();
+        eventCounting = new Log4J2EventCounting(getLoggerContext(),
+                counters);
+        eventCounting.start();
+    }
+
+    @Override
+    public synchronized void stopEventCounting() {
+        if (eventCounting != null) {
+            eventCounting.stop();
+            eventCounting = null;
+        }
+    }
+
+    /** The rules are checked by a configuration filter, which is
+     * removed when there are no rules. A reconfiguration of log4j2
+     * drops the filter.
+     * {@inheritDoc}
+     * */
+    @Override
+    public synchronized void setContextRules(
+            final Collection<ContextLevels.Rule> rules) {
+        ContextLookup lookup = new ContextLookup(rules,
+                name -> parseLevel(name).intLevel());
+        Configuration configuration = getLoggerContext().getConfiguration();
+        if (lookup.isEmpty()) {
+            if (contextFilter != null) {
+                configuration.removeFilter(contextFilter);
+                contextFilter.stop();
+                contextFilter = null;
+            }
+            return;
+        }
+        if (contextFilter == null) {
+            contextFilter = new Log4J2ContextFilter();
+            contextFilter.setLookup(lookup);
+            contextFilter.start();
+            configuration.addFilter(contextFilter);
+        } else {
+            contextFilter.setLookup(lookup);
+        }
+    }
+
+    /** Lists the async appenders of the configuration and the ring
+     * buffers of the async loggers, see {@link Log4J2AsyncQueues}.
+     * {@inheritDoc}
+     * */
+    @Override
+    public List<AsyncQueue> listAsyncQueues() {
+        return Log4J2AsyncQueues.list(getLoggerContext());
+    }
+
+    @Override
+    public Optional<AppenderResource> findAppenderResource(
+            final String appenderName) {
+        return Log4J2AppenderResource.find(getLoggerContext(), appenderName);
+    }
+
+    /** Adds a new logger configuration to the event counting.
+     * @param loggerConfig the new logger configuration.
+     * */
+    private synchronized void addToEventCounting(
+            final LoggerConfig loggerConfig) {
+        if (eventCounting != null) {
+            eventCounting.add(loggerConfig);
+        }
+    }
+
+    /** Dynamic method for setting a sampled level to support mocking.
+     * The level is set and a {@link Log4J2SamplingFilter} is added to
+     * the logger configuration.
+     * @param logger the name of the logger, the empty String for the
+     *               root logger.
+     * @param level the level to set.
+     * @param eventsPerSecond the number of events per second to pass.
+     * */
+    void setSampledLevel(final String logger,
+                         final Level level,
+                         final int eventsPerSecond) {
+        Log4J2SamplingFilter filter =
+                new Log4J2SamplingFilter(level, eventsPerSecond);
+        setLevelMap(Collections.singletonMap(logger, level));
+        filter.start();
+        getLoggerContext().getConfiguration().getLoggerConfig(logger)
+                .addFilter(filter);
+    }
+
+    /** Get the sampling rate of a logger.
+     * @param logger the name of the logger, the empty String for the
+     *               root logger.
+     * @return the events per second, or 0 if not sampled.
+     * */
+    private int getSampleRate(final String logger) {
+        LoggerConfig loggerConfig = getLoggerContext().getConfiguration()
+                .getLoggerConfig(logger);
+        if (!loggerConfig.getName().equals(logger)) {
+            return 0;
+        }
+        Log4J2SamplingFilter filter = Log4J2SamplingFilter.find(loggerConfig);
+        if (filter == null) {
+            return 0;
+        }
+        return filter.getEventsPerSecond();
+    }
+
+    /** Refreshes the levels of the loggers in the subtrees of
+     * changed logger configurations.
+     * Log4j2 has no lookup of the loggers below a name, so the
+     * loggers of the context are read in one pass and each name is
+     * matched by walking up its parents. The pass costs time by the
+     * number of loggers in the context, but only the loggers of the
+     * subtrees get a new level, which is much cheaper than updating
+     * every logger.
+     * @param context the context of the loggers.
+     * @param names the names of the changed logger configurations.
+     *              The empty String is the root logger.
+     * */
+    private static void refreshLoggers(final LoggerContext context,
+                                       final Collection<String> names) {
+        Configuration configuration = context.getConfiguration();
+        Set<String> roots = new HashSet<>(names);
+        BitSet lengths = new BitSet();
+        for (String root : roots) {
+            lengths.set(root.length());
+        }
+        for (org.apache.logging.log4j.core.Logger logger
+                : context.getLoggers()) {
+            if (inSubtree(logger.getName(), roots, lengths)) {
+                logger.setLevel(configuration.getLoggerConfig(
+                        logger.getName()).getLevel());
+            }
+        }
+    }
+
+    /** Checks whether a logger is in one of the subtrees.
+     * Only the parent names with the length of a root are looked up,
+     * so most names are checked without building a parent name.
+     * @param name the name of the logger.
+     * @param roots the names at the top of the subtrees. The empty
+     *              String is the root logger.
+     * @param lengths the lengths of the names in {@code roots}.
+     * @return {@code true} if the logger or one of its parents is one
+     * of the roots.
+     * */
+    private static boolean inSubtree(final String name,
+                                     final Set<String> roots,
+                                     final BitSet lengths) {
+        if (lengths.get(0)) {
+            return true;
+        }
+        int end = name.length();
+        while (end > 0) {
+            if (lengths.get(end)
+                    && roots.contains(name.substring(0, end))) {
+                return true;
+            }
+            end = name.lastIndexOf('.', end - 1);
+        }
+        return false;
+    }
+
+    @Override
+    public Stream<LogFrameworkBridge.LoggerResource> streamLoggerResources() {
+        LoggerContext context = getLoggerContext();
+        Stream<LogFrameworkBridge.LoggerResource> loggers =
+                context.getLoggers().stream()
+                .filter(logger -> !logger.getName().isEmpty())
+                .map(LoggerResource::new);
+        Stream<LogFrameworkBridge.LoggerResource> configsWithoutLogger =
+                context.getConfiguration().getLoggers().keySet().stream()
+                .filter(name -> !name.isEmpty() && !context.hasLogger(name))
+                .map(LoggerResource::new);
+        return Stream.concat(
+                Stream.concat(Stream.of(new RootLoggerResource()), loggers),
+                configsWithoutLogger);
+    }
+
+    /** Only the logger configurations can have a level of their own,
+     * so only these are streamed and not all loggers.
+     * @return the loggers with a configured level.
+     * */
+    @Override
+    protected Stream<LogFrameworkBridge.LoggerResource>
+            streamConfiguredLoggerResources() {
+        return getLoggerContext().getConfiguration().getLoggers()
+                .keySet().stream()
+                .filter(name -> !name.isEmpty())
+                .map(LoggerResource::new);
+    }
+
+    /** Dynamic method for {@link LoggerContext#getContext(boolean)}
+     * to support mocking.
+     * @return the logger context of the caller.
+     * */
+    LoggerContext getLoggerContext() {
+        return LoggerContext.getContext(false);
+    }
+
+    /** Get the level configured for exactly the named logger.
+     * @param logger the name of the logger.
+     * @return the configured level, or {@code null} if the logger
+     * has no configuration of its own.
+     * */
+    private Level getConfiguredLevel(final String logger) {
+        LoggerConfig loggerConfig = getLoggerContext().getConfiguration()
+                .getLoggerConfig(logger);
+        if (!loggerConfig.getName().equals(logger)) {
+            return null;
+        }
+        return loggerConfig.getLevel();
     }
 
     /** Dynamic method for {@link LogManager#getRootLogger()}
@@ -44,12 +374,12 @@ class Log4J2Bridge extends LogFrameworkBridge {
         return LogManager.getRootLogger();
     }
 
-    /** Dynamic method for {@link Configurator#setRootLevel(Level)}
+    /** Dynamic method for setting the level of the root logger
      * to support mocking.
      * @param level the level to configure.
      * */
     void setRootLevel(final Level level) {
-        Configurator.setRootLevel(level);
+        setLevelMap(Collections.singletonMap("", level));
     }
 
     /** Resource representing the root logger.
@@ -65,24 +395,68 @@ class Log4J2Bridge extends LogFrameworkBridge {
         public void setLevel(final String newLevel) {
             setRootLevel(parseLevel(newLevel));
         }
-    }
 
-    /** Dynamic method for {@link org.apache.log4j.LogManager#getLogger(String)}
-     * to support mocking.
-     * @param logger the name of the logger to get.
-     * @return the requested logger instance.
-     * */
-    Logger getLogger(final String logger) {
-        return LogManager.getLogger(logger);
+        @Override
+        public void clearLevel() {
+            throw new IllegalArgumentException(
+                    "The root logger can not inherit a level");
+        }
+
+        @Override
+        public void setSampledLevel(final String newLevel,
+                                    final int eventsPerSecond) {
+            Log4J2Bridge.this.setSampledLevel("", parseLevel(newLevel),
+                    eventsPerSecond);
+        }
+
+        @Override
+        public int getSampleRate() {
+            return Log4J2Bridge.this.getSampleRate("");
+        }
+
+        @Override
+        public String getName() {
+            return "";
+        }
+
+        @Override
+        public String getConfiguredLevel() {
+            Configuration configuration =
+                    getLoggerContext().getConfiguration();
+            return toName(configuration.getRootLogger().getLevel());
+        }
+
+        @Override
+        public String getEffectiveLevel() {
+            return toName(getRootLogger().getLevel());
+        }
     }
 
-    /** Dynamic method for {@link Configurator#setLevel(String, Level)}
+    /** Dynamic method for setting the level of a logger
      * to support mocking.
      * @param logger the name of the logger to configure the level for.
      * @param level the level to set.
      * */
     void setLevel(final String logger, final Level level) {
-        Configurator.setLevel(logger, level);
+        setLevelMap(Collections.singletonMap(logger, level));
+    }
+
+    /** Dynamic method for removing the configuration of a logger
+     * to support mocking.
+     * Only a logger configuration can have a level of its own, so the
+     * logger inherits from the configuration of its parent afterwards.
+     * Like creating a configuration, this updates all loggers once.
+     * @param logger the name of the logger to remove the
+     *               configuration of.
+     * */
+    void removeLoggerConfig(final String logger) {
+        LoggerContext context = getLoggerContext();
+        Configuration configuration = context.getConfiguration();
+        if (!logger.equals(configuration.getLoggerConfig(logger).getName())) {
+            return;
+        }
+        configuration.removeLogger(logger);
+        context.updateLoggers();
     }
 
 
@@ -90,23 +464,71 @@ class Log4J2Bridge extends LogFrameworkBridge {
      * */
     private class LoggerResource implements LogFrameworkBridge.LoggerResource {
         /** The name of the logger to configure. */
-        private String logger;
+        private final String logger;
+
+        /** The logger, or {@code null} if not known. */
+        private final Logger instance;
 
         /** Constructor for the resource.
          * @param inLogger the name of the logger to configure.
          *  */
         LoggerResource(final String inLogger) {
             this.logger = inLogger;
+            this.instance = null;
+        }
+
+        /** Constructor for the resource.
+         * @param inInstance the logger to configure.
+         *  */
+        LoggerResource(final Logger inInstance) {
+            this.logger = inInstance.getName();
+            this.instance = inInstance;
         }
 
         @Override
         public String getLevel() {
-            return getLogger(logger).getLevel().toString();
+            return getEffectiveLevel();
         }
 
         @Override
         public void setLevel(final String newLevel) {
             Log4J2Bridge.this.setLevel(logger, parseLevel(newLevel));
         }
+
+        @Override
+        public void clearLevel() {
+            removeLoggerConfig(logger);
+        }
+
+        @Override
+        public void setSampledLevel(final String newLevel,
+                                    final int eventsPerSecond) {
+            Log4J2Bridge.this.setSampledLevel(logger, parseLevel(newLevel),
+                    eventsPerSecond);
+        }
+
+        @Override
+        public int getSampleRate() {
+            return Log4J2Bridge.this.getSampleRate(logger);
+        }
+
+        @Override
+        public String getName() {
+            return logger;
+        }
+
+        @Override
+        public String getConfiguredLevel() {
+            return toName(Log4J2Bridge.this.getConfiguredLevel(logger));
+        }
+
+        @Override
+        public String getEffectiveLevel() {
+            if (instance != null) {
+                return toName(instance.getLevel());
+            }
+            return toName(getLoggerContext().getConfiguration()
+                    .getLoggerConfig(logger).getLevel());
+        }
     }
 }
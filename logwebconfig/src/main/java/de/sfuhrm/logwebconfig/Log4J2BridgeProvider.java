@@ -0,0 +1,23 @@
+package de.sfuhrm.logwebconfig;
+
+/** Provides the bridge to the log4j2 core.
+ * */
+public final class Log4J2BridgeProvider implements LogFrameworkBridgeProvider {
+
+    @Override
+    public String getName() {
+        return "log4j2";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return BridgeRegistry.isPresent(
+                "org.apache.logging.log4j.core.LoggerContext",
+                getClass().getClassLoader());
+    }
+
+    @Override
+    public LogFrameworkBridge newBridge() {
+        return new Log4J2Bridge();
+    }
+}
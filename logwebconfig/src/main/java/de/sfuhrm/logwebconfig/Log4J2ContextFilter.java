@@ -0,0 +1,125 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.message.Message;
+
+import java.util.Collections;
+import java.util.function.Function;
+
+/** A log4j2 configuration filter that lets events below the level of
+ * their logger pass if a {@link ContextLookup context rule} matches
+ * the {@code ThreadContext} of the logging thread, like the
+ * {@code DynamicThresholdFilter} of log4j2.
+ * Configuration filters are asked before the level check of a logger,
+ * so the filter answers {@link Result#ACCEPT} for the matching events
+ * and {@link Result#NEUTRAL} for all others. Events the logger lets
+ * pass anyway cost only the level compare.
+ * The calls with more than three message parameters reach
+ * {@link #filter(Logger, Level, Marker, String, Object...)} through
+ * {@link AbstractFilter}.
+ * */
+final class Log4J2ContextFilter extends AbstractFilter {
+
+    /** Reads the {@code ThreadContext} of the logging thread. */
+    private static final Function<String, String> CONTEXT =
+            ThreadContext::get;
+
+    /** The current rules. */
+    private volatile ContextLookup lookup = new ContextLookup(
+            Collections.emptyList(), name -> 0);
+
+    /** Replaces the rules while events are checked.
+     * @param inLookup the new rules.
+     * */
+    void setLookup(final ContextLookup inLookup) {
+        this.lookup = inLookup;
+    }
+
+    /** Decides on an event before the level check.
+     * @param logger the logger of the event.
+     * @param level the level of the event.
+     * @return {@link Result#ACCEPT} if the event is below the level of
+     * the logger and a rule lets it pass, {@link Result#NEUTRAL}
+     * otherwise.
+     * */
+    private Result decide(final Logger logger, final Level level) {
+        if (level.isMoreSpecificThan(logger.getLevel())) {
+            return Result.NEUTRAL;
+        }
+        if (lookup.find(logger.getName(), CONTEXT) >= level.intLevel()) {
+            return Result.ACCEPT;
+        }
+        return Result.NEUTRAL;
+    }
+
+    /** The level of the logger was checked before the event was
+     * created, so there is nothing left to decide.
+     * {@inheritDoc}
+     * */
+    @Override
+    public Result filter(final LogEvent event) {
+        return Result.NEUTRAL;
+    }
+
+    @Override
+    public Result filter(final Logger logger,
+                         final Level level,
+                         final Marker marker,
+                         final Message msg,
+                         final Throwable t) {
+        return decide(logger, level);
+    }
+
+    @Override
+    public Result filter(final Logger logger,
+                         final Level level,
+                         final Marker marker,
+                         final Object msg,
+                         final Throwable t) {
+        return decide(logger, level);
+    }
+
+    @Override
+    public Result filter(final Logger logger,
+                         final Level level,
+                         final Marker marker,
+                         final String msg,
+                         final Object... params) {
+        return decide(logger, level);
+    }
+
+    @Override
+    public Result filter(final Logger logger,
+                         final Level level,
+                         final Marker marker,
+                         final String msg,
+                         final Object p0) {
+        return decide(logger, level);
+    }
+
+    @Override
+    public Result filter(final Logger logger,
+                         final Level level,
+                         final Marker marker,
+                         final String msg,
+                         final Object p0,
+                         final Object p1) {
+        return decide(logger, level);
+    }
+
+    @Override
+    public Result filter(final Logger logger,
+                         final Level level,
+                         final Marker marker,
+                         final String msg,
+                         final Object p0,
+                         final Object p1,
+                         final Object p2) {
+        return decide(logger, level);
+    }
+}
@@ -0,0 +1,79 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AsyncAppender;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.core.filter.CompositeFilter;
+
+/** A log4j2 filter on an {@link AsyncAppender} that drops events by
+ * a {@link DiscardPolicy} before they are queued.
+ * The filter stays on the appender once added, ending the discarding
+ * only changes the policy.
+ * */
+final class Log4J2DiscardFilter extends AbstractFilter {
+
+    /** The appender of the queue. */
+    private final AsyncAppender appender;
+
+    /** The policy deciding on the events. */
+    private final DiscardPolicy policy = new DiscardPolicy();
+
+    /** Constructs a new filter.
+     * @param inAppender the appender of the queue.
+     * */
+    Log4J2DiscardFilter(final AsyncAppender inAppender) {
+        this.appender = inAppender;
+    }
+
+    /** Get the policy of the filter.
+     * @return the policy.
+     * */
+    DiscardPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public Result filter(final LogEvent event) {
+        if (policy.isDiscardable(event.getLevel().intLevel())
+                && policy.discard(appender.getQueueRemainingCapacity(),
+                        appender.getQueueCapacity())) {
+            return Result.DENY;
+        }
+        return Result.NEUTRAL;
+    }
+
+    /** Finds the discard filter of an appender.
+     * @param appender the appender to search.
+     * @return the filter, or {@code null} if the appender has none.
+     * */
+    static Log4J2DiscardFilter find(final AsyncAppender appender) {
+        Filter filter = appender.getFilter();
+        if (filter instanceof Log4J2DiscardFilter) {
+            return (Log4J2DiscardFilter) filter;
+        }
+        if (filter instanceof CompositeFilter) {
+            for (Filter child : (CompositeFilter) filter) {
+                if (child instanceof Log4J2DiscardFilter) {
+                    return (Log4J2DiscardFilter) child;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Finds the discard filter of an appender or adds one.
+     * @param appender the appender.
+     * @return the filter.
+     * */
+    static synchronized Log4J2DiscardFilter findOrAdd(
+            final AsyncAppender appender) {
+        Log4J2DiscardFilter filter = find(appender);
+        if (filter == null) {
+            filter = new Log4J2DiscardFilter(appender);
+            filter.start();
+            appender.addFilter(filter);
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,175 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/** Counts the log4j2 events of all loggers in {@link EventCounters}.
+ * A counting filter is added to every logger configuration.
+ * An event passes the configuration of its logger and of the
+ * ancestors it is additive to, so an event is only counted by the
+ * filter of the configuration its logger belongs to.
+ * Events denied by a filter before the counting filter are not
+ * counted. When the context is reconfigured, the filters are added to
+ * the new configuration.
+ * */
+final class Log4J2EventCounting {
+
+    /** The levels of {@link EventCounters#LEVELS}. */
+    private static final Level[] LEVELS = {Level.FATAL, Level.ERROR,
+            Level.WARN, Level.INFO, Level.DEBUG, Level.TRACE};
+
+    /** The filter counting the events of one logger configuration. */
+    private final class CountingFilter extends AbstractFilter {
+        /** The logger configuration the filter belongs to. */
+        private final LoggerConfig loggerConfig;
+
+        /** Constructs a new filter.
+         * @param inLoggerConfig the logger configuration the filter
+         *                       belongs to.
+         * */
+        private CountingFilter(final LoggerConfig inLoggerConfig) {
+            this.loggerConfig = inLoggerConfig;
+        }
+
+        @Override
+        public Result filter(final LogEvent event) {
+            String name = event.getLoggerName();
+            if (owner(name) == loggerConfig) {
+                counters.increment(name, levelIndex(event.getLevel()));
+            }
+            return Result.NEUTRAL;
+        }
+    }
+
+    /** The context to count the events of. */
+    private final LoggerContext context;
+
+    /** The counters to count in. */
+    private final EventCounters counters;
+
+    /** The logger configuration by logger name. */
+    private final ConcurrentMap<String, LoggerConfig> owners =
+            new ConcurrentHashMap<>();
+
+    /** The filters added by logger configuration.
+     * Guarded by {@code this}. */
+    private final Map<LoggerConfig, CountingFilter> filters =
+            new IdentityHashMap<>();
+
+    /** The configuration the filters were added to.
+     * Guarded by {@code this}. */
+    private Configuration configuration;
+
+    /** Adds the filters to a new configuration of the context. */
+    private final PropertyChangeListener configurationListener =
+            this::configurationChanged;
+
+    /** Constructs a new counting.
+     * @param inContext the context to count the events of.
+     * @param inCounters the counters to count in.
+     * */
+    Log4J2EventCounting(final LoggerContext inContext,
+                        final EventCounters inCounters) {
+        this.context = inContext;
+        this.counters = inCounters;
+    }
+
+    /** Converts a level to an index of {@link EventCounters#LEVELS}.
+     * @param level the level of an event.
+     * @return the index of the level or of the next finer level.
+     * */
+    static int levelIndex(final Level level) {
+        int index = 0;
+        while (index < LEVELS.length - 1
+                && level.intLevel() > LEVELS[index].intLevel()) {
+            index++;
+        }
+        return index;
+    }
+
+    /** Adds the filters to all logger configurations. */
+    synchronized void start() {
+        context.addPropertyChangeListener(configurationListener);
+        addAll(context.getConfiguration());
+    }
+
+    /** Removes the filters. */
+    synchronized void stop() {
+        context.removePropertyChangeListener(configurationListener);
+        for (Map.Entry<LoggerConfig, CountingFilter> entry
+                : filters.entrySet()) {
+            entry.getKey().removeFilter(entry.getValue());
+            entry.getValue().stop();
+        }
+        filters.clear();
+        owners.clear();
+    }
+
+    /** Adds the filter to a logger configuration that was added to the
+     * configuration of the context.
+     * @param loggerConfig the new logger configuration.
+     * */
+    synchronized void add(final LoggerConfig loggerConfig) {
+        if (!filters.containsKey(loggerConfig)) {
+            CountingFilter filter = new CountingFilter(loggerConfig);
+            filter.start();
+            loggerConfig.addFilter(filter);
+            filters.put(loggerConfig, filter);
+        }
+        owners.clear();
+    }
+
+    /** Adds the filters to all logger configurations of a
+     * configuration.
+     * @param newConfiguration the configuration to add the filters to.
+     * */
+    private void addAll(final Configuration newConfiguration) {
+        configuration = newConfiguration;
+        add(newConfiguration.getRootLogger());
+        for (LoggerConfig loggerConfig
+                : newConfiguration.getLoggers().values()) {
+            add(loggerConfig);
+        }
+    }
+
+    /** Called when a property of the context changes.
+     * The context also reports the configuration as changed when only
+     * the loggers were updated, so the filters are only added if the
+     * configuration was replaced.
+     * @param event the change event.
+     * */
+    private synchronized void configurationChanged(
+            final PropertyChangeEvent event) {
+        Configuration current = context.getConfiguration();
+        if (LoggerContext.PROPERTY_CONFIG.equals(event.getPropertyName())
+                && current != configuration) {
+            filters.clear();
+            owners.clear();
+            addAll(current);
+        }
+    }
+
+    /** Get the logger configuration a logger belongs to.
+     * @param name the name of the logger.
+     * @return the logger configuration.
+     * */
+    private LoggerConfig owner(final String name) {
+        LoggerConfig owner = owners.get(name);
+        if (owner == null) {
+            owner = context.getConfiguration().getLoggerConfig(name);
+            owners.put(name, owner);
+        }
+        return owner;
+    }
+}
@@ -0,0 +1,85 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.core.filter.CompositeFilter;
+
+/** A log4j2 filter on a logger configuration that lets only a limited
+ * number of events per second pass at the sampled level and finer
+ * levels. More severe events always pass.
+ * The events that are not sampled are denied with one
+ * compare-and-set on a {@link TokenBucket}.
+ * */
+final class Log4J2SamplingFilter extends AbstractFilter {
+
+    /** The level from which on events are sampled. */
+    private final Level level;
+
+    /** The number of events per second to pass. */
+    private final int eventsPerSecond;
+
+    /** The tokens for the events to pass. */
+    private final TokenBucket bucket;
+
+    /** Constructs a new filter.
+     * @param inLevel the level from which on events are sampled.
+     * @param inEventsPerSecond the number of events per second to pass.
+     * */
+    Log4J2SamplingFilter(final Level inLevel, final int inEventsPerSecond) {
+        this.level = inLevel;
+        this.eventsPerSecond = inEventsPerSecond;
+        this.bucket = new TokenBucket(inEventsPerSecond, inEventsPerSecond,
+                System.nanoTime());
+    }
+
+    /** Get the number of events per second to pass.
+     * @return the events per second.
+     * */
+    int getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    @Override
+    public Result filter(final LogEvent event) {
+        if (!event.getLevel().isLessSpecificThan(level)
+                || bucket.tryAcquire()) {
+            return Result.NEUTRAL;
+        }
+        return Result.DENY;
+    }
+
+    /** Finds the sampling filter of a logger configuration.
+     * @param loggerConfig the logger configuration to search.
+     * @return the filter, or {@code null} if the logger configuration
+     * is not sampled.
+     * */
+    static Log4J2SamplingFilter find(final LoggerConfig loggerConfig) {
+        Filter filter = loggerConfig.getFilter();
+        if (filter instanceof Log4J2SamplingFilter) {
+            return (Log4J2SamplingFilter) filter;
+        }
+        if (filter instanceof CompositeFilter) {
+            for (Filter child : (CompositeFilter) filter) {
+                if (child instanceof Log4J2SamplingFilter) {
+                    return (Log4J2SamplingFilter) child;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Removes the sampling filter of a logger configuration.
+     * @param loggerConfig the logger configuration to remove the filter
+     *                     from.
+     * */
+    static void remove(final LoggerConfig loggerConfig) {
+        Log4J2SamplingFilter filter = find(loggerConfig);
+        if (filter != null) {
+            loggerConfig.removeFilter(filter);
+            filter.stop();
+        }
+    }
+}
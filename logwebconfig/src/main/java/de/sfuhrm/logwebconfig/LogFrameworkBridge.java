@@ -1,6 +1,12 @@
 package de.sfuhrm.logwebconfig;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /** A configuration plug in for a logging system. */
 abstract class LogFrameworkBridge {
@@ -13,13 +19,159 @@ abstract class LogFrameworkBridge {
         String getLevel();
 
         /** Update the current level of the logger.
+         * A sampling of the logger ends.
          * @param newLevel the new level to set.
          * @throws IllegalArgumentException if the level is not acceptable.
          *  */
         void setLevel(String newLevel);
+
+        /** Remove the level configured for exactly this logger, so it
+         * inherits the level of its parent logger again.
+         * A sampling of the logger ends.
+         * @throws IllegalArgumentException if the logger is the root
+         * logger, which has no parent to inherit from.
+         *  */
+        void clearLevel();
+
+        /** Update the current level of the logger and let only a
+         * limited number of events per second pass at this level and
+         * finer levels. More severe events always pass.
+         * @param newLevel the new level to set.
+         * @param eventsPerSecond the number of events per second to
+         *                        pass, at least 1.
+         * @throws IllegalArgumentException if the level or the rate
+         * is not acceptable.
+         *  */
+        void setSampledLevel(String newLevel, int eventsPerSecond);
+
+        /** Read the sampling rate of the logger.
+         * @return the number of events per second that pass, or 0 if
+         * the logger is not sampled.
+         * */
+        int getSampleRate();
+
+        /** Get the name of the logger.
+         * @return the logger name, the empty String for the root logger.
+         * */
+        String getName();
+
+        /** Read the level configured for exactly this logger.
+         * @return the level name or {@code null} if the level is
+         * inherited from a parent logger.
+         * */
+        String getConfiguredLevel();
+
+        /** Read the level the logger currently uses, either
+         * configured or inherited.
+         * @return the level name.
+         * */
+        String getEffectiveLevel();
+    }
+
+    /** The queue of an asynchronous appender or logger. */
+    interface AsyncQueue {
+        /** Get the name of the queue.
+         * @return the appender name or the name of the ring buffer.
+         * */
+        String getName();
+
+        /** Get the number of events the queue holds.
+         * @return the capacity, or -1 if not known.
+         * */
+        int getCapacity();
+
+        /** Get the number of events the queue can take now.
+         * @return the remaining capacity, or -1 if not known.
+         * */
+        int getRemainingCapacity();
+
+        /** Get the number of events dropped by the discard policy
+         * of {@link #setPolicy(Boolean, String)}.
+         * @return the discarded events, or -1 if not counted.
+         * */
+        long getDiscarded();
+
+        /** Checks whether a full queue blocks the logging thread.
+         * @return {@code true} if the logging thread waits, {@code
+         * false} if the framework drops the event.
+         * */
+        boolean isBlocking();
+
+        /** Get the discard level of {@link #setPolicy(Boolean, String)}.
+         * @return the level name, or {@code null} if nothing is
+         * discarded.
+         * */
+        String getDiscardLevel();
+
+        /** Changes the policy of the queue. Both values are checked
+         * before the first change. The change applies to the events
+         * logged after it, while events are flowing.
+         * @param blocking whether a full queue blocks the logging
+         *                 thread, or {@code null} to keep it.
+         * @param discardLevel while the queue is nearly full, events
+         *                     less severe than this level are dropped
+         *                     before they are queued, see
+         *                     {@link DiscardPolicy}. {@code -} ends
+         *                     discarding, {@code null} keeps it.
+         * @throws IllegalArgumentException if the level is not
+         * acceptable.
+         * @throws UnsupportedOperationException if the framework can
+         * not change a value of the queue while it runs.
+         * */
+        void setPolicy(Boolean blocking, String discardLevel);
+    }
+
+    /** An appender writing to a file, with its buffering. */
+    interface AppenderResource {
+        /** Get the name of the appender.
+         * @return the appender name.
+         * */
+        String getName();
+
+        /** Get the type of the appender.
+         * @return the simple class name of the appender.
+         * */
+        String getType();
+
+        /** Get the number of bytes buffered before they are written.
+         * @return the buffer size, the region size of a memory mapped
+         * file, 0 if the writes are not buffered or -1 if not known.
+         * */
+        int getBufferSize();
+
+        /** Checks whether every event is flushed to the file.
+         * @return {@code true} if every event is flushed.
+         * */
+        boolean isImmediateFlush();
+
+        /** Checks whether the file is memory mapped.
+         * @return {@code true} if the file is memory mapped.
+         * */
+        boolean isMemoryMapped();
+
+        /** Changes the buffering of the appender. All values are
+         * checked before the first change, values equal to the current
+         * ones are accepted by every appender. The change applies to
+         * the events appended after it, while events are flowing.
+         * @param bufferSize the new buffer size, 0 for unbuffered
+         *                   writes, or {@code null} to keep it.
+         * @param immediateFlush whether every event is flushed, or
+         *                       {@code null} to keep it.
+         * @param memoryMapped whether the file is memory mapped, or
+         *                     {@code null} to keep it.
+         * @throws IllegalArgumentException if a value is not acceptable.
+         * @throws UnsupportedOperationException if the framework can
+         * not change a value of the appender while it runs.
+         * @throws java.io.UncheckedIOException if the file could not
+         * be opened again.
+         * */
+        void configure(Integer bufferSize, Boolean immediateFlush,
+                       Boolean memoryMapped);
     }
 
     /** Finds a log configuration resource with its resource name.
+     * Only existing loggers are found, the lookup does not create
+     * loggers in the logging framework.
      * @param loggerName the logger name. Usually this is the
      *                 empty String for the
      *                 root logger and everything else being interpreted as a
@@ -28,4 +180,133 @@ abstract class LogFrameworkBridge {
      * */
     public abstract Optional<LoggerResource> findLoggerResource(
             String loggerName);
+
+    /** Gets a log configuration resource for changing the level of
+     * a logger that may not exist yet. The logger is created when the
+     * level is set.
+     * @param loggerName the logger name, the empty String for the
+     *                   root logger.
+     * @return the logger resource.
+     * */
+    public abstract LoggerResource createLoggerResource(String loggerName);
+
+    /** Updates the levels of many loggers in one step.
+     * All levels are validated before the first logger is changed,
+     * so either all changes are applied or none.
+     * The sampling of the changed loggers ends.
+     * @param levels maps the logger names to the new level names.
+     *               The empty String is the root logger.
+     * @throws IllegalArgumentException if one of the levels
+     * is not acceptable.
+     * */
+    public abstract void setLevels(Map<String, String> levels);
+
+    /** Checks whether the framework knows a level. No logger is
+     * read, created or changed, so a request can be rejected before
+     * it touches a logger.
+     * @param level the level name.
+     * @throws IllegalArgumentException if the level is not acceptable.
+     * */
+    public abstract void checkLevel(String level);
+
+    /** Lists all loggers of the logging framework.
+     * The stream reads the logger registry of the framework lazily
+     * while it is consumed, so the loggers are not copied into
+     * a list first.
+     * @return the loggers, starting with the root logger.
+     * */
+    public abstract Stream<LoggerResource> streamLoggerResources();
+
+    /** Starts counting the events of all loggers.
+     * A counting started before is stopped.
+     * @param counters the counters to count the events in.
+     * */
+    public abstract void startEventCounting(EventCounters counters);
+
+    /** Stops counting the events. Does nothing if the events are not
+     * counted.
+     * */
+    public abstract void stopEventCounting();
+
+    /** Lets the events of logger subtrees pass at a finer level while
+     * the MDC or {@code ThreadContext} of the logging thread matches.
+     * The rules replace the rules set before. The events are checked
+     * while the rules change, so a bridge swaps its lookup as a whole.
+     * The default implementation only accepts no rules, for frameworks
+     * whose filters are asked after the level check.
+     * @param rules the rules, empty to remove them all.
+     * @throws IllegalArgumentException if a level is not acceptable
+     * or the framework has no context levels.
+     * */
+    public void setContextRules(
+            final Collection<ContextLevels.Rule> rules) {
+        if (!rules.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Context levels are not supported by this framework");
+        }
+    }
+
+    /** Converts a level of {@link EventCounters#LEVELS} to a level
+     * of the framework. The level lets the events pass that are
+     * counted at the level or a more severe one.
+     * The default implementation returns the level, for frameworks
+     * that have all of these levels.
+     * @param level a level name of {@link EventCounters#LEVELS}.
+     * @return the level name of the framework.
+     * */
+    public String toFrameworkLevel(final String level) {
+        return level;
+    }
+
+    /** Lists the queues of the asynchronous appenders and loggers.
+     * The default implementation lists none.
+     * @return the queues in the order of the configuration.
+     * */
+    public List<AsyncQueue> listAsyncQueues() {
+        return Collections.emptyList();
+    }
+
+    /** Finds an appender writing to a file by its name.
+     * The default implementation finds none.
+     * @param appenderName the name of the appender.
+     * @return the appender, or {@link Optional#empty()} if there is no
+     * file appender with the name.
+     * */
+    public Optional<AppenderResource> findAppenderResource(
+            final String appenderName) {
+        return Optional.empty();
+    }
+
+    /** Lists the loggers that have a level configured for exactly
+     * themselves. The default implementation filters
+     * {@link #streamLoggerResources()}.
+     * @return the loggers with a configured level.
+     * */
+    protected Stream<LoggerResource> streamConfiguredLoggerResources() {
+        return streamLoggerResources()
+                .filter(resource -> resource.getConfiguredLevel() != null);
+    }
+
+    /** Sets the level of a logger and of all its descendants that have
+     * a level configured of their own. Descendants inheriting their
+     * level follow the logger anyway.
+     * The hierarchy is walked once and all levels are applied in one
+     * step with {@link #setLevels(Map)}.
+     * @param loggerName the name of the logger at the top of the
+     *                   subtree. The empty String is the root logger.
+     * @param newLevel the new level to set.
+     * @throws IllegalArgumentException if the level is not acceptable.
+     * */
+    public void setSubtreeLevel(final String loggerName,
+                                final String newLevel) {
+        String prefix = loggerName + ".";
+        Map<String, String> levels = new LinkedHashMap<>();
+        levels.put(loggerName, newLevel);
+        streamConfiguredLoggerResources()
+                .map(LoggerResource::getName)
+                .filter(name -> loggerName.isEmpty()
+                        || name.startsWith(prefix))
+                .forEach(name -> levels.put(name, newLevel));
+        setLevels(levels);
+    }
 }
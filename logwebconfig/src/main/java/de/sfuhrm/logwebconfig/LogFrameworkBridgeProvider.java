@@ -0,0 +1,32 @@
+package de.sfuhrm.logwebconfig;
+
+/** Provides the bridge to one logging framework.
+ * The providers of this package are listed in
+ * {@code META-INF/services/de.sfuhrm.logwebconfig.LogFrameworkBridgeProvider}
+ * and found once by the {@link BridgeRegistry}.
+ * A provider must not use the classes of its logging framework before
+ * {@link #isAvailable()} said so, so that a framework missing from the
+ * class path costs no class loading.
+ * Like {@link LogFrameworkBridge}, this is not an API for other jars.
+ * Only the provider classes are public, because {@link
+ * java.util.ServiceLoader} can only create public classes.
+ * */
+interface LogFrameworkBridgeProvider {
+
+    /** Get the name of the logging framework, the first path element
+     * of the requests.
+     * @return the framework name, for example {@code log4j2}.
+     * */
+    String getName();
+
+    /** Checks whether the logging framework is on the class path and
+     * in use. Called once, on the first use of the framework.
+     * @return {@code true} if {@link #newBridge()} can be called.
+     * */
+    boolean isAvailable();
+
+    /** Creates the bridge to the logging framework.
+     * @return a new bridge.
+     * */
+    LogFrameworkBridge newBridge();
+}
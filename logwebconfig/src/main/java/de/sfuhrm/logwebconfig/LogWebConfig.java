@@ -1,6 +1,15 @@
 package de.sfuhrm.logwebconfig;
 
+import fi.iki.elonen.NanoHTTPD;
+
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /** The setup class for the log web configuration service.
  * */
@@ -19,6 +28,107 @@ public final class LogWebConfig {
     private static final String PROPERTY_USER = "LOGWEBCONFIG_USER";
     /** System property to configure the password to authenticate with. */
     private static final String PROPERTY_PASSWORD = "LOGWEBCONFIG_PASSWORD";
+    /** System property to configure the {@link ExecutionMode}. */
+    private static final String PROPERTY_EXECUTOR = "LOGWEBCONFIG_EXECUTOR";
+    /** System property to configure the maximum number of threads. */
+    private static final String PROPERTY_POOL_SIZE = "LOGWEBCONFIG_POOL_SIZE";
+    /** System property to configure the maximum number of waiting
+     * connections. */
+    private static final String PROPERTY_QUEUE_SIZE =
+            "LOGWEBCONFIG_QUEUE_SIZE";
+    /** System property to configure the maximum number of concurrent
+     * requests. */
+    private static final String PROPERTY_MAX_CONCURRENT =
+            "LOGWEBCONFIG_MAX_CONCURRENT";
+    /** System property to configure the maximum number of requests
+     * waiting for a level change. */
+    private static final String PROPERTY_MAX_WAITING =
+            "LOGWEBCONFIG_MAX_WAITING";
+    /** System property to configure the requests per second and
+     * client. */
+    private static final String PROPERTY_RATE_LIMIT =
+            "LOGWEBCONFIG_RATE_LIMIT";
+    /** System property to configure the requests a client can
+     * issue at once. */
+    private static final String PROPERTY_RATE_BURST =
+            "LOGWEBCONFIG_RATE_BURST";
+    /** System property to configure the comma separated names of the
+     * logging frameworks to count the events of. */
+    private static final String PROPERTY_STATS = "LOGWEBCONFIG_STATS";
+    /** System property to configure the maximum number of events per
+     * second of a logger before its level is raised. */
+    private static final String PROPERTY_FLOOD_LIMIT =
+            "LOGWEBCONFIG_FLOOD_LIMIT";
+    /** System property to configure the time until a level raised by
+     * the flood protection is restored. */
+    private static final String PROPERTY_FLOOD_COOLDOWN =
+            "LOGWEBCONFIG_FLOOD_COOLDOWN";
+    /** The default time until a level raised by the flood protection
+     * is restored. */
+    private static final String DEFAULT_FLOOD_COOLDOWN = "5m";
+    /** System property to configure the comma separated addresses of
+     * the peers to forward level changes to. */
+    private static final String PROPERTY_PEERS = "LOGWEBCONFIG_PEERS";
+    /** System property to configure a file with the addresses of the
+     * peers to forward level changes to, one per line. */
+    private static final String PROPERTY_PEERS_FILE =
+            "LOGWEBCONFIG_PEERS_FILE";
+    /** System property to configure the maximum number of peers
+     * a level change is forwarded to at once. */
+    private static final String PROPERTY_FANOUT_CONCURRENCY =
+            "LOGWEBCONFIG_FANOUT_CONCURRENCY";
+    /** System property to configure the time to wait for a peer. */
+    private static final String PROPERTY_FANOUT_TIMEOUT =
+            "LOGWEBCONFIG_FANOUT_TIMEOUT";
+    /** System property to configure the file to journal the permanent
+     * level changes to, so they are applied again on startup. */
+    private static final String PROPERTY_JOURNAL = "LOGWEBCONFIG_JOURNAL";
+    /** The default maximum number of peers a level change is forwarded
+     * to at once. */
+    private static final String DEFAULT_FANOUT_CONCURRENCY = "16";
+    /** The default time to wait for a peer. */
+    private static final String DEFAULT_FANOUT_TIMEOUT = "5s";
+    /** The default for unlimited requests. */
+    private static final String DEFAULT_UNLIMITED = "0";
+    /** The default maximum number of threads. */
+    private static final String DEFAULT_POOL_SIZE = "4";
+    /** The default maximum number of waiting connections. */
+    private static final String DEFAULT_QUEUE_SIZE = "16";
+
+    /** Starts the server in the background for {@link #startAsync()}.
+     * A class instead of a lambda, because bootstrapping the first
+     * lambda of a JVM takes longer than the rest of the asynchronous
+     * start.
+     * */
+    private static final class Startup implements Runnable {
+        /** The strategy for running the client connections. */
+        private final ExecutionMode executionMode;
+
+        /** The future to complete. */
+        private final CompletableFuture<Boolean> result;
+
+        /** Constructs a start.
+         * @param inExecutionMode the strategy for running the client
+         *                        connections.
+         * @param inResult the future to complete.
+         * */
+        private Startup(final ExecutionMode inExecutionMode,
+                        final CompletableFuture<Boolean> inResult) {
+            this.executionMode = inExecutionMode;
+            this.result = inResult;
+        }
+
+        @Override
+        public void run() {
+            try {
+                start(executionMode);
+                result.complete(isRunning());
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
 
     /** The singleton server instance. */
     private static Server singleton;
@@ -39,11 +149,170 @@ public final class LogWebConfig {
         singleton = null;
     }
 
+    /** Checks whether the web config server is running, for example
+     * after {@link #startAsync()}.
+     * @return {@code true} if the server is listening.
+     * */
+    public static synchronized boolean isRunning() {
+        return singleton != null;
+    }
+
     /** Start the web config server.
+     * The {@link ExecutionMode} is taken from the
+     * {@code LOGWEBCONFIG_EXECUTOR} system property and defaults to
+     * {@link ExecutionMode#THREAD}.
      * @throws RuntimeException if the server can not be started due to an
      * IOException.
      * */
     public static synchronized void start() {
+        start(executionModeProperty());
+    }
+
+    /** Start the web config server in the background and return at
+     * once. Binding the port, replaying the journal and loading the
+     * bridges of the configured statistics happen in a daemon thread,
+     * so the calling thread, usually the main thread of the
+     * application, does not wait for them.
+     * The {@link ExecutionMode} is taken from the
+     * {@code LOGWEBCONFIG_EXECUTOR} system property and defaults to
+     * {@link ExecutionMode#THREAD}.
+     * @return a future telling whether the server is running once the
+     * start is finished. It is {@code false} if the server is disabled
+     * or could not be started.
+     * */
+    public static CompletableFuture<Boolean> startAsync() {
+        return startAsync(executionModeProperty());
+    }
+
+    /** Start the web config server in the background and return at
+     * once.
+     * @param executionMode the strategy for running the client
+     *                      connections.
+     * @return a future telling whether the server is running once the
+     * start is finished. It is {@code false} if the server is disabled
+     * or could not be started.
+     * @see #startAsync()
+     * */
+    public static CompletableFuture<Boolean> startAsync(
+            final ExecutionMode executionMode) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        Thread thread = new Thread(new Startup(executionMode, result),
+                "LogWebConfig Startup");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    /** Get the execution mode configured in the system properties.
+     * An unknown mode is reported and the default is used instead.
+     * @return the configured execution mode.
+     * */
+    private static ExecutionMode executionModeProperty() {
+        String mode = System.getProperty(PROPERTY_EXECUTOR,
+                ExecutionMode.THREAD.name());
+        try {
+            return ExecutionMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("logwebconfig: Unknown executor " + mode
+                    + ", will use " + ExecutionMode.THREAD + " instead.");
+            return ExecutionMode.THREAD;
+        }
+    }
+
+    /** Enables the event counting of logging frameworks.
+     * Unknown frameworks are reported and ignored.
+     * @param server the server to enable the statistics of.
+     * @param frameworks the comma separated framework names, or
+     *                   {@code null} for none.
+     * */
+    private static void enableStatistics(final Server server,
+                                         final String frameworks) {
+        if (frameworks == null) {
+            return;
+        }
+        for (String framework : frameworks.split(",")) {
+            String trimmed = framework.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                server.enableStatistics(trimmed);
+            } catch (ServerException e) {
+                System.err.println("logwebconfig: No statistics for "
+                        + trimmed + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /** Creates the fan-out to the peers. The peers file is read for
+     * every fan-out, so the peers can change while running.
+     * @param peers the comma separated peer addresses, or {@code null}.
+     * @param peersFile the file with the peer addresses, or
+     *                  {@code null}. Takes precedence over
+     *                  {@code peers}.
+     * @return the fan-out, or {@code null} if no peers are configured.
+     * */
+    private static PeerFanOut newPeerFanOut(final String peers,
+                                            final String peersFile) {
+        Supplier<List<String>> supplier;
+        if (peersFile != null) {
+            Path path = Paths.get(peersFile);
+            supplier = () -> {
+                try {
+                    return PeerFanOut.readPeers(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+        } else if (peers != null) {
+            List<String> list = PeerFanOut.parsePeers(peers);
+            supplier = () -> list;
+        } else {
+            return null;
+        }
+        int concurrency = Integer.parseInt(System.getProperty(
+                PROPERTY_FANOUT_CONCURRENCY, DEFAULT_FANOUT_CONCURRENCY));
+        long timeout = Durations.parseMillis(System.getProperty(
+                PROPERTY_FANOUT_TIMEOUT, DEFAULT_FANOUT_TIMEOUT));
+        return new PeerFanOut(supplier, concurrency, timeout);
+    }
+
+    /** Replays the journal and makes the server append to it.
+     * Changes that fail to replay are reported with their line and
+     * skipped. If the journal can not be opened, that is reported and
+     * the server runs without journal.
+     * @param server the server to configure.
+     * @param journalFile the journal file, or {@code null} for none.
+     * */
+    private static void openJournal(final Server server,
+                                    final String journalFile) {
+        if (journalFile == null) {
+            return;
+        }
+        Journal journal = new Journal(Paths.get(journalFile));
+        try {
+            for (String failure : server.replay(journal.open())) {
+                System.err.println("logwebconfig: Journal " + journalFile
+                        + ", " + failure);
+            }
+            server.setJournal(journal);
+        } catch (IOException e) {
+            System.err.println("logwebconfig: Could not open journal "
+                    + journalFile + ": " + e);
+        }
+    }
+
+    /** Start the web config server.
+     * If the port can not be bound, the event counting and the timer
+     * set up for the server are stopped again. The journal is only
+     * replayed once the port is bound, so a failed start leaves the
+     * levels of the JVM alone.
+     * @param executionMode the strategy for running the client
+     *                      connections.
+     * @throws RuntimeException if the server can not be started due to an
+     * IOException.
+     * */
+    public static synchronized void start(final ExecutionMode executionMode) {
         if (singleton != null) {
             return;
         }
@@ -59,12 +328,57 @@ public final class LogWebConfig {
         String host = System.getProperty(PROPERTY_HOST, DEFAULT_HOST);
         int port = Integer.parseInt(
                 System.getProperty(PROPERTY_PORT, DEFAULT_PORT));
+        int poolSize = Integer.parseInt(
+                System.getProperty(PROPERTY_POOL_SIZE, DEFAULT_POOL_SIZE));
+        int queueSize = Integer.parseInt(
+                System.getProperty(PROPERTY_QUEUE_SIZE, DEFAULT_QUEUE_SIZE));
+        int maxConcurrent = Integer.parseInt(System.getProperty(
+                PROPERTY_MAX_CONCURRENT, DEFAULT_UNLIMITED));
+        int maxWaiting = executionMode.limitWaiting(poolSize,
+                Integer.parseInt(System.getProperty(PROPERTY_MAX_WAITING,
+                        Integer.toString(
+                                AdmissionControl.DEFAULT_MAX_WAITING))));
+        int rateLimit = Integer.parseInt(System.getProperty(
+                PROPERTY_RATE_LIMIT, DEFAULT_UNLIMITED));
+        int rateBurst = Integer.parseInt(System.getProperty(
+                PROPERTY_RATE_BURST,
+                Integer.toString(Math.max(1, rateLimit))));
+        int floodLimit = Integer.parseInt(System.getProperty(
+                PROPERTY_FLOOD_LIMIT, DEFAULT_UNLIMITED));
+        long floodCoolDown = Durations.parseMillis(System.getProperty(
+                PROPERTY_FLOOD_COOLDOWN, DEFAULT_FLOOD_COOLDOWN));
+        PeerFanOut peerFanOut = newPeerFanOut(
+                System.getProperty(PROPERTY_PEERS),
+                System.getProperty(PROPERTY_PEERS_FILE));
+        if (executionMode == ExecutionMode.VIRTUAL
+                && !VirtualThreads.isSupported()) {
+            System.err.println("logwebconfig: Virtual threads need Java 21"
+                    + " or later, will use a thread pool instead.");
+        }
+        Server server = null;
         try {
-            singleton = new Server(host, port);
+            server = new Server(host, port, false);
             if (username != null && password != null) {
-                singleton.setAuthentication(username, password);
+                server.setAuthentication(username, password);
             }
+            server.setAdmissionControl(new AdmissionControl(
+                    maxConcurrent, rateLimit, rateBurst, maxWaiting));
+            if (floodLimit != 0) {
+                server.setFloodProtection(floodLimit, floodCoolDown);
+            }
+            if (peerFanOut != null) {
+                server.setPeerFanOut(peerFanOut);
+            }
+            enableStatistics(server, System.getProperty(PROPERTY_STATS));
+            server.setAsyncRunner(
+                    executionMode.newAsyncRunner(poolSize, queueSize));
+            server.start(NanoHTTPD.SOCKET_READ_TIMEOUT, true);
+            openJournal(server, System.getProperty(PROPERTY_JOURNAL));
+            singleton = server;
         } catch (IOException e) {
+            if (server != null) {
+                server.stop();
+            }
             System.err.println("logwebconfig: Got IO exception, probably the "
                     + "TCP/IP port " + port + " is already taken.");
             System.err.println("              Will continue ignoring this"
@@ -0,0 +1,107 @@
+package de.sfuhrm.logwebconfig;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/** The buffering of a logback {@link OutputStreamAppender}, like a
+ * file appender.
+ * Logback reads the immediate flush on every event, so it changes at
+ * once. Logback does not tell the size of the buffer of a file, so
+ * it can not change.
+ * */
+final class LogbackAppenderResource
+        implements LogFrameworkBridge.AppenderResource {
+
+    /** The appender. */
+    private final OutputStreamAppender<ILoggingEvent> appender;
+
+    /** Constructs the resource.
+     * @param inAppender the appender.
+     * */
+    LogbackAppenderResource(
+            final OutputStreamAppender<ILoggingEvent> inAppender) {
+        this.appender = inAppender;
+    }
+
+    /** Finds an output stream appender attached to a logger.
+     * @param context the logger context.
+     * @param name the name of the appender.
+     * @return the appender, or {@link Optional#empty()} if no logger
+     * has an output stream appender with the name.
+     * */
+    static Optional<LogFrameworkBridge.AppenderResource> find(
+            final LoggerContext context,
+            final String name) {
+        for (Logger logger : context.getLoggerList()) {
+            Appender<ILoggingEvent> appender = logger.getAppender(name);
+            if (appender instanceof OutputStreamAppender) {
+                return Optional.of(new LogbackAppenderResource(
+                        (OutputStreamAppender<ILoggingEvent>) appender));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public String getName() {
+        return appender.getName();
+    }
+
+    @Override
+    public String getType() {
+        return appender.getClass().getSimpleName();
+    }
+
+    @Override
+    public int getBufferSize() {
+        return -1;
+    }
+
+    @Override
+    public boolean isImmediateFlush() {
+        return appender.isImmediateFlush();
+    }
+
+    @Override
+    public boolean isMemoryMapped() {
+        return false;
+    }
+
+    /** A change to the immediate flush writes the buffered events at
+     * once.
+     * {@inheritDoc}
+     * */
+    @Override
+    public void configure(final Integer bufferSize,
+                          final Boolean immediateFlush,
+                          final Boolean memoryMapped) {
+        if (bufferSize != null) {
+            throw new UnsupportedOperationException("logback does not tell"
+                    + " the buffer size of " + getName());
+        }
+        if (Boolean.TRUE.equals(memoryMapped)) {
+            throw new UnsupportedOperationException(
+                    "logback can not memory map files");
+        }
+        if (immediateFlush == null) {
+            return;
+        }
+        appender.setImmediateFlush(immediateFlush);
+        OutputStream out = appender.getOutputStream();
+        if (immediateFlush && out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package de.sfuhrm.logwebconfig;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AsyncAppenderBase;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/** The queue of a logback {@link AsyncAppenderBase async appender}.
+ * Logback reads the never-block flag on every event, so it can change
+ * at run time. The discard level is checked by a
+ * {@link DiscardFilter} that stays on the appender once added, because
+ * logback can not remove a single filter.
+ * */
+final class LogbackAsyncQueue implements LogFrameworkBridge.AsyncQueue {
+
+    /** Drops events by a {@link DiscardPolicy} before they are queued.
+     * */
+    static final class DiscardFilter extends Filter<ILoggingEvent> {
+        /** The appender of the queue. */
+        private final AsyncAppenderBase<ILoggingEvent> appender;
+
+        /** The policy deciding on the events. */
+        private final DiscardPolicy policy = new DiscardPolicy();
+
+        /** Constructs a new filter.
+         * @param inAppender the appender of the queue.
+         * */
+        DiscardFilter(final AsyncAppenderBase<ILoggingEvent> inAppender) {
+            this.appender = inAppender;
+        }
+
+        @Override
+        public FilterReply decide(final ILoggingEvent event) {
+            if (policy.isDiscardable(-event.getLevel().toInt())
+                    && policy.discard(appender.getRemainingCapacity(),
+                            appender.getQueueSize())) {
+                return FilterReply.DENY;
+            }
+            return FilterReply.NEUTRAL;
+        }
+    }
+
+    /** The appender. */
+    private final AsyncAppenderBase<ILoggingEvent> appender;
+
+    /** Constructs the queue.
+     * @param inAppender the appender.
+     * */
+    LogbackAsyncQueue(final AsyncAppenderBase<ILoggingEvent> inAppender) {
+        this.appender = inAppender;
+    }
+
+    /** Lists the async appenders attached to the loggers of a context.
+     * @param context the logger context.
+     * @return the queues, each appender once.
+     * */
+    static List<LogFrameworkBridge.AsyncQueue> list(
+            final LoggerContext context) {
+        List<LogFrameworkBridge.AsyncQueue> result = new ArrayList<>();
+        Set<Appender<ILoggingEvent>> seen =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Logger logger : context.getLoggerList()) {
+            Iterator<Appender<ILoggingEvent>> appenders =
+                    logger.iteratorForAppenders();
+            while (appenders.hasNext()) {
+                Appender<ILoggingEvent> appender = appenders.next();
+                if (appender instanceof AsyncAppenderBase
+                        && seen.add(appender)) {
+                    result.add(new LogbackAsyncQueue(
+                            (AsyncAppenderBase<ILoggingEvent>) appender));
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Finds the discard filter of the appender.
+     * @return the filter, or {@code null} if the appender has none.
+     * */
+    private DiscardFilter findFilter() {
+        for (Filter<ILoggingEvent> filter
+                : appender.getCopyOfAttachedFiltersList()) {
+            if (filter instanceof DiscardFilter) {
+                return (DiscardFilter) filter;
+            }
+        }
+        return null;
+    }
+
+    /** Finds the discard filter of the appender or adds one.
+     * @return the filter.
+     * */
+    private DiscardFilter findOrAddFilter() {
+        synchronized (appender) {
+            DiscardFilter filter = findFilter();
+            if (filter == null) {
+                filter = new DiscardFilter(appender);
+                filter.start();
+                appender.addFilter(filter);
+            }
+            return filter;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return appender.getName();
+    }
+
+    @Override
+    public int getCapacity() {
+        return appender.getQueueSize();
+    }
+
+    @Override
+    public int getRemainingCapacity() {
+        return appender.getRemainingCapacity();
+    }
+
+    @Override
+    public long getDiscarded() {
+        DiscardFilter filter = findFilter();
+        if (filter == null) {
+            return 0;
+        }
+        return filter.policy.getDiscarded();
+    }
+
+    @Override
+    public boolean isBlocking() {
+        return !appender.isNeverBlock();
+    }
+
+    @Override
+    public String getDiscardLevel() {
+        DiscardFilter filter = findFilter();
+        if (filter == null) {
+            return null;
+        }
+        return filter.policy.getLevel();
+    }
+
+    @Override
+    public void setPolicy(final Boolean blocking,
+                          final String discardLevel) {
+        Level level = null;
+        if (discardLevel != null && !"-".equals(discardLevel)) {
+            level = LogbackBridge.parseLevel(discardLevel);
+        }
+        if (discardLevel != null) {
+            DiscardPolicy policy = findOrAddFilter().policy;
+            if (level == null) {
+                policy.setLevel(null, 0);
+            } else {
+                policy.setLevel(level.toString(), -level.toInt());
+            }
+        }
+        if (blocking != null) {
+            appender.setNeverBlock(!blocking);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package de.sfuhrm.logwebconfig;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/** Configuration class for logback classic.
+ * Logback has no filters on loggers, so sampling and event counting
+ * use turbo filters of the logger context. Turbo filters are asked
+ * on every logging call, so they first check the cheap conditions.
+ * */
+class LogbackBridge extends LogFrameworkBridge {
+
+    /** The samplers of the sampled loggers by logger name.
+     * The root logger has the empty name. */
+    private final ConcurrentMap<String, LogbackSampler> samplers =
+            new ConcurrentHashMap<>();
+
+    /** The counting of the events, or {@code null} if the events are
+     * not counted. */
+    private LogbackEventCounting eventCounting;
+
+    /** The filter of the context levels, or {@code null} if there are
+     * no context levels. */
+    private LogbackContextFilter contextFilter;
+
+    /** Checks whether logback is the binding of SLF4J.
+     * @return {@code true} if the SLF4J logger factory is a logback
+     * context.
+     * */
+    static boolean isBound() {
+        return LoggerFactory.getILoggerFactory() instanceof LoggerContext;
+    }
+
+    /**
+     * Converts a level to a logback level object.
+     * @param levelString the level String to recognize.
+     * @return the resulting level object.
+     * @throws IllegalArgumentException if the level was not recognized.
+     */
+    static Level parseLevel(final String levelString) {
+        Level level = Level.toLevel(levelString.toUpperCase(), null);
+        if (level == null) {
+            throw new IllegalArgumentException("Level not recognized: "
+                    + levelString);
+        }
+        return level;
+    }
+
+    /** Converts a level to its name.
+     * @param level the level to convert, may be {@code null}.
+     * @return the name of the level, or {@code null} if the level was
+     * {@code null}.
+     * */
+    private static String toName(final Level level) {
+        if (level == null) {
+            return null;
+        }
+        return level.toString();
+    }
+
+    /** Converts a logger name of the bridge to a logback logger name.
+     * @param name the logger name, the empty String for the root
+     *             logger.
+     * @return the logback logger name.
+     * */
+    private static String toLogbackName(final String name) {
+        if (name == null || name.isEmpty() || "/".equals(name)) {
+            return Logger.ROOT_LOGGER_NAME;
+        }
+        return name;
+    }
+
+    /** Converts a logback logger name to a logger name of the bridge.
+     * @param logbackName the logback logger name.
+     * @return the logger name, the empty String for the root logger.
+     * */
+    private static String toBridgeName(final String logbackName) {
+        if (Logger.ROOT_LOGGER_NAME.equalsIgnoreCase(logbackName)) {
+            return "";
+        }
+        return logbackName;
+    }
+
+    /** Dynamic method for the logger context of SLF4J
+     * to support mocking.
+     * @return the logger context.
+     * */
+    LoggerContext getContext() {
+        return (LoggerContext) LoggerFactory.getILoggerFactory();
+    }
+
+    @Override
+    public Optional<LogFrameworkBridge.LoggerResource> findLoggerResource(
+            final String loggerName) {
+        Logger logger = getContext().exists(toLogbackName(loggerName));
+        if (logger == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new LoggerResource(logger));
+    }
+
+    @Override
+    public LogFrameworkBridge.LoggerResource createLoggerResource(
+            final String loggerName) {
+        return new LoggerResource(toLogbackName(loggerName));
+    }
+
+    @Override
+    public void setLevels(final Map<String, String> levels) {
+        Map<String, Level> parsed = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : levels.entrySet()) {
+            parsed.put(toLogbackName(entry.getKey()),
+                    parseLevel(entry.getValue()));
+        }
+        LoggerContext context = getContext();
+        for (Map.Entry<String, Level> entry : parsed.entrySet()) {
+            stopSampling(toBridgeName(entry.getKey()));
+            context.getLogger(entry.getKey()).setLevel(entry.getValue());
+        }
+    }
+
+    @Override
+    public void checkLevel(final String level) {
+        parseLevel(level);
+    }
+
+    @Override
+    public synchronized void startEventCounting(
+            final EventCounters counters) {
+        stopEventCounting();
+        LoggerContext context = getContext();
+        eventCounting = new LogbackEventCounting(counters,
+                context.getLogger(Logger.ROOT_LOGGER_NAME));
+        eventCounting.start();
+        context.addTurboFilter(eventCounting);
+    }
+
+    @Override
+    public synchronized void stopEventCounting() {
+        if (eventCounting != null) {
+            getContext().getTurboFilterList().remove(eventCounting);
+            eventCounting.stop();
+            eventCounting = null;
+        }
+    }
+
+    /** Logback has no {@code FATAL}, so nothing passes above
+     * {@code ERROR}.
+     * {@inheritDoc}
+     * */
+    @Override
+    public String toFrameworkLevel(final String level) {
+        if ("FATAL".equals(level)) {
+            return Level.OFF.toString();
+        }
+        return level;
+    }
+
+    /** The rules are checked by a turbo filter, which is removed when
+     * there are no rules. The verbosity of a level is its negated
+     * logback level number.
+     * {@inheritDoc}
+     * */
+    @Override
+    public synchronized void setContextRules(
+            final Collection<ContextLevels.Rule> rules) {
+        ContextLookup lookup = new ContextLookup(rules,
+                name -> -parseLevel(name).toInt());
+        LoggerContext context = getContext();
+        if (lookup.isEmpty()) {
+            if (contextFilter != null) {
+                context.getTurboFilterList().remove(contextFilter);
+                contextFilter.stop();
+                contextFilter = null;
+            }
+            return;
+        }
+        if (contextFilter == null) {
+            contextFilter = new LogbackContextFilter();
+            contextFilter.setLookup(lookup);
+            contextFilter.start();
+            context.addTurboFilter(contextFilter);
+        } else {
+            contextFilter.setLookup(lookup);
+        }
+    }
+
+    @Override
+    public List<AsyncQueue> listAsyncQueues() {
+        return LogbackAsyncQueue.list(getContext());
+    }
+
+    @Override
+    public Optional<AppenderResource> findAppenderResource(
+            final String appenderName) {
+        return LogbackAppenderResource.find(getContext(), appenderName);
+    }
+
+    /** Sets the level of a logger and samples its events.
+     * @param name the name of the logger, the empty String for the
+     *             root logger.
+     * @param logger the logger.
+     * @param level the level to set.
+     * @param eventsPerSecond the number of events per second to pass.
+     * */
+    private void startSampling(final String name,
+                               final Logger logger,
+                               final Level level,
+                               final int eventsPerSecond) {
+        LogbackSampler sampler =
+                new LogbackSampler(name, level, eventsPerSecond);
+        sampler.start();
+        logger.setLevel(level);
+        getContext().addTurboFilter(sampler);
+        LogbackSampler previous = samplers.put(name, sampler);
+        if (previous != null) {
+            getContext().getTurboFilterList().remove(previous);
+        }
+    }
+
+    /** Ends the sampling of a logger.
+     * @param name the name of the logger, the empty String for the
+     *             root logger.
+     * */
+    private void stopSampling(final String name) {
+        LogbackSampler sampler = samplers.remove(name);
+        if (sampler != null) {
+            getContext().getTurboFilterList().remove(sampler);
+        }
+    }
+
+    /** Get the sampling rate of a logger.
+     * @param name the name of the logger, the empty String for the
+     *             root logger.
+     * @return the events per second, or 0 if not sampled.
+     * */
+    private int getSampleRate(final String name) {
+        LogbackSampler sampler = samplers.get(name);
+        if (sampler == null) {
+            return 0;
+        }
+        return sampler.getEventsPerSecond();
+    }
+
+    /** Lists the loggers of the context, the root logger first.
+     * Logback copies its logger list, so the stream is not lazy.
+     * {@inheritDoc}
+     * */
+    @Override
+    public Stream<LogFrameworkBridge.LoggerResource> streamLoggerResources() {
+        return getContext().getLoggerList().stream()
+                .map(LoggerResource::new);
+    }
+
+    /** Resource representing a logger, including the root logger.
+     * */
+    private class LoggerResource implements LogFrameworkBridge.LoggerResource {
+        /** The logback name of the logger to configure. */
+        private final String logger;
+
+        /** The logger, or {@code null} if not looked up yet. */
+        private Logger instance;
+
+        /** Constructor for the resource.
+         * @param inLogger the logback name of the logger to configure.
+         *  */
+        LoggerResource(final String inLogger) {
+            this.logger = inLogger;
+        }
+
+        /** Constructor for the resource.
+         * @param inInstance the logger to configure.
+         *  */
+        LoggerResource(final Logger inInstance) {
+            this.logger = inInstance.getName();
+            this.instance = inInstance;
+        }
+
+        /** Get the logger, looking it up on first use.
+         * @return the logger to configure.
+         * */
+        private Logger instance() {
+            if (instance == null) {
+                instance = getContext().getLogger(logger);
+            }
+            return instance;
+        }
+
+        @Override
+        public String getLevel() {
+            return toName(instance().getEffectiveLevel());
+        }
+
+        @Override
+        public void setLevel(final String newLevel) {
+            Level level = parseLevel(newLevel);
+            stopSampling(getName());
+            instance().setLevel(level);
+        }
+
+        @Override
+        public void clearLevel() {
+            if (getName().isEmpty()) {
+                throw new IllegalArgumentException(
+                        "The root logger can not inherit a level");
+            }
+            stopSampling(getName());
+            instance().setLevel(null);
+        }
+
+        @Override
+        public void setSampledLevel(final String newLevel,
+                                    final int eventsPerSecond) {
+            startSampling(getName(), instance(), parseLevel(newLevel),
+                    eventsPerSecond);
+        }
+
+        @Override
+        public int getSampleRate() {
+            return LogbackBridge.this.getSampleRate(getName());
+        }
+
+        @Override
+        public String getName() {
+            return toBridgeName(logger);
+        }
+
+        @Override
+        public String getConfiguredLevel() {
+            return toName(instance().getLevel());
+        }
+
+        @Override
+        public String getEffectiveLevel() {
+            return toName(instance().getEffectiveLevel());
+        }
+    }
+}
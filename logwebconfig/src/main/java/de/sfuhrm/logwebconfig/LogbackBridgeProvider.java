@@ -0,0 +1,25 @@
+package de.sfuhrm.logwebconfig;
+
+/** Provides the bridge to logback classic. Logback is only available
+ * if it is the binding of SLF4J.
+ * */
+public final class LogbackBridgeProvider implements LogFrameworkBridgeProvider {
+
+    @Override
+    public String getName() {
+        return "logback";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return BridgeRegistry.isPresent(
+                "ch.qos.logback.classic.LoggerContext",
+                getClass().getClassLoader())
+                && LogbackBridge.isBound();
+    }
+
+    @Override
+    public LogFrameworkBridge newBridge() {
+        return new LogbackBridge();
+    }
+}
@@ -0,0 +1,52 @@
+package de.sfuhrm.logwebconfig;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.Collections;
+import java.util.function.Function;
+
+/** A logback turbo filter that lets events below the level of their
+ * logger pass if a {@link ContextLookup context rule} matches the MDC
+ * of the logging thread.
+ * Turbo filters are asked before the level check, so the filter
+ * answers {@link FilterReply#ACCEPT} for the matching events and
+ * {@link FilterReply#NEUTRAL} for all others. Events the logger lets
+ * pass anyway cost only the level compare.
+ * */
+final class LogbackContextFilter extends TurboFilter {
+
+    /** Reads the MDC of the logging thread. */
+    private static final Function<String, String> CONTEXT = MDC::get;
+
+    /** The current rules. */
+    private volatile ContextLookup lookup = new ContextLookup(
+            Collections.emptyList(), name -> 0);
+
+    /** Replaces the rules while events are checked.
+     * @param inLookup the new rules.
+     * */
+    void setLookup(final ContextLookup inLookup) {
+        this.lookup = inLookup;
+    }
+
+    @Override
+    public FilterReply decide(final Marker marker,
+                              final Logger logger,
+                              final Level level,
+                              final String format,
+                              final Object[] params,
+                              final Throwable t) {
+        if (level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        if (lookup.find(logger.getName(), CONTEXT) >= -level.toInt()) {
+            return FilterReply.ACCEPT;
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
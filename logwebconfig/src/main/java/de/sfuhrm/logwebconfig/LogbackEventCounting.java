@@ -0,0 +1,69 @@
+package de.sfuhrm.logwebconfig;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+/** Counts the logback events of all loggers in {@link EventCounters}.
+ * The counting is a turbo filter of the logger context, so it sees
+ * every logging call before the level check. Only calls with a message
+ * at or above the effective level of their logger are counted, so
+ * calls like {@code isDebugEnabled()} are not. Events denied later,
+ * for example by a sampler, are counted.
+ * */
+final class LogbackEventCounting extends TurboFilter {
+
+    /** The levels of {@link EventCounters#LEVELS} after {@code FATAL},
+     * which logback does not have. */
+    private static final Level[] LEVELS = {Level.ERROR, Level.WARN,
+            Level.INFO, Level.DEBUG, Level.TRACE};
+
+    /** The counters to count in. */
+    private final EventCounters counters;
+
+    /** The root logger, counted with the empty name. */
+    private final Logger rootLogger;
+
+    /** Constructs a new counting.
+     * @param inCounters the counters to count in.
+     * @param inRootLogger the root logger.
+     * */
+    LogbackEventCounting(final EventCounters inCounters,
+                         final Logger inRootLogger) {
+        this.counters = inCounters;
+        this.rootLogger = inRootLogger;
+    }
+
+    /** Converts a level to an index of {@link EventCounters#LEVELS}.
+     * @param level the level of an event.
+     * @return the index of the level or of the next finer level.
+     * */
+    static int levelIndex(final Level level) {
+        int index = 0;
+        while (index < LEVELS.length - 1
+                && level.toInt() < LEVELS[index].toInt()) {
+            index++;
+        }
+        return index + 1;
+    }
+
+    @Override
+    public FilterReply decide(final Marker marker,
+                              final Logger logger,
+                              final Level level,
+                              final String format,
+                              final Object[] params,
+                              final Throwable t) {
+        if (format != null
+                && level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            String name = logger.getName();
+            if (logger == rootLogger) {
+                name = "";
+            }
+            counters.increment(name, levelIndex(level));
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
@@ -0,0 +1,83 @@
+package de.sfuhrm.logwebconfig;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+/** Lets only a limited number of logback events per second of a logger
+ * and its descendants pass at the sampled level and finer levels. More
+ * severe events always pass.
+ * The sampler is a turbo filter of the logger context, so it is asked
+ * before the level check. Calls like {@code isDebugEnabled()} without
+ * a message and events below the effective level of their logger take
+ * no token.
+ * */
+final class LogbackSampler extends TurboFilter {
+
+    /** The name of the sampled logger, the empty String for the root
+     * logger. */
+    private final String loggerName;
+
+    /** The level from which on events are sampled. */
+    private final Level level;
+
+    /** The number of events per second to pass. */
+    private final int eventsPerSecond;
+
+    /** The tokens for the events to pass. */
+    private final TokenBucket bucket;
+
+    /** Constructs a new sampler.
+     * @param inLoggerName the name of the sampled logger, the empty
+     *                     String for the root logger.
+     * @param inLevel the level from which on events are sampled.
+     * @param inEventsPerSecond the number of events per second to pass.
+     * */
+    LogbackSampler(final String inLoggerName,
+                   final Level inLevel,
+                   final int inEventsPerSecond) {
+        this.loggerName = inLoggerName;
+        this.level = inLevel;
+        this.eventsPerSecond = inEventsPerSecond;
+        this.bucket = new TokenBucket(inEventsPerSecond, inEventsPerSecond,
+                System.nanoTime());
+    }
+
+    /** Get the number of events per second to pass.
+     * @return the events per second.
+     * */
+    int getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    @Override
+    public FilterReply decide(final Marker marker,
+                              final Logger logger,
+                              final Level eventLevel,
+                              final String format,
+                              final Object[] params,
+                              final Throwable t) {
+        if (format == null
+                || !level.isGreaterOrEqual(eventLevel)
+                || !eventLevel.isGreaterOrEqual(logger.getEffectiveLevel())
+                || !isSampledLogger(logger.getName())
+                || bucket.tryAcquire()) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+
+    /** Checks whether a logger is the sampled logger or one of its
+     * descendants.
+     * @param name the name of the logger.
+     * @return {@code true} if events of the logger are sampled.
+     * */
+    private boolean isSampledLogger(final String name) {
+        return loggerName.isEmpty()
+                || name.equals(loggerName)
+                || (name.startsWith(loggerName)
+                    && name.charAt(loggerName.length()) == '.');
+    }
+}
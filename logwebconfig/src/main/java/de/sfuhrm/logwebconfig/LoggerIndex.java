@@ -0,0 +1,188 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/** The sorted logger names of a logging framework for searching by
+ * prefix.
+ * The names are kept in a skip list, so a search seeks to the prefix
+ * and reads only the names in its range. A search reads at most
+ * {@link #MAX_EXAMINED} names and then ends the page with a cursor, so
+ * a {@code contains} filter that matches rarely does not read a whole
+ * range in one request.
+ * The logging frameworks do not tell about new loggers, so the names
+ * are read from the framework every {@link #REFRESH_SECONDS} seconds
+ * by a daemon thread of the index. Reading them costs time by the
+ * number of loggers. Loggers created through the server are
+ * {@link #add(String) added} at once. Names are never removed,
+ * because the loggers of most frameworks live forever.
+ * */
+final class LoggerIndex {
+
+    /** The time between two reads of the logger names in seconds. */
+    static final int REFRESH_SECONDS = 10;
+
+    /** The maximum number of names a search reads for one page. */
+    static final int MAX_EXAMINED = 10000;
+
+    /** A page of search results. */
+    static final class Page {
+        /** The names found. */
+        private final List<String> names;
+
+        /** The cursor of the next page, or {@code null}. */
+        private final String next;
+
+        /** Constructs a page.
+         * @param inNames the names found.
+         * @param inNext the cursor of the next page, or {@code null} if
+         *               there are no more names.
+         * */
+        private Page(final List<String> inNames, final String inNext) {
+            this.names = inNames;
+            this.next = inNext;
+        }
+
+        /** Get the names found.
+         * @return the names in their order.
+         * */
+        List<String> getNames() {
+            return Collections.unmodifiableList(names);
+        }
+
+        /** Get the cursor of the next page. The next page can be
+         * empty if the names after the cursor do not match.
+         * @return the last name read, or {@code null} if the range
+         * was read completely.
+         * */
+        String getNext() {
+            return next;
+        }
+    }
+
+    /** The logger names, the root logger has the empty name. */
+    private final NavigableSet<String> names =
+            new ConcurrentSkipListSet<>();
+
+    /** Reads the current logger names of the framework. */
+    private final Supplier<Stream<String>> source;
+
+    /** The refreshing thread, or {@code null} if not started.
+     * Guarded by {@code this}. */
+    private Thread thread;
+
+    /** Constructs an index.
+     * @param inSource reads the current logger names of the framework.
+     * */
+    LoggerIndex(final Supplier<Stream<String>> inSource) {
+        this.source = inSource;
+    }
+
+    /** Adds a logger name.
+     * @param name the logger name, the empty String for the root
+     *             logger.
+     * */
+    void add(final String name) {
+        names.add(name);
+    }
+
+    /** Reads the logger names of the framework and adds the new ones.
+     * The cost grows with the number of loggers.
+     * */
+    void refresh() {
+        try (Stream<String> current = source.get()) {
+            current.forEach(names::add);
+        }
+    }
+
+    /** Get the number of indexed logger names.
+     * @return the number of names.
+     * */
+    int size() {
+        return names.size();
+    }
+
+    /** Searches the names with a prefix in their order.
+     * At most {@link #MAX_EXAMINED} names are read, including the
+     * names skipped by {@code contains}.
+     * @param prefix the prefix of the names, the empty String for all
+     *               names.
+     * @param contains a part the names must contain, or {@code null}.
+     *                 The names of the prefix range that do not
+     *                 contain it are read, but skipped.
+     * @param after the last name of the previous page, or
+     *              {@code null} for the first page.
+     * @param limit the maximum number of names.
+     * @return the names, at most {@code limit}, and the cursor of the
+     * next page.
+     * */
+    Page search(final String prefix,
+                final String contains,
+                final String after,
+                final int limit) {
+        NavigableSet<String> range;
+        if (after == null || after.compareTo(prefix) < 0) {
+            range = names.tailSet(prefix, true);
+        } else {
+            range = names.tailSet(after, false);
+        }
+        List<String> result = new ArrayList<>();
+        String last = null;
+        int examined = 0;
+        for (String name : range) {
+            if (!name.startsWith(prefix)) {
+                return new Page(result, null);
+            }
+            if (result.size() >= limit || examined >= MAX_EXAMINED) {
+                return new Page(result, last);
+            }
+            examined++;
+            last = name;
+            if (contains == null || name.contains(contains)) {
+                result.add(name);
+            }
+        }
+        return new Page(result, null);
+    }
+
+    /** Reads the names now and every {@link #REFRESH_SECONDS} seconds
+     * in a daemon thread, until {@link #stop()}.
+     * */
+    synchronized void start() {
+        refresh();
+        thread = new Thread(this::run, "LogWebConfig Logger Index");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stops the refreshing. Does nothing if not started. */
+    synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /** The loop of the refreshing thread. */
+    private void run() {
+        while (true) {
+            try {
+                TimeUnit.SECONDS.sleep(REFRESH_SECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                System.err.println("logwebconfig: Could not"
+                        + " refresh logger index: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package de.sfuhrm.logwebconfig;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/** The metrics of the server in the Prometheus text format.
+ * Recording only looks up counters in concurrent maps and increments
+ * {@link LongAdder} instances, so it does not lock and does not
+ * allocate once every route and status was seen.
+ * The counters are summed up when the metrics are written.
+ * */
+final class Metrics {
+
+    /** The route name of requests that did not match a route. */
+    static final String UNMATCHED = "unmatched";
+
+    /** The index of the get operation of the bridge. */
+    static final int BRIDGE_GET = 0;
+
+    /** The index of the set operation of the bridge. */
+    static final int BRIDGE_SET = 1;
+
+    /** The names of the bridge operations by index. */
+    private static final String[] BRIDGE_OPERATIONS = {"get", "set"};
+
+    /** The upper bounds of the request duration buckets in
+     * microseconds. */
+    private static final long[] REQUEST_BUCKETS_MICROS = {100, 500, 1000,
+            5000, 10000, 50000, 100000, 500000, 1000000, 5000000};
+
+    /** The upper bounds of the bridge duration buckets in
+     * microseconds. */
+    private static final long[] BRIDGE_BUCKETS_MICROS = {1, 10, 100, 1000,
+            10000, 100000, 1000000};
+
+    /** The number of decimal digits of a microsecond in seconds. */
+    private static final int MICROS_DIGITS = 6;
+
+    /** The number of HTTP status codes that are counted. */
+    private static final int STATUS_CODES = 600;
+
+    /** The content type of the Prometheus text format. */
+    static final String CONTENT_TYPE =
+            "text/plain; version=0.0.4; charset=utf-8";
+
+    /** A histogram with fixed buckets. */
+    private static final class Histogram {
+        /** The upper bounds of the buckets in nanoseconds. */
+        private final long[] boundsNanos;
+
+        /** The upper bounds of the buckets in seconds for the
+         * {@code le} label. */
+        private final String[] labels;
+
+        /** The counts of the buckets, not cumulative. The last bucket
+         * counts the values above the last bound. */
+        private final LongAdder[] buckets;
+
+        /** The sum of the recorded values in nanoseconds. */
+        private final LongAdder sumNanos = new LongAdder();
+
+        /** Constructs a histogram.
+         * @param boundsMicros the upper bounds of the buckets in
+         *                     microseconds, ascending.
+         * */
+        Histogram(final long[] boundsMicros) {
+            boundsNanos = new long[boundsMicros.length];
+            labels = new String[boundsMicros.length];
+            buckets = new LongAdder[boundsMicros.length + 1];
+            for (int i = 0; i < boundsMicros.length; i++) {
+                boundsNanos[i] = TimeUnit.MICROSECONDS.toNanos(
+                        boundsMicros[i]);
+                labels[i] = BigDecimal.valueOf(boundsMicros[i])
+                        .movePointLeft(MICROS_DIGITS)
+                        .stripTrailingZeros().toPlainString();
+            }
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /** Records a value.
+         * @param nanos the value in nanoseconds.
+         * */
+        void record(final long nanos) {
+            int index = 0;
+            while (index < boundsNanos.length
+                    && nanos > boundsNanos[index]) {
+                index++;
+            }
+            buckets[index].increment();
+            sumNanos.add(nanos);
+        }
+
+        /** Writes the histogram.
+         * @param out the buffer to write to.
+         * @param name the name of the metric.
+         * @param labelPairs the labels of the metric without braces.
+         * */
+        void write(final StringBuilder out,
+                   final String name,
+                   final String labelPairs) {
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String bound = "+Inf";
+                if (i < labels.length) {
+                    bound = labels[i];
+                }
+                out.append(name).append("_bucket{").append(labelPairs)
+                        .append(",le=\"").append(bound).append("\"} ")
+                        .append(cumulative).append('\n');
+            }
+            out.append(name).append("_sum{").append(labelPairs)
+                    .append("} ")
+                    .append((double) sumNanos.sum()
+                            / TimeUnit.SECONDS.toNanos(1))
+                    .append('\n');
+            out.append(name).append("_count{").append(labelPairs)
+                    .append("} ").append(cumulative).append('\n');
+        }
+    }
+
+    /** The metrics of the requests of one route and method. */
+    private static final class RouteMetrics {
+        /** The request durations. */
+        private final Histogram durations =
+                new Histogram(REQUEST_BUCKETS_MICROS);
+
+        /** The request counts by status code, created on first use. */
+        private final AtomicReferenceArray<LongAdder> statuses =
+                new AtomicReferenceArray<>(STATUS_CODES);
+    }
+
+    /** The request metrics by route and method. */
+    private final ConcurrentMap<String, ConcurrentMap<String, RouteMetrics>>
+            requests = new ConcurrentHashMap<>();
+
+    /** The bridge durations by framework and operation index. */
+    private final ConcurrentMap<String, Histogram[]> bridges =
+            new ConcurrentHashMap<>();
+
+    /** The failed authentications. */
+    private final LongAdder authenticationFailures = new LongAdder();
+
+    /** The connections being served. */
+    private final LongAdder activeConnections = new LongAdder();
+
+    /** Records a served request.
+     * @param method the HTTP method of the request.
+     * @param route the URI template of the route, or {@link #UNMATCHED}.
+     * @param status the HTTP status code of the response.
+     * @param nanos the time to serve the request in nanoseconds.
+     * */
+    void recordRequest(final String method,
+                       final String route,
+                       final int status,
+                       final long nanos) {
+        ConcurrentMap<String, RouteMetrics> methods = requests.get(route);
+        if (methods == null) {
+            methods = requests.computeIfAbsent(route,
+                    k -> new ConcurrentHashMap<>());
+        }
+        RouteMetrics metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(method,
+                    k -> new RouteMetrics());
+        }
+        metrics.durations.record(nanos);
+        if (status >= 0 && status < STATUS_CODES) {
+            LongAdder counter = metrics.statuses.get(status);
+            if (counter == null) {
+                metrics.statuses.compareAndSet(status, null,
+                        new LongAdder());
+                counter = metrics.statuses.get(status);
+            }
+            counter.increment();
+        }
+    }
+
+    /** Records a call of the bridge.
+     * @param framework the name of the logging framework.
+     * @param operation {@link #BRIDGE_GET} or {@link #BRIDGE_SET}.
+     * @param nanos the time of the call in nanoseconds.
+     * */
+    void recordBridge(final String framework,
+                      final int operation,
+                      final long nanos) {
+        Histogram[] histograms = bridges.get(framework);
+        if (histograms == null) {
+            histograms = bridges.computeIfAbsent(framework,
+                    k -> newBridgeHistograms());
+        }
+        histograms[operation].record(nanos);
+    }
+
+    /** Creates the histograms of a framework.
+     * @return one histogram per bridge operation.
+     * */
+    private static Histogram[] newBridgeHistograms() {
+        Histogram[] result = new Histogram[BRIDGE_OPERATIONS.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new Histogram(BRIDGE_BUCKETS_MICROS);
+        }
+        return result;
+    }
+
+    /** Records a failed authentication. */
+    void recordAuthenticationFailure() {
+        authenticationFailures.increment();
+    }
+
+    /** Records the start of serving a connection. */
+    void connectionOpened() {
+        activeConnections.increment();
+    }
+
+    /** Records the end of serving a connection. */
+    void connectionClosed() {
+        activeConnections.decrement();
+    }
+
+    /** Writes the metrics in the Prometheus text format.
+     * @return the metrics.
+     * */
+    String write() {
+        StringBuilder out = new StringBuilder();
+        Map<String, Map<String, RouteMetrics>> sorted = new TreeMap<>();
+        for (Map.Entry<String, ConcurrentMap<String, RouteMetrics>> entry
+                : requests.entrySet()) {
+            sorted.put(entry.getKey(), new TreeMap<>(entry.getValue()));
+        }
+
+        header(out, "logwebconfig_requests_total", "counter",
+                "Requests by route, method and status.");
+        for (Map.Entry<String, Map<String, RouteMetrics>> route
+                : sorted.entrySet()) {
+            for (Map.Entry<String, RouteMetrics> method
+                    : route.getValue().entrySet()) {
+                AtomicReferenceArray<LongAdder> statuses =
+                        method.getValue().statuses;
+                for (int status = 0; status < STATUS_CODES; status++) {
+                    LongAdder counter = statuses.get(status);
+                    if (counter != null) {
+                        out.append("logwebconfig_requests_total{")
+                                .append(routeLabels(route.getKey(),
+                                        method.getKey()))
+                                .append(",status=\"").append(status)
+                                .append("\"} ").append(counter.sum())
+                                .append('\n');
+                    }
+                }
+            }
+        }
+
+        header(out, "logwebconfig_request_duration_seconds", "histogram",
+                "Time to serve a request by route and method.");
+        for (Map.Entry<String, Map<String, RouteMetrics>> route
+                : sorted.entrySet()) {
+            for (Map.Entry<String, RouteMetrics> method
+                    : route.getValue().entrySet()) {
+                method.getValue().durations.write(out,
+                        "logwebconfig_request_duration_seconds",
+                        routeLabels(route.getKey(), method.getKey()));
+            }
+        }
+
+        header(out, "logwebconfig_authentication_failures_total", "counter",
+                "Requests with failed authentication.");
+        out.append("logwebconfig_authentication_failures_total ")
+                .append(authenticationFailures.sum()).append('\n');
+
+        header(out, "logwebconfig_bridge_duration_seconds", "histogram",
+                "Time to get or set levels in the logging framework.");
+        for (Map.Entry<String, Histogram[]> entry
+                : new TreeMap<>(bridges).entrySet()) {
+            for (int i = 0; i < BRIDGE_OPERATIONS.length; i++) {
+                entry.getValue()[i].write(out,
+                        "logwebconfig_bridge_duration_seconds",
+                        "framework=\"" + escape(entry.getKey())
+                                + "\",operation=\""
+                                + BRIDGE_OPERATIONS[i] + "\"");
+            }
+        }
+
+        header(out, "logwebconfig_active_connections", "gauge",
+                "Connections being served.");
+        out.append("logwebconfig_active_connections ")
+                .append(activeConnections.sum()).append('\n');
+        return out.toString();
+    }
+
+    /** Writes the help and type lines of a metric.
+     * @param out the buffer to write to.
+     * @param name the name of the metric.
+     * @param type the Prometheus type of the metric.
+     * @param help the description of the metric.
+     * */
+    private static void header(final StringBuilder out,
+                               final String name,
+                               final String type,
+                               final String help) {
+        out.append("# HELP ").append(name).append(' ').append(help)
+                .append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type)
+                .append('\n');
+    }
+
+    /** Formats the labels of a route.
+     * @param route the URI template of the route.
+     * @param method the HTTP method.
+     * @return the labels without braces.
+     * */
+    private static String routeLabels(final String route,
+                                      final String method) {
+        return "route=\"" + escape(route) + "\",method=\""
+                + escape(method) + "\"";
+    }
+
+    /** Escapes a label value.
+     * @param value the value to escape.
+     * @return the value with backslashes, quotes and line feeds escaped.
+     * */
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,481 @@
+package de.sfuhrm.logwebconfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/** Forwards a request to the peer servers of a fleet.
+ * The requests are sent from the calling thread with non-blocking
+ * sockets and one selector, so many peers need no extra threads.
+ * At most {@code concurrency} requests are open at once and each peer
+ * has its own timeout. The results are in the order of the peers.
+ * Only resolving the host names of the peers blocks.
+ * */
+final class PeerFanOut {
+
+    /** The status of a result without an HTTP response. */
+    static final int NO_STATUS = 0;
+
+    /** The maximum number of response bytes kept per peer. */
+    private static final int MAX_RESPONSE_BYTES = 64 * 1024;
+
+    /** The size of the buffer to read responses with. */
+    private static final int READ_BUFFER_BYTES = 4096;
+
+    /** The first successful HTTP status. */
+    private static final int SUCCESS_FIRST = 200;
+
+    /** The first HTTP status after the successful ones. */
+    private static final int SUCCESS_END = 300;
+
+    /** The parts of the HTTP status line: version, status and
+     * reason. */
+    private static final int STATUS_LINE_PARTS = 3;
+
+    /** The line separator of HTTP. */
+    private static final String CRLF = "\r\n";
+
+    /** The result of forwarding to one peer. */
+    static final class Result {
+        /** The address of the peer. */
+        private final String peer;
+
+        /** The HTTP status of the peer, or {@link #NO_STATUS}. */
+        private final int status;
+
+        /** The first line of the response body, or the reason of the
+         * failure. */
+        private final String message;
+
+        /** Constructs a result.
+         * @param inPeer the address of the peer.
+         * @param inStatus the HTTP status or {@link #NO_STATUS}.
+         * @param inMessage the message of the response or failure.
+         * */
+        Result(final String inPeer,
+               final int inStatus,
+               final String inMessage) {
+            this.peer = inPeer;
+            this.status = inStatus;
+            this.message = inMessage;
+        }
+
+        /** Get the address of the peer.
+         * @return the address like {@code host:port}.
+         * */
+        String getPeer() {
+            return peer;
+        }
+
+        /** Get the HTTP status the peer responded with.
+         * @return the status, or {@link #NO_STATUS} if the peer did not
+         * respond.
+         * */
+        int getStatus() {
+            return status;
+        }
+
+        /** Get the message of the peer.
+         * @return the first line of the response body, or the reason
+         * of the failure.
+         * */
+        String getMessage() {
+            return message;
+        }
+
+        /** Checks whether the peer applied the request.
+         * @return {@code true} for a 2xx status.
+         * */
+        boolean isSuccess() {
+            return status >= SUCCESS_FIRST && status < SUCCESS_END;
+        }
+    }
+
+    /** A request in flight to one peer. */
+    private static final class Exchange {
+        /** The index of the peer in the peer list. */
+        private final int index;
+
+        /** The address of the peer. */
+        private final String peer;
+
+        /** The request bytes left to write. */
+        private final ByteBuffer request;
+
+        /** The response bytes read so far. */
+        private final ByteArrayOutputStream response =
+                new ByteArrayOutputStream();
+
+        /** The time the request times out in nanoseconds, relative to
+         * {@link System#nanoTime()}. */
+        private final long deadline;
+
+        /** The channel to the peer. */
+        private SocketChannel channel;
+
+        /** Constructs an exchange.
+         * @param inIndex the index of the peer.
+         * @param inPeer the address of the peer.
+         * @param inRequest the request to write.
+         * @param inDeadline the time the request times out.
+         * */
+        private Exchange(final int inIndex,
+                         final String inPeer,
+                         final ByteBuffer inRequest,
+                         final long inDeadline) {
+            this.index = inIndex;
+            this.peer = inPeer;
+            this.request = inRequest;
+            this.deadline = inDeadline;
+        }
+    }
+
+    /** Supplies the current peer addresses. */
+    private final Supplier<List<String>> peers;
+
+    /** The maximum number of requests open at once. */
+    private final int concurrency;
+
+    /** The timeout of a peer in milliseconds. */
+    private final long timeoutMillis;
+
+    /** Constructs a new fan-out.
+     * @param inPeers supplies the peer addresses like {@code host:port}
+     *                for each fan-out.
+     * @param inConcurrency the maximum number of requests open at once.
+     * @param inTimeoutMillis the timeout of a peer in milliseconds.
+     * */
+    PeerFanOut(final Supplier<List<String>> inPeers,
+               final int inConcurrency,
+               final long inTimeoutMillis) {
+        if (inConcurrency < 1 || inTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Illegal limits");
+        }
+        this.peers = Objects.requireNonNull(inPeers);
+        this.concurrency = inConcurrency;
+        this.timeoutMillis = inTimeoutMillis;
+    }
+
+    /** Parses a comma separated list of peer addresses.
+     * @param list the addresses like {@code host1:19293,host2:19293}.
+     * @return the addresses.
+     * @throws IllegalArgumentException if an address is malformed.
+     * */
+    static List<String> parsePeers(final String list) {
+        return parsePeers(Arrays.asList(list.split(",")));
+    }
+
+    /** Reads the peer addresses from a file with one address per line.
+     * Empty lines and lines starting with {@code #} are ignored.
+     * @param file the file to read.
+     * @return the addresses.
+     * @throws IOException if the file can not be read.
+     * @throws IllegalArgumentException if an address is malformed.
+     * */
+    static List<String> readPeers(final Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.trim().startsWith("#")) {
+                lines.add(line);
+            }
+        }
+        return parsePeers(lines);
+    }
+
+    /** Parses peer addresses, skipping empty ones.
+     * @param addresses the addresses like {@code host:port}.
+     * @return the trimmed addresses.
+     * @throws IllegalArgumentException if an address is malformed.
+     * */
+    private static List<String> parsePeers(final List<String> addresses) {
+        List<String> result = new ArrayList<>();
+        for (String address : addresses) {
+            String trimmed = address.trim();
+            if (!trimmed.isEmpty()) {
+                toSocketAddress(trimmed);
+                result.add(trimmed);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /** Converts a peer address to an unresolved socket address.
+     * @param peer the address like {@code host:port} or
+     *             {@code [::1]:port}.
+     * @return the socket address.
+     * @throws IllegalArgumentException if the address is malformed.
+     * */
+    private static InetSocketAddress toSocketAddress(final String peer) {
+        int colonIndex = peer.lastIndexOf(':');
+        if (colonIndex <= 0) {
+            throw new IllegalArgumentException("Peer illegal: " + peer);
+        }
+        String host = peer.substring(0, colonIndex);
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+        try {
+            return InetSocketAddress.createUnresolved(host,
+                    Integer.parseInt(peer.substring(colonIndex + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Peer illegal: " + peer);
+        }
+    }
+
+    /** Sends a request to all peers and waits for the responses.
+     * @param method the HTTP method.
+     * @param target the encoded path and query of the request.
+     * @param headers the headers to send besides {@code Host},
+     *                {@code Content-Length} and {@code Connection}.
+     * @param body the body of the request.
+     * @return the results in the order of the peers.
+     * @throws IOException if the selector can not be opened.
+     * */
+    List<Result> send(final String method,
+                      final String target,
+                      final Map<String, String> headers,
+                      final byte[] body) throws IOException {
+        List<String> addresses = peers.get();
+        Result[] results = new Result[addresses.size()];
+        Deque<Exchange> waiting = new ArrayDeque<>();
+        try (Selector selector = Selector.open()) {
+            int next = 0;
+            int open = 0;
+            while (next < addresses.size() || open > 0) {
+                while (next < addresses.size() && open < concurrency) {
+                    String peer = addresses.get(next);
+                    Exchange exchange = new Exchange(next, peer,
+                            ByteBuffer.wrap(request(method, target, peer,
+                                    headers, body)),
+                            System.nanoTime()
+                                    + TimeUnit.MILLISECONDS.toNanos(
+                                            timeoutMillis));
+                    next++;
+                    waiting.addLast(exchange);
+                    open(selector, exchange, results);
+                    open++;
+                }
+                long waitNanos = nextDeadline(waiting, results)
+                        - System.nanoTime();
+                if (waitNanos > 0) {
+                    selector.select(Math.max(1,
+                            TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+                } else {
+                    selector.selectNow();
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    handle(key, results);
+                }
+                selector.selectedKeys().clear();
+                expire(waiting, results);
+                open = 0;
+                for (Exchange exchange : waiting) {
+                    if (results[exchange.index] == null) {
+                        open++;
+                    }
+                }
+            }
+        } finally {
+            for (Exchange exchange : waiting) {
+                close(exchange);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /** Formats the request to a peer.
+     * @param method the HTTP method.
+     * @param target the encoded path and query.
+     * @param peer the address of the peer.
+     * @param headers the additional headers.
+     * @param body the body of the request.
+     * @return the request bytes.
+     * */
+    private static byte[] request(final String method,
+                                  final String target,
+                                  final String peer,
+                                  final Map<String, String> headers,
+                                  final byte[] body) {
+        StringBuilder head = new StringBuilder();
+        head.append(method).append(' ').append(target).append(" HTTP/1.1")
+                .append(CRLF);
+        head.append("Host: ").append(peer).append(CRLF);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            head.append(header.getKey()).append(": ")
+                    .append(header.getValue()).append(CRLF);
+        }
+        head.append("Content-Length: ").append(body.length).append(CRLF);
+        head.append("Connection: close").append(CRLF);
+        head.append(CRLF);
+        byte[] headBytes = head.toString().getBytes(
+                StandardCharsets.ISO_8859_1);
+        byte[] result = Arrays.copyOf(headBytes,
+                headBytes.length + body.length);
+        System.arraycopy(body, 0, result, headBytes.length, body.length);
+        return result;
+    }
+
+    /** Starts connecting to a peer.
+     * @param selector the selector to register with.
+     * @param exchange the exchange to start.
+     * @param results the results to store a failure in.
+     * */
+    private static void open(final Selector selector,
+                             final Exchange exchange,
+                             final Result[] results) {
+        try {
+            InetSocketAddress unresolved = toSocketAddress(exchange.peer);
+            exchange.channel = SocketChannel.open();
+            exchange.channel.configureBlocking(false);
+            exchange.channel.setOption(StandardSocketOptions.TCP_NODELAY,
+                    true);
+            int interest = SelectionKey.OP_CONNECT;
+            if (exchange.channel.connect(new InetSocketAddress(
+                    unresolved.getHostString(), unresolved.getPort()))) {
+                interest = SelectionKey.OP_WRITE;
+            }
+            exchange.channel.register(selector, interest, exchange);
+        } catch (IOException | RuntimeException e) {
+            fail(exchange, results, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /** Continues an exchange whose channel is ready.
+     * @param key the selected key of the exchange.
+     * @param results the results to store the result in.
+     * */
+    private static void handle(final SelectionKey key,
+                               final Result[] results) {
+        Exchange exchange = (Exchange) key.attachment();
+        try {
+            if (key.isConnectable()) {
+                exchange.channel.finishConnect();
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else if (key.isWritable()) {
+                exchange.channel.write(exchange.request);
+                if (!exchange.request.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            } else if (key.isReadable()) {
+                ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+                int read = exchange.channel.read(buffer);
+                if (read == -1) {
+                    results[exchange.index] = parse(exchange);
+                    close(exchange);
+                } else if (exchange.response.size() < MAX_RESPONSE_BYTES) {
+                    exchange.response.write(buffer.array(), 0, read);
+                }
+            }
+        } catch (IOException e) {
+            fail(exchange, results, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /** Parses the response of a peer.
+     * @param exchange the completed exchange.
+     * @return the result of the peer.
+     * */
+    private static Result parse(final Exchange exchange) {
+        String response = new String(exchange.response.toByteArray(),
+                StandardCharsets.UTF_8);
+        String[] statusLine = response.split(CRLF, 2)[0].split(" ",
+                STATUS_LINE_PARTS);
+        int status;
+        try {
+            status = Integer.parseInt(statusLine[1]);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            return new Result(exchange.peer, NO_STATUS,
+                    "Malformed response");
+        }
+        String message = "";
+        int bodyIndex = response.indexOf(CRLF + CRLF);
+        if (bodyIndex != -1) {
+            message = response.substring(bodyIndex + 2 * CRLF.length())
+                    .split("\r?\n", 2)[0].trim();
+        }
+        if (message.isEmpty() && statusLine.length == STATUS_LINE_PARTS) {
+            message = statusLine[2].trim();
+        }
+        return new Result(exchange.peer, status, message);
+    }
+
+    /** Get the earliest deadline of the open exchanges.
+     * @param waiting the exchanges in the order they were opened.
+     * @param results the results of the completed exchanges.
+     * @return the deadline, or now if there is no open exchange.
+     * */
+    private static long nextDeadline(final Deque<Exchange> waiting,
+                                     final Result[] results) {
+        for (Exchange exchange : waiting) {
+            if (results[exchange.index] == null) {
+                return exchange.deadline;
+            }
+        }
+        return System.nanoTime();
+    }
+
+    /** Fails the exchanges over their deadline and forgets the closed
+     * ones. The exchanges have ascending deadlines.
+     * @param waiting the exchanges in the order they were opened.
+     * @param results the results to store the failures in.
+     * */
+    private static void expire(final Deque<Exchange> waiting,
+                               final Result[] results) {
+        long now = System.nanoTime();
+        while (!waiting.isEmpty()) {
+            Exchange exchange = waiting.peekFirst();
+            if (results[exchange.index] == null
+                    && now - exchange.deadline < 0) {
+                break;
+            }
+            waiting.removeFirst();
+            if (results[exchange.index] == null) {
+                fail(exchange, results, "Timeout");
+            }
+        }
+    }
+
+    /** Ends an exchange with a failure.
+     * @param exchange the failed exchange.
+     * @param results the results to store the failure in.
+     * @param reason the reason of the failure.
+     * */
+    private static void fail(final Exchange exchange,
+                             final Result[] results,
+                             final String reason) {
+        results[exchange.index] = new Result(exchange.peer, NO_STATUS,
+                reason);
+        close(exchange);
+    }
+
+    /** Closes the channel of an exchange, which also cancels its key.
+     * @param exchange the exchange to close.
+     * */
+    private static void close(final Exchange exchange) {
+        if (exchange.channel != null) {
+            try {
+                exchange.channel.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package de.sfuhrm.logwebconfig;
+
+import fi.iki.elonen.NanoHTTPD;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/** Dispatches requests to handlers by the URI path and the HTTP method.
+ * The URI templates are parsed once when the routes are added.
+ * Matching a URI against a template compares the URI in place
+ * and does not allocate memory.
+ * Templates consist of {@code /} separated segments. A segment
+ * in braces like {@code {logger}} matches any segment including
+ * the empty segment, all other segments need to match literally.
+ * If several templates match a URI, the one with a literal segment
+ * where the others have a variable takes precedence, comparing the
+ * segments from the left. So {@code /{framework}/queues/{queue}}
+ * wins over {@code /{framework}/{logger}/level} for a queue named
+ * {@code level}, and a logger named {@code queues} can not be reached
+ * with the second template. Templates with a different number of
+ * segments never match the same URI. Routes of templates with the
+ * same literal and variable segments keep the order they were added.
+ * Leading slashes of the URI are ignored.
+ * */
+final class Router {
+
+    /** The start character of a variable segment. */
+    private static final char VARIABLE_START = '{';
+
+    /** The end character of a variable segment. */
+    private static final char VARIABLE_END = '}';
+
+    /** Handler for requests of a route. */
+    @FunctionalInterface
+    interface Handler {
+        /** Handles a request.
+         * @param server the server receiving the request.
+         * @param session the session of the request.
+         * @param match the route match with the path variables.
+         * @return the response to send to the client.
+         * @throws ServerException if the request can not be served.
+         * */
+        NanoHTTPD.Response handle(Server server,
+                                  NanoHTTPD.IHTTPSession session,
+                                  Match match) throws ServerException;
+    }
+
+    /** A compiled route. */
+    private static final class Route {
+        /** The method this route accepts. */
+        private final NanoHTTPD.Method method;
+
+        /** The literal segments, or {@code null} for variable segments. */
+        private final String[] literals;
+
+        /** The variable names, or {@code null} for literal segments. */
+        private final String[] variables;
+
+        /** The handler to call for matching requests. */
+        private final Handler handler;
+
+        /** The URI template of the route. */
+        private final String template;
+
+        /** Constructs a route.
+         * @param inMethod the method to accept.
+         * @param inTemplate the URI template to parse.
+         * @param inHandler the handler of the route.
+         * */
+        Route(final NanoHTTPD.Method inMethod,
+              final String inTemplate,
+              final Handler inHandler) {
+            this.method = Objects.requireNonNull(inMethod);
+            this.handler = Objects.requireNonNull(inHandler);
+            this.template = Objects.requireNonNull(inTemplate);
+            String[] segments = stripLeadingSlashes(inTemplate)
+                    .split("/", -1);
+            literals = new String[segments.length];
+            variables = new String[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.length() >= 2
+                        && segment.charAt(0) == VARIABLE_START
+                        && segment.charAt(segment.length() - 1)
+                            == VARIABLE_END) {
+                    variables[i] = segment.substring(1, segment.length() - 1);
+                } else {
+                    literals[i] = segment;
+                }
+            }
+        }
+
+        /** Compares the precedence of two routes. The first segment
+         * that is literal in one route and variable in the other
+         * decides, the route with the literal comes first. Otherwise
+         * the route with fewer segments comes first, which only keeps
+         * the routes sorted, because such routes never match the same
+         * URI.
+         * @param other the route to compare with.
+         * @return a negative number if this route comes first, a
+         * positive number if the other one comes first, 0 if neither.
+         * */
+        int compareTo(final Route other) {
+            int length = Math.min(literals.length, other.literals.length);
+            for (int i = 0; i < length; i++) {
+                boolean literal = literals[i] != null;
+                if (literal != (other.literals[i] != null)) {
+                    if (literal) {
+                        return -1;
+                    }
+                    return 1;
+                }
+            }
+            return Integer.compare(literals.length, other.literals.length);
+        }
+
+        /** Checks whether the path of the URI matches this route.
+         * @param uri the URI to check.
+         * @return {@code true} if the path matches.
+         * */
+        boolean matches(final String uri) {
+            int position = skipLeadingSlashes(uri);
+            for (int i = 0; i < literals.length; i++) {
+                int end = uri.indexOf('/', position);
+                boolean last = i == literals.length - 1;
+                if (end == -1) {
+                    if (!last) {
+                        return false;
+                    }
+                    end = uri.length();
+                } else if (last) {
+                    return false;
+                }
+                String literal = literals[i];
+                if (literal != null
+                        && (end - position != literal.length()
+                        || !uri.regionMatches(position,
+                                literal, 0, literal.length()))) {
+                    return false;
+                }
+                position = end + 1;
+            }
+            return true;
+        }
+    }
+
+    /** The path variables of a request matching a route. */
+    static final class Match {
+        /** The route that matched. */
+        private final Route route;
+
+        /** The URI that matched. */
+        private final String uri;
+
+        /** Constructs a match.
+         * @param inRoute the route that matched.
+         * @param inUri the URI that matched.
+         * */
+        private Match(final Route inRoute, final String inUri) {
+            this.route = inRoute;
+            this.uri = inUri;
+        }
+
+        /** Gets the value of a path variable.
+         * @param name the name of the variable without braces.
+         * @return the value of the variable in the URI.
+         * @throws IllegalArgumentException if the route has no such
+         * variable.
+         * */
+        String get(final String name) {
+            int position = skipLeadingSlashes(uri);
+            for (int i = 0; i < route.variables.length; i++) {
+                int end = uri.indexOf('/', position);
+                if (end == -1) {
+                    end = uri.length();
+                }
+                if (name.equals(route.variables[i])) {
+                    return uri.substring(position, end);
+                }
+                position = end + 1;
+            }
+            throw new IllegalArgumentException("No variable " + name);
+        }
+
+        /** Gets the URI template of the route that matched.
+         * @return the template, for example
+         * {@code /{framework}/{logger}/level}.
+         * */
+        String getTemplate() {
+            return route.template;
+        }
+
+        /** Calls the handler of the route that matched.
+         * @param server the server receiving the request.
+         * @param session the session of the request.
+         * @return the response of the handler.
+         * @throws ServerException if the handler fails.
+         * */
+        NanoHTTPD.Response handle(final Server server,
+                                  final NanoHTTPD.IHTTPSession session)
+                throws ServerException {
+            return route.handler.handle(server, session, this);
+        }
+    }
+
+    /** The routes ordered by {@link Route#compareTo(Route)}, routes
+     * comparing equal in the order they were added. */
+    private final List<Route> routes = new ArrayList<>();
+
+    /** Adds a route. Routes with a literal segment where the others
+     * have a variable take precedence. Routes that compare equal,
+     * like the routes of one template for different methods, keep the
+     * order they were added.
+     * @param method the HTTP method to accept.
+     * @param template the URI template, for example
+     *                 {@code /{framework}/{logger}/level}.
+     * @param handler the handler to call for matching requests.
+     * @return this router.
+     * */
+    Router add(final NanoHTTPD.Method method,
+               final String template,
+               final Handler handler) {
+        Route route = new Route(method, template, handler);
+        int index = routes.size();
+        while (index > 0 && route.compareTo(routes.get(index - 1)) < 0) {
+            index--;
+        }
+        routes.add(index, route);
+        return this;
+    }
+
+    /** Dispatches a request to the handler of the first matching route.
+     * @param server the server receiving the request.
+     * @param session the session of the request.
+     * @return the response of the handler.
+     * @throws ServerException if no route matches or the handler fails.
+     * */
+    NanoHTTPD.Response route(final Server server,
+                             final NanoHTTPD.IHTTPSession session)
+            throws ServerException {
+        return match(session).handle(server, session);
+    }
+
+    /** Finds the route matching a request. Only the routes of the
+     * template with the highest precedence matching the path are
+     * considered, so a request is never passed to a template of lower
+     * precedence for its method.
+     * @param session the session of the request.
+     * @return the match of the route.
+     * @throws ServerException if no route matches.
+     * */
+    Match match(final NanoHTTPD.IHTTPSession session)
+            throws ServerException {
+        String uri = session.getUri();
+        NanoHTTPD.Method method = session.getMethod();
+        Route pathMatched = null;
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            if (pathMatched != null
+                    && !Arrays.equals(route.literals, pathMatched.literals)) {
+                continue;
+            }
+            if (route.matches(uri)) {
+                if (route.method == method) {
+                    return new Match(route, uri);
+                }
+                pathMatched = route;
+            }
+        }
+        if (pathMatched != null) {
+            throw new ServerException(
+                    NanoHTTPD.Response.Status.METHOD_NOT_ALLOWED,
+                    String.valueOf(method));
+        }
+        throw new ServerException(
+                NanoHTTPD.Response.Status.BAD_REQUEST,
+                "URI illegal: " + uri);
+    }
+
+    /** Finds the first character after the leading slashes.
+     * @param uri the URI to inspect.
+     * @return the index of the first character that is no slash.
+     * */
+    private static int skipLeadingSlashes(final String uri) {
+        int position = 0;
+        while (position < uri.length() && uri.charAt(position) == '/') {
+            position++;
+        }
+        return position;
+    }
+
+    /** Removes the leading slashes.
+     * @param uri the URI to strip.
+     * @return the URI without leading slashes.
+     * */
+    private static String stripLeadingSlashes(final String uri) {
+        return uri.substring(skipLeadingSlashes(uri));
+    }
+}
@@ -2,18 +2,190 @@ package de.sfuhrm.logwebconfig;
 
 import fi.iki.elonen.NanoHTTPD;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 /** HTTP server for handling RESTy requests and passing them on to
  * log4j1 or log4j2.
  * */
 final class Server extends NanoHTTPD {
 
+    /** The duration of a tick of the timer in milliseconds. */
+    private static final long TIMER_TICK_MILLIS = 100;
+
+    /** The number of ticks of one rotation of the timer. */
+    private static final int TIMER_TICKS_PER_WHEEL = 512;
+
+    /** The separator of the level and the rate of a sampled level. */
+    private static final char SAMPLING_SEPARATOR = '@';
+
+    /** The unit suffix of the rate of a sampled level. */
+    private static final String PER_SECOND = "/s";
+
+    /** The query parameter to forward a level change to the peers. */
+    private static final String FANOUT = "fanout";
+
+    /** The query parameter to wait for a level change. */
+    private static final String WAIT = "wait";
+
+    /** The listed level to restore of a logger that inherits again. */
+    private static final String INHERITED = "-";
+
+    /** The longest time to wait for a level change. */
+    private static final long MAX_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /** The separator of the generation and the level in an ETag. */
+    private static final char ETAG_SEPARATOR = ':';
+
+    /** The milliseconds without level change before the event stream
+     * sends a heartbeat. */
+    private static final long HEARTBEAT_MILLIS = TimeUnit.SECONDS.toMillis(15);
+
+    /** The number of loggers a search returns by default. */
+    private static final int DEFAULT_SEARCH_LIMIT = 100;
+
+    /** The most loggers a search returns. */
+    private static final int MAX_SEARCH_LIMIT = 10000;
+
+    /** The content type of the event stream. */
+    private static final String MIME_EVENT_STREAM = "text/event-stream";
+
+    /** The largest request body that is read into memory, in bytes. */
+    private static final long MAX_BODY_BYTES = 1024 * 1024;
+
+    /** The largest snapshot body, in bytes. A snapshot is parsed while
+     * it is read, so only its levels are held in memory. */
+    private static final long MAX_SNAPSHOT_BYTES = 64 * 1024 * 1024;
+
+    /** The mask of the unsigned value of a byte. */
+    private static final int BYTE_MASK = 0xff;
+
+    /** The routes of the requests to the handlers. */
+    private final Router router = new Router()
+            .add(Method.GET, "/metrics",
+                    Server::handleMetrics)
+            .add(Method.GET, "/events",
+                    Server::handleEvents)
+            .add(Method.GET, "/{framework}/",
+                    Server::handleListLoggers)
+            .add(Method.GET, "/{framework}/{logger}/level",
+                    Server::handleGetLevel)
+            .add(Method.PUT, "/{framework}/{logger}/level",
+                    Server::handleSetLevel)
+            .add(Method.PUT, "/{framework}/levels",
+                    Server::handleSetLevels)
+            .add(Method.GET, "/{framework}/overrides",
+                    Server::handleListOverrides)
+            .add(Method.DELETE, "/{framework}/{logger}/override",
+                    Server::handleRevertOverride)
+            .add(Method.PUT, "/{framework}/{logger}/context",
+                    Server::handleSetContextLevel)
+            .add(Method.DELETE, "/{framework}/{logger}/context",
+                    Server::handleRemoveContextLevel)
+            .add(Method.GET, "/{framework}/contexts",
+                    Server::handleListContextLevels)
+            .add(Method.GET, "/{framework}/queues",
+                    Server::handleListQueues)
+            .add(Method.PUT, "/{framework}/queues/{queue}",
+                    Server::handleSetQueuePolicy)
+            .add(Method.GET, "/{framework}/appenders/{appender}",
+                    Server::handleGetAppender)
+            .add(Method.PUT, "/{framework}/appenders/{appender}",
+                    Server::handleSetAppender)
+            .add(Method.GET, "/{framework}/snapshot",
+                    Server::handleGetSnapshot)
+            .add(Method.PUT, "/{framework}/snapshot",
+                    Server::handlePutSnapshot)
+            .add(Method.GET, "/{framework}/search",
+                    Server::handleSearch)
+            .add(Method.GET, "/{framework}/stats",
+                    Server::handleStats)
+            .add(Method.GET, "/{framework}/{logger}/breaker",
+                    Server::handleGetBreaker);
+
+    /** The providers of the bridges, found once per class loader. */
+    private final BridgeRegistry bridgeRegistry = BridgeRegistry.getDefault();
+
+    /** The bridges that were already created, by framework name. */
+    private final ConcurrentMap<String, LogFrameworkBridge> bridges =
+            new ConcurrentHashMap<>();
+
+    /** Limits the requests processed. */
+    private AdmissionControl admissionControl =
+            new AdmissionControl(0, 0, 1);
+
+    /** The timer for the expiries of overrides and the rotation of
+     * event counters. */
+    private final TimerWheel timerWheel = new TimerWheel(TIMER_TICK_MILLIS,
+            TimeUnit.MILLISECONDS,
+            TIMER_TICKS_PER_WHEEL,
+            "LogWebConfig Timer");
+
+    /** The generation of the levels, incremented on every change. */
+    private final Generation generation = new Generation();
+
+    /** The recent level changes for the event stream. */
+    private final LevelEvents levelEvents =
+            new LevelEvents(LevelEvents.DEFAULT_CAPACITY);
+
+    /** The level changes with a time to live. */
+    private final LevelOverrides levelOverrides =
+            new LevelOverrides(timerWheel, generation, levelEvents);
+
+    /** The levels of logger subtrees in a context of the logging
+     * thread. */
+    private final ContextLevels contextLevels = new ContextLevels(timerWheel);
+
+    /** The indexes of the logger names by framework name, created on
+     * the first search. */
+    private final ConcurrentMap<String, LoggerIndex> loggerIndexes =
+            new ConcurrentHashMap<>();
+
+    /** The event counters by framework name, only for the frameworks
+     * with statistics enabled. */
+    private final ConcurrentMap<String, EventCounters> eventCounters =
+            new ConcurrentHashMap<>();
+
+    /** The circuit breaker for flooding loggers, or {@code null} if
+     * disabled. */
+    private volatile FloodProtection floodProtection;
+
+    /** The metrics of the server. */
+    private final Metrics metrics = new Metrics();
+
+    /** Forwards level changes to the peers, or {@code null} if no
+     * peers are configured. */
+    private volatile PeerFanOut peerFanOut;
+
+    /** The journal of the permanent level changes, or {@code null} if
+     * there is none. */
+    private volatile Journal journal;
+
     /** Optional username to authenticate with.  */
     private String username;
 
@@ -58,6 +230,105 @@ final class Server extends NanoHTTPD {
         this.password = inPassword;
     }
 
+    /** Configures the limits for the requests to process.
+     * @param inAdmissionControl the limits to apply.
+     * */
+    void setAdmissionControl(final AdmissionControl inAdmissionControl) {
+        this.admissionControl = Objects.requireNonNull(inAdmissionControl);
+    }
+
+    /** Configures the peers that level changes are forwarded to with
+     * the query parameter {@code fanout=true}.
+     * @param inPeerFanOut the fan-out to the peers.
+     * */
+    void setPeerFanOut(final PeerFanOut inPeerFanOut) {
+        this.peerFanOut = Objects.requireNonNull(inPeerFanOut);
+    }
+
+    /** Configures the journal the permanent level changes are
+     * appended to. The journal is closed when the server stops.
+     * @param inJournal the open journal.
+     * */
+    void setJournal(final Journal inJournal) {
+        this.journal = Objects.requireNonNull(inJournal);
+    }
+
+    /** Applies the changes of a journal, for example on startup.
+     * A failing change is skipped and does not stop the others.
+     * @param records the changes to apply in the order of the lines of
+     *                the journal.
+     * @return the failures, one message per skipped change starting
+     * with its line number in the journal.
+     * */
+    List<String> replay(final List<Journal.Record> records) {
+        List<String> failures = new ArrayList<>();
+        int line = 0;
+        for (Journal.Record record : records) {
+            line++;
+            try {
+                LogFrameworkBridge bridge =
+                        getLogFrameworkBridge(record.getFramework());
+                checkLevel(bridge, record.getLevel());
+                LogFrameworkBridge.LoggerResource resource =
+                        bridge.createLoggerResource(record.getLogger());
+                setLevel(record.getFramework(), resource, record.getLevel(),
+                        record.isRecursive());
+            } catch (ServerException | IllegalArgumentException e) {
+                failures.add("line " + line + ": Could not replay level "
+                        + record.getLevel() + " of " + record.getFramework()
+                        + " logger " + record.getLogger() + ": "
+                        + e.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    /** Starts counting the log events of a logging framework for
+     * the {@code /<framework>/stats} resource.
+     * @param framework the name of the logging framework.
+     * @throws ServerException if the logging framework was not found.
+     * */
+    void enableStatistics(final String framework) throws ServerException {
+        LogFrameworkBridge bridge = getLogFrameworkBridge(framework);
+        EventCounters counters = new EventCounters();
+        if (eventCounters.putIfAbsent(framework, counters) == null) {
+            bridge.startEventCounting(counters);
+            counters.start(timerWheel, () -> checkFlood(framework, counters));
+        }
+    }
+
+    /** Enables the circuit breaker that raises the level of loggers
+     * logging too many events. Only the loggers of the frameworks with
+     * {@link #enableStatistics(String) statistics} are watched.
+     * @param eventsPerSecond the maximum number of events per second
+     *                        of a logger.
+     * @param coolDownMillis the milliseconds until the previous level
+     *                       is restored.
+     * */
+    void setFloodProtection(final int eventsPerSecond,
+                            final long coolDownMillis) {
+        this.floodProtection = new FloodProtection(eventsPerSecond,
+                coolDownMillis, levelOverrides);
+    }
+
+    /** Called after each interval of the event counters of a
+     * framework to check for flooding loggers.
+     * @param framework the name of the logging framework.
+     * @param counters the event counters of the framework.
+     * */
+    private void checkFlood(final String framework,
+                            final EventCounters counters) {
+        FloodProtection protection = floodProtection;
+        if (protection != null) {
+            try {
+                protection.check(framework,
+                        getLogFrameworkBridge(framework), counters);
+            } catch (ServerException e) {
+                // only known frameworks have counters
+            }
+        }
+    }
+
     /** Checks the authentication information.
      * If no authentication is configured, this call just returns.
      * Otherwise, it checks authentication ant throws a ServerException if
@@ -65,7 +336,7 @@ final class Server extends NanoHTTPD {
      * @param session the session the check authentication for.
      * @throws ServerException if authentication fails.
      *  */
-    private void checkAuthentication(final IHTTPSession session)
+    void checkAuthentication(final IHTTPSession session)
             throws ServerException {
         if (username != null
                 && password != null) {
@@ -104,6 +375,7 @@ final class Server extends NanoHTTPD {
      * {@code WWW-Authenticate} HTTP header.
      * */
     private ServerException unauth() {
+      metrics.recordAuthenticationFailure();
       return new ServerException(Response.Status.UNAUTHORIZED,
               "",
               r -> r.addHeader(
@@ -111,47 +383,112 @@ final class Server extends NanoHTTPD {
                       "Basic realm=\"LogWebConfig\""));
       };
 
+    /** Stops the server, restores the levels of the pending
+     * overrides, ends the event streams, stops counting events and
+     * closes the journal.
+     * */
+    @Override
+    public void stop() {
+        levelEvents.close();
+        super.stop();
+        levelOverrides.stop();
+        contextLevels.stop();
+        for (String framework : eventCounters.keySet()) {
+            try {
+                getLogFrameworkBridge(framework).stopEventCounting();
+            } catch (ServerException e) {
+                // only known frameworks have counters
+            }
+        }
+        eventCounters.clear();
+        for (LoggerIndex index : loggerIndexes.values()) {
+            index.stop();
+        }
+        loggerIndexes.clear();
+        timerWheel.stop();
+        Journal current = journal;
+        if (current != null) {
+            current.close();
+        }
+    }
+
     @Override
     public Response serve(final IHTTPSession session) {
+        long start = System.nanoTime();
+        String route = Metrics.UNMATCHED;
+        Response response;
         try {
-            checkAuthentication(session);
-            Method method = session.getMethod();
-            LogFrameworkBridge.LoggerResource resource = getResource(session);
-            switch (method) {
-                case GET:
-                    return handleGetLevel(session, resource);
-                case PUT:
-                    return handleSetLevel(session, resource);
-                default:
-                    throw new ServerException(
-                            Response.Status.METHOD_NOT_ALLOWED,
-                            method.toString());
+            admissionControl.acquire(session.getRemoteIpAddress());
+            try {
+                checkAuthentication(session);
+                Router.Match match = router.match(session);
+                route = match.getTemplate();
+                response = match.handle(this, session);
+            } finally {
+                admissionControl.release();
             }
         } catch (ServerException e) {
-            return e.toResponse();
+            response = e.toResponse();
+        }
+        metrics.recordRequest(String.valueOf(session.getMethod()),
+                route,
+                response.getStatus().getRequestStatus(),
+                System.nanoTime() - start);
+        return response;
+    }
+
+    /** Compresses text responses if the client accepts it, but not
+     * the event stream, because the compression would hold back the
+     * events.
+     * {@inheritDoc}
+     * */
+    @Override
+    protected boolean useGzipWhenAccepted(final Response r) {
+        return super.useGzipWhenAccepted(r)
+                && !MIME_EVENT_STREAM.equals(r.getMimeType());
+    }
+
+    /** Creates the handler of a client connection that counts the
+     * connections being served.
+     * Nagle's algorithm is disabled for the connection, because
+     * NanoHTTPD writes the header and the body of a response separately
+     * and the body would wait for the delayed acknowledgement of the
+     * header.
+     * {@inheritDoc}
+     * */
+    @Override
+    protected ClientHandler createClientHandler(final Socket finalAccept,
+                                                final InputStream
+                                                        inputStream) {
+        try {
+            finalAccept.setTcpNoDelay(true);
+        } catch (SocketException e) {
+            // the connection fails on first use
         }
+        return new ClientHandler(inputStream, finalAccept) {
+            @Override
+            public void run() {
+                metrics.connectionOpened();
+                try {
+                    super.run();
+                } finally {
+                    metrics.connectionClosed();
+                }
+            }
+        };
     }
 
     /** Get the logger resource associated with the request.
-     * @param session the session to get the resource from.
+     * The logger needs to exist already, it is not created.
+     * @param match the route match to get the resource from.
      * @return the logger resource associated with the request.
      * @throws ServerException if the logger was not found.
      *  */
     private LogFrameworkBridge.LoggerResource getResource(
-            final IHTTPSession session) throws ServerException {
-        Pattern pattern = Pattern.compile("/*(log4j1|log4j2)/([^/]*)/level");
-        Matcher matcher = pattern.matcher(session.getUri());
-        if (!matcher.matches()) {
-            throw new ServerException(
-                    Response.Status.BAD_REQUEST,
-                    "URI illegal: " + session.getUri());
-        }
-
-        String logFramework = matcher.group(1);
-        String logger = matcher.group(2);
-
+            final Router.Match match) throws ServerException {
+        String logger = match.get("logger");
         LogFrameworkBridge logFrameworkHandler =
-                getLogFrameworkBridge(logFramework);
+                getLogFrameworkBridge(match.get("framework"));
         Optional<LogFrameworkBridge.LoggerResource> resource =
                 logFrameworkHandler.findLoggerResource(logger);
         if (!resource.isPresent()) {
@@ -163,88 +500,1470 @@ final class Server extends NanoHTTPD {
 
     /**
      * Get the log configurator for the named logging framework.
+     * The configurators are created once on first use.
      * @param logFramework the log framework name to get.
-     *                     Possible frameworks are at the
-     *                     moment: {@code "log4j1"}, {@code "log4j2"}.
+     *                     The frameworks in the box are
+     *                     {@code "log4j1"}, {@code "log4j2"},
+     *                     {@code "logback"} and {@code "jul"}.
      * @return the logging framework specific configurator instance.
      * @throws ServerException if the logging framework was not found.
      * */
     LogFrameworkBridge getLogFrameworkBridge(
             final String logFramework) throws ServerException {
-        LogFrameworkBridge logFrameworkHandler;
-        switch (logFramework) {
-            case "log4j1":
-                logFrameworkHandler = new Log4J1Bridge();
-                break;
-            case "log4j2":
-                logFrameworkHandler = new Log4J2Bridge();
-                break;
-            default:
-                throw new ServerException(
-                        Response.Status.BAD_REQUEST,
-                        "Unknown framework " + logFramework);
+        LogFrameworkBridge logFrameworkHandler = bridges.get(logFramework);
+        if (logFrameworkHandler == null) {
+            logFrameworkHandler = newLogFrameworkBridge(logFramework);
+            LogFrameworkBridge existing =
+                    bridges.putIfAbsent(logFramework, logFrameworkHandler);
+            if (existing != null) {
+                logFrameworkHandler = existing;
+            }
         }
         return logFrameworkHandler;
     }
 
-    /** Gets the level of a logger based on the data in the request.
+    /**
+     * Creates the log configurator for the named logging framework.
+     * @param logFramework the log framework name to create.
+     * @return the logging framework specific configurator instance.
+     * @throws ServerException if the logging framework was not found
+     * or is not on the class path.
+     * */
+    private LogFrameworkBridge newLogFrameworkBridge(
+            final String logFramework) throws ServerException {
+        LogFrameworkBridgeProvider provider =
+                bridgeRegistry.find(logFramework);
+        if (provider == null) {
+            throw new ServerException(
+                    Response.Status.BAD_REQUEST,
+                    "Unknown framework " + logFramework);
+        }
+        if (!bridgeRegistry.isAvailable(logFramework)) {
+            throw new ServerException(
+                    Response.Status.BAD_REQUEST,
+                    "Framework not available: " + logFramework);
+        }
+        return provider.newBridge();
+    }
+
+    /** Writes the metrics of the server in the Prometheus text format.
      * @param session the session to take the parameters from.
-     * @param resource the log resource to manipulate.
+     * @param match the route match.
      * @return the nano http response to return.
-     * @throws ServerException if the request is malformed.
      * */
-    private Response handleGetLevel(final IHTTPSession session,
-                            final LogFrameworkBridge.LoggerResource resource) {
-        String level = resource.getLevel();
+    private Response handleMetrics(final IHTTPSession session,
+                            final Router.Match match) {
         return newFixedLengthResponse(
+                Response.Status.OK,
+                Metrics.CONTENT_TYPE,
+                metrics.write());
+    }
+
+    /** Streams the level changes as Server-Sent Events.
+     * Each event has the id of the change and the type {@code level}.
+     * Its data contains the framework, the logger, the level before and
+     * the level after the change and the time, separated by tabs.
+     * The stream starts with the next change, or after the change in
+     * the {@code Last-Event-ID} header of a reconnecting client.
+     * An open stream holds a connection thread, but not a place of the
+     * concurrent requests. The subscribers share the limit of the
+     * requests waiting for a change of the {@link AdmissionControl},
+     * more are rejected with {@code 503 Service Unavailable}.
+     * @param session the session to take the parameters from.
+     * @param match the route match.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed or there
+     * are too many subscribers.
+     * */
+    private Response handleEvents(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        long firstId = levelEvents.nextId();
+        String lastEventId = session.getHeaders().get("last-event-id");
+        if (lastEventId != null) {
+            try {
+                firstId = Math.min(firstId,
+                        Long.parseLong(lastEventId.trim()) + 1);
+            } catch (NumberFormatException e) {
+                throw new ServerException(Response.Status.BAD_REQUEST,
+                        "Last-Event-ID illegal: " + lastEventId);
+            }
+        }
+        AdmissionControl admission = admissionControl;
+        if (!admission.startStreaming()) {
+            throw new ServerException(Response.Status.SERVICE_UNAVAILABLE,
+                    "Too many subscribers");
+        }
+        Response response = newChunkedResponse(
+                Response.Status.OK,
+                MIME_EVENT_STREAM,
+                new EventStream(levelEvents, firstId, HEARTBEAT_MILLIS,
+                        admission::endStreaming));
+        response.addHeader("Cache-Control", "no-cache");
+        return response;
+    }
+
+    /** Lists all loggers with their configured and effective levels.
+     * Each line contains the logger name, the configured level
+     * (or {@code -} if inherited) and the effective level,
+     * separated by tabs. The root logger has the empty name.
+     * The response is chunked and reads the loggers while it is sent.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the framework.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed.
+     * */
+    private Response handleListLoggers(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        LogFrameworkBridge bridge =
+                getLogFrameworkBridge(match.get("framework"));
+        Iterator<String> lines = bridge.streamLoggerResources()
+                .map(Server::toListLine)
+                .iterator();
+        return newChunkedResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                new LinesInputStream(lines));
+    }
+
+    /** Formats a logger for the logger list.
+     * @param resource the logger to format.
+     * @return the line without line separator.
+     * */
+    private static String toListLine(
+            final LogFrameworkBridge.LoggerResource resource) {
+        String configured = resource.getConfiguredLevel();
+        if (configured == null) {
+            configured = "-";
+        }
+        return resource.getName() + '\t' + configured
+                + '\t' + resource.getEffectiveLevel();
+    }
+
+    /** Searches the loggers by name prefix in name order.
+     * The query parameter {@code prefix} selects the loggers,
+     * {@code contains} optionally filters them further by a part of
+     * their name. At most {@code limit} loggers (default
+     * {@value #DEFAULT_SEARCH_LIMIT}) are returned in the format of
+     * {@link #handleListLoggers(IHTTPSession, Router.Match)}.
+     * If there are more, the {@code X-Next-Cursor} header has the
+     * cursor to pass for the next page.
+     * The names come from a {@link LoggerIndex}, which reads at most
+     * {@value LoggerIndex#MAX_EXAMINED} names per page. A rarely
+     * matching {@code contains} can thus return a short or empty page
+     * with a cursor.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the framework.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed.
+     * */
+    private Response handleSearch(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        String framework = match.get("framework");
+        LogFrameworkBridge bridge = getLogFrameworkBridge(framework);
+        String prefix = getParameter(session, "prefix");
+        if (prefix == null) {
+            prefix = "";
+        }
+        LoggerIndex.Page page = getLoggerIndex(framework, bridge).search(
+                prefix,
+                getParameter(session, "contains"),
+                getParameter(session, "cursor"),
+                parseLimit(getParameter(session, "limit")));
+        StringBuilder body = new StringBuilder();
+        for (String name : page.getNames()) {
+            Optional<LogFrameworkBridge.LoggerResource> resource =
+                    bridge.findLoggerResource(name);
+            if (resource.isPresent()) {
+                body.append(toListLine(resource.get())).append('\n');
+            }
+        }
+        Response response = newFixedLengthResponse(
                 Response.Status.OK,
                 MIME_PLAINTEXT,
-                level);
+                body.toString());
+        if (page.getNext() != null) {
+            try {
+                response.addHeader("X-Next-Cursor", URLEncoder.encode(
+                        page.getNext(),
+                        StandardCharsets.UTF_8.name()));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return response;
+    }
+
+    /** Parses the limit of a search.
+     * @param limit the query parameter, or {@code null}.
+     * @return the limit, at most {@value #MAX_SEARCH_LIMIT}.
+     * @throws ServerException if the limit is malformed.
+     * */
+    private static int parseLimit(final String limit)
+            throws ServerException {
+        if (limit == null) {
+            return DEFAULT_SEARCH_LIMIT;
+        }
+        int result;
+        try {
+            result = Integer.parseInt(limit);
+        } catch (NumberFormatException e) {
+            throw new ServerException(Response.Status.BAD_REQUEST,
+                    "Limit illegal: " + limit);
+        }
+        if (result < 1) {
+            throw new ServerException(Response.Status.BAD_REQUEST,
+                    "Limit illegal: " + limit);
+        }
+        return Math.min(result, MAX_SEARCH_LIMIT);
+    }
+
+    /** Get the logger index of a framework, creating and starting it
+     * on the first search.
+     * @param framework the name of the logging framework.
+     * @param bridge the bridge of the logging framework.
+     * @return the index.
+     * */
+    private LoggerIndex getLoggerIndex(final String framework,
+                                       final LogFrameworkBridge bridge) {
+        LoggerIndex index = loggerIndexes.get(framework);
+        if (index == null) {
+            LoggerIndex created = new LoggerIndex(() ->
+                    bridge.streamLoggerResources()
+                            .map(LogFrameworkBridge.LoggerResource::getName));
+            index = loggerIndexes.putIfAbsent(framework, created);
+            if (index == null) {
+                created.start();
+                index = created;
+            }
+        }
+        return index;
     }
 
+    /** Adds a logger changed through the server to the logger index of
+     * its framework, if there is one, so that searches find it before
+     * the next refresh.
+     * @param framework the name of the logging framework.
+     * @param logger the name of the logger.
+     * */
+    private void indexLogger(final String framework, final String logger) {
+        LoggerIndex index = loggerIndexes.get(framework);
+        if (index != null) {
+            index.add(logger);
+        }
+    }
+
+    /** Gets the level of a logger based on the data in the request.
+     * The level of a sampled logger is followed by the sampling rate,
+     * for example {@code DEBUG@200/s}.
+     * The response has an {@code ETag} of the level
+     * {@link Generation} and the level. If the {@code If-None-Match}
+     * header has the ETag and the level did not change, the response
+     * is {@code 304 Not Modified}. If there was no level change at all
+     * since the ETag, this is known without asking the logging
+     * framework. With the query parameter {@code wait}, for example
+     * {@code wait=30s}, an unchanged level is watched for that long
+     * before responding. A watching request does not count against
+     * the concurrent requests of the {@link AdmissionControl}. If too
+     * many requests watch already, the response is sent at once.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the logger.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed.
+     * */
+    private Response handleGetLevel(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        LogFrameworkBridge.LoggerResource resource = getResource(match);
+        String framework = match.get("framework");
+        long waitMillis = 0;
+        String wait = getParameter(session, WAIT);
+        if (wait != null) {
+            try {
+                waitMillis = Math.min(MAX_WAIT_MILLIS,
+                        Durations.parseMillis(wait));
+            } catch (IllegalArgumentException e) {
+                throw new ServerException(Response.Status.BAD_REQUEST,
+                        e.getMessage());
+            }
+        }
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        String ifNoneMatch = session.getHeaders().get("if-none-match");
+        long knownGeneration = -1;
+        String knownLevel = null;
+        if (ifNoneMatch != null) {
+            String tag = ifNoneMatch.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            tag = tag.replace("\"", "");
+            int separatorIndex = tag.indexOf(ETAG_SEPARATOR);
+            if (separatorIndex != -1) {
+                try {
+                    knownGeneration = Long.parseLong(
+                            tag.substring(0, separatorIndex));
+                    knownLevel = tag.substring(separatorIndex + 1);
+                } catch (NumberFormatException e) {
+                    // not one of our tags
+                }
+            }
+        }
+        AdmissionControl admission = admissionControl;
+        long current = generation.get();
+        boolean waiting = false;
+        try {
+            while (true) {
+                if (current != knownGeneration) {
+                    String level = getLevel(framework, resource);
+                    if (!Objects.equals(level, knownLevel)) {
+                        Response response = newFixedLengthResponse(
+                                Response.Status.OK,
+                                MIME_PLAINTEXT,
+                                level);
+                        response.addHeader("ETag", etag(current, level));
+                        return response;
+                    }
+                }
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(
+                        deadline - System.nanoTime());
+                if (remainingMillis > 0 && !waiting) {
+                    waiting = admission.startWaiting();
+                    if (!waiting) {
+                        remainingMillis = 0;
+                    }
+                }
+                if (remainingMillis <= 0) {
+                    Response response = newFixedLengthResponse(
+                            Response.Status.NOT_MODIFIED,
+                            MIME_PLAINTEXT,
+                            "");
+                    response.addHeader("ETag", etag(current, knownLevel));
+                    return response;
+                }
+                try {
+                    current = generation.await(current, remainingMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ServerException(
+                            Response.Status.SERVICE_UNAVAILABLE,
+                            "Interrupted");
+                }
+            }
+        } finally {
+            if (waiting) {
+                admission.endWaiting();
+            }
+        }
+    }
+
+    /** Gets the level of a logger for the response.
+     * @param framework the name of the logging framework.
+     * @param resource the logger to get the level of.
+     * @return the level, followed by the sampling rate if sampled.
+     * */
+    private String getLevel(final String framework,
+                            final LogFrameworkBridge.LoggerResource
+                                    resource) {
+        long start = System.nanoTime();
+        String level = LevelEvents.levelOf(resource);
+        metrics.recordBridge(framework, Metrics.BRIDGE_GET,
+                System.nanoTime() - start);
+        return level;
+    }
+
+    /** Formats the ETag of a level.
+     * @param levelGeneration the generation the level was read in.
+     * @param level the level.
+     * @return the quoted ETag.
+     * */
+    private static String etag(final long levelGeneration,
+                               final String level) {
+        return "\"" + levelGeneration + ETAG_SEPARATOR + level + "\"";
+    }
+
+    /** Get the first value of a query parameter.
+     * @param session the session to take the parameter from.
+     * @param name the name of the parameter.
+     * @return the first value or {@code null} if the parameter is missing.
+     * */
+    private static String getParameter(final IHTTPSession session,
+                                       final String name) {
+        List<String> values = session.getParameters().get(name);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return values.get(0);
+    }
 
     /** Sets the level of a logger based on the data in the request.
+     * With the query parameter {@code recursive=true} the level is
+     * also set for all descendants with a level of their own.
+     * With the query parameter {@code ttl}, for example {@code ttl=15m},
+     * the previous level is restored after the time to live.
+     * A body like {@code DEBUG@200/s} sets a sampled level.
+     * With the query parameter {@code fanout=true} the change is
+     * forwarded to the peers, see
+     * {@link #respondToChange(IHTTPSession, PeerFanOut, byte[])}.
      * @param session the session to take the parameters from.
-     * @param resource the log resource to manipulate.
+     * @param match the route match naming the logger.
      * @return the nano http response to return.
      * @throws ServerException if the request is malformed.
      * */
     private Response handleSetLevel(final IHTTPSession session,
-                            final LogFrameworkBridge.LoggerResource resource)
+                            final Router.Match match)
             throws ServerException {
-        String lengthString = session.getHeaders().get("content-length");
-        if (lengthString == null) {
+        String framework = match.get("framework");
+        LogFrameworkBridge bridge = getLogFrameworkBridge(framework);
+        PeerFanOut fanOut = getPeerFanOut(session);
+        byte[] data = readBody(session);
+        String levelString = new String(
+                data,
+                Charset.forName("ASCII"));
+        boolean recursive =
+                Boolean.parseBoolean(getParameter(session, "recursive"));
+        String ttl = getParameter(session, "ttl");
+        long ttlMillis = 0;
+        try {
+            checkLevel(bridge, levelString);
+            if (ttl != null) {
+                if (levelString.indexOf(SAMPLING_SEPARATOR) != -1) {
+                    throw new ServerException(Response.Status.BAD_REQUEST,
+                            "Sampling can not be combined with "
+                                    + "recursive or ttl");
+                }
+                if (recursive) {
+                    throw new ServerException(Response.Status.BAD_REQUEST,
+                            "ttl can not be combined with recursive");
+                }
+                ttlMillis = Durations.parseMillis(ttl);
+            }
+        } catch (IllegalArgumentException e) {
             throw new ServerException(Response.Status.BAD_REQUEST,
-                    "Content-Length header is missing");
+                    e.getMessage());
+        }
+        LogFrameworkBridge.LoggerResource resource =
+                bridge.createLoggerResource(match.get("logger"));
+        String name = resource.getName();
+        long start = System.nanoTime();
+        try {
+            if (ttl != null) {
+                levelOverrides.override(framework, resource, levelString,
+                        ttlMillis);
+            } else {
+                setLevel(framework, resource, levelString, recursive);
+                appendToJournal(framework, name, levelString, recursive);
+            }
+            indexLogger(framework, name);
+        } catch (IllegalArgumentException e) {
+            throw new ServerException(Response.Status.BAD_REQUEST,
+                    e.getMessage());
+        } finally {
+            metrics.recordBridge(framework, Metrics.BRIDGE_SET,
+                    System.nanoTime() - start);
         }
-        int length = Integer.parseInt(lengthString);
+        return respondToChange(session, fanOut, data);
+    }
 
-        byte[] data = new byte[length];
+    /** Sets the level of a logger permanently.
+     * @param framework the name of the logging framework.
+     * @param resource the logger to set the level of.
+     * @param levelString the level, for example {@code DEBUG} or
+     *                    {@code DEBUG@200/s}.
+     * @param recursive whether to set the level of the descendants
+     *                  with a level of their own, too. Every logger of
+     *                  the subtree whose level changes is published.
+     * @throws ServerException if the request is malformed.
+     * @throws IllegalArgumentException if the level is not acceptable.
+     * */
+    private void setLevel(final String framework,
+                          final LogFrameworkBridge.LoggerResource resource,
+                          final String levelString,
+                          final boolean recursive)
+            throws ServerException {
+        String name = resource.getName();
+        int separatorIndex = levelString.indexOf(SAMPLING_SEPARATOR);
+        if (separatorIndex != -1) {
+            if (recursive) {
+                throw new ServerException(Response.Status.BAD_REQUEST,
+                        "Sampling can not be combined with "
+                                + "recursive or ttl");
+            }
+            String level = levelString.substring(0, separatorIndex);
+            int eventsPerSecond = parseEventsPerSecond(
+                    levelString.substring(separatorIndex + 1));
+            levelOverrides.apply(framework,
+                    Collections.singletonList(resource),
+                    name::equals,
+                    () -> resource.setSampledLevel(level, eventsPerSecond));
+        } else if (recursive) {
+            LogFrameworkBridge bridge = getLogFrameworkBridge(framework);
+            Predicate<String> subtree = logger -> name.isEmpty()
+                    || logger.equals(name)
+                    || logger.startsWith(name + ".");
+            List<LogFrameworkBridge.LoggerResource> watched =
+                    new ArrayList<>();
+            watched.add(resource);
+            bridge.streamLoggerResources()
+                    .filter(logger -> !logger.getName().equals(name)
+                            && subtree.test(logger.getName()))
+                    .forEach(watched::add);
+            levelOverrides.apply(framework,
+                    watched,
+                    subtree,
+                    () -> bridge.setSubtreeLevel(name, levelString));
+        } else {
+            levelOverrides.apply(framework,
+                    Collections.singletonList(resource),
+                    name::equals,
+                    () -> resource.setLevel(levelString));
+        }
+    }
+
+    /** Queues a permanent level change for the journal, if there is
+     * one.
+     * @param framework the name of the logging framework.
+     * @param logger the name of the logger.
+     * @param level the level as requested.
+     * @param recursive whether the descendants were changed, too.
+     * */
+    private void appendToJournal(final String framework,
+                                 final String logger,
+                                 final String level,
+                                 final boolean recursive) {
+        Journal current = journal;
+        if (current != null) {
+            current.append(new Journal.Record(framework, logger, level,
+                    recursive));
+        }
+    }
+
+    /** Parses the rate of a sampled level.
+     * @param rate the rate like {@code 200/s}.
+     * @return the number of events per second.
+     * @throws IllegalArgumentException if the rate is malformed.
+     * */
+    private static int parseEventsPerSecond(final String rate) {
+        if (!rate.endsWith(PER_SECOND)) {
+            throw new IllegalArgumentException("Rate illegal: " + rate);
+        }
+        int eventsPerSecond;
+        try {
+            eventsPerSecond = Integer.parseInt(
+                    rate.substring(0, rate.length() - PER_SECOND.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Rate illegal: " + rate);
+        }
+        if (eventsPerSecond < 1) {
+            throw new IllegalArgumentException("Rate illegal: " + rate);
+        }
+        return eventsPerSecond;
+    }
+
+    /** Checks a level of a request before a logger is touched, so a
+     * rejected request does not create loggers.
+     * @param bridge the bridge of the logging framework.
+     * @param levelString the level, for example {@code DEBUG} or
+     *                    {@code DEBUG@200/s}.
+     * @throws IllegalArgumentException if the level or the rate is
+     * not acceptable.
+     * */
+    private static void checkLevel(final LogFrameworkBridge bridge,
+                                   final String levelString) {
+        int separatorIndex = levelString.indexOf(SAMPLING_SEPARATOR);
+        if (separatorIndex == -1) {
+            bridge.checkLevel(levelString);
+        } else {
+            bridge.checkLevel(levelString.substring(0, separatorIndex));
+            parseEventsPerSecond(levelString.substring(separatorIndex + 1));
+        }
+    }
+
+    /** Sets the levels of many loggers based on the data in the request.
+     * The request body contains one {@code name=LEVEL} line per
+     * logger. The root logger has the empty name.
+     * With the query parameter {@code fanout=true} the change is
+     * forwarded to the peers, see
+     * {@link #respondToChange(IHTTPSession, PeerFanOut, byte[])}.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the framework.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed.
+     * */
+    private Response handleSetLevels(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        LogFrameworkBridge bridge =
+                getLogFrameworkBridge(match.get("framework"));
+        PeerFanOut fanOut = getPeerFanOut(session);
+        byte[] data = readBody(session);
+        Map<String, String> levels = parseLevelLines(data);
+        long start = System.nanoTime();
         try {
-            int readLength = session.getInputStream().read(data);
-            if (readLength != length) {
-                throw new ServerException(
-                        Response.Status.INTERNAL_ERROR,
-                        "Short read");
+            for (String level : levels.values()) {
+                bridge.checkLevel(level);
+            }
+            List<LogFrameworkBridge.LoggerResource> named =
+                    new ArrayList<>(levels.size());
+            for (String name : levels.keySet()) {
+                named.add(bridge.createLoggerResource(name));
+            }
+            levelOverrides.apply(match.get("framework"),
+                    named,
+                    levels::containsKey,
+                    () -> bridge.setLevels(levels));
+            for (Map.Entry<String, String> entry : levels.entrySet()) {
+                appendToJournal(match.get("framework"), entry.getKey(),
+                        entry.getValue(), false);
+                indexLogger(match.get("framework"), entry.getKey());
             }
+        } catch (IllegalArgumentException e) {
+            throw new ServerException(Response.Status.BAD_REQUEST,
+                    e.getMessage());
+        } finally {
+            metrics.recordBridge(match.get("framework"), Metrics.BRIDGE_SET,
+                    System.nanoTime() - start);
+        }
+        return respondToChange(session, fanOut, data);
+    }
+
+    /** Parses a body of {@code name=LEVEL} lines.
+     * @param data the body in UTF-8.
+     * @return the levels by logger name in the order of the lines.
+     * The root logger has the empty name.
+     * @throws ServerException if a line is malformed.
+     * */
+    private static Map<String, String> parseLevelLines(final byte[] data)
+            throws ServerException {
+        return parseLevelLines(new ByteArrayInputStream(data));
+    }
+
+    /** Parses a body of {@code name=LEVEL} lines while it is read.
+     * Only the current line and the levels are held in memory.
+     * @param in the body in UTF-8.
+     * @return the levels by logger name in the order of the lines.
+     * The root logger has the empty name.
+     * @throws ServerException if a line is malformed or the body could
+     * not be read.
+     * */
+    private static Map<String, String> parseLevelLines(final InputStream in)
+            throws ServerException {
+        Map<String, String> levels = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = readLine(reader)) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            int equalsIndex = line.indexOf('=');
+            if (equalsIndex == -1) {
+                throw new ServerException(Response.Status.BAD_REQUEST,
+                        "Line illegal: " + line);
+            }
+            String name = line.substring(0, equalsIndex).trim();
+            if ("/".equals(name)) {
+                name = "";
+            }
+            levels.put(name, line.substring(equalsIndex + 1).trim());
+        }
+        return levels;
+    }
+
+    /** Reads a line of a request body.
+     * @param reader the reader of the body.
+     * @return the line without separator, or {@code null} at the end.
+     * @throws ServerException if the body could not be read.
+     * */
+    private static String readLine(final BufferedReader reader)
+            throws ServerException {
+        try {
+            return reader.readLine();
         } catch (IOException e) {
             throw new ServerException(
                     Response.Status.INTERNAL_ERROR,
                     e.getMessage());
         }
+    }
 
-        String levelString = new String(
-                data,
-                Charset.forName("ASCII"));
+    /** Saves the levels configured for exactly the loggers of a
+     * framework, see {@link LevelSnapshot}. Each line has the format
+     * {@code name=LEVEL} of the {@code levels} resource, the root
+     * logger first. The response is chunked and reads the loggers
+     * while it is sent.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the framework.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed.
+     * */
+    private Response handleGetSnapshot(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        LogFrameworkBridge bridge =
+                getLogFrameworkBridge(match.get("framework"));
+        return newChunkedResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                new LinesInputStream(LevelSnapshot.lines(bridge).iterator()));
+    }
+
+    /** Restores a snapshot of {@link #handleGetSnapshot(IHTTPSession,
+     * Router.Match)} with one {@link LogFrameworkBridge#setLevels(Map)}
+     * call, so the levels are checked before the first change and
+     * log4j2 reconfigures once. Only the loggers whose level differs
+     * are changed, see {@link LevelSnapshot#changes(Map, Map)}.
+     * Each line of the response is the diff of a logger: its name,
+     * its level before (or {@code -} if inherited) and its restored
+     * level, separated by tabs.
+     * With the query parameter {@code dryrun=true} only the diff is
+     * returned.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the framework.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed.
+     * */
+    private Response handlePutSnapshot(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        String framework = match.get("framework");
+        LogFrameworkBridge bridge = getLogFrameworkBridge(framework);
+        Map<String, String> snapshot = parseLevelLines(new BodyInputStream(
+                session.getInputStream(),
+                contentLength(session, MAX_SNAPSHOT_BYTES)));
+        boolean dryRun =
+                Boolean.parseBoolean(getParameter(session, "dryrun"));
+        long start = System.nanoTime();
+        StringBuilder diff = new StringBuilder();
         try {
-            resource.setLevel(levelString);
+            for (String level : snapshot.values()) {
+                bridge.checkLevel(level);
+            }
+            Map<String, String> current = LevelSnapshot.read(bridge);
+            Map<String, String> changes =
+                    LevelSnapshot.changes(snapshot, current);
+            if (!dryRun && !changes.isEmpty()) {
+                List<LogFrameworkBridge.LoggerResource> named =
+                        new ArrayList<>(changes.size());
+                for (String name : changes.keySet()) {
+                    named.add(bridge.createLoggerResource(name));
+                }
+                levelOverrides.apply(framework,
+                        named,
+                        changes::containsKey,
+                        () -> bridge.setLevels(changes));
+            }
+            for (Map.Entry<String, String> entry : changes.entrySet()) {
+                String before = current.get(entry.getKey());
+                if (before == null) {
+                    before = "-";
+                }
+                diff.append(entry.getKey()).append('\t')
+                        .append(before).append('\t')
+                        .append(entry.getValue()).append('\n');
+                if (!dryRun) {
+                    appendToJournal(framework, entry.getKey(),
+                            entry.getValue(), false);
+                    indexLogger(framework, entry.getKey());
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ServerException(Response.Status.BAD_REQUEST,
+                    e.getMessage());
+        } finally {
+            metrics.recordBridge(framework, Metrics.BRIDGE_SET,
+                    System.nanoTime() - start);
+        }
+        return newFixedLengthResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                diff.toString());
+    }
+
+    /** Get the fan-out to the peers if the request asks for it with
+     * the query parameter {@code fanout=true}.
+     * @param session the session to take the parameter from.
+     * @return the fan-out, or {@code null} if not requested.
+     * @throws ServerException if no peers are configured.
+     * */
+    private PeerFanOut getPeerFanOut(final IHTTPSession session)
+            throws ServerException {
+        if (!Boolean.parseBoolean(getParameter(session, FANOUT))) {
+            return null;
+        }
+        PeerFanOut result = peerFanOut;
+        if (result == null) {
+            throw new ServerException(Response.Status.NOT_FOUND,
+                    "No peers configured");
+        }
+        return result;
+    }
+
+    /** Responds to a level change that was applied locally.
+     * If requested, the same request is forwarded to all peers, with
+     * the authorization of the request and without the
+     * {@code fanout} parameter. Each line of the response then contains
+     * the peer, its HTTP status ({@code 0} if it did not respond) and
+     * its message, separated by tabs. The status is
+     * {@code 207 Multi-Status} if a peer failed.
+     * @param session the session of the level change.
+     * @param fanOut the fan-out to the peers, or {@code null}.
+     * @param body the body of the level change.
+     * @return the nano http response to return.
+     * @throws ServerException if the peers could not be read.
+     * */
+    private Response respondToChange(final IHTTPSession session,
+                                     final PeerFanOut fanOut,
+                                     final byte[] body)
+            throws ServerException {
+        if (fanOut == null) {
             return newFixedLengthResponse(
                     Response.Status.OK,
                     MIME_PLAINTEXT,
                     "");
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", MIME_PLAINTEXT);
+        String authorization = session.getHeaders().get("authorization");
+        if (authorization != null) {
+            headers.put("Authorization", authorization);
+        }
+        List<PeerFanOut.Result> results;
+        try {
+            results = fanOut.send(String.valueOf(session.getMethod()),
+                    forwardTarget(session), headers, body);
+        } catch (IOException | UncheckedIOException
+                | IllegalArgumentException e) {
+            throw new ServerException(Response.Status.INTERNAL_ERROR,
+                    "Peers failed: " + e.getMessage());
+        }
+        Response.Status status = Response.Status.OK;
+        StringBuilder out = new StringBuilder();
+        for (PeerFanOut.Result result : results) {
+            out.append(result.getPeer())
+                    .append('\t')
+                    .append(result.getStatus())
+                    .append('\t')
+                    .append(result.getMessage())
+                    .append('\n');
+            if (!result.isSuccess()) {
+                status = Response.Status.MULTI_STATUS;
+            }
+        }
+        return newFixedLengthResponse(
+                status,
+                MIME_PLAINTEXT,
+                out.toString());
+    }
+
+    /** Get the path and query to forward a request to the peers with.
+     * @param session the session of the request.
+     * @return the encoded path and the query without the
+     * {@code fanout} parameter.
+     * */
+    private static String forwardTarget(final IHTTPSession session) {
+        StringBuilder target = new StringBuilder();
+        for (byte b : session.getUri().getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & BYTE_MASK);
+            if (c == '/' || c == '-' || c == '.' || c == '_' || c == '~'
+                    || (c >= 'a' && c <= 'z')
+                    || (c >= 'A' && c <= 'Z')
+                    || (c >= '0' && c <= '9')) {
+                target.append(c);
+            } else {
+                target.append(String.format(Locale.ROOT, "%%%02X",
+                        b & BYTE_MASK));
+            }
+        }
+        String query = session.getQueryParameterString();
+        if (query != null) {
+            char separator = '?';
+            for (String pair : query.split("&")) {
+                if (!pair.isEmpty() && !pair.equals(FANOUT)
+                        && !pair.startsWith(FANOUT + "=")) {
+                    target.append(separator).append(pair);
+                    separator = '&';
+                }
+            }
+        }
+        return target.toString();
+    }
+
+    /** Lists the pending level overrides of a framework.
+     * Each line contains the logger name, the level of the override,
+     * the level restored on expiry and the seconds until expiry,
+     * separated by tabs. The overrides expiring first come first.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the framework.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed.
+     * */
+    private Response handleListOverrides(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        String framework = match.get("framework");
+        getLogFrameworkBridge(framework);
+        StringBuilder body = new StringBuilder();
+        for (LevelOverrides.Entry entry : levelOverrides.list(framework)) {
+            String previousLevel = entry.getPreviousLevel();
+            if (previousLevel == null) {
+                previousLevel = INHERITED;
+            }
+            body.append(entry.getLogger())
+                    .append('\t')
+                    .append(entry.getLevel())
+                    .append('\t')
+                    .append(previousLevel)
+                    .append('\t')
+                    .append(TimeUnit.MILLISECONDS.toSeconds(
+                            entry.getRemainingMillis()))
+                    .append('\n');
+        }
+        return newFixedLengthResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                body.toString());
+    }
+
+    /** Ends a pending level override and restores the previous level.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the logger.
+     * @return the nano http response to return.
+     * @throws ServerException if the logger has no pending override.
+     * */
+    private Response handleRevertOverride(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        LogFrameworkBridge.LoggerResource resource = getResource(match);
+        if (!levelOverrides.revert(match.get("framework"),
+                resource.getName())) {
+            throw new ServerException(Response.Status.NOT_FOUND,
+                    "No override for logger: " + resource.getName());
+        }
+        return newFixedLengthResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                "");
+    }
+
+    /** Get the value of a query parameter that must be there.
+     * @param session the session to take the parameter from.
+     * @param name the name of the parameter.
+     * @return the first value.
+     * @throws ServerException if the parameter is missing.
+     * */
+    private static String getRequiredParameter(final IHTTPSession session,
+                                               final String name)
+            throws ServerException {
+        String value = getParameter(session, name);
+        if (value == null) {
+            throw new ServerException(Response.Status.BAD_REQUEST,
+                    "Parameter missing: " + name);
+        }
+        return value;
+    }
+
+    /** Lets the events of a logger and its descendants pass at the
+     * level of the request body while the MDC or {@code ThreadContext}
+     * key of the query parameter {@code key} has the value of the
+     * query parameter {@code value}. The level of the loggers does not
+     * change. With the query parameter {@code ttl}, for example
+     * {@code ttl=15m}, the rule is removed after the time to live.
+     * See {@link ContextLevels}.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the logger.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed.
+     * */
+    private Response handleSetContextLevel(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        String framework = match.get("framework");
+        LogFrameworkBridge bridge = getLogFrameworkBridge(framework);
+        String logger = bridge.createLoggerResource(match.get("logger"))
+                .getName();
+        String key = getRequiredParameter(session, "key");
+        String value = getRequiredParameter(session, "value");
+        String ttl = getParameter(session, "ttl");
+        String level = new String(readBody(session), StandardCharsets.UTF_8)
+                .trim().toUpperCase(Locale.ROOT);
+        try {
+            long ttlMillis = 0;
+            if (ttl != null) {
+                ttlMillis = Durations.parseMillis(ttl);
+            }
+            contextLevels.put(framework, bridge, logger, key, value, level,
+                    ttlMillis);
+        } catch (IllegalArgumentException e) {
+            throw new ServerException(Response.Status.BAD_REQUEST,
+                    e.getMessage());
+        }
+        return newFixedLengthResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                "");
+    }
+
+    /** Removes a rule of
+     * {@link #handleSetContextLevel(IHTTPSession, Router.Match)}
+     * named by the logger and the query parameters {@code key} and
+     * {@code value}.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the logger.
+     * @return the nano http response to return.
+     * @throws ServerException if there is no such rule.
+     * */
+    private Response handleRemoveContextLevel(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        String framework = match.get("framework");
+        String logger = getLogFrameworkBridge(framework)
+                .createLoggerResource(match.get("logger")).getName();
+        String key = getRequiredParameter(session, "key");
+        String value = getRequiredParameter(session, "value");
+        if (!contextLevels.remove(framework, logger, key, value)) {
+            throw new ServerException(Response.Status.NOT_FOUND,
+                    "No context level for logger: " + logger);
+        }
+        return newFixedLengthResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                "");
+    }
+
+    /** Lists the context level rules of a framework.
+     * Each line contains the logger name, the context key, its value,
+     * the level and the seconds until the rule is removed (or
+     * {@code -} if it stays), separated by tabs.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the framework.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed.
+     * */
+    private Response handleListContextLevels(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        String framework = match.get("framework");
+        getLogFrameworkBridge(framework);
+        StringBuilder body = new StringBuilder();
+        for (ContextLevels.Rule rule : contextLevels.list(framework)) {
+            body.append(rule.getLogger())
+                    .append('\t')
+                    .append(rule.getKey())
+                    .append('\t')
+                    .append(rule.getValue())
+                    .append('\t')
+                    .append(rule.getLevel())
+                    .append('\t');
+            long remaining = rule.getRemainingMillis();
+            if (remaining < 0) {
+                body.append('-');
+            } else {
+                body.append(TimeUnit.MILLISECONDS.toSeconds(remaining));
+            }
+            body.append('\n');
+        }
+        return newFixedLengthResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                body.toString());
+    }
+
+    /** Formats a number that may not be known.
+     * @param value the number, negative if not known.
+     * @return the number, or {@code -} if not known.
+     * */
+    private static String orDash(final long value) {
+        if (value < 0) {
+            return "-";
+        }
+        return Long.toString(value);
+    }
+
+    /** Lists the queues of the asynchronous appenders and loggers of a
+     * framework. Each line contains the queue name, its capacity, its
+     * remaining capacity, the events dropped by the discard level,
+     * whether a full queue blocks and the discard level, separated by
+     * tabs. Values that are not known are {@code -}.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the framework.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed.
+     * */
+    private Response handleListQueues(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        LogFrameworkBridge bridge =
+                getLogFrameworkBridge(match.get("framework"));
+        StringBuilder body = new StringBuilder();
+        for (LogFrameworkBridge.AsyncQueue queue : bridge.listAsyncQueues()) {
+            String discardLevel = queue.getDiscardLevel();
+            if (discardLevel == null) {
+                discardLevel = "-";
+            }
+            body.append(queue.getName())
+                    .append('\t')
+                    .append(orDash(queue.getCapacity()))
+                    .append('\t')
+                    .append(orDash(queue.getRemainingCapacity()))
+                    .append('\t')
+                    .append(orDash(queue.getDiscarded()))
+                    .append('\t')
+                    .append(queue.isBlocking())
+                    .append('\t')
+                    .append(discardLevel)
+                    .append('\n');
+        }
+        return newFixedLengthResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                body.toString());
+    }
+
+    /** Changes the policy of a queue of
+     * {@link #handleListQueues(IHTTPSession, Router.Match)}.
+     * The request body contains {@code blocking=true|false} and
+     * {@code discard=LEVEL} lines. With a discard level, events less
+     * severe than the level are dropped while the queue is nearly full,
+     * {@code discard=-} ends that. See
+     * {@link LogFrameworkBridge.AsyncQueue#setPolicy(Boolean, String)}.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the framework and queue.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed, the
+     * queue was not found or can not change.
+     * */
+    private Response handleSetQueuePolicy(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        LogFrameworkBridge bridge =
+                getLogFrameworkBridge(match.get("framework"));
+        String name = match.get("queue");
+        Map<String, String> policy = parseLevelLines(readBody(session));
+        Boolean blocking = null;
+        String discardLevel = null;
+        for (Map.Entry<String, String> entry : policy.entrySet()) {
+            if ("blocking".equals(entry.getKey())) {
+                if (!"true".equals(entry.getValue())
+                        && !"false".equals(entry.getValue())) {
+                    throw new ServerException(Response.Status.BAD_REQUEST,
+                            "Line illegal: blocking=" + entry.getValue());
+                }
+                blocking = Boolean.valueOf(entry.getValue());
+            } else if ("discard".equals(entry.getKey())) {
+                discardLevel = entry.getValue();
+            } else {
+                throw new ServerException(Response.Status.BAD_REQUEST,
+                        "Line illegal: " + entry.getKey() + "="
+                                + entry.getValue());
+            }
+        }
+        LogFrameworkBridge.AsyncQueue queue = null;
+        for (LogFrameworkBridge.AsyncQueue candidate
+                : bridge.listAsyncQueues()) {
+            if (candidate.getName().equals(name)) {
+                queue = candidate;
+                break;
+            }
+        }
+        if (queue == null) {
+            throw new ServerException(Response.Status.NOT_FOUND,
+                    "Queue not found: " + name);
+        }
+        try {
+            queue.setPolicy(blocking, discardLevel);
         } catch (IllegalArgumentException e) {
             throw new ServerException(Response.Status.BAD_REQUEST,
                     e.getMessage());
+        } catch (UnsupportedOperationException e) {
+            throw new ServerException(Response.Status.NOT_IMPLEMENTED,
+                    e.getMessage());
+        }
+        return newFixedLengthResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                "");
+    }
+
+    /** Finds a file appender of a framework.
+     * @param match the route match naming the framework and appender.
+     * @return the appender.
+     * @throws ServerException if the framework or the appender was not
+     * found.
+     * */
+    private LogFrameworkBridge.AppenderResource getAppenderResource(
+            final Router.Match match) throws ServerException {
+        LogFrameworkBridge bridge =
+                getLogFrameworkBridge(match.get("framework"));
+        String name = match.get("appender");
+        Optional<LogFrameworkBridge.AppenderResource> appender =
+                bridge.findAppenderResource(name);
+        if (!appender.isPresent()) {
+            throw new ServerException(Response.Status.NOT_FOUND,
+                    "Appender not found: " + name);
+        }
+        return appender.get();
+    }
+
+    /** Renders the buffering of a file appender as lines of
+     * {@code name=value}. A buffer size that is not known is {@code -}.
+     * @param appender the appender to render.
+     * @return the nano http response to return.
+     * */
+    private static Response toAppenderResponse(
+            final LogFrameworkBridge.AppenderResource appender) {
+        String body = "type=" + appender.getType() + '\n'
+                + "bufferSize=" + orDash(appender.getBufferSize()) + '\n'
+                + "immediateFlush=" + appender.isImmediateFlush() + '\n'
+                + "memoryMapped=" + appender.isMemoryMapped() + '\n';
+        return newFixedLengthResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                body);
+    }
+
+    /** Parses a {@code true} or {@code false} value of a body line.
+     * @param key the key of the line.
+     * @param value the value of the line.
+     * @return the parsed value.
+     * @throws ServerException if the value is neither.
+     * */
+    private static Boolean parseFlag(final String key, final String value)
+            throws ServerException {
+        if (!"true".equals(value) && !"false".equals(value)) {
+            throw new ServerException(Response.Status.BAD_REQUEST,
+                    "Line illegal: " + key + "=" + value);
+        }
+        return Boolean.valueOf(value);
+    }
+
+    /** Shows the buffering of a file appender. The lines contain the
+     * type of the appender, the buffer size in bytes, whether every
+     * event is flushed and whether the file is memory mapped, as
+     * {@code type}, {@code bufferSize}, {@code immediateFlush} and
+     * {@code memoryMapped}.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the framework and appender.
+     * @return the nano http response to return.
+     * @throws ServerException if the appender was not found.
+     * */
+    private Response handleGetAppender(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        return toAppenderResponse(getAppenderResource(match));
+    }
+
+    /** Changes the buffering of a file appender of
+     * {@link #handleGetAppender(IHTTPSession, Router.Match)}.
+     * The request body contains {@code bufferSize=BYTES},
+     * {@code immediateFlush=true|false} and
+     * {@code memoryMapped=true|false} lines, missing lines keep the
+     * value. The response is the buffering after the change. See
+     * {@link LogFrameworkBridge.AppenderResource#configure(Integer,
+     * Boolean, Boolean)}.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the framework and appender.
+     * @return the nano http response to return.
+     * @throws ServerException if the request is malformed, the
+     * appender was not found or can not change.
+     * */
+    private Response handleSetAppender(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        Map<String, String> settings = parseLevelLines(readBody(session));
+        Integer bufferSize = null;
+        Boolean immediateFlush = null;
+        Boolean memoryMapped = null;
+        for (Map.Entry<String, String> entry : settings.entrySet()) {
+            if ("bufferSize".equals(entry.getKey())) {
+                try {
+                    bufferSize = Integer.valueOf(entry.getValue());
+                } catch (NumberFormatException e) {
+                    throw new ServerException(Response.Status.BAD_REQUEST,
+                            "Line illegal: bufferSize=" + entry.getValue());
+                }
+            } else if ("immediateFlush".equals(entry.getKey())) {
+                immediateFlush = parseFlag(entry.getKey(), entry.getValue());
+            } else if ("memoryMapped".equals(entry.getKey())) {
+                memoryMapped = parseFlag(entry.getKey(), entry.getValue());
+            } else {
+                throw new ServerException(Response.Status.BAD_REQUEST,
+                        "Line illegal: " + entry.getKey() + "="
+                                + entry.getValue());
+            }
+        }
+        LogFrameworkBridge.AppenderResource appender =
+                getAppenderResource(match);
+        try {
+            appender.configure(bufferSize, immediateFlush, memoryMapped);
+        } catch (IllegalArgumentException e) {
+            throw new ServerException(Response.Status.BAD_REQUEST,
+                    e.getMessage());
+        } catch (UnsupportedOperationException e) {
+            throw new ServerException(Response.Status.NOT_IMPLEMENTED,
+                    e.getMessage());
+        } catch (UncheckedIOException e) {
+            throw new ServerException(Response.Status.INTERNAL_ERROR,
+                    "Appender failed: " + e.getMessage());
+        }
+        return toAppenderResponse(appender);
+    }
+
+    /** Lists the event rates of the loggers of a framework in the
+     * last minute. Each line contains the logger name, the level,
+     * the number of events and the average events per second,
+     * separated by tabs. The highest rates come first.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the framework.
+     * @return the nano http response to return.
+     * @throws ServerException if the statistics are not enabled.
+     * */
+    private Response handleStats(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        String framework = match.get("framework");
+        getLogFrameworkBridge(framework);
+        EventCounters counters = eventCounters.get(framework);
+        if (counters == null) {
+            throw new ServerException(Response.Status.NOT_FOUND,
+                    "Statistics not enabled for " + framework);
+        }
+        StringBuilder body = new StringBuilder();
+        for (EventCounters.Rate rate : counters.list()) {
+            body.append(rate.getLogger())
+                    .append('\t')
+                    .append(rate.getLevel())
+                    .append('\t')
+                    .append(rate.getCount())
+                    .append('\t')
+                    .append(String.format(Locale.ROOT, "%.2f",
+                            rate.getEventsPerSecond()))
+                    .append('\n');
+        }
+        return newFixedLengthResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                body.toString());
+    }
+
+    /** Gets the state of the flood protection circuit breaker of a
+     * logger. The first line is {@code CLOSED}, or {@code OPEN}
+     * followed by the raised level and the seconds until the previous
+     * level is restored. Each further line is a trip with the time,
+     * the events per second, the level before and the level after the
+     * trip, separated by tabs. The latest trip comes last.
+     * @param session the session to take the parameters from.
+     * @param match the route match naming the logger.
+     * @return the nano http response to return.
+     * @throws ServerException if the flood protection is not enabled.
+     * */
+    private Response handleGetBreaker(final IHTTPSession session,
+                            final Router.Match match)
+            throws ServerException {
+        String framework = match.get("framework");
+        String logger = getLogFrameworkBridge(framework)
+                .createLoggerResource(match.get("logger")).getName();
+        FloodProtection protection = floodProtection;
+        if (protection == null) {
+            throw new ServerException(Response.Status.NOT_FOUND,
+                    "Flood protection not enabled");
+        }
+        StringBuilder body = new StringBuilder();
+        LevelOverrides.Entry open =
+                protection.getOpenOverride(framework, logger);
+        if (open != null) {
+            body.append("OPEN\t")
+                    .append(open.getLevel())
+                    .append('\t')
+                    .append(TimeUnit.MILLISECONDS.toSeconds(
+                            open.getRemainingMillis()));
+        } else {
+            body.append("CLOSED");
+        }
+        body.append('\n');
+        for (FloodProtection.Trip trip
+                : protection.trips(framework, logger)) {
+            body.append(Instant.ofEpochMilli(trip.getTime()))
+                    .append('\t')
+                    .append(String.format(Locale.ROOT, "%.2f",
+                            trip.getEventsPerSecond()))
+                    .append('\t')
+                    .append(trip.getPreviousLevel())
+                    .append('\t')
+                    .append(trip.getLevel())
+                    .append('\n');
+        }
+        return newFixedLengthResponse(
+                Response.Status.OK,
+                MIME_PLAINTEXT,
+                body.toString());
+    }
+
+    /** Reads the complete request body of at most
+     * {@value #MAX_BODY_BYTES} bytes.
+     * @param session the session to read the body from.
+     * @return the bytes of the body.
+     * @throws ServerException if the body length is missing, malformed
+     * or too large, or the body can not be read.
+     * */
+    private byte[] readBody(final IHTTPSession session)
+            throws ServerException {
+        int length = (int) contentLength(session, MAX_BODY_BYTES);
+        byte[] data = new byte[length];
+        try {
+            int offset = 0;
+            while (offset < length) {
+                int readLength = session.getInputStream().read(
+                        data, offset, length - offset);
+                if (readLength == -1) {
+                    throw new ServerException(
+                            Response.Status.INTERNAL_ERROR,
+                            "Short read");
+                }
+                offset += readLength;
+            }
+        } catch (IOException e) {
+            throw new ServerException(
+                    Response.Status.INTERNAL_ERROR,
+                    e.getMessage());
+        }
+        return data;
+    }
+
+    /** Reads the length of the request body.
+     * A body that is too large is not read, so the connection is
+     * closed after the response.
+     * @param session the session to take the header from.
+     * @param max the largest accepted length in bytes.
+     * @return the length in bytes.
+     * @throws ServerException if the header is missing or malformed,
+     * or the length is larger than {@code max}.
+     * */
+    private static long contentLength(final IHTTPSession session,
+                                      final long max)
+            throws ServerException {
+        String lengthString = session.getHeaders().get("content-length");
+        if (lengthString == null) {
+            throw new ServerException(Response.Status.BAD_REQUEST,
+                    "Content-Length header is missing");
+        }
+        long length;
+        try {
+            length = Long.parseLong(lengthString.trim());
+        } catch (NumberFormatException e) {
+            throw new ServerException(Response.Status.BAD_REQUEST,
+                    "Content-Length illegal: " + lengthString);
+        }
+        if (length < 0) {
+            throw new ServerException(Response.Status.BAD_REQUEST,
+                    "Content-Length illegal: " + lengthString);
+        }
+        if (length > max) {
+            throw new ServerException(Response.Status.PAYLOAD_TOO_LARGE,
+                    "Body larger than " + max + " bytes",
+                    response -> response.closeConnection(true));
         }
+        return length;
     }
 }
@@ -0,0 +1,236 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/** Runs tasks after a delay with one thread for all tasks.
+ * The timer is a hashed wheel: time is divided into ticks and each
+ * tick has a bucket of the tasks that expire in it. Tasks that
+ * expire more than one rotation ahead wait for the remaining
+ * rounds in their bucket. Scheduling and cancelling are
+ * constant time and do not lock, the buckets are only touched by the
+ * timer thread.
+ * The timer thread is a daemon thread started with the first task.
+ * Tasks expire at most one tick late.
+ * */
+final class TimerWheel {
+
+    /** State of a timeout that waits for its expiry. */
+    private static final int STATE_WAITING = 0;
+
+    /** State of a timeout that was cancelled. */
+    private static final int STATE_CANCELLED = 1;
+
+    /** State of a timeout that expired. */
+    private static final int STATE_EXPIRED = 2;
+
+    /** Handle of a scheduled task. */
+    static final class Timeout {
+        /** The task to run on expiry. */
+        private final Runnable task;
+
+        /** The expiry time in nanoseconds relative to the wheel start. */
+        private final long deadline;
+
+        /** The rotations to wait before expiry, only used by the
+         * timer thread. */
+        private long rounds;
+
+        /** One of {@link #STATE_WAITING}, {@link #STATE_CANCELLED}
+         * and {@link #STATE_EXPIRED}. */
+        private final AtomicInteger state = new AtomicInteger(STATE_WAITING);
+
+        /** Constructs a timeout.
+         * @param inTask the task to run on expiry.
+         * @param inDeadline the expiry time relative to the wheel start.
+         * */
+        private Timeout(final Runnable inTask, final long inDeadline) {
+            this.task = inTask;
+            this.deadline = inDeadline;
+        }
+
+        /** Cancels the task.
+         * @return {@code true} if the task was cancelled,
+         * {@code false} if it already expired or was cancelled.
+         * */
+        boolean cancel() {
+            return state.compareAndSet(STATE_WAITING, STATE_CANCELLED);
+        }
+
+        /** Checks whether the task was cancelled.
+         * @return {@code true} if the task was cancelled.
+         * */
+        boolean isCancelled() {
+            return state.get() == STATE_CANCELLED;
+        }
+    }
+
+    /** The duration of a tick in nanoseconds. */
+    private final long tickNanos;
+
+    /** The buckets of the wheel, one per tick of a rotation. */
+    private final List<Queue<Timeout>> buckets;
+
+    /** Mask to map a tick to its bucket. */
+    private final int mask;
+
+    /** The timeouts scheduled but not yet in a bucket. */
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+
+    /** The name of the timer thread. */
+    private final String threadName;
+
+    /** The start time of the wheel in nanoseconds. */
+    private final long startTime = System.nanoTime();
+
+    /** The timer thread, or {@code null} if not started yet. */
+    private Thread thread;
+
+    /** Whether the timer was stopped. */
+    private volatile boolean stopped;
+
+    /** Constructs a new timer wheel.
+     * @param tickDuration the duration of a tick, the resolution of
+     *                     the timer.
+     * @param unit the unit of the tick duration.
+     * @param ticksPerWheel the number of buckets, rounded up to a power
+     *                      of two.
+     * @param inThreadName the name of the timer thread.
+     * */
+    TimerWheel(final long tickDuration,
+               final TimeUnit unit,
+               final int ticksPerWheel,
+               final String inThreadName) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("Illegal wheel dimensions");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.mask = size - 1;
+        this.threadName = inThreadName;
+    }
+
+    /** Schedules a task.
+     * @param task the task to run in the timer thread. The task should
+     *             return quickly, because it delays other tasks.
+     * @param delay the time to wait before running the task.
+     * @param unit the unit of the delay.
+     * @return the handle to cancel the task with.
+     * @throws IllegalStateException if the timer was stopped.
+     * */
+    Timeout schedule(final Runnable task,
+                     final long delay,
+                     final TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("Timer is stopped");
+        }
+        startThread();
+        Timeout timeout = new Timeout(task,
+                System.nanoTime() - startTime + unit.toNanos(delay));
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /** Stops the timer thread. Tasks not expired yet are not run. */
+    void stop() {
+        Thread toJoin;
+        synchronized (this) {
+            stopped = true;
+            toJoin = thread;
+        }
+        if (toJoin != null && toJoin != Thread.currentThread()) {
+            LockSupport.unpark(toJoin);
+            try {
+                toJoin.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Starts the timer thread if it is not running yet. */
+    private synchronized void startThread() {
+        if (thread == null && !stopped) {
+            thread = new Thread(this::run, threadName);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /** The loop of the timer thread. */
+    private void run() {
+        long tick = 0;
+        while (!stopped) {
+            long sleep = (tick + 1) * tickNanos
+                    - (System.nanoTime() - startTime);
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+            transferScheduled(tick);
+            expire(buckets.get((int) (tick & mask)));
+            tick++;
+        }
+    }
+
+    /** Moves the newly scheduled timeouts to their buckets.
+     * @param tick the current tick.
+     * */
+    private void transferScheduled(final long tick) {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long expiryTick = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.rounds = (expiryTick - tick) / buckets.size();
+            buckets.get((int) (expiryTick & mask)).add(timeout);
+        }
+    }
+
+    /** Runs the due timeouts of a bucket and removes the cancelled ones.
+     * @param bucket the bucket of the current tick.
+     * */
+    private void expire(final Queue<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.isCancelled()) {
+                iterator.remove();
+            } else if (timeout.rounds <= 0) {
+                iterator.remove();
+                if (timeout.state.compareAndSet(
+                        STATE_WAITING, STATE_EXPIRED)) {
+                    runTask(timeout.task);
+                }
+            } else {
+                timeout.rounds--;
+            }
+        }
+    }
+
+    /** Runs a task and reports its failures without stopping the timer.
+     * @param task the task to run.
+     * */
+    private static void runTask(final Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            System.err.println("logwebconfig: Timer task failed: " + e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** A token bucket implemented as generic cell rate algorithm.
+ * The bucket only stores the theoretical arrival time of the next
+ * event, which is updated with compare-and-set without locking.
+ * */
+final class TokenBucket {
+
+    /** Nanoseconds between two events at the sustained rate. */
+    private final long interval;
+
+    /** Nanoseconds an event may be ahead of the sustained rate. */
+    private final long tolerance;
+
+    /** The theoretical arrival time of the next event. */
+    private final AtomicLong arrival;
+
+    /** Constructs a full bucket.
+     * @param eventsPerSecond the sustained number of events per second.
+     * @param burst the number of events that can pass at once after
+     *              being idle.
+     * @param now the current time in nanoseconds.
+     * */
+    TokenBucket(final long eventsPerSecond,
+                final long burst,
+                final long now) {
+        if (eventsPerSecond < 1 || burst < 1) {
+            throw new IllegalArgumentException("Illegal rate");
+        }
+        this.interval = Math.max(1,
+                TimeUnit.SECONDS.toNanos(1) / eventsPerSecond);
+        this.tolerance = interval * (burst - 1);
+        this.arrival = new AtomicLong(now);
+    }
+
+    /** Takes a token from the bucket if there is one.
+     * @param now the current time in nanoseconds.
+     * @return 0 if a token was taken, or the nanoseconds until
+     * the next token is available.
+     * */
+    long reserve(final long now) {
+        while (true) {
+            long expected = arrival.get();
+            long theoretical = Math.max(expected, now);
+            long ahead = theoretical - now;
+            if (ahead > tolerance) {
+                return ahead - tolerance;
+            }
+            if (arrival.compareAndSet(expected, theoretical + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    /** Takes a token from the bucket if there is one.
+     * @return {@code true} if a token was taken.
+     * */
+    boolean tryAcquire() {
+        return reserve(System.nanoTime()) == 0;
+    }
+
+    /** Checks whether the bucket is full, so forgetting it would
+     * not change the decisions.
+     * @param now the current time in nanoseconds.
+     * @return {@code true} if the bucket is full.
+     * */
+    boolean isFull(final long now) {
+        return arrival.get() - now <= 0;
+    }
+}
@@ -0,0 +1,34 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.concurrent.ExecutorService;
+
+/** Access to virtual threads.
+ * This is the version for Java runtimes without virtual threads.
+ * The multi-release jar contains a version for Java 21 and later
+ * in {@code META-INF/versions/21}.
+ * */
+final class VirtualThreads {
+
+    /** No instance allowed. */
+    private VirtualThreads() {
+
+    }
+
+    /** Checks whether the runtime supports virtual threads.
+     * @return {@code true} if virtual threads are supported.
+     * */
+    static boolean isSupported() {
+        return false;
+    }
+
+    /** Creates an executor that starts a new virtual thread per task.
+     * @param namePrefix the name prefix of the threads.
+     * @return the new executor.
+     * @throws UnsupportedOperationException if the runtime does not
+     * support virtual threads.
+     * */
+    static ExecutorService newExecutor(final String namePrefix) {
+        throw new UnsupportedOperationException(
+                "Virtual threads need Java 21 or later");
+    }
+}
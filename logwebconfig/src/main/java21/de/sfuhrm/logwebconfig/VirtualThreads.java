@@ -0,0 +1,31 @@
+package de.sfuhrm.logwebconfig;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Access to virtual threads.
+ * This is the version for Java 21 and later.
+ * */
+final class VirtualThreads {
+
+    /** No instance allowed. */
+    private VirtualThreads() {
+
+    }
+
+    /** Checks whether the runtime supports virtual threads.
+     * @return {@code true} if virtual threads are supported.
+     * */
+    static boolean isSupported() {
+        return true;
+    }
+
+    /** Creates an executor that starts a new virtual thread per task.
+     * @param namePrefix the name prefix of the threads.
+     * @return the new executor.
+     * */
+    static ExecutorService newExecutor(final String namePrefix) {
+        return Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(namePrefix, 1).factory());
+    }
+}
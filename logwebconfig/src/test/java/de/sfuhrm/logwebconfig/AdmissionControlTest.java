@@ -0,0 +1,103 @@
+package de.sfuhrm.logwebconfig;
+
+import fi.iki.elonen.NanoHTTPD;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link AdmissionControl} class.
+ * */
+public class AdmissionControlTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void reserveWithinBurst() {
+        AdmissionControl instance = new AdmissionControl(0, 10, 3);
+        assertEquals(0, instance.reserve("a", 0));
+        assertEquals(0, instance.reserve("a", 0));
+        assertEquals(0, instance.reserve("a", 0));
+        assertTrue(instance.reserve("a", 0) > 0);
+    }
+
+    @Test
+    public void reserveRefills() {
+        AdmissionControl instance = new AdmissionControl(0, 10, 1);
+        assertEquals(0, instance.reserve("a", 0));
+        assertEquals(SECOND / 10, instance.reserve("a", 0));
+        assertEquals(0, instance.reserve("a", SECOND / 10));
+    }
+
+    @Test
+    public void reservePerClient() {
+        AdmissionControl instance = new AdmissionControl(0, 1, 1);
+        assertEquals(0, instance.reserve("a", 0));
+        assertEquals(0, instance.reserve("b", 0));
+        assertTrue(instance.reserve("a", 0) > 0);
+    }
+
+    @Test
+    public void acquireWithRateLimit() throws ServerException {
+        AdmissionControl instance = new AdmissionControl(0, 1, 1);
+        instance.acquire("a");
+        instance.release();
+        ServerException e = assertThrows(ServerException.class, () -> instance.acquire("a"));
+        NanoHTTPD.Response response = e.toResponse();
+        assertEquals(NanoHTTPD.Response.Status.TOO_MANY_REQUESTS, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+    }
+
+    @Test
+    public void acquireWithConcurrencyLimit() throws ServerException {
+        AdmissionControl instance = new AdmissionControl(2, 0, 1);
+        instance.acquire("a");
+        instance.acquire("b");
+        assertThrows(ServerException.class, () -> instance.acquire("c"));
+        instance.release();
+        instance.acquire("c");
+    }
+
+    @Test
+    public void acquireUnlimited() throws ServerException {
+        AdmissionControl instance = new AdmissionControl(0, 0, 1);
+        for (int i = 0; i < 1000; i++) {
+            instance.acquire("a");
+        }
+    }
+
+    @Test
+    public void startWaitingReleasesConcurrency() throws ServerException {
+        AdmissionControl instance = new AdmissionControl(1, 0, 1, 1);
+        instance.acquire("a");
+        assertTrue(instance.startWaiting());
+        assertEquals(1, instance.getWaiting());
+        instance.acquire("b");
+        instance.endWaiting();
+        assertEquals(0, instance.getWaiting());
+        instance.release();
+        instance.release();
+        instance.acquire("c");
+    }
+
+    @Test
+    public void startWaitingWithLimit() throws ServerException {
+        AdmissionControl instance = new AdmissionControl(0, 0, 1, 1);
+        assertTrue(instance.startWaiting());
+        assertFalse(instance.startWaiting());
+        instance.endWaiting();
+        assertTrue(instance.startWaiting());
+    }
+
+    @Test
+    public void startWaitingWithNone() {
+        AdmissionControl instance = new AdmissionControl(0, 0, 1, 0);
+        assertFalse(instance.startWaiting());
+        assertEquals(0, instance.getWaiting());
+    }
+}
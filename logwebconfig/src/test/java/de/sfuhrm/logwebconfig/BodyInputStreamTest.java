@@ -0,0 +1,49 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test for the {@link BodyInputStream} class.
+ * */
+public class BodyInputStreamTest {
+
+    private static InputStream connection(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void readEndsAfterBody() throws IOException {
+        InputStream connection = connection("bodyNEXT");
+        BodyInputStream instance = new BodyInputStream(connection, 4);
+        byte[] buffer = new byte[16];
+        assertEquals(4, instance.read(buffer));
+        assertEquals("body", new String(buffer, 0, 4, StandardCharsets.UTF_8));
+        assertEquals(-1, instance.read(buffer));
+        assertEquals(-1, instance.read());
+        assertEquals('N', connection.read());
+    }
+
+    @Test
+    public void readSingleBytes() throws IOException {
+        BodyInputStream instance = new BodyInputStream(connection("ab"), 1);
+        assertEquals('a', instance.read());
+        assertEquals(-1, instance.read());
+    }
+
+    @Test
+    public void readShortBody() throws IOException {
+        BodyInputStream instance = new BodyInputStream(connection("ab"), 3);
+        byte[] buffer = new byte[16];
+        assertEquals(2, instance.read(buffer));
+        assertThrows(EOFException.class, () -> instance.read(buffer));
+    }
+}
@@ -0,0 +1,78 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the {@link BridgeRegistry} class.
+ * */
+public class BridgeRegistryTest {
+
+    private static LogFrameworkBridgeProvider provider(String name, boolean available, AtomicInteger checks) {
+        return new LogFrameworkBridgeProvider() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public boolean isAvailable() {
+                checks.incrementAndGet();
+                return available;
+            }
+
+            @Override
+            public LogFrameworkBridge newBridge() {
+                return new JulBridge();
+            }
+        };
+    }
+
+    @Test
+    public void getDefault() {
+        BridgeRegistry registry = BridgeRegistry.getDefault();
+
+        assertSame(registry, BridgeRegistry.getDefault());
+        assertEquals(Arrays.asList("log4j1", "log4j2", "logback", "jul"),
+                Arrays.asList(registry.getNames().toArray()));
+        for (String name : registry.getNames()) {
+            assertTrue(registry.isAvailable(name), name);
+        }
+        assertNull(registry.find("unknown"));
+        assertFalse(registry.isAvailable("unknown"));
+    }
+
+    @Test
+    public void isAvailableCheckedOnce() {
+        AtomicInteger checks = new AtomicInteger();
+        BridgeRegistry registry = new BridgeRegistry(Arrays.asList(
+                provider("missing", false, checks)));
+
+        assertEquals(0, checks.get());
+        assertFalse(registry.isAvailable("missing"));
+        assertFalse(registry.isAvailable("missing"));
+        assertEquals(1, checks.get());
+    }
+
+    @Test
+    public void firstProviderWins() {
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+        BridgeRegistry registry = new BridgeRegistry(Arrays.asList(
+                provider("same", true, first),
+                provider("same", false, second)));
+
+        assertTrue(registry.isAvailable("same"));
+        assertEquals(0, second.get());
+    }
+
+    @Test
+    public void isPresent() {
+        assertTrue(BridgeRegistry.isPresent("java.lang.String", getClass().getClassLoader()));
+        assertFalse(BridgeRegistry.isPresent("de.sfuhrm.DoesNotExist", getClass().getClassLoader()));
+    }
+}
@@ -0,0 +1,121 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link ContextLevels} class.
+ * */
+public class ContextLevelsTest {
+
+    private TimerWheel timerWheel;
+
+    private LogFrameworkBridge bridge;
+
+    private ContextLevels instance;
+
+    @BeforeEach
+    public void init() {
+        timerWheel = new TimerWheel(10, TimeUnit.MILLISECONDS, 8, "ContextLevelsTest Timer");
+        bridge = Mockito.mock(LogFrameworkBridge.class);
+        instance = new ContextLevels(timerWheel);
+    }
+
+    @AfterEach
+    public void stop() {
+        timerWheel.stop();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Collection<ContextLevels.Rule>> handedRules(int times) {
+        ArgumentCaptor<Collection<ContextLevels.Rule>> captor = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(bridge, Mockito.times(times)).setContextRules(captor.capture());
+        List<Collection<ContextLevels.Rule>> result = new ArrayList<>();
+        for (Collection<ContextLevels.Rule> rules : captor.getAllValues()) {
+            result.add(new ArrayList<>(rules));
+        }
+        return result;
+    }
+
+    @Test
+    public void putAndList() {
+        instance.put("log4j2", bridge, "b", "tenant", "1", "DEBUG", 0);
+        instance.put("log4j2", bridge, "a", "tenant", "1", "TRACE", 0);
+
+        List<ContextLevels.Rule> rules = instance.list("log4j2");
+        assertEquals(2, rules.size());
+        assertEquals("a", rules.get(0).getLogger());
+        assertEquals("TRACE", rules.get(0).getLevel());
+        assertEquals(-1, rules.get(0).getRemainingMillis());
+        assertEquals("b", rules.get(1).getLogger());
+        assertEquals(2, handedRules(2).get(1).size());
+        assertTrue(instance.list("logback").isEmpty());
+    }
+
+    @Test
+    public void putReplacesRule() {
+        instance.put("log4j2", bridge, "a", "tenant", "1", "DEBUG", 0);
+        instance.put("log4j2", bridge, "a", "tenant", "1", "TRACE", 0);
+
+        List<ContextLevels.Rule> rules = instance.list("log4j2");
+        assertEquals(1, rules.size());
+        assertEquals("TRACE", rules.get(0).getLevel());
+    }
+
+    @Test
+    public void putRejectedByBridge() {
+        Mockito.doThrow(new IllegalArgumentException("not supported"))
+                .when(bridge).setContextRules(Mockito.anyCollection());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> instance.put("log4j1", bridge, "a", "tenant", "1", "DEBUG", 0));
+        assertTrue(instance.list("log4j1").isEmpty());
+    }
+
+    @Test
+    public void remove() {
+        instance.put("log4j2", bridge, "a", "tenant", "1", "DEBUG", 0);
+
+        assertFalse(instance.remove("log4j2", "a", "tenant", "2"));
+        assertTrue(instance.remove("log4j2", "a", "tenant", "1"));
+        assertTrue(instance.list("log4j2").isEmpty());
+        assertTrue(handedRules(2).get(1).isEmpty());
+        assertFalse(instance.remove("log4j2", "a", "tenant", "1"));
+    }
+
+    @Test
+    public void expire() throws InterruptedException {
+        ContextLevels.Rule rule = instance.put("log4j2", bridge, "a", "tenant", "1", "DEBUG", 50);
+        assertTrue(rule.getRemainingMillis() > 0);
+        assertTrue(rule.getRemainingMillis() <= 50);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!instance.list("log4j2").isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(instance.list("log4j2").isEmpty());
+        assertTrue(handedRules(2).get(1).isEmpty());
+    }
+
+    @Test
+    public void stopRemovesRules() {
+        instance.put("log4j2", bridge, "a", "tenant", "1", "DEBUG", 60000);
+
+        instance.stop();
+        assertTrue(instance.list("log4j2").isEmpty());
+        assertTrue(handedRules(2).get(1).isEmpty());
+    }
+}
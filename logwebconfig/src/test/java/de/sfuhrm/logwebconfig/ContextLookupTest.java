@@ -0,0 +1,92 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link ContextLookup} class.
+ * */
+public class ContextLookupTest {
+
+    private static ContextLevels.Rule rule(String logger, String key, String value, String level) {
+        return new ContextLevels.Rule("test", logger, key, value, level, 0);
+    }
+
+    private static int verbosity(String level) {
+        switch (level) {
+            case "INFO": return 1;
+            case "DEBUG": return 2;
+            case "TRACE": return 3;
+            default: throw new IllegalArgumentException("Level not recognized: " + level);
+        }
+    }
+
+    @Test
+    public void empty() {
+        ContextLookup instance = new ContextLookup(Collections.emptyList(), ContextLookupTest::verbosity);
+        assertTrue(instance.isEmpty());
+        assertEquals(ContextLookup.NONE, instance.find("a", key -> "x"));
+    }
+
+    @Test
+    public void findWithMatchingContext() {
+        ContextLookup instance = new ContextLookup(
+                Collections.singletonList(rule("com.acme", "tenant", "4711", "DEBUG")),
+                ContextLookupTest::verbosity);
+        assertFalse(instance.isEmpty());
+        Map<String, String> context = new HashMap<>();
+        context.put("tenant", "4711");
+        assertEquals(2, instance.find("com.acme", context::get));
+        assertEquals(2, instance.find("com.acme.Foo", context::get));
+        assertEquals(ContextLookup.NONE, instance.find("com.acmex", context::get));
+        assertEquals(ContextLookup.NONE, instance.find("com", context::get));
+    }
+
+    @Test
+    public void findWithOtherContext() {
+        ContextLookup instance = new ContextLookup(
+                Collections.singletonList(rule("com.acme", "tenant", "4711", "DEBUG")),
+                ContextLookupTest::verbosity);
+        assertEquals(ContextLookup.NONE, instance.find("com.acme", key -> "42"));
+        assertEquals(ContextLookup.NONE, instance.find("com.acme", key -> null));
+    }
+
+    @Test
+    public void findWithRootLogger() {
+        ContextLookup instance = new ContextLookup(
+                Collections.singletonList(rule("", "tenant", "4711", "DEBUG")),
+                ContextLookupTest::verbosity);
+        assertEquals(2, instance.find("any.Logger", key -> "4711"));
+    }
+
+    @Test
+    public void findReturnsFinestLevel() {
+        ContextLookup instance = new ContextLookup(Arrays.asList(
+                rule("com", "tenant", "4711", "TRACE"),
+                rule("com.acme", "tenant", "4711", "INFO"),
+                rule("com.acme", "user", "bob", "DEBUG")),
+                ContextLookupTest::verbosity);
+        Map<String, String> context = new HashMap<>();
+        context.put("tenant", "4711");
+        context.put("user", "bob");
+        assertEquals(3, instance.find("com.acme.Foo", context::get));
+        context.remove("tenant");
+        assertEquals(2, instance.find("com.acme.Foo", context::get));
+    }
+
+    @Test
+    public void constructWithIllegalLevel() {
+        assertThrows(IllegalArgumentException.class, () -> new ContextLookup(
+                Collections.singletonList(rule("com", "tenant", "4711", "NOPE")),
+                ContextLookupTest::verbosity));
+    }
+}
@@ -0,0 +1,46 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link DiscardPolicy} class.
+ * */
+public class DiscardPolicyTest {
+
+    @Test
+    public void discardsNothingByDefault() {
+        DiscardPolicy instance = new DiscardPolicy();
+        assertNull(instance.getLevel());
+        assertFalse(instance.isDiscardable(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void isDiscardable() {
+        DiscardPolicy instance = new DiscardPolicy();
+        instance.setLevel("WARN", 300);
+        assertEquals("WARN", instance.getLevel());
+        assertTrue(instance.isDiscardable(400));
+        assertFalse(instance.isDiscardable(300));
+        assertFalse(instance.isDiscardable(200));
+
+        instance.setLevel(null, 0);
+        assertNull(instance.getLevel());
+        assertFalse(instance.isDiscardable(400));
+    }
+
+    @Test
+    public void discardWhenNearlyFull() {
+        DiscardPolicy instance = new DiscardPolicy();
+        assertFalse(instance.discard(100, 100));
+        assertFalse(instance.discard(20, 100));
+        assertEquals(0, instance.getDiscarded());
+        assertTrue(instance.discard(19, 100));
+        assertTrue(instance.discard(0, 100));
+        assertEquals(2, instance.getDiscarded());
+    }
+}
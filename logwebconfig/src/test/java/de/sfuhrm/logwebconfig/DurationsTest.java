@@ -0,0 +1,34 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test for the {@link Durations} class.
+ * */
+public class DurationsTest {
+
+    @Test
+    public void parseWithUnits() {
+        assertEquals(250, Durations.parseMillis("250ms"));
+        assertEquals(30_000, Durations.parseMillis("30s"));
+        assertEquals(900_000, Durations.parseMillis("15m"));
+        assertEquals(7_200_000, Durations.parseMillis("2h"));
+        assertEquals(86_400_000, Durations.parseMillis("1d"));
+    }
+
+    @Test
+    public void parseWithoutUnit() {
+        assertEquals(5_000, Durations.parseMillis("5"));
+    }
+
+    @Test
+    public void parseIllegal() {
+        assertThrows(IllegalArgumentException.class, () -> Durations.parseMillis(""));
+        assertThrows(IllegalArgumentException.class, () -> Durations.parseMillis("m"));
+        assertThrows(IllegalArgumentException.class, () -> Durations.parseMillis("-5s"));
+        assertThrows(IllegalArgumentException.class, () -> Durations.parseMillis("5y"));
+    }
+}
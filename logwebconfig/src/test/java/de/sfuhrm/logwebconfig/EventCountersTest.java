@@ -0,0 +1,89 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link EventCounters} class.
+ * */
+public class EventCountersTest {
+
+    private EventCounters instance;
+
+    @BeforeEach
+    public void init() {
+        instance = new EventCounters();
+    }
+
+    private void increment(String logger, int level, int times) {
+        for (int i = 0; i < times; i++) {
+            instance.increment(logger, level);
+        }
+    }
+
+    @Test
+    public void listBeforeRotate() {
+        increment("foo", 3, 10);
+        assertTrue(instance.list().isEmpty());
+    }
+
+    @Test
+    public void listSortedByRate() {
+        increment("foo", 3, 10);
+        increment("bar", 1, 120);
+        increment("foo", 4, 60);
+        instance.rotate();
+
+        List<EventCounters.Rate> rates = instance.list();
+
+        assertEquals(3, rates.size());
+        assertEquals("bar", rates.get(0).getLogger());
+        assertEquals("ERROR", rates.get(0).getLevel());
+        assertEquals(120, rates.get(0).getCount());
+        assertEquals(2.0, rates.get(0).getEventsPerSecond(), 0.001);
+        assertEquals("foo", rates.get(1).getLogger());
+        assertEquals("DEBUG", rates.get(1).getLevel());
+        assertEquals("foo", rates.get(2).getLogger());
+        assertEquals("INFO", rates.get(2).getLevel());
+        assertEquals(10, rates.get(2).getCount());
+    }
+
+    @Test
+    public void windowSlides() {
+        increment("foo", 0, 5);
+        instance.rotate();
+        increment("foo", 0, 7);
+        instance.rotate();
+        assertEquals(12, instance.list().get(0).getCount());
+
+        for (int i = 0; i < EventCounters.INTERVALS - 2; i++) {
+            instance.rotate();
+        }
+        assertEquals(12, instance.list().get(0).getCount());
+
+        instance.rotate();
+        assertEquals(7, instance.list().get(0).getCount());
+
+        instance.rotate();
+        assertTrue(instance.list().isEmpty());
+    }
+
+    @Test
+    public void concurrentIncrements() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> increment("foo", 2, 10000));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        instance.rotate();
+        assertEquals(40000, instance.list().get(0).getCount());
+    }
+}
@@ -0,0 +1,70 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the {@link EventStream} class.
+ * */
+public class EventStreamTest {
+
+    private static String read(EventStream stream) throws IOException {
+        byte[] buffer = new byte[1024];
+        int read = stream.read(buffer);
+        if (read == -1) {
+            return null;
+        }
+        return new String(buffer, 0, read, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void readReturnsAvailableEvents() throws IOException {
+        LevelEvents events = new LevelEvents(4);
+        events.publish("log4j2", "foo", "INFO", "DEBUG");
+        events.publish("log4j2", "bar", "WARN", "ERROR");
+        EventStream instance = new EventStream(events, 0, 10000);
+
+        String text = read(instance);
+
+        assertTrue(text.startsWith("id: 0\nevent: level\ndata: log4j2\tfoo\tINFO\tDEBUG\t"), text);
+        assertTrue(text.contains("\n\nid: 1\nevent: level\ndata: log4j2\tbar\tWARN\tERROR\t"), text);
+        assertTrue(text.endsWith("Z\n\n"), text);
+    }
+
+    @Test
+    public void readSendsHeartbeat() throws IOException {
+        EventStream instance = new EventStream(new LevelEvents(4), 0, 50);
+        assertEquals(": keep-alive\n\n", read(instance));
+    }
+
+    @Test
+    public void readEndsWhenLagged() throws IOException {
+        LevelEvents events = new LevelEvents(2);
+        EventStream instance = new EventStream(events, 0, 10000);
+        for (int i = 0; i < 3; i++) {
+            events.publish("log4j2", "foo" + i, "INFO", "DEBUG");
+        }
+        assertEquals("event: lagged\ndata: 0\n\n", read(instance));
+        assertNull(read(instance));
+    }
+
+    @Test
+    public void readEndsWhenClosed() throws IOException {
+        LevelEvents events = new LevelEvents(2);
+        events.close();
+        assertNull(read(new EventStream(events, 0, 10000)));
+    }
+
+    @Test
+    public void closeRunsCallbackOnce() {
+        int[] calls = new int[1];
+        EventStream instance = new EventStream(new LevelEvents(2), 0, 10000, () -> calls[0]++);
+        instance.close();
+        instance.close();
+        assertEquals(1, calls[0]);
+    }
+}
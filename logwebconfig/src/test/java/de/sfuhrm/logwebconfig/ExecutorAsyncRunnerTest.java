@@ -0,0 +1,83 @@
+package de.sfuhrm.logwebconfig;
+
+import fi.iki.elonen.NanoHTTPD;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test for the {@link ExecutorAsyncRunner} class.
+ * */
+public class ExecutorAsyncRunnerTest {
+
+    @Test
+    public void execAndClosed() {
+        ExecutorService executorService = Mockito.mock(ExecutorService.class);
+        NanoHTTPD.ClientHandler clientHandler = Mockito.mock(NanoHTTPD.ClientHandler.class);
+        ExecutorAsyncRunner instance = new ExecutorAsyncRunner(executorService);
+
+        instance.exec(clientHandler);
+        Mockito.verify(executorService).execute(clientHandler);
+        assertEquals(1, instance.getRunningCount());
+
+        instance.closed(clientHandler);
+        assertEquals(0, instance.getRunningCount());
+    }
+
+    @Test
+    public void execWithRejection() {
+        ExecutorService executorService = Mockito.mock(ExecutorService.class);
+        NanoHTTPD.ClientHandler clientHandler = Mockito.mock(NanoHTTPD.ClientHandler.class);
+        Mockito.doThrow(new RejectedExecutionException()).when(executorService).execute(clientHandler);
+        ExecutorAsyncRunner instance = new ExecutorAsyncRunner(executorService);
+
+        instance.exec(clientHandler);
+
+        Mockito.verify(clientHandler).close();
+        assertEquals(0, instance.getRunningCount());
+    }
+
+    @Test
+    public void closeAll() {
+        ExecutorService executorService = Mockito.mock(ExecutorService.class);
+        NanoHTTPD.ClientHandler clientHandler = Mockito.mock(NanoHTTPD.ClientHandler.class);
+        ExecutorAsyncRunner instance = new ExecutorAsyncRunner(executorService);
+        instance.exec(clientHandler);
+
+        instance.closeAll();
+
+        Mockito.verify(executorService).shutdownNow();
+        Mockito.verify(clientHandler).close();
+    }
+
+    @Test
+    public void executionModesServeRequests() throws Exception {
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            Server server = new Server(null, 9998, false);
+            server.setAsyncRunner(mode.newAsyncRunner(2, 2));
+            server.start(1000, true);
+            try {
+                HttpURLConnection connection = (HttpURLConnection)
+                        new URL("http://localhost:9998/log4j2/levels").openConnection();
+                assertEquals(405, connection.getResponseCode(), mode.name());
+                connection.disconnect();
+            } finally {
+                server.stop();
+            }
+        }
+    }
+
+    @Test
+    public void limitWaiting() {
+        assertEquals(64, ExecutionMode.THREAD.limitWaiting(4, 64));
+        assertEquals(3, ExecutionMode.POOL.limitWaiting(4, 64));
+        assertEquals(2, ExecutionMode.POOL.limitWaiting(4, 2));
+        assertEquals(0, ExecutionMode.SINGLE.limitWaiting(4, 64));
+    }
+}
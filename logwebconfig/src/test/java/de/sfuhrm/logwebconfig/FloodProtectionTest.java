@@ -0,0 +1,172 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link FloodProtection} class.
+ * */
+public class FloodProtectionTest {
+
+    private TimerWheel timerWheel;
+
+    private LevelOverrides levelOverrides;
+
+    private EventCounters counters;
+
+    private LogFrameworkBridge bridge;
+
+    private LogFrameworkBridge.LoggerResource resource;
+
+    @BeforeEach
+    public void init() {
+        timerWheel = new TimerWheel(10, TimeUnit.MILLISECONDS, 8, "FloodProtectionTest Timer");
+        levelOverrides = new LevelOverrides(timerWheel);
+        counters = new EventCounters();
+        bridge = Mockito.mock(LogFrameworkBridge.class);
+        resource = Mockito.mock(LogFrameworkBridge.LoggerResource.class);
+        Mockito.when(resource.getName()).thenReturn("foo");
+        Mockito.lenient().when(resource.getConfiguredLevel()).thenReturn("DEBUG");
+        Mockito.lenient().when(resource.getEffectiveLevel()).thenReturn("DEBUG");
+        Mockito.lenient().when(bridge.createLoggerResource("foo")).thenReturn(resource);
+        Mockito.lenient().when(bridge.toFrameworkLevel(Mockito.anyString())).thenAnswer(i -> i.getArgument(0));
+    }
+
+    @AfterEach
+    public void stop() {
+        levelOverrides.stop();
+        timerWheel.stop();
+    }
+
+    private void count(int level, int times) {
+        for (int i = 0; i < times; i++) {
+            counters.increment("foo", level);
+        }
+    }
+
+    @Test
+    public void underLimit() {
+        FloodProtection instance = new FloodProtection(10, 60000, levelOverrides);
+        count(3, 100);
+        counters.rotate();
+
+        instance.check("log4j2", bridge, counters);
+
+        Mockito.verify(resource, Mockito.never()).setLevel(Mockito.anyString());
+        assertTrue(instance.trips("log4j2", "foo").isEmpty());
+        assertNull(instance.getOpenOverride("log4j2", "foo"));
+    }
+
+    @Test
+    public void tripRaisesAboveFloodingLevel() {
+        FloodProtection instance = new FloodProtection(10, 60000, levelOverrides);
+        count(1, 5);
+        count(3, 500);
+        counters.rotate();
+
+        instance.check("log4j2", bridge, counters);
+
+        Mockito.verify(resource).setLevel("WARN");
+        List<FloodProtection.Trip> trips = instance.trips("log4j2", "foo");
+        assertEquals(1, trips.size());
+        assertEquals("DEBUG", trips.get(0).getPreviousLevel());
+        assertEquals("WARN", trips.get(0).getLevel());
+        assertEquals(50.5, trips.get(0).getEventsPerSecond(), 0.001);
+        assertNotNull(instance.getOpenOverride("log4j2", "foo"));
+    }
+
+    @Test
+    public void tripOfMostSevereLevel() {
+        FloodProtection instance = new FloodProtection(10, 60000, levelOverrides);
+        count(0, 500);
+        counters.rotate();
+
+        instance.check("log4j2", bridge, counters);
+
+        Mockito.verify(resource).setLevel("OFF");
+    }
+
+    @Test
+    public void sameIntervalTripsOnce() {
+        FloodProtection instance = new FloodProtection(10, 60000, levelOverrides);
+        count(4, 500);
+        counters.rotate();
+
+        instance.check("log4j2", bridge, counters);
+        instance.check("log4j2", bridge, counters);
+
+        Mockito.verify(resource).setLevel("INFO");
+        assertEquals(1, instance.trips("log4j2", "foo").size());
+    }
+
+    @Test
+    public void manualChangeClosesBreaker() {
+        FloodProtection instance = new FloodProtection(10, 60000, levelOverrides);
+        count(4, 500);
+        counters.rotate();
+        instance.check("log4j2", bridge, counters);
+
+        levelOverrides.apply("log4j2", Collections.emptyList(), "foo"::equals, () -> resource.setLevel("TRACE"));
+
+        assertNull(instance.getOpenOverride("log4j2", "foo"));
+        assertEquals(1, instance.trips("log4j2", "foo").size());
+    }
+
+    @Test
+    public void coolDownRestoresLevel() {
+        FloodProtection instance = new FloodProtection(10, 50, levelOverrides);
+        count(4, 500);
+        counters.rotate();
+
+        instance.check("log4j2", bridge, counters);
+
+        Mockito.verify(resource).setLevel("INFO");
+        Mockito.verify(resource, Mockito.timeout(5000)).setLevel("DEBUG");
+        assertNull(instance.getOpenOverride("log4j2", "foo"));
+    }
+
+    @Test
+    public void tripWithJul() {
+        FloodProtection instance = new FloodProtection(10, 60000, levelOverrides);
+        java.util.logging.Logger logger = java.util.logging.Logger.getLogger("de.sfuhrm.flood.jul");
+        logger.setLevel(java.util.logging.Level.FINE);
+        for (int i = 0; i < 500; i++) {
+            counters.increment("de.sfuhrm.flood.jul", 3);
+        }
+        counters.rotate();
+
+        instance.check("jul", new JulBridge(), counters);
+
+        assertEquals(java.util.logging.Level.WARNING, logger.getLevel());
+        assertEquals("WARNING", instance.trips("jul", "de.sfuhrm.flood.jul").get(0).getLevel());
+    }
+
+    @Test
+    public void tripWithLogback() {
+        FloodProtection instance = new FloodProtection(10, 60000, levelOverrides);
+        ch.qos.logback.classic.Logger logger = (ch.qos.logback.classic.Logger)
+                LoggerFactory.getLogger("de.sfuhrm.flood.logback");
+        logger.setLevel(ch.qos.logback.classic.Level.DEBUG);
+        for (int i = 0; i < 500; i++) {
+            counters.increment("de.sfuhrm.flood.logback", 1);
+        }
+        counters.rotate();
+
+        instance.check("logback", new LogbackBridge(), counters);
+
+        assertEquals(ch.qos.logback.classic.Level.OFF, logger.getLevel());
+        assertEquals("OFF", instance.trips("logback", "de.sfuhrm.flood.logback").get(0).getLevel());
+    }
+}
@@ -0,0 +1,54 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link Generation} class.
+ * */
+public class GenerationTest {
+
+    @Test
+    public void increment() {
+        Generation instance = new Generation();
+        assertEquals(0, instance.get());
+        instance.increment();
+        assertEquals(1, instance.get());
+    }
+
+    @Test
+    public void awaitReturnsOnChange() throws InterruptedException {
+        Generation instance = new Generation();
+        Thread changer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return;
+            }
+            instance.increment();
+        });
+        changer.start();
+
+        long start = System.nanoTime();
+        assertEquals(1, instance.await(0, 10000));
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        changer.join();
+    }
+
+    @Test
+    public void awaitReturnsOnTimeout() throws InterruptedException {
+        Generation instance = new Generation();
+        long start = System.nanoTime();
+        assertEquals(0, instance.await(0, 100));
+        assertTrue(System.nanoTime() - start >= 100_000_000L);
+    }
+
+    @Test
+    public void awaitReturnsIfAlreadyChanged() throws InterruptedException {
+        Generation instance = new Generation();
+        instance.increment();
+        assertEquals(1, instance.await(0, 10000));
+    }
+}
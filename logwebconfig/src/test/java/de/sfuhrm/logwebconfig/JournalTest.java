@@ -0,0 +1,162 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the {@link Journal} class.
+ * */
+public class JournalTest {
+
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("journal");
+        file = directory.resolve("journal.txt");
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+        Files.delete(directory);
+    }
+
+    private static String toString(Journal.Record record) {
+        return record.getFramework() + "/" + record.getLogger() + "="
+                + record.getLevel() + (record.isRecursive() ? "+" : "");
+    }
+
+    @Test
+    public void openWithoutFile() throws IOException {
+        Journal journal = new Journal(file);
+        assertTrue(journal.open().isEmpty());
+        journal.close();
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    public void appendAndReopen() throws IOException {
+        Journal journal = new Journal(file);
+        journal.open();
+        journal.append(new Journal.Record("log4j2", "a", "DEBUG", false));
+        journal.append(new Journal.Record("log4j2", "", "WARN", true));
+        journal.append(new Journal.Record("log4j1", "b", "INFO@10/s", false));
+        journal.close();
+
+        List<Journal.Record> records = new Journal(file).open();
+        assertEquals(3, records.size());
+        assertEquals("log4j2/a=DEBUG", toString(records.get(0)));
+        assertEquals("log4j2/=WARN+", toString(records.get(1)));
+        assertEquals("log4j1/b=INFO@10/s", toString(records.get(2)));
+    }
+
+    @Test
+    public void openCompacts() throws IOException {
+        Files.write(file, Arrays.asList(
+                "log4j2\ta\tDEBUG",
+                "log4j2\tb\tINFO",
+                "log4j2\ta\tWARN",
+                "log4j1\ta\tERROR"));
+
+        Journal journal = new Journal(file);
+        List<Journal.Record> records = journal.open();
+        journal.close();
+
+        assertEquals(3, records.size());
+        assertEquals("log4j2/b=INFO", toString(records.get(0)));
+        assertEquals("log4j2/a=WARN", toString(records.get(1)));
+        assertEquals("log4j1/a=ERROR", toString(records.get(2)));
+        assertEquals(Arrays.asList(
+                "log4j2\tb\tINFO",
+                "log4j2\ta\tWARN",
+                "log4j1\ta\tERROR"),
+                Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void readSkipsMalformedLines() throws IOException {
+        Files.write(file, ("log4j2\ta\tDEBUG\n"
+                + "garbage\n"
+                + "log4j2\tb\tINFO\tsomething\n"
+                + "log4j2\tc\tTR").getBytes(StandardCharsets.UTF_8));
+
+        List<Journal.Record> records = Journal.read(file);
+
+        assertEquals(1, records.size());
+        assertEquals("log4j2/a=DEBUG", toString(records.get(0)));
+    }
+
+    @Test
+    public void readLinesCrossingBlocks() throws IOException {
+        StringBuilder content = new StringBuilder();
+        int count = 10000;
+        for (int i = 0; i < count; i++) {
+            content.append("log4j2\tlogger.number").append(i).append("\tDEBUG\n");
+        }
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<Journal.Record> records = Journal.read(file);
+
+        assertEquals(count, records.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("log4j2/logger.number" + i + "=DEBUG", toString(records.get(i)));
+        }
+    }
+
+    @Test
+    public void appendEscapesFields() throws IOException {
+        Journal journal = new Journal(file);
+        journal.open();
+        journal.append(new Journal.Record("log4j2", "a\tDEBUG\nlog4j2\tb", "INFO", false));
+        journal.append(new Journal.Record("log4j2", "c\\t\r", "WARN", true));
+        journal.close();
+
+        assertEquals(2, Files.readAllLines(file).size());
+        List<Journal.Record> records = new Journal(file).open();
+        assertEquals(2, records.size());
+        assertEquals("log4j2/a\tDEBUG\nlog4j2\tb=INFO", toString(records.get(0)));
+        assertEquals("log4j2/c\\t\r=WARN+", toString(records.get(1)));
+    }
+
+    @Test
+    public void readSkipsMalformedEscapes() throws IOException {
+        Files.write(file, ("log4j2\ta\\x\tDEBUG\n"
+                + "log4j2\tb\\\tINFO\n"
+                + "log4j2\tc\\\\\tWARN\n").getBytes(StandardCharsets.UTF_8));
+
+        List<Journal.Record> records = Journal.read(file);
+
+        assertEquals(1, records.size());
+        assertEquals("log4j2/c\\=WARN", toString(records.get(0)));
+    }
+
+    @Test
+    public void appendWhenNotOpen() {
+        Journal journal = new Journal(file);
+        assertThrows(IllegalStateException.class, () ->
+                journal.append(new Journal.Record("log4j2", "a", "DEBUG", false)));
+    }
+
+    @Test
+    public void openTwice() throws IOException {
+        Journal journal = new Journal(file);
+        journal.open();
+        try {
+            assertThrows(IllegalStateException.class, journal::open);
+        } finally {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the {@link JulBridge} class.
+ * */
+public class JulBridgeTest {
+
+    private JulBridge instance;
+
+    @BeforeEach
+    public void init() {
+        instance = new JulBridge();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        instance.stopEventCounting();
+    }
+
+    @Test
+    public void getLevelWithNamedLogger() {
+        Logger logger = Logger.getLogger("de.sfuhrm.jul.get");
+        logger.setLevel(Level.FINE);
+
+        LogFrameworkBridge.LoggerResource resource = instance.findLoggerResource("de.sfuhrm.jul.get").get();
+
+        assertEquals("FINE", resource.getLevel());
+        assertEquals("FINE", resource.getConfiguredLevel());
+        assertEquals("de.sfuhrm.jul.get", resource.getName());
+    }
+
+    @Test
+    public void getLevelInherited() {
+        Logger parent = Logger.getLogger("de.sfuhrm.jul.inherit");
+        parent.setLevel(Level.WARNING);
+        Logger child = Logger.getLogger("de.sfuhrm.jul.inherit.Child");
+
+        LogFrameworkBridge.LoggerResource resource = instance.findLoggerResource("de.sfuhrm.jul.inherit.Child").get();
+
+        assertEquals("WARNING", resource.getLevel());
+        assertNull(resource.getConfiguredLevel());
+        assertNotNull(child);
+    }
+
+    @Test
+    public void findUnknownLogger() {
+        assertFalse(instance.findLoggerResource("de.sfuhrm.jul.unknown").isPresent());
+    }
+
+    @Test
+    public void rootLogger() {
+        LogFrameworkBridge.LoggerResource resource = instance.findLoggerResource("").get();
+        assertEquals("", resource.getName());
+        assertEquals(LogManager.getLogManager().getLogger("").getLevel().getName(), resource.getLevel());
+    }
+
+    @Test
+    public void createAndSetLevel() {
+        LogFrameworkBridge.LoggerResource resource = instance.createLoggerResource("de.sfuhrm.jul.created");
+
+        resource.setLevel("finest");
+        System.gc();
+
+        assertEquals(Level.FINEST, Logger.getLogger("de.sfuhrm.jul.created").getLevel());
+    }
+
+    @Test
+    public void setLevelWithWrongLevelName() {
+        LogFrameworkBridge.LoggerResource resource = instance.createLoggerResource("de.sfuhrm.jul.wrong");
+        assertThrows(IllegalArgumentException.class, () -> resource.setLevel("Schnitlauch"));
+    }
+
+    @Test
+    public void setSampledLevel() {
+        LogFrameworkBridge.LoggerResource resource = instance.createLoggerResource("de.sfuhrm.jul.sampled");
+        assertThrows(IllegalArgumentException.class, () -> resource.setSampledLevel("FINE", 5));
+        assertEquals(0, resource.getSampleRate());
+    }
+
+    @Test
+    public void setLevels() {
+        Map<String, String> levels = new HashMap<>();
+        levels.put("de.sfuhrm.jul.levels.a", "FINE");
+        levels.put("de.sfuhrm.jul.levels.b", "SEVERE");
+
+        instance.setLevels(levels);
+
+        assertEquals(Level.FINE, Logger.getLogger("de.sfuhrm.jul.levels.a").getLevel());
+        assertEquals(Level.SEVERE, Logger.getLogger("de.sfuhrm.jul.levels.b").getLevel());
+    }
+
+    @Test
+    public void setLevelsWithWrongLevelName() {
+        Map<String, String> levels = new HashMap<>();
+        levels.put("de.sfuhrm.jul.levelsWrong.a", "FINE");
+        levels.put("de.sfuhrm.jul.levelsWrong.b", "Schnitlauch");
+
+        assertThrows(IllegalArgumentException.class, () -> instance.setLevels(levels));
+        assertNull(LogManager.getLogManager().getLogger("de.sfuhrm.jul.levelsWrong.a"));
+    }
+
+    @Test
+    public void streamLoggerResources() {
+        Logger logger = Logger.getLogger("de.sfuhrm.jul.stream");
+
+        List<String> names = instance.streamLoggerResources()
+                .map(LogFrameworkBridge.LoggerResource::getName)
+                .collect(Collectors.toList());
+
+        assertEquals("", names.get(0));
+        assertTrue(names.contains("de.sfuhrm.jul.stream"));
+        assertEquals(1, names.stream().filter(String::isEmpty).count());
+        assertNotNull(logger);
+    }
+
+    @Test
+    public void eventCounting() {
+        Logger logger = Logger.getLogger("de.sfuhrm.jul.counted");
+        logger.setLevel(Level.INFO);
+        EventCounters counters = new EventCounters();
+        instance.startEventCounting(counters);
+
+        for (int i = 0; i < 3; i++) {
+            logger.info("counted");
+            logger.fine("below level");
+        }
+        logger.severe("counted");
+        counters.rotate();
+
+        List<EventCounters.Rate> rates = counters.list();
+        assertEquals(2, rates.size());
+        assertEquals("de.sfuhrm.jul.counted", rates.get(0).getLogger());
+        assertEquals("INFO", rates.get(0).getLevel());
+        assertEquals(3, rates.get(0).getCount());
+        assertEquals("ERROR", rates.get(1).getLevel());
+        assertEquals(1, rates.get(1).getCount());
+    }
+
+    @Test
+    public void levelIndex() {
+        assertEquals(1, JulEventCounting.levelIndex(Level.SEVERE));
+        assertEquals(3, JulEventCounting.levelIndex(Level.INFO));
+        assertEquals(4, JulEventCounting.levelIndex(Level.CONFIG));
+        assertEquals(5, JulEventCounting.levelIndex(Level.FINER));
+        assertEquals(5, JulEventCounting.levelIndex(Level.ALL));
+    }
+}
@@ -0,0 +1,91 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the {@link LevelEvents} class.
+ * */
+public class LevelEventsTest {
+
+    @Test
+    public void publishAndTake() throws InterruptedException {
+        LevelEvents instance = new LevelEvents(4);
+        instance.publish("log4j2", "foo", "INFO", "DEBUG");
+
+        LevelEvents.Event event = instance.take(0, 0);
+        assertEquals(0, event.getId());
+        assertEquals("log4j2", event.getFramework());
+        assertEquals("foo", event.getLogger());
+        assertEquals("INFO", event.getOldLevel());
+        assertEquals("DEBUG", event.getNewLevel());
+        assertTrue(event.getTime() > 0);
+        assertNull(instance.take(1, 0));
+    }
+
+    @Test
+    public void publishWithoutChange() {
+        LevelEvents instance = new LevelEvents(4);
+        instance.publish("log4j2", "foo", "INFO", "INFO");
+        assertEquals(0, instance.nextId());
+    }
+
+    @Test
+    public void takeWaits() throws InterruptedException {
+        LevelEvents instance = new LevelEvents(4);
+        Thread publisher = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return;
+            }
+            instance.publish("log4j2", "foo", "INFO", "DEBUG");
+        });
+        publisher.start();
+
+        assertEquals("foo", instance.take(0, 10000).getLogger());
+        publisher.join();
+    }
+
+    @Test
+    public void takeLost() throws InterruptedException {
+        LevelEvents instance = new LevelEvents(2);
+        for (int i = 0; i < 3; i++) {
+            instance.publish("log4j2", "foo" + i, "INFO", "DEBUG");
+        }
+        assertTrue(instance.isLost(0));
+        assertNull(instance.take(0, 0));
+        assertFalse(instance.isLost(1));
+        assertEquals("foo1", instance.take(1, 0).getLogger());
+    }
+
+    @Test
+    public void closeEndsWaiting() throws InterruptedException {
+        LevelEvents instance = new LevelEvents(2);
+        Thread closer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return;
+            }
+            instance.close();
+        });
+        closer.start();
+
+        long start = System.nanoTime();
+        assertNull(instance.take(0, 10000));
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertTrue(instance.isClosed());
+        closer.join();
+    }
+
+    @Test
+    public void levelOfSampled() {
+        LogFrameworkBridge.LoggerResource resource = Mockito.mock(LogFrameworkBridge.LoggerResource.class);
+        Mockito.when(resource.getLevel()).thenReturn("DEBUG");
+        Mockito.when(resource.getSampleRate()).thenReturn(200);
+        assertEquals("DEBUG@200/s", LevelEvents.levelOf(resource));
+    }
+}
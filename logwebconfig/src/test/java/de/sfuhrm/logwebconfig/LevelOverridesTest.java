@@ -0,0 +1,187 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link LevelOverrides} class.
+ * */
+public class LevelOverridesTest {
+
+    private TimerWheel timerWheel;
+
+    private Generation generation;
+
+    private LevelEvents events;
+
+    private LevelOverrides instance;
+
+    @BeforeEach
+    public void init() {
+        timerWheel = new TimerWheel(10, TimeUnit.MILLISECONDS, 8, "LevelOverridesTest Timer");
+        generation = new Generation();
+        events = new LevelEvents(16);
+        instance = new LevelOverrides(timerWheel, generation, events);
+    }
+
+    @AfterEach
+    public void stop() {
+        instance.stop();
+        timerWheel.stop();
+    }
+
+    private LogFrameworkBridge.LoggerResource resource(String name, String configured, String effective) {
+        LogFrameworkBridge.LoggerResource resource = Mockito.mock(LogFrameworkBridge.LoggerResource.class);
+        Mockito.when(resource.getName()).thenReturn(name);
+        Mockito.when(resource.getConfiguredLevel()).thenReturn(configured);
+        Mockito.lenient().when(resource.getEffectiveLevel()).thenReturn(effective);
+        return resource;
+    }
+
+    @Test
+    public void overrideExpires() {
+        LogFrameworkBridge.LoggerResource resource = resource("foo", "INFO", "INFO");
+        instance.override("log4j2", resource, "DEBUG", 50);
+        Mockito.verify(resource).setLevel("DEBUG");
+        assertEquals(1, instance.list("log4j2").size());
+
+        Mockito.verify(resource, Mockito.timeout(5000)).setLevel("INFO");
+        assertTrue(instance.list("log4j2").isEmpty());
+    }
+
+    @Test
+    public void overrideOfInheritedLevel() {
+        LogFrameworkBridge.LoggerResource resource = resource("foo", null, "WARN");
+        instance.override("log4j2", resource, "DEBUG", 50);
+        assertNull(instance.list("log4j2").get(0).getPreviousLevel());
+
+        Mockito.verify(resource, Mockito.timeout(5000)).clearLevel();
+        Mockito.verify(resource, Mockito.never()).setLevel("WARN");
+    }
+
+    @Test
+    public void revertOfInheritedLevel() {
+        LogFrameworkBridge.LoggerResource resource = resource("foo", null, "WARN");
+        instance.override("log4j2", resource, "DEBUG", 60_000);
+
+        assertTrue(instance.revert("log4j2", "foo"));
+        Mockito.verify(resource).clearLevel();
+    }
+
+    @Test
+    public void overrideTwiceKeepsFirstPreviousLevel() {
+        LogFrameworkBridge.LoggerResource resource = resource("foo", "INFO", "INFO");
+        instance.override("log4j2", resource, "DEBUG", 60_000);
+        Mockito.when(resource.getConfiguredLevel()).thenReturn("DEBUG");
+        instance.override("log4j2", resource, "TRACE", 60_000);
+
+        List<LevelOverrides.Entry> entries = instance.list("log4j2");
+        assertEquals(1, entries.size());
+        assertEquals("TRACE", entries.get(0).getLevel());
+        assertEquals("INFO", entries.get(0).getPreviousLevel());
+    }
+
+    @Test
+    public void revert() {
+        LogFrameworkBridge.LoggerResource resource = resource("foo", "INFO", "INFO");
+        instance.override("log4j2", resource, "DEBUG", 60_000);
+
+        assertTrue(instance.revert("log4j2", "foo"));
+        Mockito.verify(resource).setLevel("INFO");
+        assertFalse(instance.revert("log4j2", "foo"));
+        assertTrue(instance.list("log4j2").isEmpty());
+    }
+
+    @Test
+    public void applyDropsOverride() throws InterruptedException {
+        LogFrameworkBridge.LoggerResource resource = resource("foo", "INFO", "INFO");
+        instance.override("log4j2", resource, "DEBUG", 500);
+        Runnable change = Mockito.mock(Runnable.class);
+
+        instance.apply("log4j2", Collections.emptyList(), "foo"::equals, change);
+
+        Mockito.verify(change).run();
+        assertTrue(instance.list("log4j2").isEmpty());
+        Thread.sleep(1000);
+        Mockito.verify(resource, Mockito.never()).setLevel("INFO");
+    }
+
+    @Test
+    public void listIsPerFramework() {
+        instance.override("log4j1", resource("foo", "INFO", "INFO"), "DEBUG", 60_000);
+        instance.override("log4j2", resource("foo", "INFO", "INFO"), "DEBUG", 60_000);
+        assertEquals(1, instance.list("log4j1").size());
+        assertEquals(1, instance.list("log4j2").size());
+    }
+
+    @Test
+    public void stopRestores() {
+        LogFrameworkBridge.LoggerResource resource = resource("foo", "INFO", "INFO");
+        instance.override("log4j2", resource, "DEBUG", 60_000);
+        instance.stop();
+        Mockito.verify(resource).setLevel("INFO");
+    }
+
+    @Test
+    public void changesIncrementGeneration() throws InterruptedException {
+        LogFrameworkBridge.LoggerResource resource = resource("foo", "INFO", "INFO");
+        instance.override("log4j2", resource, "DEBUG", 50);
+        assertEquals(1, generation.get());
+
+        assertEquals(2, generation.await(1, 5000));
+
+        instance.apply("log4j2", Collections.emptyList(), "foo"::equals, () -> { });
+        assertEquals(3, generation.get());
+    }
+
+    @Test
+    public void failedChangeKeepsGeneration() {
+        assertThrows(IllegalArgumentException.class, () -> instance.apply("log4j2", Collections.emptyList(), "foo"::equals, () -> {
+            throw new IllegalArgumentException();
+        }));
+        assertEquals(0, generation.get());
+    }
+
+    @Test
+    public void changesArePublished() throws InterruptedException {
+        LogFrameworkBridge.LoggerResource resource = resource("foo", "INFO", "INFO");
+        Mockito.when(resource.getLevel()).thenReturn("INFO", "DEBUG", "DEBUG", "INFO");
+        instance.override("log4j2", resource, "DEBUG", 50);
+
+        LevelEvents.Event set = events.take(0, 0);
+        assertEquals("log4j2", set.getFramework());
+        assertEquals("foo", set.getLogger());
+        assertEquals("INFO", set.getOldLevel());
+        assertEquals("DEBUG", set.getNewLevel());
+
+        LevelEvents.Event expired = events.take(1, 5000);
+        assertEquals("DEBUG", expired.getOldLevel());
+        assertEquals("INFO", expired.getNewLevel());
+    }
+
+    @Test
+    public void applyPublishesNamedLoggers() throws InterruptedException {
+        LogFrameworkBridge.LoggerResource foo = resource("foo", "INFO", "INFO");
+        LogFrameworkBridge.LoggerResource bar = resource("bar", "INFO", "INFO");
+        Mockito.when(foo.getLevel()).thenReturn("INFO", "WARN");
+        Mockito.when(bar.getLevel()).thenReturn("INFO", "INFO");
+
+        instance.apply("log4j2", Arrays.asList(foo, bar), name -> true, () -> { });
+
+        assertEquals(1, events.nextId());
+        assertEquals("foo", events.take(0, 0).getLogger());
+    }
+}
@@ -0,0 +1,59 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test for the {@link LevelSnapshot} class.
+ * */
+public class LevelSnapshotTest {
+
+    private static Map<String, String> map(String... namesAndLevels) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndLevels.length; i += 2) {
+            result.put(namesAndLevels[i], namesAndLevels[i + 1]);
+        }
+        return result;
+    }
+
+    @Test
+    public void changesWithSameState() {
+        Map<String, String> state = map("", "ERROR", "a", "INFO");
+        assertEquals(Collections.emptyMap(),
+                LevelSnapshot.changes(state, new HashMap<>(state)));
+    }
+
+    @Test
+    public void changesRestoresLevels() {
+        assertEquals(map("", "ERROR", "a", "INFO"),
+                LevelSnapshot.changes(
+                        map("", "ERROR", "a", "info", "b", "WARN"),
+                        map("", "DEBUG", "a", "TRACE", "b", "WARN")));
+    }
+
+    @Test
+    public void changesWithLoggerConfiguredLater() {
+        assertEquals(map("a.b.c", "INFO", "x", "ERROR"),
+                LevelSnapshot.changes(
+                        map("", "ERROR", "a", "INFO"),
+                        map("", "ERROR", "a", "INFO",
+                                "a.b.c", "DEBUG", "x", "DEBUG",
+                                "a.y", "INFO")));
+    }
+
+    @Test
+    public void inherited() {
+        Map<String, String> snapshot = map("a", "INFO", "a.b.c", "WARN");
+        assertEquals("INFO", LevelSnapshot.inherited("a.b", snapshot, "X"));
+        assertEquals("WARN",
+                LevelSnapshot.inherited("a.b.c.d", snapshot, "X"));
+        assertEquals("X", LevelSnapshot.inherited("b", snapshot, "X"));
+        assertEquals("X", LevelSnapshot.inherited("", snapshot, "X"));
+    }
+}
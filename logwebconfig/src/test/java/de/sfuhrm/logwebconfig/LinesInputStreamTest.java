@@ -0,0 +1,55 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test for the {@link LinesInputStream} class.
+ * */
+public class LinesInputStreamTest {
+
+    private static String readAll(InputStream inputStream, int bufferSize) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[bufferSize];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void readWithLargeBuffer() throws IOException {
+        LinesInputStream instance = new LinesInputStream(Arrays.asList("foo", "", "bär").iterator());
+        assertEquals("foo\n\nbär\n", readAll(instance, 1024));
+    }
+
+    @Test
+    public void readWithSmallBuffer() throws IOException {
+        LinesInputStream instance = new LinesInputStream(Arrays.asList("foo", "bar").iterator());
+        assertEquals("foo\nbar\n", readAll(instance, 3));
+    }
+
+    @Test
+    public void readSingleBytes() throws IOException {
+        LinesInputStream instance = new LinesInputStream(Collections.singletonList("ab").iterator());
+        assertEquals('a', instance.read());
+        assertEquals('b', instance.read());
+        assertEquals('\n', instance.read());
+        assertEquals(-1, instance.read());
+    }
+
+    @Test
+    public void readEmpty() throws IOException {
+        LinesInputStream instance = new LinesInputStream(Collections.emptyIterator());
+        assertEquals(-1, instance.read(new byte[10]));
+    }
+}
@@ -0,0 +1,110 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.MemoryMappedFileAppender;
+import org.apache.logging.log4j.core.appender.RandomAccessFileAppender;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link Log4J2AppenderResource} class.
+ * */
+public class Log4J2AppenderResourceTest {
+
+    private LoggerContext context;
+
+    private Path randomAccessFile;
+
+    private Path memoryMappedFile;
+
+    private RandomAccessFileAppender randomAccessAppender;
+
+    private MemoryMappedFileAppender memoryMappedAppender;
+
+    @BeforeEach
+    public void init() throws IOException {
+        context = LoggerContext.getContext(Log4J2Bridge.class.getClassLoader(), false, null);
+        Configuration configuration = context.getConfiguration();
+        randomAccessFile = Files.createTempFile("logwebconfig", ".log");
+        memoryMappedFile = Files.createTempFile("logwebconfig", ".log");
+        randomAccessAppender = RandomAccessFileAppender.newBuilder()
+                .withName("de.sfuhrm.raf")
+                .setFileName(randomAccessFile.toString())
+                .withImmediateFlush(false)
+                .withBufferSize(1024)
+                .setConfiguration(configuration)
+                .build();
+        memoryMappedAppender = MemoryMappedFileAppender.newBuilder()
+                .withName("de.sfuhrm.mmap")
+                .setFileName(memoryMappedFile.toString())
+                .setRegionLength(4096)
+                .setConfiguration(configuration)
+                .build();
+        configuration.addAppender(randomAccessAppender);
+        configuration.addAppender(memoryMappedAppender);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        context.getConfiguration().getAppenders().remove(randomAccessAppender.getName());
+        context.getConfiguration().getAppenders().remove(memoryMappedAppender.getName());
+        randomAccessAppender.stop();
+        memoryMappedAppender.stop();
+        Files.deleteIfExists(randomAccessFile);
+        Files.deleteIfExists(memoryMappedFile);
+    }
+
+    @Test
+    public void findWithRandomAccessFile() {
+        LogFrameworkBridge.AppenderResource appender =
+                Log4J2AppenderResource.find(context, "de.sfuhrm.raf").get();
+        assertEquals("de.sfuhrm.raf", appender.getName());
+        assertEquals("RandomAccessFileAppender", appender.getType());
+        assertEquals(1024, appender.getBufferSize());
+        assertFalse(appender.isImmediateFlush());
+        assertFalse(appender.isMemoryMapped());
+    }
+
+    @Test
+    public void findWithMemoryMappedFile() {
+        LogFrameworkBridge.AppenderResource appender =
+                Log4J2AppenderResource.find(context, "de.sfuhrm.mmap").get();
+        assertEquals("MemoryMappedFileAppender", appender.getType());
+        assertEquals(4096, appender.getBufferSize());
+        assertTrue(appender.isMemoryMapped());
+    }
+
+    @Test
+    public void findWithUnknownAppender() {
+        assertFalse(Log4J2AppenderResource.find(context, "de.sfuhrm.none").isPresent());
+    }
+
+    @Test
+    public void configureWithCurrentValues() {
+        LogFrameworkBridge.AppenderResource appender =
+                Log4J2AppenderResource.find(context, "de.sfuhrm.raf").get();
+        appender.configure(1024, false, false);
+        appender.configure(null, null, null);
+    }
+
+    @Test
+    public void configureWithNewValues() {
+        LogFrameworkBridge.AppenderResource appender =
+                Log4J2AppenderResource.find(context, "de.sfuhrm.raf").get();
+        assertThrows(UnsupportedOperationException.class, () -> appender.configure(null, true, null));
+        assertThrows(UnsupportedOperationException.class, () -> appender.configure(2048, null, null));
+        assertThrows(UnsupportedOperationException.class, () -> appender.configure(null, null, true));
+        assertFalse(appender.isImmediateFlush());
+    }
+}
@@ -0,0 +1,140 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AsyncAppender;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link Log4J2AsyncQueues} class.
+ * */
+public class Log4J2AsyncQueuesTest {
+
+    /** The interface of the fake ring buffer bean. */
+    public interface FakeRingBufferMBean {
+        long getBufferSize();
+
+        long getRemainingCapacity();
+    }
+
+    /** A ring buffer bean like the one of log4j2. */
+    public static class FakeRingBuffer implements FakeRingBufferMBean {
+        @Override
+        public long getBufferSize() {
+            return 256;
+        }
+
+        @Override
+        public long getRemainingCapacity() {
+            return 200;
+        }
+    }
+
+    private LoggerContext context;
+
+    private MBeanServer server;
+
+    private AsyncAppender appender;
+
+    @BeforeEach
+    public void init() {
+        context = LoggerContext.getContext(Log4J2Bridge.class.getClassLoader(), false, null);
+        server = MBeanServerFactory.newMBeanServer();
+        Configuration configuration = context.getConfiguration();
+        appender = AsyncAppender.newBuilder()
+                .setName("de.sfuhrm.async")
+                .setConfiguration(configuration)
+                .setAppenderRefs(new AppenderRef[0])
+                .setBufferSize(64)
+                .setBlocking(true)
+                .build();
+        configuration.addAppender(appender);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        // the appender was never started, so it is not stopped
+        context.getConfiguration().getAppenders().remove(appender.getName());
+    }
+
+    private LogFrameworkBridge.AsyncQueue find(String name) {
+        for (LogFrameworkBridge.AsyncQueue queue : Log4J2AsyncQueues.list(context, server)) {
+            if (queue.getName().equals(name)) {
+                return queue;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void listAppender() {
+        LogFrameworkBridge.AsyncQueue queue = find("de.sfuhrm.async");
+        assertEquals(64, queue.getCapacity());
+        assertEquals(64, queue.getRemainingCapacity());
+        assertEquals(0, queue.getDiscarded());
+        assertTrue(queue.isBlocking());
+        assertNull(queue.getDiscardLevel());
+    }
+
+    @Test
+    public void setDiscardLevel() {
+        find("de.sfuhrm.async").setPolicy(null, "info");
+        assertEquals("INFO", find("de.sfuhrm.async").getDiscardLevel());
+        assertTrue(Log4J2DiscardFilter.find(appender).getPolicy()
+                .isDiscardable(org.apache.logging.log4j.Level.DEBUG.intLevel()));
+
+        find("de.sfuhrm.async").setPolicy(true, "-");
+        assertNull(find("de.sfuhrm.async").getDiscardLevel());
+    }
+
+    @Test
+    public void setPolicyWithIllegalValues() {
+        LogFrameworkBridge.AsyncQueue queue = find("de.sfuhrm.async");
+        assertThrows(UnsupportedOperationException.class, () -> queue.setPolicy(false, null));
+        assertThrows(IllegalArgumentException.class, () -> queue.setPolicy(null, "NOPE"));
+        assertNull(queue.getDiscardLevel());
+    }
+
+    @Test
+    public void listRingBuffers() throws Exception {
+        String type = ObjectName.quote(context.getName());
+        server.registerMBean(new FakeRingBuffer(), new ObjectName(
+                Log4J2AsyncQueues.DOMAIN + ":type=" + type + ",component=AsyncLoggerRingBuffer"));
+        server.registerMBean(new FakeRingBuffer(), new ObjectName(
+                Log4J2AsyncQueues.DOMAIN + ":type=" + type + ",component=Loggers,name=a,subtype=RingBuffer"));
+        server.registerMBean(new FakeRingBuffer(), new ObjectName(
+                Log4J2AsyncQueues.DOMAIN + ":type=" + type + ",component=Loggers,name=b,subtype=RingBuffer"));
+        server.registerMBean(new FakeRingBuffer(), new ObjectName(
+                Log4J2AsyncQueues.DOMAIN + ":type=other,component=AsyncLoggerRingBuffer"));
+
+        List<String> names = Log4J2AsyncQueues.list(context, server).stream()
+                .map(LogFrameworkBridge.AsyncQueue::getName)
+                .filter(name -> name.endsWith("RingBuffer"))
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(2, names.size());
+        assertEquals(Log4J2AsyncQueues.ASYNC_LOGGER_CONFIGS, names.get(0));
+        assertEquals(Log4J2AsyncQueues.ASYNC_LOGGERS, names.get(1));
+
+        LogFrameworkBridge.AsyncQueue queue = find(Log4J2AsyncQueues.ASYNC_LOGGERS);
+        assertEquals(256, queue.getCapacity());
+        assertEquals(200, queue.getRemainingCapacity());
+        assertEquals(-1, queue.getDiscarded());
+        assertNull(queue.getDiscardLevel());
+        assertThrows(UnsupportedOperationException.class, () -> queue.setPolicy(null, "WARN"));
+    }
+}
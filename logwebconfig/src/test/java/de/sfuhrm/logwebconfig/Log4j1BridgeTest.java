@@ -1,15 +1,38 @@
 package de.sfuhrm.logwebconfig;
 
+import org.apache.log4j.Appender;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.AsyncAppender;
+import org.apache.log4j.FileAppender;
 import org.apache.log4j.Level;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
+import org.apache.log4j.MDC;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.spi.LoggingEvent;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
@@ -40,22 +63,54 @@ public class Log4j1BridgeTest {
     public void testGetLevel() {
         Logger logger = Mockito.mock(Logger.class);
         Mockito.when(logger.getLevel()).thenReturn(Level.ALL);
-        mockedLogManager.when(() -> LogManager.getLogger("foo.bar.Baz")).thenReturn(logger);
+        mockedLogManager.when(() -> LogManager.exists("foo.bar.Baz")).thenReturn(logger);
 
         String level = instance.findLoggerResource("foo.bar.Baz").get().getLevel();
         assertEquals("ALL", level);
     }
 
+    @Test
+    public void testGetLevelInherited() {
+        Logger logger = Mockito.mock(Logger.class);
+        Mockito.when(logger.getEffectiveLevel()).thenReturn(Level.WARN);
+        mockedLogManager.when(() -> LogManager.exists("foo.bar.Baz")).thenReturn(logger);
+
+        String level = instance.findLoggerResource("foo.bar.Baz").get().getLevel();
+        assertEquals("WARN", level);
+    }
+
+    @Test
+    public void testFindUnknownLogger() {
+        assertFalse(instance.findLoggerResource("foo.bar.Unknown").isPresent());
+        mockedLogManager.verify(() -> LogManager.getLogger(Mockito.anyString()), Mockito.never());
+    }
+
     @Test
     public void testSetLevel() {
         Logger logger = Mockito.mock(Logger.class);
         mockedLogManager.when(() -> LogManager.getLogger("foo.bar.Baz")).thenReturn(logger);
 
-        instance.findLoggerResource("foo.bar.Baz").get().setLevel("DEBUG");
+        instance.createLoggerResource("foo.bar.Baz").setLevel("DEBUG");
 
         Mockito.verify(logger).setLevel(Level.DEBUG);
     }
 
+    @Test
+    public void testClearLevel() {
+        Logger logger = Mockito.mock(Logger.class);
+        mockedLogManager.when(() -> LogManager.getLogger("foo.bar.Baz")).thenReturn(logger);
+
+        instance.createLoggerResource("foo.bar.Baz").clearLevel();
+
+        Mockito.verify(logger).setLevel(null);
+    }
+
+    @Test
+    public void testClearLevelWithRootLogger() {
+        assertThrows(IllegalArgumentException.class,
+                () -> instance.createLoggerResource("").clearLevel());
+    }
+
     @Test
     public void testGetLevelWithRootLogger() {
         Logger rootLogger = Mockito.mock(Logger.class);
@@ -87,4 +142,355 @@ public class Log4j1BridgeTest {
 
         Mockito.verify(logger).setLevel(Level.DEBUG);
     }
+
+    @Test
+    public void testSetLevels() {
+        Logger logger = Mockito.mock(Logger.class);
+        Logger rootLogger = Mockito.mock(Logger.class);
+        mockedLogManager.when(() -> LogManager.getLogger("foo.bar.Baz")).thenReturn(logger);
+        mockedLogManager.when(LogManager::getRootLogger).thenReturn(rootLogger);
+
+        Map<String, String> levels = new LinkedHashMap<>();
+        levels.put("foo.bar.Baz", "DEBUG");
+        levels.put("", "WARN");
+        instance.setLevels(levels);
+
+        Mockito.verify(logger).setLevel(Level.DEBUG);
+        Mockito.verify(rootLogger).setLevel(Level.WARN);
+    }
+
+    @Test
+    public void testSetLevelsWithWrongLevel() {
+        Logger logger = Mockito.mock(Logger.class);
+        mockedLogManager.when(() -> LogManager.getLogger("foo.bar.Baz")).thenReturn(logger);
+
+        Map<String, String> levels = new LinkedHashMap<>();
+        levels.put("foo.bar.Baz", "DEBUG");
+        levels.put("foo.bar.Qux", "FOOBAR");
+        assertThrows(IllegalArgumentException.class, () -> instance.setLevels(levels));
+
+        Mockito.verify(logger, Mockito.times(0)).setLevel(Mockito.any());
+    }
+
+    @Test
+    public void testStreamLoggerResources() {
+        Logger rootLogger = Mockito.mock(Logger.class);
+        Mockito.when(rootLogger.getLevel()).thenReturn(Level.WARN);
+        Mockito.when(rootLogger.getEffectiveLevel()).thenReturn(Level.WARN);
+        Logger configured = Mockito.mock(Logger.class);
+        Mockito.when(configured.getName()).thenReturn("foo.Bar");
+        Mockito.when(configured.getLevel()).thenReturn(Level.DEBUG);
+        Mockito.when(configured.getEffectiveLevel()).thenReturn(Level.DEBUG);
+        Logger inherited = Mockito.mock(Logger.class);
+        Mockito.when(inherited.getName()).thenReturn("foo.Baz");
+        Mockito.when(inherited.getEffectiveLevel()).thenReturn(Level.WARN);
+        mockedLogManager.when(LogManager::getRootLogger).thenReturn(rootLogger);
+        mockedLogManager.when(LogManager::getCurrentLoggers).thenReturn(
+                Collections.enumeration(Arrays.asList(configured, inherited)));
+
+        List<String> lines = instance.streamLoggerResources()
+                .map(r -> r.getName() + "," + r.getConfiguredLevel() + "," + r.getEffectiveLevel())
+                .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList(",WARN,WARN", "foo.Bar,DEBUG,DEBUG", "foo.Baz,null,WARN"), lines);
+    }
+
+    @Test
+    public void testSetSubtreeLevel() {
+        Logger root = Mockito.mock(Logger.class);
+        Mockito.when(root.getLevel()).thenReturn(Level.ERROR);
+        mockedLogManager.when(LogManager::getRootLogger).thenReturn(root);
+        Logger parent = Mockito.mock(Logger.class);
+        Mockito.when(parent.getName()).thenReturn("foo");
+        Mockito.when(parent.getLevel()).thenReturn(Level.INFO);
+        Logger child = Mockito.mock(Logger.class);
+        Mockito.when(child.getName()).thenReturn("foo.Bar");
+        Mockito.when(child.getLevel()).thenReturn(Level.WARN);
+        Logger inheriting = Mockito.mock(Logger.class);
+        Mockito.when(inheriting.getName()).thenReturn("foo.Baz");
+        Logger other = Mockito.mock(Logger.class);
+        Mockito.when(other.getName()).thenReturn("foobar");
+        Mockito.when(other.getLevel()).thenReturn(Level.WARN);
+        mockedLogManager.when(LogManager::getCurrentLoggers).thenReturn(
+                Collections.enumeration(Arrays.asList(parent, child, inheriting, other)));
+        mockedLogManager.when(() -> LogManager.getLogger("foo")).thenReturn(parent);
+        mockedLogManager.when(() -> LogManager.getLogger("foo.Bar")).thenReturn(child);
+
+        instance.setSubtreeLevel("foo", "DEBUG");
+
+        Mockito.verify(parent).setLevel(Level.DEBUG);
+        Mockito.verify(child).setLevel(Level.DEBUG);
+        Mockito.verify(inheriting, Mockito.never()).setLevel(Mockito.any());
+        Mockito.verify(other, Mockito.never()).setLevel(Mockito.any());
+    }
+
+    @Test
+    public void testSetSampledLevel() {
+        mockedLogManager.close();
+        String name = "de.sfuhrm.sampled";
+        Logger logger = Logger.getLogger(name);
+        logger.setAdditivity(false);
+        AtomicInteger appended = new AtomicInteger();
+        Appender appender = new AppenderSkeleton() {
+            @Override
+            protected void append(LoggingEvent event) {
+                appended.incrementAndGet();
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public boolean requiresLayout() {
+                return false;
+            }
+        };
+        logger.addAppender(appender);
+        LogFrameworkBridge.LoggerResource resource = instance.createLoggerResource(name);
+
+        resource.setSampledLevel("DEBUG", 5);
+        assertEquals(5, resource.getSampleRate());
+        for (int i = 0; i < 100; i++) {
+            Logger.getLogger(name + ".Child").debug("sampled");
+        }
+        int passed = appended.get();
+        assertTrue(passed >= 5 && passed < 10, "passed " + passed);
+        for (int i = 0; i < 10; i++) {
+            logger.info("not sampled");
+        }
+        assertEquals(passed + 10, appended.get());
+
+        resource.setLevel("INFO");
+        assertEquals(0, resource.getSampleRate());
+        assertNull(appender.getFilter());
+        logger.removeAppender(appender);
+    }
+
+    /** An appender collecting the messages of the events. */
+    private static final class ListAppender extends AppenderSkeleton {
+        private final List<Object> messages = new ArrayList<>();
+
+        @Override
+        protected void append(LoggingEvent event) {
+            messages.add(event.getMessage());
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+
+    @Test
+    public void testSetContextRules() {
+        mockedLogManager.close();
+        Logger logger = Logger.getLogger("de.sfuhrm.l1.context");
+        logger.setLevel(Level.INFO);
+        logger.setAdditivity(false);
+        Logger inside = Logger.getLogger("de.sfuhrm.l1.context.Inside");
+        Logger outside = Logger.getLogger("de.sfuhrm.l1.contextx");
+        outside.setLevel(Level.INFO);
+        outside.setAdditivity(false);
+        ListAppender appender = new ListAppender();
+        logger.addAppender(appender);
+        outside.addAppender(appender);
+
+        instance.setContextRules(Collections.singletonList(
+                new ContextLevels.Rule("log4j1", "de.sfuhrm.l1.context", "tenant", "4711", "DEBUG", 0)));
+        try {
+            assertEquals(Level.DEBUG, logger.getLevel());
+            inside.debug("without context");
+            inside.info("info");
+            MDC.put("tenant", "4711");
+            inside.debug("with context");
+            inside.trace("trace");
+            outside.debug("outside");
+        } finally {
+            MDC.remove("tenant");
+            instance.setContextRules(Collections.emptyList());
+        }
+
+        assertEquals(Arrays.asList("info", "with context"), appender.messages);
+        assertEquals(Level.INFO, logger.getLevel());
+        assertNull(appender.getFilter());
+        logger.removeAppender(appender);
+        outside.removeAppender(appender);
+    }
+
+    @Test
+    public void testSetContextRulesKeepsChangedLevel() {
+        mockedLogManager.close();
+        Logger logger = Logger.getLogger("de.sfuhrm.l1.changed");
+        logger.setLevel(Level.INFO);
+        logger.setAdditivity(false);
+        ListAppender appender = new ListAppender();
+        logger.addAppender(appender);
+
+        instance.setContextRules(Collections.singletonList(
+                new ContextLevels.Rule("log4j1", "de.sfuhrm.l1.changed", "tenant", "4711", "TRACE", 0)));
+        try {
+            logger.setLevel(Level.WARN);
+            logger.info("info");
+            logger.warn("warn");
+        } finally {
+            instance.setContextRules(Collections.emptyList());
+        }
+
+        assertEquals(Collections.singletonList("warn"), appender.messages);
+        assertEquals(Level.WARN, logger.getLevel());
+        logger.removeAppender(appender);
+    }
+
+    @Test
+    public void testSetContextRulesWithWrongLevel() {
+        assertThrows(IllegalArgumentException.class, () -> instance.setContextRules(Collections.singletonList(
+                new ContextLevels.Rule("log4j1", "de.sfuhrm.l1.wrong", "tenant", "4711", "Schnitlauch", 0))));
+    }
+
+    @Test
+    public void testEventCounting() {
+        mockedLogManager.close();
+        String name = "de.sfuhrm.counted";
+        Logger logger = Logger.getLogger(name);
+        logger.setAdditivity(false);
+        logger.setLevel(Level.DEBUG);
+        Appender first = new CountingAppender();
+        Appender second = new CountingAppender();
+        logger.addAppender(first);
+        logger.addAppender(second);
+        EventCounters counters = new EventCounters();
+        instance.startEventCounting(counters);
+
+        for (int i = 0; i < 4; i++) {
+            logger.debug("counted");
+        }
+        logger.error("counted");
+        logger.trace("disabled");
+        counters.rotate();
+
+        List<EventCounters.Rate> rates = counters.list();
+        assertEquals(2, rates.size());
+        assertEquals(name, rates.get(0).getLogger());
+        assertEquals("DEBUG", rates.get(0).getLevel());
+        assertEquals(4, rates.get(0).getCount());
+        assertEquals("ERROR", rates.get(1).getLevel());
+        assertEquals(1, rates.get(1).getCount());
+
+        instance.stopEventCounting();
+        assertNull(first.getFilter());
+        assertNull(second.getFilter());
+        logger.removeAppender(first);
+        logger.removeAppender(second);
+    }
+
+    private static class CountingAppender extends AppenderSkeleton {
+        @Override
+        protected void append(LoggingEvent event) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+
+    @Test
+    public void listAsyncQueues() {
+        mockedLogManager.close();
+        Logger logger = Logger.getLogger("de.sfuhrm.log4j1.async");
+        AsyncAppender appender = new AsyncAppender();
+        appender.setName("de.sfuhrm.log4j1.async");
+        appender.setBufferSize(16);
+        logger.addAppender(appender);
+        try {
+            List<LogFrameworkBridge.AsyncQueue> queues = instance.listAsyncQueues().stream()
+                    .filter(queue -> queue.getName().equals("de.sfuhrm.log4j1.async"))
+                    .collect(Collectors.toList());
+            assertEquals(1, queues.size());
+            LogFrameworkBridge.AsyncQueue queue = queues.get(0);
+            assertEquals(16, queue.getCapacity());
+            assertEquals(-1, queue.getRemainingCapacity());
+            assertTrue(queue.isBlocking());
+
+            queue.setPolicy(false, null);
+            assertFalse(appender.getBlocking());
+            assertThrows(UnsupportedOperationException.class, () -> queue.setPolicy(null, "WARN"));
+        } finally {
+            logger.removeAppender(appender);
+            appender.close();
+        }
+    }
+
+    @Test
+    public void findAppenderResource() throws IOException {
+        mockedLogManager.close();
+        Path file = Files.createTempFile("logwebconfig", ".log");
+        Logger logger = Logger.getLogger("de.sfuhrm.log4j1.file");
+        logger.setAdditivity(false);
+        FileAppender appender = new FileAppender(new PatternLayout("%m%n"), file.toString(), true);
+        appender.setName("de.sfuhrm.log4j1.file");
+        logger.addAppender(appender);
+        try {
+            LogFrameworkBridge.AppenderResource resource =
+                    instance.findAppenderResource("de.sfuhrm.log4j1.file").get();
+            assertEquals("FileAppender", resource.getType());
+            assertEquals(0, resource.getBufferSize());
+            assertTrue(resource.isImmediateFlush());
+            assertFalse(resource.isMemoryMapped());
+            logger.info("first");
+            assertEquals("first\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+            resource.configure(4096, null, null);
+            assertEquals(4096, resource.getBufferSize());
+            assertFalse(resource.isImmediateFlush());
+            logger.info("second");
+            assertEquals("first\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+            resource.configure(0, true, null);
+            assertEquals(0, resource.getBufferSize());
+            assertTrue(resource.isImmediateFlush());
+            assertEquals("first\nsecond\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+            assertThrows(UnsupportedOperationException.class, () -> resource.configure(null, null, true));
+            assertThrows(IllegalArgumentException.class, () -> resource.configure(-1, null, null));
+            assertFalse(instance.findAppenderResource("de.sfuhrm.log4j1.none").isPresent());
+        } finally {
+            logger.removeAppender(appender);
+            logger.setAdditivity(true);
+            appender.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void findAppenderResourceWithTruncatingFile() throws IOException {
+        mockedLogManager.close();
+        Path file = Files.createTempFile("logwebconfig", ".log");
+        Logger logger = Logger.getLogger("de.sfuhrm.log4j1.truncate");
+        FileAppender appender = new FileAppender(new PatternLayout("%m%n"), file.toString(), false);
+        appender.setName("de.sfuhrm.log4j1.truncate");
+        logger.addAppender(appender);
+        try {
+            LogFrameworkBridge.AppenderResource resource =
+                    instance.findAppenderResource("de.sfuhrm.log4j1.truncate").get();
+            assertThrows(IllegalArgumentException.class, () -> resource.configure(4096, false, null));
+            assertEquals(0, resource.getBufferSize());
+            assertTrue(resource.isImmediateFlush());
+            resource.configure(null, false, null);
+            assertFalse(resource.isImmediateFlush());
+        } finally {
+            logger.removeAppender(appender);
+            appender.close();
+            Files.deleteIfExists(file);
+        }
+    }
 }
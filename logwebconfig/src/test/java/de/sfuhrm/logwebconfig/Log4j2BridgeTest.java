@@ -3,6 +3,11 @@ package de.sfuhrm.logwebconfig;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
 import org.apache.logging.log4j.core.config.Configurator;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,7 +15,17 @@ import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
@@ -43,18 +58,41 @@ public class Log4j2BridgeTest {
 
     @Test
     public void testGetLevelWithNamedLogger() {
-        Logger logger = Mockito.mock(Logger.class);
-        Mockito.when(logger.getLevel()).thenReturn(Level.ALL);
-        mockedLogManager.when(() -> LogManager.getLogger("foo.bar.Baz")).thenReturn(logger);
+        mockedConfigurator.close();
+        mockedLogManager.close();
+        Configurator.setLevel("de.sfuhrm.get.Named", Level.ALL);
+        LogManager.getLogger("de.sfuhrm.get.Named");
 
-        String level = instance.findLoggerResource("foo.bar.Baz").get().getLevel();
+        String level = instance.findLoggerResource("de.sfuhrm.get.Named").get().getLevel();
         assertEquals("ALL", level);
     }
 
+    @Test
+    public void testGetLevelWithConfigOnly() {
+        mockedConfigurator.close();
+        mockedLogManager.close();
+        Configurator.setLevel("de.sfuhrm.get.ConfigOnly", Level.WARN);
+
+        String level = instance.findLoggerResource("de.sfuhrm.get.ConfigOnly").get().getLevel();
+        assertEquals("WARN", level);
+        assertFalse(LoggerContext.getContext(false).hasLogger("de.sfuhrm.get.ConfigOnly"));
+    }
+
+    @Test
+    public void testFindUnknownLogger() {
+        mockedConfigurator.close();
+        mockedLogManager.close();
+
+        assertFalse(instance.findLoggerResource("de.sfuhrm.get.Unknown").isPresent());
+        assertFalse(LoggerContext.getContext(false).hasLogger("de.sfuhrm.get.Unknown"));
+    }
+
     @Test
     public void testSetLevelWithNamedLogger() {
-        instance.findLoggerResource("foo.bar.Baz").get().setLevel("DEBUG");
-        mockedConfigurator.verify(() -> Configurator.setLevel("foo.bar.Baz", Level.DEBUG));
+        instance = Mockito.spy(instance);
+        Mockito.doNothing().when(instance).setLevelMap(Mockito.anyMap());
+        instance.createLoggerResource("foo.bar.Baz").setLevel("DEBUG");
+        Mockito.verify(instance).setLevelMap(Collections.singletonMap("foo.bar.Baz", Level.DEBUG));
     }
 
     @Test
@@ -80,7 +118,243 @@ public class Log4j2BridgeTest {
 
     @Test
     public void setLevelWithRootLogger() {
+        instance = Mockito.spy(instance);
+        Mockito.doNothing().when(instance).setLevelMap(Mockito.anyMap());
         instance.findLoggerResource("").get().setLevel("DEBUG");
-        mockedConfigurator.verify(() -> Configurator.setRootLevel(Level.DEBUG));
+        Mockito.verify(instance).setLevelMap(Collections.singletonMap("", Level.DEBUG));
+    }
+
+    @Test
+    public void setLevels() {
+        instance = Mockito.spy(instance);
+        Mockito.doNothing().when(instance).setLevelMap(Mockito.anyMap());
+        Map<String, String> levels = new HashMap<>();
+        levels.put("foo.bar.Baz", "DEBUG");
+        levels.put("", "WARN");
+        instance.setLevels(levels);
+
+        Map<String, Level> expected = new HashMap<>();
+        expected.put("foo.bar.Baz", Level.DEBUG);
+        expected.put("", Level.WARN);
+        Mockito.verify(instance).setLevelMap(expected);
+    }
+
+    @Test
+    public void setLevelsWithWrongLevelName() {
+        Map<String, String> levels = new HashMap<>();
+        levels.put("foo.bar.Baz", "DEBUG");
+        levels.put("foo.bar.Qux", "FOOBAR");
+        instance = Mockito.spy(instance);
+        assertThrows(IllegalArgumentException.class, () -> instance.setLevels(levels));
+
+        Mockito.verify(instance, Mockito.never()).setLevelMap(Mockito.anyMap());
+    }
+
+    @Test
+    public void streamLoggerResources() {
+        mockedConfigurator.close();
+        mockedLogManager.close();
+        Configurator.setLevel("de.sfuhrm.stream.Configured", Level.TRACE);
+        LogManager.getLogger("de.sfuhrm.stream.Configured");
+        LogManager.getLogger("de.sfuhrm.stream.Inherited");
+
+        Map<String, LogFrameworkBridge.LoggerResource> resources = new HashMap<>();
+        instance.streamLoggerResources().forEach(r -> resources.put(r.getName(), r));
+
+        assertTrue(resources.containsKey(""));
+        assertEquals("TRACE", resources.get("de.sfuhrm.stream.Configured").getConfiguredLevel());
+        assertEquals("TRACE", resources.get("de.sfuhrm.stream.Configured").getEffectiveLevel());
+        assertNull(resources.get("de.sfuhrm.stream.Inherited").getConfiguredLevel());
+        assertEquals(resources.get("").getEffectiveLevel(),
+                resources.get("de.sfuhrm.stream.Inherited").getEffectiveLevel());
+    }
+
+    @Test
+    public void streamLoggerResourcesWithConfigWithoutLogger() {
+        mockedConfigurator.close();
+        mockedLogManager.close();
+        Configurator.setLevel("de.sfuhrm.stream.ConfigOnly", Level.DEBUG);
+
+        Optional<LogFrameworkBridge.LoggerResource> resource = instance.streamLoggerResources()
+                .filter(r -> r.getName().equals("de.sfuhrm.stream.ConfigOnly"))
+                .findFirst();
+
+        assertTrue(resource.isPresent());
+        assertEquals("DEBUG", resource.get().getConfiguredLevel());
+        assertEquals("DEBUG", resource.get().getEffectiveLevel());
+    }
+
+    @Test
+    public void getLoggerContextOfLogManager() {
+        mockedConfigurator.close();
+        mockedLogManager.close();
+
+        assertSame(LogManager.getContext(false), instance.getLoggerContext());
+    }
+
+    @Test
+    public void setSubtreeLevel() {
+        mockedConfigurator.close();
+        mockedLogManager.close();
+        Configurator.setLevel("de.sfuhrm.tree", Level.INFO);
+        Configurator.setLevel("de.sfuhrm.tree.child", Level.WARN);
+        Configurator.setLevel("de.sfuhrm.treeother", Level.WARN);
+        Logger inherited = LogManager.getLogger("de.sfuhrm.tree.child.Inherited");
+
+        instance.setSubtreeLevel("de.sfuhrm.tree", "DEBUG");
+
+        assertEquals("DEBUG", instance.findLoggerResource("de.sfuhrm.tree").get().getConfiguredLevel());
+        assertEquals("DEBUG", instance.findLoggerResource("de.sfuhrm.tree.child").get().getConfiguredLevel());
+        assertEquals("WARN", instance.findLoggerResource("de.sfuhrm.treeother").get().getConfiguredLevel());
+        assertEquals(Level.DEBUG, inherited.getLevel());
+    }
+
+    @Test
+    public void setLevelMapRefreshesSubtree() {
+        mockedConfigurator.close();
+        mockedLogManager.close();
+        Configurator.setLevel("de.sfuhrm.incremental", Level.INFO);
+        Configurator.setLevel("de.sfuhrm.incremental.Deeper", Level.WARN);
+        Logger child = LogManager.getLogger("de.sfuhrm.incremental.Child");
+        Logger deeper = LogManager.getLogger("de.sfuhrm.incremental.Deeper");
+        Logger sibling = LogManager.getLogger("de.sfuhrm.incrementalSibling");
+        Level siblingLevel = sibling.getLevel();
+
+        instance.setLevelMap(Collections.singletonMap("de.sfuhrm.incremental", Level.DEBUG));
+
+        assertEquals(Level.DEBUG, LogManager.getLogger("de.sfuhrm.incremental").getLevel());
+        assertEquals(Level.DEBUG, child.getLevel());
+        assertEquals(Level.WARN, deeper.getLevel());
+        assertEquals(siblingLevel, sibling.getLevel());
+        assertTrue(child.isDebugEnabled());
+    }
+
+    @Test
+    public void setLevelMapCreatesLoggerConfig() {
+        mockedConfigurator.close();
+        mockedLogManager.close();
+        Logger child = LogManager.getLogger("de.sfuhrm.created.Child");
+
+        instance.setLevelMap(Collections.singletonMap("de.sfuhrm.created", Level.TRACE));
+
+        assertEquals("TRACE", instance.findLoggerResource("de.sfuhrm.created").get().getConfiguredLevel());
+        assertEquals(Level.TRACE, child.getLevel());
+        assertEquals("de.sfuhrm.created",
+                ((org.apache.logging.log4j.core.Logger) child).get().getName());
+    }
+
+    @Test
+    public void setSampledLevel() {
+        mockedConfigurator.close();
+        mockedLogManager.close();
+        String name = "de.sfuhrm.sampled";
+        LogFrameworkBridge.LoggerResource resource = instance.createLoggerResource(name);
+
+        resource.setSampledLevel("DEBUG", 5);
+
+        assertEquals("DEBUG", resource.getLevel());
+        assertEquals(5, resource.getSampleRate());
+        LoggerConfig loggerConfig = LoggerContext.getContext(false).getConfiguration().getLoggerConfig(name);
+        LogEvent debug = Log4jLogEvent.newBuilder().setLoggerName(name).setLevel(Level.DEBUG).build();
+        LogEvent info = Log4jLogEvent.newBuilder().setLoggerName(name).setLevel(Level.INFO).build();
+        int passed = 0;
+        for (int i = 0; i < 100; i++) {
+            if (!loggerConfig.isFiltered(debug)) {
+                passed++;
+            }
+            assertFalse(loggerConfig.isFiltered(info));
+        }
+        assertTrue(passed >= 5 && passed < 10, "passed " + passed);
+
+        resource.setLevel("INFO");
+        assertEquals(0, resource.getSampleRate());
+        assertFalse(loggerConfig.hasFilter());
+    }
+
+    @Test
+    public void eventCounting() {
+        mockedConfigurator.close();
+        mockedLogManager.close();
+        Configurator.setLevel("de.sfuhrm.counted", Level.INFO);
+        EventCounters counters = new EventCounters();
+        instance.startEventCounting(counters);
+        instance.setLevelMap(Collections.singletonMap("de.sfuhrm.counted.Own", Level.WARN));
+        org.apache.logging.log4j.core.config.Configuration configuration =
+                LoggerContext.getContext(false).getConfiguration();
+        LoggerConfig parent = configuration.getLoggerConfig("de.sfuhrm.counted");
+        LoggerConfig own = configuration.getLoggerConfig("de.sfuhrm.counted.Own");
+        LoggerConfig root = configuration.getRootLogger();
+        LogEvent child = Log4jLogEvent.newBuilder().setLoggerName("de.sfuhrm.counted.Child").setLevel(Level.INFO).build();
+        LogEvent ownEvent = Log4jLogEvent.newBuilder().setLoggerName("de.sfuhrm.counted.Own").setLevel(Level.WARN).build();
+
+        for (int i = 0; i < 3; i++) {
+            // the event passes the configurations up to the root
+            parent.isFiltered(child);
+            root.isFiltered(child);
+        }
+        own.isFiltered(ownEvent);
+        parent.isFiltered(ownEvent);
+        root.isFiltered(ownEvent);
+        counters.rotate();
+
+        List<EventCounters.Rate> rates = counters.list();
+        assertEquals(2, rates.size());
+        assertEquals("de.sfuhrm.counted.Child", rates.get(0).getLogger());
+        assertEquals("INFO", rates.get(0).getLevel());
+        assertEquals(3, rates.get(0).getCount());
+        assertEquals("de.sfuhrm.counted.Own", rates.get(1).getLogger());
+        assertEquals("WARN", rates.get(1).getLevel());
+        assertEquals(1, rates.get(1).getCount());
+
+        instance.stopEventCounting();
+        assertFalse(parent.hasFilter());
+        assertFalse(own.hasFilter());
+    }
+
+    @Test
+    public void levelIndex() {
+        assertEquals(0, Log4J2EventCounting.levelIndex(Level.FATAL));
+        assertEquals(3, Log4J2EventCounting.levelIndex(Level.INFO));
+        assertEquals(3, Log4J2EventCounting.levelIndex(Level.forName("NOTICE", 350)));
+        assertEquals(5, Log4J2EventCounting.levelIndex(Level.ALL));
+    }
+
+    @Test
+    public void setContextRules() {
+        mockedConfigurator.close();
+        mockedLogManager.close();
+        Configurator.setLevel("de.sfuhrm.context", Level.INFO);
+        Logger inside = LogManager.getLogger("de.sfuhrm.context.Inside");
+        Logger outside = LogManager.getLogger("de.sfuhrm.contextx");
+        Configurator.setLevel("de.sfuhrm.contextx", Level.INFO);
+
+        instance.setContextRules(Collections.singletonList(
+                new ContextLevels.Rule("log4j2", "de.sfuhrm.context", "tenant", "4711", "DEBUG", 0)));
+        try {
+            assertFalse(inside.isDebugEnabled());
+            ThreadContext.put("tenant", "4711");
+            assertTrue(inside.isDebugEnabled());
+            assertFalse(inside.isTraceEnabled());
+            assertFalse(outside.isDebugEnabled());
+            ThreadContext.put("tenant", "42");
+            assertFalse(inside.isDebugEnabled());
+        } finally {
+            ThreadContext.remove("tenant");
+            instance.setContextRules(Collections.emptyList());
+        }
+        ThreadContext.put("tenant", "4711");
+        try {
+            assertFalse(inside.isDebugEnabled());
+        } finally {
+            ThreadContext.remove("tenant");
+        }
+    }
+
+    @Test
+    public void setContextRulesWithIllegalLevel() {
+        mockedConfigurator.close();
+        mockedLogManager.close();
+        assertThrows(IllegalArgumentException.class, () -> instance.setContextRules(Collections.singletonList(
+                new ContextLevels.Rule("log4j2", "de.sfuhrm.context", "tenant", "4711", "NOPE", 0))));
     }
 }
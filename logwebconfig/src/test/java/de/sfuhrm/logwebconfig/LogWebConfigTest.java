@@ -7,6 +7,10 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -29,6 +33,9 @@ public class LogWebConfigTest {
     @BeforeEach
     public void shutdown() {
         LogWebConfig.stop();
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("LOGWEBCONFIG_"))
+                .forEach(System::clearProperty);
     }
 
     @Test
@@ -41,6 +48,30 @@ public class LogWebConfigTest {
         socket.close();
     }
 
+    private static long threads(String name) {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals(name))
+                .count();
+    }
+
+    @Test
+    public void startWithPortBlockedStopsServer() throws IOException {
+        Path journal = Files.createTempFile("journal", ".txt");
+        long journals = threads("LogWebConfig Journal");
+        long timers = threads("LogWebConfig Timer");
+        System.setProperty("LOGWEBCONFIG_PORT", "9999");
+        System.setProperty("LOGWEBCONFIG_STATS", "log4j2");
+        System.setProperty("LOGWEBCONFIG_JOURNAL", journal.toString());
+        try (ServerSocket socket = new ServerSocket(9999)) {
+            LogWebConfig.start();
+            assertNull(singleton());
+            assertEquals(journals, threads("LogWebConfig Journal"));
+            assertEquals(timers, threads("LogWebConfig Timer"));
+        } finally {
+            Files.delete(journal);
+        }
+    }
+
     @Test
     public void startWithDisabled() throws IOException {
         assertNull(singleton());
@@ -75,4 +106,44 @@ public class LogWebConfigTest {
 
         assertSame(first, second);
     }
+
+    @Test
+    public void startWithExecutionMode() {
+        assertNull(singleton());
+        LogWebConfig.start(ExecutionMode.SINGLE);
+        assertNotNull(singleton());
+    }
+
+    @Test
+    public void startWithUnknownExecutor() {
+        assertNull(singleton());
+        System.setProperty("LOGWEBCONFIG_EXECUTOR", "THREADS");
+        LogWebConfig.start();
+        assertNotNull(singleton());
+    }
+
+    @Test
+    public void startAsync() throws Exception {
+        assertNull(singleton());
+        CompletableFuture<Boolean> future = LogWebConfig.startAsync();
+        assertTrue(future.get(10, TimeUnit.SECONDS));
+        assertNotNull(singleton());
+        assertTrue(LogWebConfig.isRunning());
+    }
+
+    @Test
+    public void startAsyncWithPortBlocked() throws Exception {
+        System.setProperty("LOGWEBCONFIG_PORT", "9999");
+        try (ServerSocket socket = new ServerSocket(9999)) {
+            CompletableFuture<Boolean> future = LogWebConfig.startAsync();
+            assertFalse(future.get(10, TimeUnit.SECONDS));
+            assertFalse(LogWebConfig.isRunning());
+        }
+    }
+
+    @Test
+    public void startAsyncWithDisabled() throws Exception {
+        System.setProperty("LOGWEBCONFIG_ENABLE", "false");
+        assertFalse(LogWebConfig.startAsync().get(10, TimeUnit.SECONDS));
+    }
 }
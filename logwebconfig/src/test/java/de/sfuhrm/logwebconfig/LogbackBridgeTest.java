@@ -0,0 +1,327 @@
+package de.sfuhrm.logwebconfig;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the {@link LogbackBridge} class.
+ * */
+public class LogbackBridgeTest {
+
+    private LogbackBridge instance;
+
+    private LoggerContext context;
+
+    @BeforeEach
+    public void init() {
+        instance = new LogbackBridge();
+        context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        instance.stopEventCounting();
+        context.getTurboFilterList().clear();
+    }
+
+    /** Collects the events of a logger without passing them to the root. */
+    private ListAppender<ILoggingEvent> listAppender(Logger logger) {
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.setContext(context);
+        appender.start();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        return appender;
+    }
+
+    @Test
+    public void isBound() {
+        assertTrue(LogbackBridge.isBound());
+    }
+
+    @Test
+    public void getLevelWithNamedLogger() {
+        context.getLogger("de.sfuhrm.lb.get").setLevel(Level.WARN);
+
+        LogFrameworkBridge.LoggerResource resource = instance.findLoggerResource("de.sfuhrm.lb.get").get();
+
+        assertEquals("WARN", resource.getLevel());
+        assertEquals("WARN", resource.getConfiguredLevel());
+        assertEquals("de.sfuhrm.lb.get", resource.getName());
+    }
+
+    @Test
+    public void getLevelInherited() {
+        context.getLogger("de.sfuhrm.lb.inherit").setLevel(Level.ERROR);
+        context.getLogger("de.sfuhrm.lb.inherit.Child");
+
+        LogFrameworkBridge.LoggerResource resource = instance.findLoggerResource("de.sfuhrm.lb.inherit.Child").get();
+
+        assertEquals("ERROR", resource.getLevel());
+        assertNull(resource.getConfiguredLevel());
+        assertEquals("ERROR", resource.getEffectiveLevel());
+    }
+
+    @Test
+    public void findUnknownLogger() {
+        assertFalse(instance.findLoggerResource("de.sfuhrm.lb.unknown").isPresent());
+    }
+
+    @Test
+    public void rootLogger() {
+        LogFrameworkBridge.LoggerResource resource = instance.findLoggerResource("").get();
+        assertEquals("", resource.getName());
+        assertEquals("", instance.createLoggerResource("/").getName());
+        assertEquals(context.getLogger(Logger.ROOT_LOGGER_NAME).getLevel().toString(), resource.getLevel());
+    }
+
+    @Test
+    public void createAndSetLevel() {
+        LogFrameworkBridge.LoggerResource resource = instance.createLoggerResource("de.sfuhrm.lb.created");
+        assertNull(context.exists("de.sfuhrm.lb.created"));
+
+        resource.setLevel("trace");
+
+        assertEquals(Level.TRACE, context.getLogger("de.sfuhrm.lb.created").getLevel());
+    }
+
+    @Test
+    public void setLevelWithWrongLevelName() {
+        LogFrameworkBridge.LoggerResource resource = instance.createLoggerResource("de.sfuhrm.lb.wrong");
+        assertThrows(IllegalArgumentException.class, () -> resource.setLevel("Schnitlauch"));
+    }
+
+    @Test
+    public void setLevels() {
+        Map<String, String> levels = new HashMap<>();
+        levels.put("de.sfuhrm.lb.levels.a", "DEBUG");
+        levels.put("de.sfuhrm.lb.levels.b", "ERROR");
+
+        instance.setLevels(levels);
+
+        assertEquals(Level.DEBUG, context.getLogger("de.sfuhrm.lb.levels.a").getLevel());
+        assertEquals(Level.ERROR, context.getLogger("de.sfuhrm.lb.levels.b").getLevel());
+    }
+
+    @Test
+    public void setLevelsWithWrongLevelName() {
+        Map<String, String> levels = new HashMap<>();
+        levels.put("de.sfuhrm.lb.levelsWrong.a", "DEBUG");
+        levels.put("de.sfuhrm.lb.levelsWrong.b", "Schnitlauch");
+
+        assertThrows(IllegalArgumentException.class, () -> instance.setLevels(levels));
+        assertNull(context.exists("de.sfuhrm.lb.levelsWrong.a"));
+    }
+
+    @Test
+    public void streamLoggerResources() {
+        context.getLogger("de.sfuhrm.lb.stream");
+
+        List<String> names = instance.streamLoggerResources()
+                .map(LogFrameworkBridge.LoggerResource::getName)
+                .collect(Collectors.toList());
+
+        assertEquals("", names.get(0));
+        assertTrue(names.contains("de.sfuhrm.lb.stream"));
+    }
+
+    @Test
+    public void setSubtreeLevel() {
+        context.getLogger("de.sfuhrm.lb.tree").setLevel(Level.INFO);
+        context.getLogger("de.sfuhrm.lb.tree.Own").setLevel(Level.WARN);
+
+        instance.setSubtreeLevel("de.sfuhrm.lb.tree", "DEBUG");
+
+        assertEquals(Level.DEBUG, context.getLogger("de.sfuhrm.lb.tree").getLevel());
+        assertEquals(Level.DEBUG, context.getLogger("de.sfuhrm.lb.tree.Own").getLevel());
+    }
+
+    @Test
+    public void setSampledLevel() {
+        String name = "de.sfuhrm.lb.sampled";
+        Logger logger = context.getLogger(name);
+        ListAppender<ILoggingEvent> appender = listAppender(logger);
+        LogFrameworkBridge.LoggerResource resource = instance.createLoggerResource(name);
+
+        resource.setSampledLevel("DEBUG", 5);
+
+        assertEquals("DEBUG", resource.getLevel());
+        assertEquals(5, resource.getSampleRate());
+        org.slf4j.Logger child = LoggerFactory.getLogger(name + ".Child");
+        for (int i = 0; i < 100; i++) {
+            child.debug("sampled");
+            logger.info("always");
+            logger.trace("never");
+        }
+        long debug = appender.list.stream().filter(e -> e.getLevel() == Level.DEBUG).count();
+        long info = appender.list.stream().filter(e -> e.getLevel() == Level.INFO).count();
+        assertTrue(debug >= 5 && debug < 10, "passed " + debug);
+        assertEquals(100, info);
+
+        resource.setLevel("INFO");
+        assertEquals(0, resource.getSampleRate());
+        assertTrue(context.getTurboFilterList().isEmpty());
+    }
+
+    @Test
+    public void eventCounting() {
+        Logger logger = context.getLogger("de.sfuhrm.lb.counted");
+        logger.setLevel(Level.INFO);
+        listAppender(logger);
+        EventCounters counters = new EventCounters();
+        instance.startEventCounting(counters);
+
+        for (int i = 0; i < 3; i++) {
+            logger.info("counted");
+            logger.debug("below level");
+            logger.isInfoEnabled();
+        }
+        logger.error("counted");
+        counters.rotate();
+
+        List<EventCounters.Rate> rates = counters.list();
+        assertEquals(2, rates.size());
+        assertEquals("de.sfuhrm.lb.counted", rates.get(0).getLogger());
+        assertEquals("INFO", rates.get(0).getLevel());
+        assertEquals(3, rates.get(0).getCount());
+        assertEquals("ERROR", rates.get(1).getLevel());
+        assertEquals(1, rates.get(1).getCount());
+
+        instance.stopEventCounting();
+        assertTrue(context.getTurboFilterList().isEmpty());
+    }
+
+    @Test
+    public void levelIndex() {
+        assertEquals(1, LogbackEventCounting.levelIndex(Level.ERROR));
+        assertEquals(3, LogbackEventCounting.levelIndex(Level.INFO));
+        assertEquals(5, LogbackEventCounting.levelIndex(Level.TRACE));
+        assertEquals(5, LogbackEventCounting.levelIndex(Level.ALL));
+    }
+
+    @Test
+    public void createLoggerResourceDoesNotCreateLogger() {
+        LogFrameworkBridge.LoggerResource resource = instance.createLoggerResource("de.sfuhrm.lb.lazy");
+        assertEquals("de.sfuhrm.lb.lazy", resource.getName());
+        assertNull(context.exists("de.sfuhrm.lb.lazy"));
+    }
+
+    @Test
+    public void setContextRules() {
+        context.getLogger("de.sfuhrm.lb.context").setLevel(Level.INFO);
+        Logger inside = context.getLogger("de.sfuhrm.lb.context.Inside");
+        Logger outside = context.getLogger("de.sfuhrm.lb.contextx");
+        outside.setLevel(Level.INFO);
+
+        instance.setContextRules(Collections.singletonList(
+                new ContextLevels.Rule("logback", "de.sfuhrm.lb.context", "tenant", "4711", "DEBUG", 0)));
+        try {
+            assertFalse(inside.isDebugEnabled());
+            MDC.put("tenant", "4711");
+            assertTrue(inside.isDebugEnabled());
+            assertFalse(inside.isTraceEnabled());
+            assertFalse(outside.isDebugEnabled());
+        } finally {
+            MDC.remove("tenant");
+            instance.setContextRules(Collections.emptyList());
+        }
+        assertTrue(context.getTurboFilterList().isEmpty());
+    }
+
+    @Test
+    public void listAsyncQueues() {
+        Logger logger = context.getLogger("de.sfuhrm.lb.async");
+        AsyncAppender appender = new AsyncAppender();
+        appender.setContext(context);
+        appender.setName("de.sfuhrm.lb.async");
+        appender.setQueueSize(32);
+        appender.addAppender(new ListAppender<>());
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            List<LogFrameworkBridge.AsyncQueue> queues = instance.listAsyncQueues().stream()
+                    .filter(queue -> queue.getName().equals("de.sfuhrm.lb.async"))
+                    .collect(Collectors.toList());
+            assertEquals(1, queues.size());
+            LogFrameworkBridge.AsyncQueue queue = queues.get(0);
+            assertEquals(32, queue.getCapacity());
+            assertEquals(32, queue.getRemainingCapacity());
+            assertEquals(0, queue.getDiscarded());
+            assertTrue(queue.isBlocking());
+            assertNull(queue.getDiscardLevel());
+
+            queue.setPolicy(false, "warn");
+            assertFalse(queue.isBlocking());
+            assertTrue(appender.isNeverBlock());
+            assertEquals("WARN", queue.getDiscardLevel());
+
+            queue.setPolicy(null, "-");
+            assertNull(queue.getDiscardLevel());
+            assertFalse(queue.isBlocking());
+            assertThrows(IllegalArgumentException.class, () -> queue.setPolicy(true, "NOPE"));
+            assertFalse(queue.isBlocking());
+        } finally {
+            logger.detachAppender(appender);
+            appender.stop();
+        }
+    }
+
+    @Test
+    public void findAppenderResource() throws IOException {
+        Path file = Files.createTempFile("logwebconfig", ".log");
+        Logger logger = context.getLogger("de.sfuhrm.lb.file");
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%m%n");
+        encoder.start();
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setName("de.sfuhrm.lb.file");
+        appender.setFile(file.toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            LogFrameworkBridge.AppenderResource resource =
+                    instance.findAppenderResource("de.sfuhrm.lb.file").get();
+            assertEquals("FileAppender", resource.getType());
+            assertEquals(-1, resource.getBufferSize());
+            assertTrue(resource.isImmediateFlush());
+            assertFalse(resource.isMemoryMapped());
+
+            resource.configure(null, false, null);
+            assertFalse(appender.isImmediateFlush());
+            resource.configure(null, true, false);
+            assertTrue(appender.isImmediateFlush());
+            assertThrows(UnsupportedOperationException.class, () -> resource.configure(4096, null, null));
+            assertThrows(UnsupportedOperationException.class, () -> resource.configure(null, null, true));
+            assertFalse(instance.findAppenderResource("de.sfuhrm.lb.none").isPresent());
+        } finally {
+            logger.detachAppender(appender);
+            appender.stop();
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test for the {@link LoggerIndex} class.
+ * */
+public class LoggerIndexTest {
+
+    private static LoggerIndex newIndex(String... names) {
+        LoggerIndex instance = new LoggerIndex(() -> Arrays.stream(names));
+        instance.refresh();
+        return instance;
+    }
+
+    @Test
+    public void searchWithPrefix() {
+        LoggerIndex instance = newIndex("", "com", "com.acme", "com.acme.a",
+                "com.acme.b", "com.acmex", "org.acme");
+        assertEquals(Arrays.asList("com.acme", "com.acme.a", "com.acme.b",
+                "com.acmex"), instance.search("com.acme", null, null, 10).getNames());
+        assertEquals(Arrays.asList("com.acme.a", "com.acme.b"),
+                instance.search("com.acme.", null, null, 10).getNames());
+        assertEquals(Collections.emptyList(),
+                instance.search("net", null, null, 10).getNames());
+    }
+
+    @Test
+    public void searchWithEmptyPrefix() {
+        LoggerIndex instance = newIndex("b", "", "a");
+        assertEquals(Arrays.asList("", "a", "b"),
+                instance.search("", null, null, 10).getNames());
+    }
+
+    @Test
+    public void searchWithContains() {
+        LoggerIndex instance = newIndex("com.acme.db.Pool", "com.acme.web",
+                "com.acme.db.Query", "org.db");
+        assertEquals(Arrays.asList("com.acme.db.Pool", "com.acme.db.Query"),
+                instance.search("com.", ".db.", null, 10).getNames());
+    }
+
+    @Test
+    public void searchWithLimit() {
+        LoggerIndex instance = newIndex("a.1", "a.2", "a.3");
+        assertEquals(Arrays.asList("a.1", "a.2"),
+                instance.search("a.", null, null, 2).getNames());
+    }
+
+    @Test
+    public void searchWithCursor() {
+        LoggerIndex instance = newIndex("a.1", "a.2", "a.3", "b");
+        LoggerIndex.Page first = instance.search("a.", null, null, 2);
+        assertEquals(Arrays.asList("a.1", "a.2"), first.getNames());
+        assertEquals("a.2", first.getNext());
+        LoggerIndex.Page second = instance.search("a.", null, first.getNext(), 2);
+        assertEquals(Collections.singletonList("a.3"), second.getNames());
+        assertNull(second.getNext());
+    }
+
+    @Test
+    public void searchWithContainsReadsAtMostMaxExamined() {
+        String[] names = new String[LoggerIndex.MAX_EXAMINED + 2];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = String.format("a.%06d", i);
+        }
+        LoggerIndex instance = newIndex(names);
+        LoggerIndex.Page first = instance.search("a.", "none", null, 10);
+        assertEquals(Collections.emptyList(), first.getNames());
+        assertEquals(names[LoggerIndex.MAX_EXAMINED - 1], first.getNext());
+        String lastName = names[names.length - 1];
+        LoggerIndex.Page second = instance.search("a.", lastName.substring(2), first.getNext(), 10);
+        assertEquals(Collections.singletonList(lastName), second.getNames());
+        assertNull(second.getNext());
+    }
+
+    @Test
+    public void searchWithCursorBeforePrefix() {
+        LoggerIndex instance = newIndex("a", "b.1", "b.2");
+        assertEquals(Arrays.asList("b.1", "b.2"),
+                instance.search("b.", null, "a", 10).getNames());
+    }
+
+    @Test
+    public void add() {
+        LoggerIndex instance = newIndex("a");
+        instance.add("b");
+        instance.add("a");
+        assertEquals(2, instance.size());
+        assertEquals(Arrays.asList("a", "b"),
+                instance.search("", null, null, 10).getNames());
+    }
+
+    @Test
+    public void refreshAddsNewNames() {
+        List<String> names = new CopyOnWriteArrayList<>(
+                Collections.singletonList("a"));
+        LoggerIndex instance = new LoggerIndex(names::stream);
+        instance.refresh();
+        assertEquals(1, instance.size());
+        names.add("b");
+        names.remove("a");
+        instance.refresh();
+        assertEquals(Arrays.asList("a", "b"),
+                instance.search("", null, null, 10).getNames());
+    }
+
+    @Test
+    public void start() {
+        LoggerIndex instance = new LoggerIndex(
+                () -> Arrays.stream(new String[] {"a", "b"}));
+        try {
+            instance.start();
+            assertEquals(2, instance.size());
+        } finally {
+            instance.stop();
+        }
+    }
+}
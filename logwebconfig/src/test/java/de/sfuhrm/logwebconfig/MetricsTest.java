@@ -0,0 +1,82 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link Metrics} class.
+ * */
+public class MetricsTest {
+
+    private Metrics instance;
+
+    @BeforeEach
+    public void init() {
+        instance = new Metrics();
+    }
+
+    @Test
+    public void writeEmpty() {
+        String text = instance.write();
+        assertTrue(text.contains("# TYPE logwebconfig_requests_total counter\n"));
+        assertTrue(text.contains("logwebconfig_authentication_failures_total 0\n"));
+        assertTrue(text.contains("logwebconfig_active_connections 0\n"));
+    }
+
+    @Test
+    public void requestCounters() {
+        instance.recordRequest("GET", "/{framework}/{logger}/level", 200, 1);
+        instance.recordRequest("GET", "/{framework}/{logger}/level", 200, 1);
+        instance.recordRequest("GET", "/{framework}/{logger}/level", 404, 1);
+
+        String text = instance.write();
+
+        assertTrue(text.contains("logwebconfig_requests_total{route=\"/{framework}/{logger}/level\",method=\"GET\",status=\"200\"} 2\n"), text);
+        assertTrue(text.contains("logwebconfig_requests_total{route=\"/{framework}/{logger}/level\",method=\"GET\",status=\"404\"} 1\n"), text);
+    }
+
+    @Test
+    public void requestHistogram() {
+        instance.recordRequest("PUT", "/{framework}/levels", 200, TimeUnit.MICROSECONDS.toNanos(50));
+        instance.recordRequest("PUT", "/{framework}/levels", 200, TimeUnit.MILLISECONDS.toNanos(3));
+        instance.recordRequest("PUT", "/{framework}/levels", 200, TimeUnit.SECONDS.toNanos(10));
+
+        String text = instance.write();
+
+        String labels = "route=\"/{framework}/levels\",method=\"PUT\"";
+        assertTrue(text.contains("logwebconfig_request_duration_seconds_bucket{" + labels + ",le=\"0.0001\"} 1\n"), text);
+        assertTrue(text.contains("logwebconfig_request_duration_seconds_bucket{" + labels + ",le=\"0.001\"} 1\n"), text);
+        assertTrue(text.contains("logwebconfig_request_duration_seconds_bucket{" + labels + ",le=\"0.005\"} 2\n"), text);
+        assertTrue(text.contains("logwebconfig_request_duration_seconds_bucket{" + labels + ",le=\"5\"} 2\n"), text);
+        assertTrue(text.contains("logwebconfig_request_duration_seconds_bucket{" + labels + ",le=\"+Inf\"} 3\n"), text);
+        assertTrue(text.contains("logwebconfig_request_duration_seconds_sum{" + labels + "} 10.00305\n"), text);
+        assertTrue(text.contains("logwebconfig_request_duration_seconds_count{" + labels + "} 3\n"), text);
+    }
+
+    @Test
+    public void bridgeHistogram() {
+        instance.recordBridge("log4j2", Metrics.BRIDGE_SET, TimeUnit.MICROSECONDS.toNanos(20));
+
+        String text = instance.write();
+
+        assertTrue(text.contains("logwebconfig_bridge_duration_seconds_bucket{framework=\"log4j2\",operation=\"set\",le=\"0.0001\"} 1\n"), text);
+        assertTrue(text.contains("logwebconfig_bridge_duration_seconds_count{framework=\"log4j2\",operation=\"get\"} 0\n"), text);
+    }
+
+    @Test
+    public void authenticationFailuresAndConnections() {
+        instance.recordAuthenticationFailure();
+        instance.connectionOpened();
+        instance.connectionOpened();
+        instance.connectionClosed();
+
+        String text = instance.write();
+
+        assertTrue(text.contains("logwebconfig_authentication_failures_total 1\n"), text);
+        assertTrue(text.contains("logwebconfig_active_connections 1\n"), text);
+    }
+}
@@ -0,0 +1,148 @@
+package de.sfuhrm.logwebconfig;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the {@link PeerFanOut} class.
+ * */
+public class PeerFanOutTest {
+
+    private static final int FIRST_PORT = 10001;
+
+    private final List<Server> peers = new ArrayList<>();
+
+    @BeforeEach
+    public void startup() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            peers.add(new Server("127.0.0.1", FIRST_PORT + i));
+        }
+    }
+
+    @AfterEach
+    public void shutdown() {
+        peers.forEach(Server::stop);
+    }
+
+    private static List<String> addresses(int count) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add("127.0.0.1:" + (FIRST_PORT + i));
+        }
+        return result;
+    }
+
+    private static List<PeerFanOut.Result> put(PeerFanOut fanOut, String target, String body) throws IOException {
+        return fanOut.send("PUT", target,
+                Collections.singletonMap("Content-Type", "text/plain"),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void sendToAll() throws IOException {
+        LogManager.getLogger("fanout.all");
+        PeerFanOut fanOut = new PeerFanOut(() -> addresses(3), 2, 5000);
+
+        List<PeerFanOut.Result> results = put(fanOut, "/log4j2/fanout.all/level", "DEBUG");
+
+        assertEquals(3, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(addresses(3).get(i), results.get(i).getPeer());
+            assertEquals(200, results.get(i).getStatus());
+            assertTrue(results.get(i).isSuccess());
+        }
+        assertEquals(Level.DEBUG, LogManager.getLogger("fanout.all").getLevel());
+    }
+
+    @Test
+    public void sendWithPeerError() throws IOException {
+        PeerFanOut fanOut = new PeerFanOut(() -> addresses(2), 4, 5000);
+
+        List<PeerFanOut.Result> results = put(fanOut, "/log4j2/fanout.error/level", "Schnitlauch");
+
+        assertEquals(400, results.get(0).getStatus());
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(0).getMessage().contains("Schnitlauch"), results.get(0).getMessage());
+    }
+
+    @Test
+    public void sendWithPeerDown() throws IOException {
+        int port;
+        try (ServerSocket closed = new ServerSocket(0)) {
+            port = closed.getLocalPort();
+        }
+        List<String> addresses = new ArrayList<>(addresses(1));
+        addresses.add("127.0.0.1:" + port);
+        PeerFanOut fanOut = new PeerFanOut(() -> addresses, 4, 5000);
+
+        List<PeerFanOut.Result> results = put(fanOut, "/log4j2/fanout.down/level", "INFO");
+
+        assertEquals(200, results.get(0).getStatus());
+        assertEquals(PeerFanOut.NO_STATUS, results.get(1).getStatus());
+        assertFalse(results.get(1).isSuccess());
+    }
+
+    @Test
+    public void sendWithPeerTimeout() throws IOException {
+        // accepts connections in the backlog, but never responds
+        try (ServerSocket silent = new ServerSocket(0)) {
+            List<String> addresses = new ArrayList<>(addresses(1));
+            addresses.add("127.0.0.1:" + silent.getLocalPort());
+            PeerFanOut fanOut = new PeerFanOut(() -> addresses, 4, 300);
+
+            long start = System.nanoTime();
+            List<PeerFanOut.Result> results = put(fanOut, "/log4j2/fanout.timeout/level", "INFO");
+            long millis = (System.nanoTime() - start) / 1000000;
+
+            assertEquals(200, results.get(0).getStatus());
+            assertEquals(PeerFanOut.NO_STATUS, results.get(1).getStatus());
+            assertEquals("Timeout", results.get(1).getMessage());
+            assertTrue(millis >= 300 && millis < 3000, Long.toString(millis));
+        }
+    }
+
+    @Test
+    public void sendToNoPeers() throws IOException {
+        PeerFanOut fanOut = new PeerFanOut(Collections::emptyList, 4, 5000);
+        assertTrue(put(fanOut, "/log4j2/fanout.none/level", "INFO").isEmpty());
+    }
+
+    @Test
+    public void parsePeers() {
+        assertEquals(Arrays.asList("a:1", "b:2", "[::1]:3"),
+                PeerFanOut.parsePeers(" a:1,,b:2 ,[::1]:3"));
+    }
+
+    @Test
+    public void parsePeersWithIllegal() {
+        assertThrows(IllegalArgumentException.class, () -> PeerFanOut.parsePeers("a"));
+        assertThrows(IllegalArgumentException.class, () -> PeerFanOut.parsePeers("a:b"));
+        assertThrows(IllegalArgumentException.class, () -> PeerFanOut.parsePeers(":1"));
+    }
+
+    @Test
+    public void readPeers() throws IOException {
+        Path file = Files.createTempFile("peers", ".txt");
+        try {
+            Files.write(file, Arrays.asList("# fleet", "a:1", "", "  b:2"));
+            assertEquals(Arrays.asList("a:1", "b:2"), PeerFanOut.readPeers(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package de.sfuhrm.logwebconfig;
+
+import fi.iki.elonen.NanoHTTPD;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test for the {@link Router} class.
+ * */
+public class RouterTest {
+
+    private Router instance;
+
+    private NanoHTTPD.Response response;
+
+    private String logger;
+
+    private String framework;
+
+    @BeforeEach
+    public void init() {
+        response = NanoHTTPD.newFixedLengthResponse("");
+        instance = new Router()
+                .add(NanoHTTPD.Method.GET, "/{framework}/{logger}/level", (server, session, match) -> {
+                    framework = match.get("framework");
+                    logger = match.get("logger");
+                    return response;
+                })
+                .add(NanoHTTPD.Method.PUT, "/{framework}/levels", (server, session, match) -> {
+                    framework = match.get("framework");
+                    return response;
+                });
+    }
+
+    private NanoHTTPD.IHTTPSession session(NanoHTTPD.Method method, String uri) {
+        NanoHTTPD.IHTTPSession session = Mockito.mock(NanoHTTPD.IHTTPSession.class);
+        Mockito.when(session.getMethod()).thenReturn(method);
+        Mockito.when(session.getUri()).thenReturn(uri);
+        return session;
+    }
+
+    @Test
+    public void routeWithVariables() throws ServerException {
+        assertSame(response, instance.route(null, session(NanoHTTPD.Method.GET, "/log4j2/foo.Bar/level")));
+        assertEquals("log4j2", framework);
+        assertEquals("foo.Bar", logger);
+    }
+
+    @Test
+    public void routeWithEmptyVariable() throws ServerException {
+        assertSame(response, instance.route(null, session(NanoHTTPD.Method.GET, "/log4j1//level")));
+        assertEquals("log4j1", framework);
+        assertEquals("", logger);
+    }
+
+    @Test
+    public void routeWithManyLeadingSlashes() throws ServerException {
+        assertSame(response, instance.route(null, session(NanoHTTPD.Method.GET, "///log4j1/foo/level")));
+        assertEquals("log4j1", framework);
+        assertEquals("foo", logger);
+    }
+
+    @Test
+    public void routeWithLiteral() throws ServerException {
+        assertSame(response, instance.route(null, session(NanoHTTPD.Method.PUT, "/log4j2/levels")));
+        assertEquals("log4j2", framework);
+    }
+
+    @Test
+    public void matchTemplate() throws ServerException {
+        Router.Match match = instance.match(session(NanoHTTPD.Method.PUT, "/log4j2/levels"));
+        assertEquals("/{framework}/levels", match.getTemplate());
+        assertEquals("log4j2", match.get("framework"));
+    }
+
+    @Test
+    public void routeWithLiteralBeforeVariable() throws ServerException {
+        String[] queue = new String[1];
+        instance.add(NanoHTTPD.Method.PUT, "/{framework}/{logger}/level", (server, session, match) -> {
+            logger = match.get("logger");
+            return response;
+        }).add(NanoHTTPD.Method.PUT, "/{framework}/queues/{queue}", (server, session, match) -> {
+            queue[0] = match.get("queue");
+            return response;
+        });
+
+        Router.Match match = instance.match(session(NanoHTTPD.Method.PUT, "/log4j2/queues/level"));
+        assertEquals("/{framework}/queues/{queue}", match.getTemplate());
+        assertSame(response, match.handle(null, null));
+        assertEquals("level", queue[0]);
+        assertNull(logger);
+
+        match = instance.match(session(NanoHTTPD.Method.PUT, "/log4j2/foo/level"));
+        assertEquals("/{framework}/{logger}/level", match.getTemplate());
+    }
+
+    @Test
+    public void routeWithLiteralBeforeVariableAndWrongMethod() {
+        instance.add(NanoHTTPD.Method.PUT, "/{framework}/queues/{queue}", (server, session, match) -> response);
+
+        ServerException e = assertThrows(ServerException.class,
+                () -> instance.route(null, session(NanoHTTPD.Method.GET, "/log4j2/queues/level")));
+        assertEquals(NanoHTTPD.Response.Status.METHOD_NOT_ALLOWED, e.toResponse().getStatus());
+    }
+
+    @Test
+    public void routeWithWrongMethod() {
+        ServerException e = assertThrows(ServerException.class,
+                () -> instance.route(null, session(NanoHTTPD.Method.POST, "/log4j2/foo/level")));
+        assertEquals(NanoHTTPD.Response.Status.METHOD_NOT_ALLOWED, e.toResponse().getStatus());
+    }
+
+    @Test
+    public void routeWithTooManySegments() {
+        ServerException e = assertThrows(ServerException.class,
+                () -> instance.route(null, session(NanoHTTPD.Method.GET, "/log4j2/foo/level/more")));
+        assertEquals(NanoHTTPD.Response.Status.BAD_REQUEST, e.toResponse().getStatus());
+    }
+
+    @Test
+    public void routeWithTooFewSegments() {
+        ServerException e = assertThrows(ServerException.class,
+                () -> instance.route(null, session(NanoHTTPD.Method.GET, "/log4j2/level")));
+        assertEquals(NanoHTTPD.Response.Status.BAD_REQUEST, e.toResponse().getStatus());
+    }
+
+    @Test
+    public void routeWithWrongLiteral() {
+        ServerException e = assertThrows(ServerException.class,
+                () -> instance.route(null, session(NanoHTTPD.Method.GET, "/log4j2/foo/levels")));
+        assertEquals(NanoHTTPD.Response.Status.BAD_REQUEST, e.toResponse().getStatus());
+    }
+}
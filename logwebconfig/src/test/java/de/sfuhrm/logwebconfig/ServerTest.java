@@ -1,7 +1,16 @@
 package de.sfuhrm.logwebconfig;
 
 import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import fi.iki.elonen.NanoHTTPD;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AsyncAppender;
+import org.apache.logging.log4j.core.appender.RandomAccessFileAppender;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.Configurator;
 import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,7 +29,25 @@ import jakarta.ws.rs.core.Response;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,6 +61,7 @@ public class ServerTest {
     private Client jerseyClient;
     private WebTarget serviceTarget;
     private int port = 9999;
+    private int boundedPort = 9997;
 
     @Spy
     private Log4J2Bridge configuratorMock;
@@ -68,7 +96,6 @@ public class ServerTest {
 
     @Test
     public void post() throws ServerException {
-        installMocks();
         Response r = serviceTarget
                 .path("/log4j2//level")
                 .request()
@@ -170,6 +197,14 @@ public class ServerTest {
         assertEquals(Log4J2Bridge.class, bridge.getClass());
     }
 
+    @Test
+    void getLogFrameworkBridgeTwice() throws IOException, ServerException {
+        Server server = new Server(null, 1234, false);
+        LogFrameworkBridge first = server.getLogFrameworkBridge("log4j2");
+        LogFrameworkBridge second = server.getLogFrameworkBridge("log4j2");
+        assertSame(first, second);
+    }
+
     @Test
     void getLogFrameworkBridgeWithUnknown() throws IOException {
         Server server = new Server(null, 1234);
@@ -177,6 +212,32 @@ public class ServerTest {
             server.getLogFrameworkBridge("frameworkunknown"));
     }
 
+    @Test
+    public void putAndGetLevelWithLogback() {
+        Response r = serviceTarget
+                .path("logback/de.sfuhrm.server.logback/level")
+                .request()
+                .put(Entity.entity("WARN", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+
+        r = serviceTarget.path("logback/de.sfuhrm.server.logback/level").request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals("WARN", r.readEntity(String.class));
+    }
+
+    @Test
+    public void putAndGetLevelWithJul() {
+        Response r = serviceTarget
+                .path("jul/de.sfuhrm.server.jul/level")
+                .request()
+                .put(Entity.entity("FINE", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+
+        r = serviceTarget.path("jul/de.sfuhrm.server.jul/level").request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals("FINE", r.readEntity(String.class));
+    }
+
     @Test
     public void putWithoutLevel() {
         Response r = serviceTarget
@@ -194,6 +255,25 @@ public class ServerTest {
         assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
     }
 
+    @Test
+    public void putWithIllegalLevelDoesNotCreateLogger() {
+        Response r = serviceTarget.path("log4j1/de.sfuhrm.rejected.level/level")
+                .request()
+                .put(Entity.entity("Schnitlauch", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+        r = serviceTarget.path("log4j1/de.sfuhrm.rejected.level/level")
+                .request()
+                .put(Entity.entity("DEBUG@0/s", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+        r = serviceTarget.path("log4j1/de.sfuhrm.rejected.level/level")
+                .queryParam("ttl", "soon")
+                .request()
+                .put(Entity.entity("DEBUG", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+
+        assertNull(org.apache.log4j.LogManager.exists("de.sfuhrm.rejected.level"));
+    }
+
     @Test
     public void putWithLevelDebugAndLoggerRoot() throws Exception {
         installMocks();
@@ -212,7 +292,6 @@ public class ServerTest {
 
         installMocks();
         Mockito.doNothing().when(configuratorMock).setLevel(Mockito.anyString(), Mockito.any());
-        Mockito.when(configuratorMock.findLoggerResource(Mockito.anyString())).thenCallRealMethod();
 
         Response r = serviceTarget
                 .path("log4j2").path(logger).path("level")
@@ -222,4 +301,999 @@ public class ServerTest {
 
         Mockito.verify(configuratorMock).setLevel(logger, Level.ERROR);
     }
+
+    @Test
+    public void putLevels() throws Exception {
+        installMocks();
+        Mockito.doNothing().when(configuratorMock).setLevelMap(Mockito.anyMap());
+
+        Response r = serviceTarget
+                .path("/log4j2/levels")
+                .request()
+                .put(Entity.entity("foo.Bar=DEBUG\n=WARN\n\nfoo.Baz=ERROR\n", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+
+        Map<String, Level> expected = new HashMap<>();
+        expected.put("foo.Bar", Level.DEBUG);
+        expected.put("", Level.WARN);
+        expected.put("foo.Baz", Level.ERROR);
+        Mockito.verify(configuratorMock).setLevelMap(expected);
+    }
+
+    @Test
+    public void putLevelsWithIllegalLevel() throws Exception {
+        installMocks();
+
+        Response r = serviceTarget
+                .path("/log4j2/levels")
+                .request()
+                .put(Entity.entity("foo.Bar=DEBUG\nfoo.Baz=Schnitlauch\n", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+
+        Mockito.verify(configuratorMock, Mockito.never()).setLevelMap(Mockito.anyMap());
+    }
+
+    @Test
+    public void putLevelsWithIllegalLevelDoesNotCreateLoggers() {
+        Response r = serviceTarget
+                .path("/log4j1/levels")
+                .request()
+                .put(Entity.entity("de.sfuhrm.rejected.levels=DEBUG\nde.sfuhrm.rejected.levels.Child=Schnitlauch\n",
+                        MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+
+        assertNull(org.apache.log4j.LogManager.exists("de.sfuhrm.rejected.levels"));
+        assertNull(org.apache.log4j.LogManager.exists("de.sfuhrm.rejected.levels.Child"));
+    }
+
+    @Test
+    public void putLevelsWithIllegalLine() {
+        Response r = serviceTarget
+                .path("/log4j2/levels")
+                .request()
+                .put(Entity.entity("foo.Bar\n", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+    }
+
+    private String statusLineOfRawPut(String path, String contentLength) throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write(("PUT " + path + " HTTP/1.1\r\n"
+                    + "Host: localhost\r\n"
+                    + "Content-Length: " + contentLength + "\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            return reader.readLine();
+        }
+    }
+
+    @Test
+    public void putLevelsWithTooLargeBody() throws IOException {
+        assertTrue(statusLineOfRawPut("/log4j2/levels", "2000000000").contains(" 413 "));
+    }
+
+    @Test
+    public void putLevelsWithIllegalContentLength() throws IOException {
+        assertTrue(statusLineOfRawPut("/log4j2/levels", "-5").contains(" 400 "));
+        assertTrue(statusLineOfRawPut("/log4j2/levels", "many").contains(" 400 "));
+    }
+
+    @Test
+    public void putSnapshotWithTooLargeBody() throws IOException {
+        assertTrue(statusLineOfRawPut("/log4j2/snapshot", "2000000000").contains(" 413 "));
+    }
+
+    @Test
+    public void loggerNamesQueuesAndAppendersAreReserved() {
+        Response r = serviceTarget.path("/log4j2/queues/level").request().get();
+        assertEquals(Response.Status.METHOD_NOT_ALLOWED.getStatusCode(), r.getStatus());
+
+        r = serviceTarget.path("/log4j2/appenders/level").request()
+                .put(Entity.entity("bufferSize=1024", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), r.getStatus());
+        assertFalse(LoggerContext.getContext(false).hasLogger("appenders"));
+    }
+
+    @Test
+    public void getLevels() {
+        Response r = serviceTarget.path("/log4j2/levels").request().get();
+        assertEquals(Response.Status.METHOD_NOT_ALLOWED.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void getWithRateLimit() {
+        server.setAdmissionControl(new AdmissionControl(0, 1, 1));
+
+        Response first = serviceTarget.path("/foofoobar//level").request().get();
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), first.getStatus());
+        Response second = serviceTarget.path("/foofoobar//level").request().get();
+        assertEquals(Response.Status.TOO_MANY_REQUESTS.getStatusCode(), second.getStatus());
+        assertEquals("1", second.getHeaderString("Retry-After"));
+    }
+
+    @Test
+    public void getLoggerList() {
+        Configurator.setLevel("de.sfuhrm.list.Logger", Level.INFO);
+        LogManager.getLogger("de.sfuhrm.list.Logger");
+
+        Response r = serviceTarget.path("/log4j2/").request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals("chunked", r.getHeaderString("Transfer-Encoding"));
+        String[] lines = r.readEntity(String.class).split("\n");
+        assertTrue(lines[0].startsWith("\t"));
+        assertTrue(Arrays.asList(lines).contains("de.sfuhrm.list.Logger\tINFO\tINFO"));
+    }
+
+    @Test
+    public void search() {
+        Configurator.setLevel("de.sfuhrm.search.a", Level.INFO);
+        Configurator.setLevel("de.sfuhrm.search.b", Level.WARN);
+        Configurator.setLevel("de.sfuhrm.search.c", Level.ERROR);
+        Configurator.setLevel("de.sfuhrm.searchx", Level.ERROR);
+
+        Response r = serviceTarget.path("/log4j2/search")
+                .queryParam("prefix", "de.sfuhrm.search.")
+                .queryParam("limit", "2")
+                .request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals("de.sfuhrm.search.b", r.getHeaderString("X-Next-Cursor"));
+        assertEquals("de.sfuhrm.search.a\tINFO\tINFO\n"
+                + "de.sfuhrm.search.b\tWARN\tWARN\n",
+                r.readEntity(String.class));
+
+        r = serviceTarget.path("/log4j2/search")
+                .queryParam("prefix", "de.sfuhrm.search.")
+                .queryParam("limit", "2")
+                .queryParam("cursor", "de.sfuhrm.search.b")
+                .request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertNull(r.getHeaderString("X-Next-Cursor"));
+        assertEquals("de.sfuhrm.search.c\tERROR\tERROR\n",
+                r.readEntity(String.class));
+    }
+
+    @Test
+    public void searchFindsLoggerSetThroughServer() {
+        serviceTarget.path("/log4j2/search").request().get();
+        putLevel("de.sfuhrm.search.created", "DEBUG");
+
+        Response r = serviceTarget.path("/log4j2/search")
+                .queryParam("prefix", "de.sfuhrm.search.created")
+                .request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals("de.sfuhrm.search.created\tDEBUG\tDEBUG\n",
+                r.readEntity(String.class));
+    }
+
+    @Test
+    public void searchWithIllegalLimit() {
+        Response r = serviceTarget.path("/log4j2/search")
+                .queryParam("limit", "0")
+                .request().get();
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(),
+                r.getStatus());
+    }
+
+    @Test
+    public void getSnapshot() {
+        Configurator.setLevel("de.sfuhrm.snapshot.get", Level.WARN);
+
+        Response r = serviceTarget.path("/log4j2/snapshot").request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        List<String> lines = Arrays.asList(
+                r.readEntity(String.class).split("\n"));
+        assertTrue(lines.get(0).startsWith("="));
+        assertTrue(lines.contains("de.sfuhrm.snapshot.get=WARN"));
+    }
+
+    @Test
+    public void putSnapshot() {
+        Configurator.setLevel("de.sfuhrm.snapshot.put", Level.WARN);
+        String snapshot = serviceTarget.path("/log4j2/snapshot")
+                .request().get(String.class);
+
+        putLevel("de.sfuhrm.snapshot.put", "DEBUG");
+        putLevel("de.sfuhrm.snapshot.put.child", "TRACE");
+
+        Response r = serviceTarget.path("/log4j2/snapshot")
+                .request()
+                .put(Entity.entity(snapshot, MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals("de.sfuhrm.snapshot.put\tDEBUG\tWARN\n"
+                + "de.sfuhrm.snapshot.put.child\tTRACE\tWARN\n",
+                r.readEntity(String.class));
+        assertEquals(Level.WARN,
+                LogManager.getLogger("de.sfuhrm.snapshot.put").getLevel());
+        assertEquals(Level.WARN, LogManager.getLogger(
+                "de.sfuhrm.snapshot.put.child").getLevel());
+
+        r = serviceTarget.path("/log4j2/snapshot")
+                .request()
+                .put(Entity.entity(snapshot, MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals("", r.readEntity(String.class));
+    }
+
+    @Test
+    public void putSnapshotWithDryRun() {
+        Configurator.setLevel("de.sfuhrm.snapshot.dry", Level.WARN);
+
+        Response r = serviceTarget.path("/log4j2/snapshot")
+                .queryParam("dryrun", "true")
+                .request()
+                .put(Entity.entity("de.sfuhrm.snapshot.dry=ERROR",
+                        MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertTrue(r.readEntity(String.class)
+                .contains("de.sfuhrm.snapshot.dry\tWARN\tERROR\n"));
+        assertEquals(Level.WARN,
+                LogManager.getLogger("de.sfuhrm.snapshot.dry").getLevel());
+    }
+
+    @Test
+    public void putSnapshotWithIllegalLevel() {
+        Configurator.setLevel("de.sfuhrm.snapshot.illegal", Level.WARN);
+
+        Response r = serviceTarget.path("/log4j2/snapshot")
+                .request()
+                .put(Entity.entity("de.sfuhrm.snapshot.illegal=NOPE",
+                        MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(),
+                r.getStatus());
+        assertEquals(Level.WARN, LogManager.getLogger(
+                "de.sfuhrm.snapshot.illegal").getLevel());
+    }
+
+    @Test
+    public void putSnapshotWithIllegalLevelDoesNotCreateLoggers() {
+        Response r = serviceTarget.path("/log4j1/snapshot")
+                .request()
+                .put(Entity.entity("de.sfuhrm.rejected.snapshot=DEBUG\nde.sfuhrm.rejected.snapshot.Child=NOPE",
+                        MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+
+        assertNull(org.apache.log4j.LogManager.exists("de.sfuhrm.rejected.snapshot"));
+        assertNull(org.apache.log4j.LogManager.exists("de.sfuhrm.rejected.snapshot.Child"));
+    }
+
+    @Test
+    public void putAndListContextLevel() {
+        Configurator.setLevel("de.sfuhrm.ctx", Level.INFO);
+        Logger logger = LogManager.getLogger("de.sfuhrm.ctx.Foo");
+
+        Response r = serviceTarget.path("log4j2/de.sfuhrm.ctx/context")
+                .queryParam("key", "tenant")
+                .queryParam("value", "4711")
+                .queryParam("ttl", "10m")
+                .request()
+                .put(Entity.entity("debug", MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        ThreadContext.put("tenant", "4711");
+        try {
+            assertTrue(logger.isDebugEnabled());
+        } finally {
+            ThreadContext.remove("tenant");
+        }
+
+        r = serviceTarget.path("log4j2/contexts").request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        String body = r.readEntity(String.class);
+        assertTrue(body.startsWith("de.sfuhrm.ctx\ttenant\t4711\tDEBUG\t"), body);
+
+        r = serviceTarget.path("log4j2/de.sfuhrm.ctx/context")
+                .queryParam("key", "tenant")
+                .queryParam("value", "4711")
+                .request()
+                .delete();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        ThreadContext.put("tenant", "4711");
+        try {
+            assertFalse(logger.isDebugEnabled());
+        } finally {
+            ThreadContext.remove("tenant");
+        }
+        assertEquals("", serviceTarget.path("log4j2/contexts").request().get(String.class));
+    }
+
+    @Test
+    public void putContextLevelWithoutKey() {
+        Response r = serviceTarget.path("log4j2/de.sfuhrm.ctx/context")
+                .queryParam("value", "4711")
+                .request()
+                .put(Entity.entity("DEBUG", MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void putContextLevelWithUnsupportedFramework() {
+        Response r = serviceTarget.path("jul/de.sfuhrm.ctx/context")
+                .queryParam("key", "tenant")
+                .queryParam("value", "4711")
+                .request()
+                .put(Entity.entity("DEBUG", MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void deleteContextLevelNotFound() {
+        Response r = serviceTarget.path("log4j2/de.sfuhrm.ctx/context")
+                .queryParam("key", "tenant")
+                .queryParam("value", "none")
+                .request()
+                .delete();
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void getQueues() {
+        Response r = serviceTarget.path("log4j2/queues").request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void putQueuePolicyWithUnknownQueue() {
+        Response r = serviceTarget.path("log4j2/queues/none")
+                .request()
+                .put(Entity.entity("discard=WARN", MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void putQueuePolicyWithIllegalLine() {
+        Response r = serviceTarget.path("log4j2/queues/none")
+                .request()
+                .put(Entity.entity("blocking=maybe", MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+        r = serviceTarget.path("log4j2/queues/none")
+                .request()
+                .put(Entity.entity("size=5", MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void putQueuePolicyOfAsyncAppender() {
+        Configuration configuration = LoggerContext.getContext(false).getConfiguration();
+        AsyncAppender appender = AsyncAppender.newBuilder()
+                .setName("de.sfuhrm.server.async")
+                .setConfiguration(configuration)
+                .setAppenderRefs(new AppenderRef[0])
+                .setBufferSize(128)
+                .setBlocking(true)
+                .build();
+        configuration.addAppender(appender);
+        try {
+            Response r = serviceTarget.path("log4j2/queues/de.sfuhrm.server.async")
+                    .request()
+                    .put(Entity.entity("blocking=false", MediaType.TEXT_PLAIN));
+            assertEquals(Response.Status.NOT_IMPLEMENTED.getStatusCode(), r.getStatus());
+
+            r = serviceTarget.path("log4j2/queues/de.sfuhrm.server.async")
+                    .request()
+                    .put(Entity.entity("blocking=true\ndiscard=WARN", MediaType.TEXT_PLAIN));
+            assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+
+            r = serviceTarget.path("log4j2/queues").request().get();
+            assertTrue(r.readEntity(String.class).contains("de.sfuhrm.server.async\t128\t128\t0\ttrue\tWARN\n"));
+        } finally {
+            configuration.getAppenders().remove(appender.getName());
+        }
+    }
+
+    @Test
+    public void getAndPutAppender() throws IOException {
+        Path file = Files.createTempFile("logwebconfig", ".log");
+        Configuration configuration = LoggerContext.getContext(false).getConfiguration();
+        RandomAccessFileAppender appender = RandomAccessFileAppender.newBuilder()
+                .withName("de.sfuhrm.server.raf")
+                .setFileName(file.toString())
+                .withImmediateFlush(false)
+                .withBufferSize(2048)
+                .setConfiguration(configuration)
+                .build();
+        configuration.addAppender(appender);
+        try {
+            Response r = serviceTarget.path("log4j2/appenders/de.sfuhrm.server.raf").request().get();
+            assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+            assertEquals("type=RandomAccessFileAppender\n"
+                    + "bufferSize=2048\n"
+                    + "immediateFlush=false\n"
+                    + "memoryMapped=false\n", r.readEntity(String.class));
+
+            r = serviceTarget.path("log4j2/appenders/de.sfuhrm.server.raf")
+                    .request()
+                    .put(Entity.entity("immediateFlush=false\nbufferSize=2048", MediaType.TEXT_PLAIN));
+            assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+            r = serviceTarget.path("log4j2/appenders/de.sfuhrm.server.raf")
+                    .request()
+                    .put(Entity.entity("immediateFlush=true", MediaType.TEXT_PLAIN));
+            assertEquals(Response.Status.NOT_IMPLEMENTED.getStatusCode(), r.getStatus());
+            r = serviceTarget.path("log4j2/appenders/de.sfuhrm.server.raf")
+                    .request()
+                    .put(Entity.entity("bufferSize=lots", MediaType.TEXT_PLAIN));
+            assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+        } finally {
+            configuration.getAppenders().remove(appender.getName());
+            appender.stop();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void getAppenderWithUnknownAppender() {
+        Response r = serviceTarget.path("log4j2/appenders/none").request().get();
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void putAppenderWithUnknownAppender() {
+        Response r = serviceTarget.path("log4j2/appenders/none")
+                .request()
+                .put(Entity.entity("immediateFlush=false", MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void putAppenderWithIllegalLine() {
+        Response r = serviceTarget.path("log4j2/appenders/none")
+                .request()
+                .put(Entity.entity("immediateFlush=maybe", MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+        r = serviceTarget.path("log4j2/appenders/none")
+                .request()
+                .put(Entity.entity("bufferSize=big", MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+        r = serviceTarget.path("log4j2/appenders/none")
+                .request()
+                .put(Entity.entity("size=5", MediaType.TEXT_PLAIN));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void putWithRecursive() throws Exception {
+        installMocks();
+        Configurator.setLevel("de.sfuhrm.recursive.child", Level.WARN);
+        Mockito.doNothing().when(configuratorMock).setLevelMap(Mockito.anyMap());
+
+        Response r = serviceTarget
+                .path("log4j2/de.sfuhrm.recursive/level")
+                .queryParam("recursive", "true")
+                .request()
+                .put(Entity.entity("DEBUG", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+
+        Map<String, Level> expected = new HashMap<>();
+        expected.put("de.sfuhrm.recursive", Level.DEBUG);
+        expected.put("de.sfuhrm.recursive.child", Level.DEBUG);
+        Mockito.verify(configuratorMock).setLevelMap(expected);
+    }
+
+    @Test
+    public void putWithTtl() throws Exception {
+        Configurator.setLevel("de.sfuhrm.ttl", Level.INFO);
+
+        Response r = serviceTarget
+                .path("log4j2/de.sfuhrm.ttl/level")
+                .queryParam("ttl", "1m")
+                .request()
+                .put(Entity.entity("DEBUG", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals(Level.DEBUG, LogManager.getLogger("de.sfuhrm.ttl").getLevel());
+
+        r = serviceTarget
+                .path("log4j2/overrides")
+                .request()
+                .get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertTrue(r.readEntity(String.class).startsWith("de.sfuhrm.ttl\tDEBUG\tINFO\t"));
+
+        r = serviceTarget
+                .path("log4j2/de.sfuhrm.ttl/override")
+                .request()
+                .delete();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals(Level.INFO, LogManager.getLogger("de.sfuhrm.ttl").getLevel());
+
+        r = serviceTarget
+                .path("log4j2/de.sfuhrm.ttl/override")
+                .request()
+                .delete();
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void putWithTtlOfInheritedLevel() throws Exception {
+        Configurator.setLevel("de.sfuhrm.inherit", Level.INFO);
+        org.apache.logging.log4j.Logger child = LogManager.getLogger("de.sfuhrm.inherit.child");
+
+        Response r = serviceTarget
+                .path("log4j2/de.sfuhrm.inherit.child/level")
+                .queryParam("ttl", "100ms")
+                .request()
+                .put(Entity.entity("DEBUG", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals(Level.DEBUG, child.getLevel());
+
+        r = serviceTarget
+                .path("log4j2/overrides")
+                .request()
+                .get();
+        assertTrue(r.readEntity(String.class).startsWith("de.sfuhrm.inherit.child\tDEBUG\t-\t"));
+
+        for (int i = 0; i < 500 && child.getLevel() != Level.INFO; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(Level.INFO, child.getLevel());
+
+        Configurator.setLevel("de.sfuhrm.inherit", Level.WARN);
+        assertEquals(Level.WARN, child.getLevel());
+    }
+
+    @Test
+    public void putWithIllegalTtl() {
+        Response r = serviceTarget
+                .path("log4j2/de.sfuhrm.ttl/level")
+                .queryParam("ttl", "soon")
+                .request()
+                .put(Entity.entity("DEBUG", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void getUnknownLogger() {
+        Response r = serviceTarget.path("/log4j2/de.sfuhrm.unknown.Logger/level").request().get();
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), r.getStatus());
+    }
+
+    private static int log4j1LoggerCount() {
+        int count = 0;
+        for (Enumeration<?> loggers = org.apache.log4j.LogManager.getCurrentLoggers(); loggers.hasMoreElements(); loggers.nextElement()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void getRandomLoggersDoesNotCreateLoggers() throws IOException {
+        Server unstarted = new Server(null, port, false);
+        NanoHTTPD.IHTTPSession session = Mockito.mock(NanoHTTPD.IHTTPSession.class, Mockito.withSettings().stubOnly());
+        Mockito.when(session.getMethod()).thenReturn(NanoHTTPD.Method.GET);
+        Random random = new Random(42);
+        String[] framework = {"log4j1"};
+        Mockito.when(session.getUri()).thenAnswer(invocation ->
+                "/" + framework[0] + "/de.sfuhrm.random.L" + Long.toHexString(random.nextLong()) + "/level");
+
+        int log4j1Before = log4j1LoggerCount();
+        int log4j2Before = LoggerContext.getContext(false).getLoggers().size();
+        for (int i = 0; i < 100_000; i++) {
+            framework[0] = (i % 2 == 0) ? "log4j1" : "log4j2";
+            assertEquals(NanoHTTPD.Response.Status.NOT_FOUND, unstarted.serve(session).getStatus());
+        }
+        assertEquals(log4j1Before, log4j1LoggerCount());
+        assertEquals(log4j2Before, LoggerContext.getContext(false).getLoggers().size());
+    }
+
+    @Test
+    public void putSampledLevel() {
+        Response r = serviceTarget
+                .path("log4j2/de.sfuhrm.sampled.Server/level")
+                .request()
+                .put(Entity.entity("DEBUG@200/s", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+
+        r = serviceTarget.path("log4j2/de.sfuhrm.sampled.Server/level").request().get();
+        assertEquals("DEBUG@200/s", r.readEntity(String.class));
+
+        r = serviceTarget
+                .path("log4j2/de.sfuhrm.sampled.Server/level")
+                .request()
+                .put(Entity.entity("INFO", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+
+        r = serviceTarget.path("log4j2/de.sfuhrm.sampled.Server/level").request().get();
+        assertEquals("INFO", r.readEntity(String.class));
+    }
+
+    @Test
+    public void putSampledLevelWithIllegalRate() {
+        Response r = serviceTarget
+                .path("log4j2/de.sfuhrm.sampled.Server/level")
+                .request()
+                .put(Entity.entity("DEBUG@many/s", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void getStatsNotEnabled() {
+        Response r = serviceTarget.path("log4j2/stats").request().get();
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void getStats() throws ServerException {
+        installMocks();
+        server.enableStatistics("log4j2");
+        verify(configuratorMock).startEventCounting(any(EventCounters.class));
+
+        Response r = serviceTarget.path("log4j2/stats").request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+
+        server.stop();
+        // once before starting and once on stop
+        verify(configuratorMock, times(2)).stopEventCounting();
+    }
+
+    @Test
+    public void getBreakerNotEnabled() {
+        Response r = serviceTarget.path("log4j2/foo/breaker").request().get();
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void getBreakerClosed() {
+        server.setFloodProtection(100, 60000);
+        Response r = serviceTarget.path("log4j2/foo/breaker").request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals("CLOSED\n", r.readEntity(String.class));
+    }
+
+    @Test
+    public void getMetrics() {
+        serviceTarget.path("log4j2/stats").request().get();
+
+        Response r = serviceTarget.path("metrics").request().get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertTrue(r.getHeaderString("Content-Type").startsWith("text/plain; version=0.0.4"));
+        String text = r.readEntity(String.class);
+        assertTrue(text.contains("logwebconfig_requests_total{route=\"/{framework}/stats\",method=\"GET\",status=\"404\"} 1\n"), text);
+        // the connection of the first request may still be kept alive
+        assertTrue(text.matches("(?s).*\nlogwebconfig_active_connections [12]\n"), text);
+    }
+
+    @Test
+    public void getMetricsCountsAuthenticationFailures() {
+        server.setAuthentication("user", "password");
+        serviceTarget.path("metrics").request().get();
+
+        jerseyClient.register(HttpAuthenticationFeature.basic("user", "password"));
+        serviceTarget = jerseyClient.target("http://localhost:" + port);
+        Response r = serviceTarget.path("metrics").request().get();
+        String text = r.readEntity(String.class);
+        assertTrue(text.contains("logwebconfig_authentication_failures_total 1\n"), text);
+        assertTrue(text.contains("logwebconfig_requests_total{route=\"unmatched\",method=\"GET\",status=\"401\"} 1\n"), text);
+    }
+
+    @Test
+    public void putWithFanOutNotConfigured() {
+        Response r = serviceTarget.path("/log4j2/fanout.none/level")
+                .queryParam("fanout", "true")
+                .request()
+                .put(Entity.entity("DEBUG", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), r.getStatus());
+        assertFalse(LoggerContext.getContext(false).getConfiguration()
+                .getLoggers().containsKey("fanout.none"));
+    }
+
+    @Test
+    public void putWithFanOut() throws IOException {
+        Server peer = new Server("127.0.0.1", 10001);
+        try {
+            server.setAuthentication("user", "password");
+            peer.setAuthentication("user", "password");
+            server.setPeerFanOut(new PeerFanOut(
+                    () -> Arrays.asList("127.0.0.1:10001", "127.0.0.1:1"), 4, 5000));
+            jerseyClient.register(HttpAuthenticationFeature.basic("user", "password"));
+            serviceTarget = jerseyClient.target("http://localhost:" + port);
+
+            Response r = serviceTarget.path("/log4j2/fanout.peers/level")
+                    .queryParam("recursive", "true")
+                    .queryParam("fanout", "true")
+                    .request()
+                    .put(Entity.entity("WARN", MediaType.TEXT_PLAIN_TYPE));
+
+            assertEquals(207, r.getStatus());
+            String[] lines = r.readEntity(String.class).split("\n");
+            assertEquals(2, lines.length);
+            assertEquals("127.0.0.1:10001\t200\tOK", lines[0]);
+            assertTrue(lines[1].startsWith("127.0.0.1:1\t0\t"), lines[1]);
+            assertEquals(Level.WARN, LogManager.getLogger("fanout.peers").getLevel());
+        } finally {
+            peer.stop();
+        }
+    }
+
+    private Response putLevel(String logger, String level) {
+        return serviceTarget.path("/log4j2/" + logger + "/level")
+                .request()
+                .put(Entity.entity(level, MediaType.TEXT_PLAIN_TYPE));
+    }
+
+    @Test
+    public void getLevelWithEtag() {
+        putLevel("etag.foo", "INFO");
+        Response first = serviceTarget.path("/log4j2/etag.foo/level").request().get();
+        String etag = first.getHeaderString("ETag");
+        assertNotNull(etag);
+        assertEquals("INFO", first.readEntity(String.class));
+
+        Response second = serviceTarget.path("/log4j2/etag.foo/level").request()
+                .header("If-None-Match", etag).get();
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), second.getStatus());
+        assertEquals(etag, second.getHeaderString("ETag"));
+    }
+
+    @Test
+    public void getLevelWithEtagAfterOtherChange() {
+        putLevel("etag.foo", "INFO");
+        String etag = serviceTarget.path("/log4j2/etag.foo/level").request().get().getHeaderString("ETag");
+        putLevel("etag.bar", "DEBUG");
+
+        Response r = serviceTarget.path("/log4j2/etag.foo/level").request()
+                .header("If-None-Match", etag).get();
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), r.getStatus());
+        assertNotEquals(etag, r.getHeaderString("ETag"));
+    }
+
+    @Test
+    public void getLevelWithEtagAfterChange() {
+        putLevel("etag.foo", "INFO");
+        String etag = serviceTarget.path("/log4j2/etag.foo/level").request().get().getHeaderString("ETag");
+        putLevel("etag.foo", "WARN");
+
+        Response r = serviceTarget.path("/log4j2/etag.foo/level").request()
+                .header("If-None-Match", etag).get();
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals("WARN", r.readEntity(String.class));
+    }
+
+    @Test
+    public void getLevelWaitsForChange() throws InterruptedException {
+        putLevel("etag.foo", "INFO");
+        String etag = serviceTarget.path("/log4j2/etag.foo/level").request().get().getHeaderString("ETag");
+        Thread changer = new Thread(() -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                return;
+            }
+            Client client = ClientBuilder.newClient();
+            client.target("http://localhost:" + port).path("/log4j2/etag.foo/level")
+                    .request().put(Entity.entity("ERROR", MediaType.TEXT_PLAIN_TYPE));
+            client.close();
+        });
+        changer.start();
+
+        long start = System.nanoTime();
+        Response r = serviceTarget.path("/log4j2/etag.foo/level").queryParam("wait", "10s").request()
+                .header("If-None-Match", etag).get();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        changer.join();
+
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+        assertEquals("ERROR", r.readEntity(String.class));
+        assertTrue(millis >= 250 && millis < 5000, Long.toString(millis));
+    }
+
+    @Test
+    public void getLevelWaitTimesOut() {
+        putLevel("etag.foo", "INFO");
+        String etag = serviceTarget.path("/log4j2/etag.foo/level").request().get().getHeaderString("ETag");
+
+        Response r = serviceTarget.path("/log4j2/etag.foo/level").queryParam("wait", "200ms").request()
+                .header("If-None-Match", etag).get();
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), r.getStatus());
+    }
+
+    @Test
+    public void getEvents() throws IOException {
+        putLevel("events.foo", "INFO");
+        HttpURLConnection connection = (HttpURLConnection)
+                new URL("http://localhost:" + port + "/events").openConnection();
+        connection.setReadTimeout(5000);
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(connection.getContentType().startsWith("text/event-stream"));
+
+        putLevel("events.foo", "ERROR");
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String id = reader.readLine();
+            assertTrue(id.startsWith("id: "), id);
+            assertEquals("event: level", reader.readLine());
+            String data = reader.readLine();
+            assertTrue(data.startsWith("data: log4j2\tevents.foo\t"), data);
+            assertTrue(data.contains("\tINFO\tERROR\t"), data);
+            assertEquals("", reader.readLine());
+        }
+    }
+
+    @Test
+    public void getEventsOfRecursivePut() throws IOException {
+        Configurator.setLevel("events.tree", Level.INFO);
+        Configurator.setLevel("events.tree.child", Level.WARN);
+        LogManager.getLogger("events.tree.Inherited");
+        Configurator.setLevel("events.treeOther", Level.WARN);
+        HttpURLConnection connection = (HttpURLConnection)
+                new URL("http://localhost:" + port + "/events").openConnection();
+        connection.setReadTimeout(5000);
+        assertEquals(200, connection.getResponseCode());
+
+        Response r = serviceTarget
+                .path("log4j2/events.tree/level")
+                .queryParam("recursive", "true")
+                .request()
+                .put(Entity.entity("DEBUG", MediaType.TEXT_PLAIN_TYPE));
+        assertEquals(Response.Status.OK.getStatusCode(), r.getStatus());
+
+        Set<String> changes = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(reader.readLine().startsWith("id: "));
+                assertEquals("event: level", reader.readLine());
+                String[] data = reader.readLine().split("\t");
+                changes.add(data[1] + "=" + data[2] + ">" + data[3]);
+                assertEquals("", reader.readLine());
+            }
+        }
+        assertEquals(new HashSet<>(Arrays.asList(
+                "events.tree=INFO>DEBUG",
+                "events.tree.child=WARN>DEBUG",
+                "events.tree.Inherited=INFO>DEBUG")), changes);
+    }
+
+    @Test
+    public void putLevelWithJournal() throws IOException {
+        Path file = Files.createTempFile("journal", ".txt");
+        try {
+            Journal journal = new Journal(file);
+            journal.open();
+            server.setJournal(journal);
+
+            putLevel("journal.foo", "DEBUG");
+            serviceTarget
+                    .path("log4j2/journal.bar/level")
+                    .queryParam("ttl", "1m")
+                    .request()
+                    .put(Entity.entity("WARN", MediaType.TEXT_PLAIN_TYPE));
+            serviceTarget
+                    .path("/log4j2/levels")
+                    .request()
+                    .put(Entity.entity("journal.baz=ERROR\n", MediaType.TEXT_PLAIN_TYPE));
+            journal.close();
+
+            assertEquals(Arrays.asList(
+                    "log4j2\tjournal.foo\tDEBUG",
+                    "log4j2\tjournal.baz\tERROR"),
+                    Files.readAllLines(file, StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void replay() {
+        List<String> failures = server.replay(Arrays.asList(
+                new Journal.Record("log4j2", "replay.foo", "INFO", false),
+                new Journal.Record("log4j2", "replay.foo", "Schnitlauch", false),
+                new Journal.Record("unknown", "replay.foo", "DEBUG", false),
+                new Journal.Record("log4j2", "replay.bar", "ERROR", false)));
+
+        assertEquals(2, failures.size());
+        assertTrue(failures.get(0).startsWith("line 2: "), failures.get(0));
+        assertTrue(failures.get(1).startsWith("line 3: "), failures.get(1));
+        assertEquals(Level.INFO, LogManager.getLogger("replay.foo").getLevel());
+        assertEquals(Level.ERROR, LogManager.getLogger("replay.bar").getLevel());
+    }
+
+    /** Starts a server with a bounded runner, limited like
+     * {@link LogWebConfig} does, and one concurrent request. */
+    private Server startBounded(ExecutionMode mode, int poolSize, AdmissionControl[] admission) throws IOException {
+        Server bounded = new Server(null, boundedPort, false);
+        admission[0] = new AdmissionControl(1, 0, 1,
+                mode.limitWaiting(poolSize, AdmissionControl.DEFAULT_MAX_WAITING));
+        bounded.setAdmissionControl(admission[0]);
+        bounded.setAsyncRunner(mode.newAsyncRunner(poolSize, 4));
+        bounded.start(1000, true);
+        return bounded;
+    }
+
+    /** Opens a connection that is closed after the response, so it
+     * does not keep a thread of a bounded server. */
+    private HttpURLConnection open(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)
+                new URL("http://localhost:" + boundedPort + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Connection", "close");
+        connection.setReadTimeout(5000);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "text/plain");
+            connection.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+
+    private String etagOf(String path) throws IOException {
+        HttpURLConnection connection = open("GET", path, null);
+        assertEquals(200, connection.getResponseCode());
+        return connection.getHeaderField("ETag");
+    }
+
+    private int waitFor(String path, String etag, String wait) throws IOException {
+        HttpURLConnection connection = open("GET", path + "?wait=" + wait, null);
+        connection.setRequestProperty("If-None-Match", etag);
+        return connection.getResponseCode();
+    }
+
+    @Test
+    public void getLevelWaitingWithPoolRunner() throws Exception {
+        AdmissionControl[] admission = new AdmissionControl[1];
+        Server bounded = startBounded(ExecutionMode.POOL, 2, admission);
+        try {
+            assertEquals(200, open("PUT", "/log4j2/bounded.foo/level", "INFO").getResponseCode());
+            String etag = etagOf("/log4j2/bounded.foo/level");
+            CompletableFuture<Integer> waiting = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return waitFor("/log4j2/bounded.foo/level", etag, "10s");
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (admission[0].getWaiting() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, admission[0].getWaiting());
+
+            long start = System.nanoTime();
+            assertEquals(304, waitFor("/log4j2/bounded.foo/level", etag, "10s"));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+            assertEquals(200, open("PUT", "/log4j2/bounded.foo/level", "ERROR").getResponseCode());
+            assertEquals(200, waiting.get(5, TimeUnit.SECONDS).intValue());
+            assertEquals(0, admission[0].getWaiting());
+        } finally {
+            bounded.stop();
+        }
+    }
+
+    @Test
+    public void getLevelWaitingWithSingleRunner() throws Exception {
+        AdmissionControl[] admission = new AdmissionControl[1];
+        Server bounded = startBounded(ExecutionMode.SINGLE, 4, admission);
+        try {
+            assertEquals(200, open("PUT", "/log4j2/bounded.bar/level", "INFO").getResponseCode());
+            String etag = etagOf("/log4j2/bounded.bar/level");
+
+            long start = System.nanoTime();
+            assertEquals(304, waitFor("/log4j2/bounded.bar/level", etag, "10s"));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            assertEquals(200, open("PUT", "/log4j2/bounded.bar/level", "ERROR").getResponseCode());
+        } finally {
+            bounded.stop();
+        }
+    }
+
+    @Test
+    public void getEventsWithPoolRunner() throws Exception {
+        AdmissionControl[] admission = new AdmissionControl[1];
+        Server bounded = startBounded(ExecutionMode.POOL, 2, admission);
+        try {
+            HttpURLConnection subscriber = open("GET", "/events", null);
+            assertEquals(200, subscriber.getResponseCode());
+            assertEquals(1, admission[0].getWaiting());
+
+            assertEquals(503, open("GET", "/events", null).getResponseCode());
+            assertEquals(200, open("PUT", "/log4j2/bounded.events/level", "ERROR").getResponseCode());
+            assertEquals(200, open("PUT", "/log4j2/bounded.events/level", "WARN").getResponseCode());
+
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(subscriber.getInputStream(), StandardCharsets.UTF_8))) {
+                assertTrue(reader.readLine().startsWith("id: "));
+            }
+        } finally {
+            bounded.stop();
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link TimerWheel} class.
+ * */
+public class TimerWheelTest {
+
+    private static final String THREAD_NAME = "TimerWheelTest Timer";
+
+    private TimerWheel instance;
+
+    @BeforeEach
+    public void init() {
+        instance = new TimerWheel(10, TimeUnit.MILLISECONDS, 8, THREAD_NAME);
+    }
+
+    @AfterEach
+    public void stop() {
+        instance.stop();
+    }
+
+    @Test
+    public void scheduleExpires() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        instance.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void scheduleBeyondOneRotation() throws InterruptedException {
+        // 8 ticks of 10ms are one rotation
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        instance.schedule(latch::countDown, 250, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    @Test
+    public void cancel() throws InterruptedException {
+        AtomicInteger count = new AtomicInteger();
+        TimerWheel.Timeout timeout = instance.schedule(count::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        Thread.sleep(100);
+        assertEquals(0, count.get());
+    }
+
+    @Test
+    public void manyTimeoutsWithOneThread() throws InterruptedException {
+        int timeouts = 10000;
+        CountDownLatch latch = new CountDownLatch(timeouts);
+        for (int i = 0; i < timeouts; i++) {
+            instance.schedule(latch::countDown, i % 200, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        long timerThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> THREAD_NAME.equals(thread.getName()))
+                .count();
+        assertEquals(1, timerThreads);
+    }
+
+    @Test
+    public void scheduleAfterStop() {
+        instance.stop();
+        assertThrows(IllegalStateException.class,
+                () -> instance.schedule(() -> { }, 1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,49 @@
+package de.sfuhrm.logwebconfig;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for the {@link TokenBucket} class.
+ * */
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void reserveWithinBurst() {
+        TokenBucket instance = new TokenBucket(200, 200, 0);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(0, instance.reserve(0));
+        }
+        assertTrue(instance.reserve(0) > 0);
+    }
+
+    @Test
+    public void reserveRefills() {
+        TokenBucket instance = new TokenBucket(2, 1, 0);
+        assertEquals(0, instance.reserve(0));
+        assertEquals(SECOND / 2, instance.reserve(0));
+        assertEquals(0, instance.reserve(SECOND / 2));
+    }
+
+    @Test
+    public void isFull() {
+        TokenBucket instance = new TokenBucket(1, 1, 0);
+        assertTrue(instance.isFull(0));
+        instance.reserve(0);
+        assertFalse(instance.isFull(0));
+        assertTrue(instance.isFull(SECOND));
+    }
+
+    @Test
+    public void illegalRate() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, 0));
+    }
+}